@@ -0,0 +1,88 @@
+package org.talend.components.playground.cxf.authent.digest;
+
+import org.apache.cxf.configuration.security.AuthorizationPolicy;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.transport.Conduit;
+import org.apache.cxf.transport.http.Address;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transport.http.Headers;
+
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Streams request bodies under qop=auth-int without keeping them in memory.
+ * <p>
+ * The body is hashed by an {@link EntityHashOutputStream} while the JAX-RS provider writes it.
+ * When the host already has a cached auth-int session, the body is spooled and the preemptive Authorization header
+ * is computed once the body is complete, before the body is sent. Otherwise the body is sent as is, hashed with every
+ * digest algorithm, and the challenge that follows takes the hash of its algorithm. The conduit sends the body
+ * chunked and caches it for the retransmission in a CachedOutputStream, so the body is never fully in memory.
+ * <p>
+ * To register on the clients using a {@link CachingDigestAuthSupplier}, it does nothing for the others.
+ */
+public class AuthIntOutInterceptor extends AbstractPhaseInterceptor<Message> {
+
+    private final static Set<String> NO_CONTENT_VERBS = new HashSet<>(Arrays.asList("GET", "HEAD", "OPTIONS", "TRACE"));
+
+    public AuthIntOutInterceptor() {
+        // After the conduit stream is set up in PREPARE_SEND, before the body is written in WRITE
+        super(Phase.PRE_STREAM);
+    }
+
+    @Override
+    public void handleMessage(Message message) throws Fault {
+        final OutputStream os = message.getContent(OutputStream.class);
+        if (os == null || NO_CONTENT_VERBS.contains(message.get(Message.HTTP_REQUEST_METHOD))) {
+            return;
+        }
+
+        final Conduit conduit = message.getExchange().getConduit(message);
+        if (!(conduit instanceof HTTPConduit)
+                || !(((HTTPConduit) conduit).getAuthSupplier() instanceof CachingDigestAuthSupplier)) {
+            return;
+        }
+        if (new Headers(message).getAuthorization() != null) {
+            // Preemptive header already computed by the conduit: qop=auth or known body
+            return;
+        }
+
+        final HTTPConduit httpConduit = (HTTPConduit) conduit;
+        final CachingDigestAuthSupplier supplier = (CachingDigestAuthSupplier) httpConduit.getAuthSupplier();
+        final AuthorizationPolicy policy = httpConduit.getEffectiveAuthPolicy(message);
+        final URI uri = currentURI(message);
+        if (policy == null || uri == null) {
+            return;
+        }
+
+        final DigestSession session = supplier.session(policy, uri);
+        if (session != null && !session.getChallenge().isAuthInt()) {
+            return;
+        }
+
+        final DigestAlgorithm algorithm = session == null ? null : session.getChallenge().getAlgorithm();
+        EntityHashOutputStream stream = new EntityHashOutputStream(os, algorithm, () -> {
+            if (algorithm == null) {
+                return;
+            }
+            String authorization = supplier.getAuthorization(policy, uri, message, null);
+            if (authorization != null) {
+                new Headers(message).setAuthorization(authorization);
+            }
+        });
+        message.put(EntityHashOutputStream.class, stream);
+        message.setContent(OutputStream.class, stream);
+    }
+
+    private static URI currentURI(Message message) {
+        Object address = message.get(HTTPConduit.KEY_HTTP_CONNECTION_ADDRESS);
+        return address instanceof Address ? ((Address) address).getURI() : null;
+    }
+
+}
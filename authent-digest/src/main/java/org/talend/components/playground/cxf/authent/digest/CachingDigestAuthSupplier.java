@@ -0,0 +1,158 @@
+package org.talend.components.playground.cxf.authent.digest;
+
+import org.apache.cxf.configuration.security.AuthorizationPolicy;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageContentsList;
+import org.apache.cxf.message.MessageUtils;
+import org.apache.cxf.transport.http.auth.HttpAuthSupplier;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Digest authentication that sends a preemptive Authorization header once the server has been challenged.
+ * <p>
+ * The CXF DigestAuthSupplier keeps the challenge per URI and per conduit, so each new client
+ * pays an unauthenticated call and a 401 before the real one. Here the challenge is kept in a
+ * {@link DigestCache} per host and user, shared by all the conduits, and only a new challenge
+ * (first call, stale nonce, wrong credentials) costs an extra round trip.
+ * <p>
+ * Usage: {@code conduit.setAuthSupplier(new CachingDigestAuthSupplier(cache))} with a Digest AuthorizationPolicy.
+ */
+public class CachingDigestAuthSupplier implements HttpAuthSupplier {
+
+    /**
+     * Message property with the hex hash of the request body, for auth-int when the body is not a String or byte[]
+     * and the {@link AuthIntOutInterceptor} is not used.
+     */
+    public final static String ENTITY_HASH = CachingDigestAuthSupplier.class.getName() + ".entityHash";
+
+    /**
+     * Message or request context property, true when the request body may be encoded while written (compression):
+     * the auth-int hash is then only computed from the bytes sent, by the {@link AuthIntOutInterceptor}.
+     */
+    public final static String ENCODED_ENTITY = CachingDigestAuthSupplier.class.getName() + ".encodedEntity";
+
+    private final DigestCache cache;
+
+    private final boolean preferAuthInt;
+
+    public CachingDigestAuthSupplier() {
+        this(new DigestCache(), false);
+    }
+
+    public CachingDigestAuthSupplier(DigestCache cache) {
+        this(cache, false);
+    }
+
+    public CachingDigestAuthSupplier(DigestCache cache, boolean preferAuthInt) {
+        this.cache = cache;
+        this.preferAuthInt = preferAuthInt;
+    }
+
+    public DigestCache getCache() {
+        return cache;
+    }
+
+    /**
+     * The nonce can become stale and the server challenge again, so the request has to be cached.
+     */
+    @Override
+    public boolean requiresRequestCaching() {
+        return true;
+    }
+
+    @Override
+    public String getAuthorization(AuthorizationPolicy authPolicy, URI currentURI, Message message, String fullHeader) {
+        if (authPolicy == null || (authPolicy.getUserName() == null && authPolicy.getPassword() == null)) {
+            return null;
+        }
+
+        final String key = DigestCache.key(currentURI, authPolicy.getUserName());
+        final DigestSession session;
+        if (fullHeader == null) {
+            // Preemptive, only possible if the host has already been challenged
+            session = cache.get(key);
+            if (session == null) {
+                return null;
+            }
+        } else {
+            DigestChallenge challenge = DigestChallenge.parse(fullHeader, preferAuthInt);
+            if (challenge == null) {
+                return null;
+            }
+            cache.challenge(challenge.isStale());
+            session = new DigestSession(challenge, authPolicy.getUserName(), authPolicy.getPassword());
+            cache.put(key, session);
+        }
+
+        String entityHash = null;
+        if (session.getChallenge().isAuthInt()) {
+            entityHash = entityHash(session.getChallenge().getAlgorithm(), message);
+            if (entityHash == null) {
+                // The body is not known before being written
+                return null;
+            }
+        }
+
+        if (fullHeader == null) {
+            cache.preemptive();
+        }
+        return session.authorization(method(message), authURI(currentURI), entityHash);
+    }
+
+    /**
+     * @return the cached session for the host and user, null if not challenged yet.
+     */
+    DigestSession session(AuthorizationPolicy authPolicy, URI currentURI) {
+        return cache.get(DigestCache.key(currentURI, authPolicy.getUserName()));
+    }
+
+    private static String entityHash(DigestAlgorithm algorithm, Message message) {
+        EntityHashOutputStream stream = message.get(EntityHashOutputStream.class);
+        if (stream != null) {
+            try {
+                return stream.hash(algorithm);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Can't hash the request body for auth-int", e);
+            }
+        }
+
+        if (MessageUtils.getContextualBoolean(message, ENCODED_ENTITY)) {
+            // The body object is not what is sent
+            return null;
+        }
+
+        Object hash = message.get(ENTITY_HASH);
+        if (hash != null) {
+            return hash.toString();
+        }
+
+        MessageContentsList contents = MessageContentsList.getContentsList(message);
+        Object body = contents == null || contents.isEmpty() ? null : contents.get(0);
+        if (body == null) {
+            return algorithm.hash(new byte[0]);
+        } else if (body instanceof byte[]) {
+            return algorithm.hash((byte[]) body);
+        } else if (body instanceof String) {
+            return algorithm.hash((String) body, StandardCharsets.UTF_8);
+        }
+        return null;
+    }
+
+    private static String method(Message message) {
+        String method = (String) message.get(Message.HTTP_REQUEST_METHOD);
+        return method == null ? "POST" : method;
+    }
+
+    private static String authURI(URI currentURI) {
+        String path = currentURI.getRawPath();
+        if (path == null || path.isEmpty()) {
+            path = "/";
+        }
+        return currentURI.getRawQuery() == null ? path : path + '?' + currentURI.getRawQuery();
+    }
+
+}
@@ -0,0 +1,115 @@
+package org.talend.components.playground.cxf.authent.digest;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Digest algorithms from RFC 7616, plus SHA-512 which is also used by some servers (httpbin).
+ */
+public enum DigestAlgorithm {
+    MD5("MD5", "MD5", false),
+    MD5_SESS("MD5-sess", "MD5", true),
+    SHA_256("SHA-256", "SHA-256", false),
+    SHA_256_SESS("SHA-256-sess", "SHA-256", true),
+    SHA_512("SHA-512", "SHA-512", false),
+    SHA_512_SESS("SHA-512-sess", "SHA-512", true),
+    SHA_512_256("SHA-512-256", "SHA-512/256", false),
+    SHA_512_256_SESS("SHA-512-256-sess", "SHA-512/256", true);
+
+    private final String token;
+
+    private final String jcaName;
+
+    private final boolean session;
+
+    /**
+     * MessageDigest is not thread safe and costly to get from the providers, so one is kept per thread.
+     */
+    private final ThreadLocal<MessageDigest> digests;
+
+    /**
+     * Kept apart from digests since a body hash lasts while the body is written, other hashes can be computed meanwhile.
+     */
+    private final ThreadLocal<MessageDigest> entityDigests;
+
+    DigestAlgorithm(String token, String jcaName, boolean session) {
+        this.token = token;
+        this.jcaName = jcaName;
+        this.session = session;
+        this.digests = ThreadLocal.withInitial(() -> newMessageDigest(jcaName));
+        this.entityDigests = ThreadLocal.withInitial(() -> newMessageDigest(jcaName));
+    }
+
+    private static MessageDigest newMessageDigest(String jcaName) {
+        try {
+            return MessageDigest.getInstance(jcaName);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Digest algorithm not supported by the JVM: " + jcaName, e);
+        }
+    }
+
+    /**
+     * @return the value of the algorithm parameter in the digest headers.
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * @return the name of the hash function, shared by an algorithm and its -sess variant.
+     */
+    String getJcaName() {
+        return jcaName;
+    }
+
+    /**
+     * @return true for the -sess variants where HA1 also depends on nonce and cnonce.
+     */
+    public boolean isSession() {
+        return session;
+    }
+
+    /**
+     * @return the MessageDigest of the current thread, reset and ready to use.
+     */
+    public MessageDigest messageDigest() {
+        MessageDigest digest = digests.get();
+        digest.reset();
+        return digest;
+    }
+
+    /**
+     * @return the MessageDigest of the current thread to hash a request body, reset and ready to use.
+     */
+    public MessageDigest entityDigest() {
+        MessageDigest digest = entityDigests.get();
+        digest.reset();
+        return digest;
+    }
+
+    public String hash(String value, Charset charset) {
+        return Hex.encode(messageDigest().digest(value.getBytes(charset)));
+    }
+
+    public String hash(byte[] value) {
+        return Hex.encode(messageDigest().digest(value));
+    }
+
+    /**
+     * @param token the algorithm parameter of the challenge, MD5 if null.
+     * @return the algorithm or null if not supported.
+     */
+    public static DigestAlgorithm forToken(String token) {
+        if (token == null) {
+            return MD5;
+        }
+        for (DigestAlgorithm algorithm : values()) {
+            if (algorithm.token.equalsIgnoreCase(token)) {
+                return algorithm;
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,77 @@
+package org.talend.components.playground.cxf.authent.digest;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Digest sessions by host and user, shared by all the conduits using the same cache.
+ */
+public class DigestCache {
+
+    private final Map<String, DigestSession> sessions = new ConcurrentHashMap<>();
+
+    private final LongAdder preemptive = new LongAdder();
+
+    private final LongAdder challenges = new LongAdder();
+
+    private final LongAdder staleChallenges = new LongAdder();
+
+    /**
+     * @return scheme://host:port followed by the user name.
+     */
+    static String key(URI uri, String userName) {
+        int port = uri.getPort();
+        if (port == -1) {
+            port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+        }
+        return uri.getScheme() + "://" + uri.getHost() + ':' + port + '#' + userName;
+    }
+
+    DigestSession get(String key) {
+        return sessions.get(key);
+    }
+
+    void put(String key, DigestSession session) {
+        sessions.put(key, session);
+    }
+
+    void preemptive() {
+        preemptive.increment();
+    }
+
+    void challenge(boolean stale) {
+        challenges.increment();
+        if (stale) {
+            staleChallenges.increment();
+        }
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    public void clear() {
+        sessions.clear();
+    }
+
+    /**
+     * @return number of requests sent with an Authorization header computed from a cached session.
+     */
+    public long getPreemptive() {
+        return preemptive.sum();
+    }
+
+    /**
+     * @return number of 401 challenges answered, including the stale ones.
+     */
+    public long getChallenges() {
+        return challenges.sum();
+    }
+
+    public long getStaleChallenges() {
+        return staleChallenges.sum();
+    }
+
+}
@@ -0,0 +1,86 @@
+package org.talend.components.playground.cxf.authent.digest;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import org.apache.cxf.transport.http.auth.HttpAuthHeader;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The parameters of a WWW-Authenticate Digest challenge.
+ */
+@Value
+@AllArgsConstructor
+public class DigestChallenge {
+
+    public final static String QOP_AUTH = "auth";
+
+    public final static String QOP_AUTH_INT = "auth-int";
+
+    String realm;
+
+    String nonce;
+
+    String opaque;
+
+    DigestAlgorithm algorithm;
+
+    /**
+     * The selected quality of protection: auth, auth-int or null for RFC 2069 servers.
+     */
+    String qop;
+
+    Charset charset;
+
+    /**
+     * The previous nonce has expired but the credentials were right.
+     */
+    boolean stale;
+
+    /**
+     * @param fullHeader the WWW-Authenticate header value.
+     * @param preferAuthInt select auth-int when the server offers both auth and auth-int.
+     * @return the challenge or null if it is not a digest one or uses an unsupported algorithm.
+     */
+    public static DigestChallenge parse(String fullHeader, boolean preferAuthInt) {
+        HttpAuthHeader header = new HttpAuthHeader(fullHeader);
+        if (!header.authTypeIsDigest()) {
+            return null;
+        }
+
+        Map<String, String> params = header.getParams();
+        DigestAlgorithm algorithm = DigestAlgorithm.forToken(params.get("algorithm"));
+        if (algorithm == null || params.get("nonce") == null) {
+            return null;
+        }
+
+        String qop = null;
+        if (params.get("qop") != null) {
+            List<String> offered = Arrays.asList(params.get("qop").trim().split("\\s*,\\s*"));
+            boolean auth = offered.contains(QOP_AUTH);
+            boolean authInt = offered.contains(QOP_AUTH_INT);
+            if (authInt && (preferAuthInt || !auth)) {
+                qop = QOP_AUTH_INT;
+            } else if (auth) {
+                qop = QOP_AUTH;
+            } else {
+                return null;
+            }
+        }
+
+        Charset charset = "UTF-8".equalsIgnoreCase(params.get("charset"))
+                ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1;
+
+        return new DigestChallenge(params.get("realm"), params.get("nonce"), params.get("opaque"),
+                algorithm, qop, charset, "true".equalsIgnoreCase(params.get("stale")));
+    }
+
+    public boolean isAuthInt() {
+        return QOP_AUTH_INT.equals(qop);
+    }
+
+}
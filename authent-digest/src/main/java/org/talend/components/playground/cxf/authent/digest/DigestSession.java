@@ -0,0 +1,103 @@
+package org.talend.components.playground.cxf.authent.digest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A server challenge accepted for some credentials.
+ * <p>
+ * HA1 only depends on the credentials, the realm and for -sess algorithms the nonce and cnonce,
+ * so it is computed once. Each authorization then only costs HA2 and the response hashes,
+ * and increments the nonce count so the server accepts the reused nonce.
+ */
+public class DigestSession {
+
+    private final static SecureRandom RANDOM = new SecureRandom();
+
+    private final DigestChallenge challenge;
+
+    private final String userName;
+
+    private final String cnonce;
+
+    private final String ha1;
+
+    private final AtomicInteger nonceCount = new AtomicInteger();
+
+    public DigestSession(DigestChallenge challenge, String userName, String password) {
+        this(challenge, userName, password, createCnonce());
+    }
+
+    DigestSession(DigestChallenge challenge, String userName, String password, String cnonce) {
+        this.challenge = challenge;
+        this.userName = userName;
+        this.cnonce = cnonce;
+
+        DigestAlgorithm algorithm = challenge.getAlgorithm();
+        String a1 = algorithm.hash(userName + ':' + challenge.getRealm() + ':' + password, challenge.getCharset());
+        if (algorithm.isSession()) {
+            a1 = algorithm.hash(a1 + ':' + challenge.getNonce() + ':' + cnonce, challenge.getCharset());
+        }
+        this.ha1 = a1;
+    }
+
+    public DigestChallenge getChallenge() {
+        return challenge;
+    }
+
+    public int getNonceCount() {
+        return nonceCount.get();
+    }
+
+    /**
+     * @param method the HTTP verb.
+     * @param uri the request path and query.
+     * @param entityHash the hash of the request body, only used by auth-int.
+     * @return the Authorization header value.
+     */
+    public String authorization(String method, String uri, String entityHash) {
+        DigestAlgorithm algorithm = challenge.getAlgorithm();
+        String qop = challenge.getQop();
+
+        String a2 = method + ':' + uri;
+        if (challenge.isAuthInt()) {
+            a2 += ':' + entityHash;
+        }
+        String ha2 = algorithm.hash(a2, StandardCharsets.ISO_8859_1);
+
+        String nc = null;
+        String response;
+        if (qop == null) {
+            response = algorithm.hash(ha1 + ':' + challenge.getNonce() + ':' + ha2, StandardCharsets.ISO_8859_1);
+        } else {
+            nc = Hex.encode8(nonceCount.incrementAndGet());
+            response = algorithm.hash(ha1 + ':' + challenge.getNonce() + ':' + nc + ':' + cnonce + ':' + qop + ':' + ha2,
+                    StandardCharsets.ISO_8859_1);
+        }
+
+        StringBuilder sb = new StringBuilder(256 + uri.length());
+        sb.append("Digest username=\"").append(userName).append('"');
+        sb.append(", realm=\"").append(challenge.getRealm()).append('"');
+        sb.append(", nonce=\"").append(challenge.getNonce()).append('"');
+        sb.append(", uri=\"").append(uri).append('"');
+        sb.append(", algorithm=").append(algorithm.getToken());
+        if (qop != null) {
+            sb.append(", qop=").append(qop);
+            sb.append(", nc=").append(nc);
+            sb.append(", cnonce=\"").append(cnonce).append('"');
+        }
+        sb.append(", response=\"").append(response).append('"');
+        if (challenge.getOpaque() != null) {
+            sb.append(", opaque=\"").append(challenge.getOpaque()).append('"');
+        }
+        return sb.toString();
+    }
+
+    private static String createCnonce() {
+        byte[] bytes = new byte[16];
+        RANDOM.nextBytes(bytes);
+        return Hex.encode(bytes);
+    }
+
+}
@@ -0,0 +1,136 @@
+package org.talend.components.playground.cxf.authent.digest;
+
+import org.apache.cxf.io.CachedOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Request body stream for auth-int.
+ * <p>
+ * With a cached session, the Authorization header depends on the body hash and is sent before the body, so the body
+ * is spooled in a CachedOutputStream (memory under its threshold, then a temporary file) and hashed while it is
+ * written. On close, onBodyComplete can set the headers, then the spooled body is written to the conduit stream.
+ * <p>
+ * Without a session, the algorithm is only known from the challenge answering the body, so the body goes straight to
+ * the conduit stream, hashed with each hash function of the digest algorithms. The conduit caches it for the
+ * retransmission, the challenge then takes the hash of its algorithm.
+ */
+class EntityHashOutputStream extends OutputStream {
+
+    private final OutputStream target;
+
+    /**
+     * The body until complete, null when written to the target directly.
+     */
+    private final CachedOutputStream spool;
+
+    /**
+     * The digests of the body by hash function name.
+     */
+    private final Map<String, MessageDigest> digests = new HashMap<>();
+
+    private final Runnable onBodyComplete;
+
+    private final Map<String, String> hashes = new HashMap<>();
+
+    private boolean closed;
+
+    /**
+     * @param algorithm algorithm of the cached session, null if the host has not been challenged yet.
+     */
+    EntityHashOutputStream(OutputStream target, DigestAlgorithm algorithm, Runnable onBodyComplete) {
+        this.target = target;
+        this.onBodyComplete = onBodyComplete;
+        if (algorithm != null) {
+            this.spool = new CachedOutputStream();
+            digests.put(algorithm.getJcaName(), algorithm.entityDigest());
+        } else {
+            this.spool = null;
+            for (DigestAlgorithm a : DigestAlgorithm.values()) {
+                digests.computeIfAbsent(a.getJcaName(), name -> a.entityDigest());
+            }
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out().write(b);
+        for (MessageDigest digest : digests.values()) {
+            digest.update((byte) b);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out().write(b, off, len);
+        for (MessageDigest digest : digests.values()) {
+            digest.update(b, off, len);
+        }
+    }
+
+    /**
+     * Nothing can be sent before a spooled body is complete.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (spool == null) {
+            target.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            digests.forEach((name, digest) -> hashes.put(name, Hex.encode(digest.digest())));
+            onBodyComplete.run();
+
+            if (spool != null) {
+                spool.writeCacheTo(target);
+            }
+            // Sends the request and handles the response, with a possible challenge reading the hashes
+            target.close();
+        } finally {
+            if (spool != null) {
+                spool.close();
+            }
+        }
+    }
+
+    /**
+     * @return the hex hash of the body, computed while written or by reading the spooled body for another algorithm.
+     */
+    String hash(DigestAlgorithm algorithm) throws IOException {
+        String hash = hashes.get(algorithm.getJcaName());
+        if (hash != null) {
+            return hash;
+        }
+        if (spool == null) {
+            throw new IOException("The body is not complete");
+        }
+
+        MessageDigest md = algorithm.entityDigest();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = spool.getInputStream()) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                md.update(buffer, 0, n);
+            }
+        }
+        return Hex.encode(md.digest());
+    }
+
+    private OutputStream out() {
+        return spool != null ? spool : target;
+    }
+
+}
@@ -0,0 +1,32 @@
+package org.talend.components.playground.cxf.authent.digest;
+
+final class Hex {
+
+    private final static char[] DIGITS = "0123456789abcdef".toCharArray();
+
+    private Hex() {
+        /** Don't instantiate **/
+    }
+
+    static String encode(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = DIGITS[(bytes[i] >> 4) & 0x0F];
+            chars[2 * i + 1] = DIGITS[bytes[i] & 0x0F];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @return the 8 digits nonce count, as "00000001".
+     */
+    static String encode8(int value) {
+        char[] chars = new char[8];
+        for (int i = 7; i >= 0; i--) {
+            chars[i] = DIGITS[value & 0x0F];
+            value >>>= 4;
+        }
+        return new String(chars);
+    }
+
+}
@@ -0,0 +1,132 @@
+package org.talend.components.playground.cxf.authent.digest;
+
+import org.apache.cxf.configuration.security.AuthorizationPolicy;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.transport.http.auth.HttpAuthHeader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+class CachingDigestAuthSupplierTest {
+
+    private final static String CHALLENGE = "Digest realm=\"http-auth@example.org\", qop=\"auth, auth-int\", algorithm=%s, "
+            + "nonce=\"7ypf/xlj9XXwfDPEoM4URrv/xwf94BcCAzFZH4GiTo0v\", opaque=\"FQhe/qaU925kfnzjCev0ciny7QMkPqMAFRtzCUYo5tdS\"";
+
+    private final static String CNONCE = "f2/wE4q74E6zIJEtWaHKaf5wv/H5QzzpXusqGemxURZJ";
+
+    /**
+     * Examples from RFC 7616, section 3.9.1.
+     */
+    @ParameterizedTest
+    @CsvSource({"MD5, 8ca523f5e9506fed4657c9700eebdbec",
+            "SHA-256, 753927fa0e85d155564e2e272a28d1802ca10daf4496794697cf8db5856cb6c1"})
+    public void rfc7616(String algorithm, String expectedResponse) {
+        DigestChallenge challenge = DigestChallenge.parse(String.format(CHALLENGE, algorithm), false);
+        DigestSession session = new DigestSession(challenge, "Mufasa", "Circle of Life", CNONCE);
+
+        Map<String, String> params = new HttpAuthHeader(session.authorization("GET", "/dir/index.html", null)).getParams();
+
+        Assertions.assertEquals("auth", params.get("qop"));
+        Assertions.assertEquals("00000001", params.get("nc"));
+        Assertions.assertEquals(algorithm, params.get("algorithm"));
+        Assertions.assertEquals("FQhe/qaU925kfnzjCev0ciny7QMkPqMAFRtzCUYo5tdS", params.get("opaque"));
+        Assertions.assertEquals(expectedResponse, params.get("response"));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"MD5", "SHA-256", "SHA-512", "SHA-512-256", "MD5-sess", "SHA-256-sess"})
+    public void authInt(String algorithm) {
+        DigestChallenge challenge = DigestChallenge.parse(String.format(CHALLENGE, algorithm), true);
+        DigestAlgorithm digest = DigestAlgorithm.forToken(algorithm);
+        DigestSession session = new DigestSession(challenge, "Mufasa", "Circle of Life", CNONCE);
+        String entityHash = digest.hash("Body content", StandardCharsets.UTF_8);
+
+        Map<String, String> params = new HttpAuthHeader(session.authorization("POST", "/dir/index.html", entityHash)).getParams();
+
+        String ha1 = digest.hash("Mufasa:http-auth@example.org:Circle of Life", StandardCharsets.ISO_8859_1);
+        if (digest.isSession()) {
+            ha1 = digest.hash(ha1 + ":" + challenge.getNonce() + ":" + CNONCE, StandardCharsets.ISO_8859_1);
+        }
+        String ha2 = digest.hash("POST:/dir/index.html:" + entityHash, StandardCharsets.ISO_8859_1);
+        String expected = digest.hash(ha1 + ":" + challenge.getNonce() + ":00000001:" + CNONCE + ":auth-int:" + ha2,
+                StandardCharsets.ISO_8859_1);
+
+        Assertions.assertEquals("auth-int", params.get("qop"));
+        Assertions.assertEquals(expected, params.get("response"));
+    }
+
+    @Test
+    public void preemptiveAfterFirstChallenge() {
+        DigestCache cache = new DigestCache();
+        CachingDigestAuthSupplier supplier = new CachingDigestAuthSupplier(cache);
+        AuthorizationPolicy policy = policy();
+        URI uri = URI.create("http://localhost:8080/api/users?name=Peter");
+
+        Assertions.assertNull(supplier.getAuthorization(policy, uri, message("GET"), null));
+
+        String answer = supplier.getAuthorization(policy, uri, message("GET"), String.format(CHALLENGE, "SHA-256"));
+        Assertions.assertEquals("00000001", new HttpAuthHeader(answer).getParams().get("nc"));
+        Assertions.assertEquals("/api/users?name=Peter", new HttpAuthHeader(answer).getParams().get("uri"));
+
+        // Another conduit on the same host shares the session
+        CachingDigestAuthSupplier other = new CachingDigestAuthSupplier(cache);
+        String preemptive = other.getAuthorization(policy, URI.create("http://localhost:8080/api/groups"), message("POST"), null);
+        Assertions.assertEquals("00000002", new HttpAuthHeader(preemptive).getParams().get("nc"));
+
+        // Other user, other port: not challenged yet
+        policy.setUserName("other");
+        Assertions.assertNull(supplier.getAuthorization(policy, uri, message("GET"), null));
+        Assertions.assertNull(supplier.getAuthorization(policy(), URI.create("http://localhost:8081/api"), message("GET"), null));
+
+        Assertions.assertEquals(1, cache.getPreemptive());
+        Assertions.assertEquals(1, cache.getChallenges());
+    }
+
+    @Test
+    public void staleNonceIsReplaced() {
+        DigestCache cache = new DigestCache();
+        CachingDigestAuthSupplier supplier = new CachingDigestAuthSupplier(cache);
+        URI uri = URI.create("http://localhost:8080/api");
+
+        supplier.getAuthorization(policy(), uri, message("GET"), String.format(CHALLENGE, "MD5"));
+        supplier.getAuthorization(policy(), uri, message("GET"), null);
+        String answer = supplier.getAuthorization(policy(), uri, message("GET"),
+                "Digest realm=\"http-auth@example.org\", qop=\"auth\", nonce=\"newNonce\", stale=true");
+
+        Map<String, String> params = new HttpAuthHeader(answer).getParams();
+        Assertions.assertEquals("newNonce", params.get("nonce"));
+        Assertions.assertEquals("00000001", params.get("nc"));
+        Assertions.assertEquals(1, cache.getStaleChallenges());
+        Assertions.assertEquals(2, cache.getChallenges());
+    }
+
+    @Test
+    public void unsupportedChallenge() {
+        CachingDigestAuthSupplier supplier = new CachingDigestAuthSupplier();
+        URI uri = URI.create("http://localhost:8080/api");
+
+        Assertions.assertNull(supplier.getAuthorization(policy(), uri, message("GET"), "Basic realm=\"MyRealm\""));
+        Assertions.assertNull(supplier.getAuthorization(policy(), uri, message("GET"), String.format(CHALLENGE, "SHA-1")));
+    }
+
+    private static AuthorizationPolicy policy() {
+        AuthorizationPolicy policy = new AuthorizationPolicy();
+        policy.setAuthorizationType(HttpAuthHeader.AUTH_TYPE_DIGEST);
+        policy.setUserName("Mufasa");
+        policy.setPassword("Circle of Life");
+        return policy;
+    }
+
+    private static Message message(String method) {
+        Message message = new MessageImpl();
+        message.put(Message.HTTP_REQUEST_METHOD, method);
+        return message;
+    }
+
+}
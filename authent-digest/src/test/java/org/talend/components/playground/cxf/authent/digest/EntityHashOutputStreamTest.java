@@ -0,0 +1,48 @@
+package org.talend.components.playground.cxf.authent.digest;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class EntityHashOutputStreamTest {
+
+    private final static byte[] BODY = "Body content".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void bodyIsSentAsWrittenBeforeTheChallenge() throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        EntityHashOutputStream stream = new EntityHashOutputStream(target, null, () -> {
+        });
+
+        stream.write(BODY, 0, 4);
+        stream.write(BODY, 4, BODY.length - 4);
+        Assertions.assertArrayEquals(BODY, target.toByteArray());
+        stream.close();
+
+        for (DigestAlgorithm algorithm : DigestAlgorithm.values()) {
+            Assertions.assertEquals(algorithm.hash(BODY), stream.hash(algorithm), algorithm.getToken());
+        }
+    }
+
+    @Test
+    public void bodyIsSpooledForAPreemptiveHeader() throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        AtomicInteger sentOnComplete = new AtomicInteger(-1);
+        EntityHashOutputStream stream = new EntityHashOutputStream(target, DigestAlgorithm.SHA_256,
+                () -> sentOnComplete.set(target.size()));
+
+        stream.write(BODY);
+        stream.flush();
+        Assertions.assertEquals(0, target.size());
+        stream.close();
+
+        Assertions.assertEquals(0, sentOnComplete.get());
+        Assertions.assertArrayEquals(BODY, target.toByteArray());
+        Assertions.assertEquals(DigestAlgorithm.SHA_256.hash(BODY), stream.hash(DigestAlgorithm.SHA_256_SESS));
+    }
+
+}
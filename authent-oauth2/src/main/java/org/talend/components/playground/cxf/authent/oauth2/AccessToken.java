@@ -0,0 +1,42 @@
+package org.talend.components.playground.cxf.authent.oauth2;
+
+import lombok.ToString;
+import lombok.Value;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * An access token and its lifetime.
+ */
+@Value
+public class AccessToken {
+
+    @ToString.Exclude
+    String value;
+
+    /**
+     * Bearer, the only type the {@link BearerTokenInterceptor} sends.
+     */
+    String tokenType;
+
+    Instant issuedAt;
+
+    Instant expiresAt;
+
+    public boolean isExpired(Instant now) {
+        return !now.isBefore(expiresAt);
+    }
+
+    /**
+     * @return the instant the token should be replaced: refreshBefore before its expiry, or at half its lifetime
+     * when it is shorter than twice refreshBefore.
+     */
+    Instant refreshAt(Duration refreshBefore) {
+        final Duration lifetime = Duration.between(issuedAt, expiresAt);
+        final Duration margin = lifetime.compareTo(refreshBefore.multipliedBy(2)) < 0 ? lifetime.dividedBy(2)
+                : refreshBefore;
+        return expiresAt.minus(margin);
+    }
+
+}
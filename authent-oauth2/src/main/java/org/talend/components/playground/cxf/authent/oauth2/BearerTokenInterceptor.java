@@ -0,0 +1,71 @@
+package org.talend.components.playground.cxf.authent.oauth2;
+
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.interceptor.Interceptor;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.transport.http.Headers;
+
+import java.util.Collections;
+
+/**
+ * Sends the requests with the access token of its credentials, from a {@link TokenCache}.
+ * <p>
+ * The token is got before the request is sent: the first calls wait for it, the next ones get the cached token.
+ * A 401 from the protected resource invalidates the token sent, when added to the in interceptors the
+ * {@link #getResponseInterceptor()} of this interceptor: the call fails, the next one gets a new token.
+ */
+public class BearerTokenInterceptor extends AbstractPhaseInterceptor<Message> {
+
+    public final static String AUTH_TYPE_BEARER = "Bearer";
+
+    private final TokenCache cache;
+
+    private final ClientCredentials credentials;
+
+    private final ResponseInterceptor responseInterceptor = new ResponseInterceptor();
+
+    public BearerTokenInterceptor(TokenCache cache, ClientCredentials credentials) {
+        super(Phase.SETUP);
+        if (credentials.getTokenUrl() == null || credentials.getClientId() == null
+                || credentials.getClientSecret() == null) {
+            throw new IllegalArgumentException("Bearer needs a token URL, a client id and a client secret");
+        }
+        this.cache = cache;
+        this.credentials = credentials;
+    }
+
+    @Override
+    public void handleMessage(Message message) throws Fault {
+        final AccessToken token = cache.get(credentials);
+        message.getExchange().put(AccessToken.class, token);
+        Headers.getSetProtocolHeaders(message).put("Authorization",
+                Collections.singletonList(AUTH_TYPE_BEARER + ' ' + token.getValue()));
+    }
+
+    public ClientCredentials getCredentials() {
+        return credentials;
+    }
+
+    public Interceptor<Message> getResponseInterceptor() {
+        return responseInterceptor;
+    }
+
+    private final class ResponseInterceptor extends AbstractPhaseInterceptor<Message> {
+
+        private ResponseInterceptor() {
+            super(Phase.RECEIVE);
+        }
+
+        @Override
+        public void handleMessage(Message message) {
+            final Object status = message.get(Message.RESPONSE_CODE);
+            final AccessToken token = message.getExchange().get(AccessToken.class);
+            if (status instanceof Integer && (Integer) status == 401 && token != null) {
+                cache.invalidate(credentials, token);
+            }
+        }
+    }
+
+}
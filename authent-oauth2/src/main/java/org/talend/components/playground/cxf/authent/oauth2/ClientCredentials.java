@@ -0,0 +1,41 @@
+package org.talend.components.playground.cxf.authent.oauth2;
+
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import lombok.Value;
+
+/**
+ * An OAuth2 client of the client credentials grant (RFC 6749, section 4.4).
+ */
+@Value
+@Builder(toBuilder = true)
+public class ClientCredentials {
+
+    String tokenUrl;
+
+    String clientId;
+
+    @ToString.Exclude
+    String clientSecret;
+
+    /**
+     * Space separated scopes, or null for the default scope of the client.
+     */
+    String scope;
+
+    /**
+     * Gets the tokens of this client with its own transport settings, or null for the endpoint of the cache.
+     */
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    TokenEndpoint endpoint;
+
+    /**
+     * @return the token URL, client id and scope: the clients with the same key share their tokens.
+     */
+    String key() {
+        return tokenUrl + '#' + clientId + '#' + (scope == null ? "" : scope);
+    }
+
+}
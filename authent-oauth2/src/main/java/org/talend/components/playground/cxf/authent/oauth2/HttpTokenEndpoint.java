@@ -0,0 +1,131 @@
+package org.talend.components.playground.cxf.authent.oauth2;
+
+import lombok.Builder;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Client credentials grant: POSTs grant_type=client_credentials to the token URL, the client authenticated with
+ * Basic (RFC 6749, section 2.3.1).
+ * <p>
+ * Sent with the JDK HTTP client and its default TLS settings. The static methods build the request and read the
+ * response for the endpoints sending it with another client.
+ */
+public class HttpTokenEndpoint implements TokenEndpoint {
+
+    public final static Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+    public final static Duration DEFAULT_LIFETIME = Duration.ofMinutes(5);
+
+    private final HttpClient client;
+
+    private final Duration timeout;
+
+    private final Duration defaultLifetime;
+
+    /**
+     * @param timeout connect and response timeout of the token requests, 30 seconds by default.
+     * @param defaultLifetime lifetime of the tokens answered without expires_in, 5 minutes by default.
+     */
+    @Builder
+    private HttpTokenEndpoint(Duration timeout, Duration defaultLifetime) {
+        this.timeout = timeout == null ? DEFAULT_TIMEOUT : timeout;
+        this.defaultLifetime = defaultLifetime == null ? DEFAULT_LIFETIME : defaultLifetime;
+        this.client = HttpClient.newBuilder().connectTimeout(this.timeout).build();
+    }
+
+    public static HttpTokenEndpoint create() {
+        return builder().build();
+    }
+
+    @Override
+    public AccessToken fetch(ClientCredentials credentials) throws IOException {
+        final HttpRequest request = HttpRequest.newBuilder(URI.create(credentials.getTokenUrl()))
+                .timeout(timeout)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .header("Accept", "application/json")
+                .header("Authorization", authorization(credentials))
+                .POST(HttpRequest.BodyPublishers.ofString(form(credentials)))
+                .build();
+
+        final Instant issuedAt = Instant.now();
+        final HttpResponse<String> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while getting a token from " + credentials.getTokenUrl(), e);
+        }
+        return parse(credentials, response.statusCode(), response.body(), issuedAt, defaultLifetime);
+    }
+
+    AccessToken parse(String body, Instant issuedAt) throws IOException {
+        return parse(body, issuedAt, defaultLifetime);
+    }
+
+    /**
+     * @return the form of the token request.
+     */
+    public static String form(ClientCredentials credentials) {
+        final StringBuilder form = new StringBuilder("grant_type=client_credentials");
+        if (credentials.getScope() != null) {
+            form.append("&scope=").append(encode(credentials.getScope()));
+        }
+        return form.toString();
+    }
+
+    /**
+     * @return the Authorization header of the token request, the client id and secret form encoded.
+     */
+    public static String authorization(ClientCredentials credentials) {
+        final String basic = encode(credentials.getClientId()) + ':' + encode(credentials.getClientSecret());
+        return "Basic " + Base64.getEncoder().encodeToString(basic.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the token of a 200 response.
+     * @throws IOException when the token was refused or the response is not a token.
+     */
+    public static AccessToken parse(ClientCredentials credentials, int status, String body, Instant issuedAt,
+                                    Duration defaultLifetime) throws IOException {
+        if (status != 200) {
+            throw new IOException(String.format("Token request to %s failed with status %d: %s",
+                    credentials.getTokenUrl(), status, body));
+        }
+        return parse(body, issuedAt, defaultLifetime);
+    }
+
+    /**
+     * The successful response of RFC 6749, section 5.1.
+     */
+    private static AccessToken parse(String body, Instant issuedAt, Duration defaultLifetime) throws IOException {
+        try {
+            final JSONObject json = new JSONObject(body);
+            final String tokenType = json.optString("token_type", "Bearer");
+            if (!"Bearer".equalsIgnoreCase(tokenType)) {
+                throw new IOException("Unsupported token type: " + tokenType);
+            }
+            final Duration lifetime = json.has("expires_in") ? Duration.ofSeconds(json.getLong("expires_in"))
+                    : defaultLifetime;
+            return new AccessToken(json.getString("access_token"), tokenType, issuedAt, issuedAt.plus(lifetime));
+        } catch (JSONException e) {
+            throw new IOException("Invalid token response: " + e.getMessage(), e);
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,200 @@
+package org.talend.components.playground.cxf.authent.oauth2;
+
+import lombok.Builder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Access tokens by token URL, client id and scope, shared by all the clients using the same cache.
+ * <p>
+ * A token is fetched once for all the threads needing it: the first one starts the fetch, the others wait for the
+ * same fetch. Once a token is close to its expiry, the next call starts a fetch in the background and is still sent
+ * with the current token, so the calls only wait for the first token, or when the refresh failed until the expiry.
+ * A token refused by the protected resource is forgotten, the next call fetches a new one.
+ * <p>
+ * The tokens are got from the endpoint of the credentials, else from the endpoint of the cache.
+ */
+public class TokenCache {
+
+    private final static ExecutorService EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "token-cache");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final TokenEndpoint endpoint;
+
+    private final Duration refreshBefore;
+
+    private final Executor executor;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder fetches = new LongAdder();
+
+    private final LongAdder refreshes = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * @param endpoint gets the tokens, a {@link HttpTokenEndpoint} by default.
+     * @param refreshBefore a token is refreshed that long before its expiry, 1 minute by default. The tokens living
+     *                      less than twice that long are refreshed at half their lifetime.
+     * @param executor runs the fetches, a shared cached pool of daemon threads by default.
+     */
+    @Builder
+    private TokenCache(TokenEndpoint endpoint, Duration refreshBefore, Executor executor) {
+        this.endpoint = endpoint == null ? HttpTokenEndpoint.create() : endpoint;
+        this.refreshBefore = refreshBefore == null ? Duration.ofMinutes(1) : refreshBefore;
+        this.executor = executor == null ? EXECUTOR : executor;
+    }
+
+    public static TokenCache create() {
+        return builder().build();
+    }
+
+    /**
+     * @return a valid token of these credentials, fetched when there is none.
+     * @throws IllegalStateException when the token can't be fetched.
+     */
+    public AccessToken get(ClientCredentials credentials) {
+        return entries.computeIfAbsent(credentials.key(), k -> new Entry()).get(credentials);
+    }
+
+    /**
+     * Forgets the token of these credentials, when it was refused before its expiry.
+     */
+    public void invalidate(ClientCredentials credentials) {
+        entries.remove(credentials.key());
+    }
+
+    /**
+     * Forgets the token of these credentials if it is still the refused one: the token fetched since by another
+     * call is kept.
+     */
+    public void invalidate(ClientCredentials credentials, AccessToken refused) {
+        entries.computeIfPresent(credentials.key(), (k, entry) -> {
+            if (entry.token != refused) {
+                return entry;
+            }
+            invalidations.increment();
+            return null;
+        });
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return number of calls answered with a cached token.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of token requests sent, including the refreshes.
+     */
+    public long getFetches() {
+        return fetches.sum();
+    }
+
+    /**
+     * @return number of token requests sent in the background, before the expiry of the current token.
+     */
+    public long getRefreshes() {
+        return refreshes.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * @return number of tokens forgotten because they were refused.
+     */
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    private final class Entry {
+
+        private volatile AccessToken token;
+
+        /**
+         * The fetch in flight, guarded by this.
+         */
+        private CompletableFuture<AccessToken> inFlight;
+
+        private AccessToken get(ClientCredentials credentials) {
+            final AccessToken current = token;
+            final Instant now = Instant.now();
+            if (current != null && !current.isExpired(now)) {
+                hits.increment();
+                if (!now.isBefore(current.refreshAt(refreshBefore))) {
+                    fetch(credentials, true);
+                }
+                return current;
+            }
+            try {
+                return fetch(credentials, false).join();
+            } catch (CompletionException e) {
+                final Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause()
+                        : e.getCause();
+                throw new IllegalStateException("Can't get a token from " + credentials.getTokenUrl(), cause);
+            }
+        }
+
+        private synchronized CompletableFuture<AccessToken> fetch(ClientCredentials credentials, boolean refresh) {
+            if (inFlight != null && !inFlight.isDone()) {
+                return inFlight;
+            }
+            final AccessToken current = token;
+            final Instant now = Instant.now();
+            if (current != null && now.isBefore(refresh ? current.refreshAt(refreshBefore) : current.getExpiresAt())) {
+                // Fetched since the caller looked
+                return CompletableFuture.completedFuture(current);
+            }
+            fetches.increment();
+            if (refresh) {
+                refreshes.increment();
+            }
+            final TokenEndpoint from = credentials.getEndpoint() == null ? endpoint : credentials.getEndpoint();
+            inFlight = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return from.fetch(credentials);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, executor).whenComplete((fetched, e) -> {
+                if (e == null) {
+                    token = fetched;
+                } else {
+                    failures.increment();
+                }
+            });
+            return inFlight;
+        }
+    }
+
+}
@@ -0,0 +1,13 @@
+package org.talend.components.playground.cxf.authent.oauth2;
+
+import java.io.IOException;
+
+/**
+ * Gets a new access token from the authorization server.
+ */
+@FunctionalInterface
+public interface TokenEndpoint {
+
+    AccessToken fetch(ClientCredentials credentials) throws IOException;
+
+}
@@ -0,0 +1,177 @@
+package org.talend.components.playground.cxf.authent.oauth2;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class TokenCacheTest {
+
+    private final static ClientCredentials CREDENTIALS = ClientCredentials.builder()
+            .tokenUrl("http://localhost/token")
+            .clientId("client")
+            .clientSecret("secret")
+            .scope("read")
+            .build();
+
+    @Test
+    public void concurrentCallsShareOneFetch() throws Exception {
+        CountingEndpoint endpoint = new CountingEndpoint(Duration.ofMinutes(5), 200);
+        TokenCache cache = TokenCache.builder().endpoint(endpoint).build();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<AccessToken>> tokens = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                tokens.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get(CREDENTIALS);
+                }));
+            }
+            start.countDown();
+            for (Future<AccessToken> token : tokens) {
+                Assertions.assertEquals("token-1", token.get(1, TimeUnit.MINUTES).getValue());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(1, endpoint.fetches.get());
+        Assertions.assertEquals(1, cache.getFetches());
+        Assertions.assertEquals("token-1", cache.get(CREDENTIALS).getValue());
+        Assertions.assertTrue(cache.getHits() >= 1);
+    }
+
+    @Test
+    public void refreshedBeforeExpiry() throws Exception {
+        CountingEndpoint endpoint = new CountingEndpoint(Duration.ofSeconds(2), 0);
+        TokenCache cache = TokenCache.builder().endpoint(endpoint).refreshBefore(Duration.ofSeconds(5)).build();
+        Assertions.assertEquals("token-1", cache.get(CREDENTIALS).getValue());
+
+        // Half the lifetime: still sent with the current token, the next one is fetched in the background
+        Thread.sleep(1100);
+        Assertions.assertEquals("token-1", cache.get(CREDENTIALS).getValue());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!"token-2".equals(cache.get(CREDENTIALS).getValue()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        Assertions.assertEquals("token-2", cache.get(CREDENTIALS).getValue());
+        Assertions.assertEquals(2, endpoint.fetches.get());
+        Assertions.assertEquals(1, cache.getRefreshes());
+    }
+
+    @Test
+    public void tokensPerScope() {
+        CountingEndpoint endpoint = new CountingEndpoint(Duration.ofMinutes(5), 0);
+        TokenCache cache = TokenCache.builder().endpoint(endpoint).build();
+
+        AccessToken read = cache.get(CREDENTIALS);
+        AccessToken write = cache.get(CREDENTIALS.toBuilder().scope("write").build());
+
+        Assertions.assertNotEquals(read.getValue(), write.getValue());
+        Assertions.assertSame(read, cache.get(CREDENTIALS));
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertEquals(2, endpoint.fetches.get());
+    }
+
+    @Test
+    public void refusedTokenIsInvalidated() {
+        CountingEndpoint endpoint = new CountingEndpoint(Duration.ofMinutes(5), 0);
+        TokenCache cache = TokenCache.builder().endpoint(endpoint).build();
+
+        AccessToken refused = cache.get(CREDENTIALS);
+        cache.invalidate(CREDENTIALS, refused);
+        AccessToken fetched = cache.get(CREDENTIALS);
+        Assertions.assertEquals("token-2", fetched.getValue());
+
+        // Refused by a call sent before: the token fetched since is kept
+        cache.invalidate(CREDENTIALS, refused);
+        Assertions.assertSame(fetched, cache.get(CREDENTIALS));
+        Assertions.assertEquals(1, cache.getInvalidations());
+        Assertions.assertEquals(2, endpoint.fetches.get());
+    }
+
+    @Test
+    public void endpointOfTheCredentials() {
+        CountingEndpoint endpoint = new CountingEndpoint(Duration.ofMinutes(5), 0);
+        TokenCache cache = TokenCache.builder().endpoint(endpoint).build();
+        Instant now = Instant.now();
+        ClientCredentials credentials = CREDENTIALS.toBuilder()
+                .endpoint(c -> new AccessToken("own", "Bearer", now, now.plusSeconds(60)))
+                .build();
+
+        Assertions.assertEquals("own", cache.get(credentials).getValue());
+        Assertions.assertEquals(0, endpoint.fetches.get());
+    }
+
+    @Test
+    public void failedFetch() {
+        AtomicInteger calls = new AtomicInteger();
+        TokenCache cache = TokenCache.builder().endpoint(credentials -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IOException("Token request failed with status 401");
+            }
+            Instant now = Instant.now();
+            return new AccessToken("token", "Bearer", now, now.plusSeconds(60));
+        }).build();
+
+        IllegalStateException e = Assertions.assertThrows(IllegalStateException.class, () -> cache.get(CREDENTIALS));
+        Assertions.assertTrue(e.getCause() instanceof IOException);
+        Assertions.assertEquals(1, cache.getFailures());
+
+        // Not cached, the next call fetches again
+        Assertions.assertEquals("token", cache.get(CREDENTIALS).getValue());
+    }
+
+    @Test
+    public void parseTokenResponse() throws IOException {
+        HttpTokenEndpoint endpoint = HttpTokenEndpoint.builder().defaultLifetime(Duration.ofSeconds(30)).build();
+        Instant now = Instant.now();
+
+        AccessToken token = endpoint.parse("{\"access_token\": \"abc\", \"token_type\": \"bearer\", \"expires_in\": 3600}",
+                now);
+        Assertions.assertEquals("abc", token.getValue());
+        Assertions.assertEquals(now.plusSeconds(3600), token.getExpiresAt());
+        Assertions.assertEquals(now.plusSeconds(30), endpoint.parse("{\"access_token\": \"abc\"}", now).getExpiresAt());
+        Assertions.assertThrows(IOException.class, () -> endpoint.parse("{\"access_token\": \"abc\", \"token_type\": \"mac\"}", now));
+        Assertions.assertThrows(IOException.class, () -> endpoint.parse("<html/>", now));
+    }
+
+    private final static class CountingEndpoint implements TokenEndpoint {
+
+        private final AtomicInteger fetches = new AtomicInteger();
+
+        private final Duration lifetime;
+
+        private final long latency;
+
+        private CountingEndpoint(Duration lifetime, long latency) {
+            this.lifetime = lifetime;
+            this.latency = latency;
+        }
+
+        @Override
+        public AccessToken fetch(ClientCredentials credentials) throws IOException {
+            int fetch = fetches.incrementAndGet();
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            Instant now = Instant.now();
+            return new AccessToken("token-" + fetch, "Bearer", now, now.plus(lifetime));
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+package org.talend.components.playground.cxf.benchmarks;
+
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.talend.components.playground.cxf.client.builder.BatchClient;
+import org.talend.components.playground.cxf.client.builder.BatchRequest;
+import org.talend.components.playground.cxf.client.builder.BatchResults;
+import org.talend.components.playground.cxf.client.builder.ClientSettings;
+import org.talend.components.playground.cxf.client.builder.WebClientFactory;
+import org.talend.components.playground.cxf.rt.rs.client.HTTPServer;
+
+import javax.ws.rs.core.Response;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * 1000 small GET calls to the echo context of the in-process server: a new WebClient per call as in MainTest,
+ * a copy of a factory template per call, and a {@link BatchClient} with up to maxInFlight calls in flight.
+ * Above 5 calls in flight, the idle connections over the JDK keep-alive cache limit (http.maxConnections) are closed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchBenchmark {
+
+    private final static int CALLS = 1000;
+
+    @Param({"4", "64"})
+    private int maxInFlight;
+
+    private HTTPServer.TestHTTPServer server;
+
+    private String url;
+
+    private WebClientFactory factory;
+
+    private ClientSettings settings;
+
+    private BatchClient batch;
+
+    @Setup
+    public void setup() {
+        server = HTTPServer.createServer(HTTPServer.Config.builder().threads(16).build());
+        server.getHttpServer().start();
+        url = server.getBaseUrl() + HTTPServer.HTTP_ECHO;
+        factory = WebClientFactory.create();
+        settings = ClientSettings.builder().baseUrl(url).build();
+        batch = BatchClient.builder().factory(factory).settings(settings).maxInFlight(maxInFlight).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.getHttpServer().stop(0);
+    }
+
+    @Benchmark
+    public int oneWebClientPerCall() {
+        int size = 0;
+        for (int i = 0; i < CALLS; i++) {
+            Response response = WebClient.create(url).query("q", i).get();
+            size += response.readEntity(String.class).length();
+        }
+        return size;
+    }
+
+    @Benchmark
+    public int factoryClientPerCall() {
+        int size = 0;
+        for (int i = 0; i < CALLS; i++) {
+            Response response = factory.create(settings).query("q", i).get();
+            size += response.readEntity(String.class).length();
+        }
+        return size;
+    }
+
+    @Benchmark
+    public int batchClient() {
+        BatchResults<String> results = batch.execute(IntStream.range(0, CALLS)
+                        .mapToObj(i -> BatchRequest.builder().query("q", i).build()),
+                response -> response.readEntity(String.class));
+        if (!results.isSuccess()) {
+            throw new IllegalStateException("Failed calls: " + results.getFailures());
+        }
+        return results.getValues().stream().mapToInt(String::length).sum();
+    }
+
+}
@@ -0,0 +1,86 @@
+package org.talend.components.playground.cxf.benchmarks;
+
+import org.apache.cxf.configuration.jsse.TLSClientParameters;
+import org.apache.cxf.configuration.security.AuthorizationPolicy;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transport.http.auth.HttpAuthHeader;
+import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.talend.components.playground.cxf.client.builder.BlindTrustManager;
+import org.talend.components.playground.cxf.client.builder.ClientSettings;
+import org.talend.components.playground.cxf.client.builder.WebClientFactory;
+
+import javax.net.ssl.TrustManager;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creation and configuration of a client: the CXF way as in MainTest, against a copy of a WebClientFactory template.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientCreationBenchmark {
+
+    private final static String URL = "https://localhost:8443/api";
+
+    private ClientSettings settings;
+
+    private WebClientFactory factory;
+
+    @Setup
+    public void setup() {
+        settings = ClientSettings.builder()
+                .baseUrl(URL)
+                .authorizationType(HttpAuthHeader.AUTH_TYPE_BASIC)
+                .userName("user")
+                .password("passwd")
+                .acceptAllCertificates(true)
+                .disableCNCheck(true)
+                .autoRedirect(true)
+                .build();
+        factory = WebClientFactory.create();
+    }
+
+    @Benchmark
+    public WebClient configuredWebClient() {
+        WebClient client = WebClient.create(URL);
+        HTTPConduit conduit = WebClient.getConfig(client).getHttpConduit();
+
+        HTTPClientPolicy policy = conduit.getClient();
+        policy.setConnectionTimeout(settings.getConnectionTimeout());
+        policy.setReceiveTimeout(settings.getReceiveTimeout());
+        policy.setAutoRedirect(true);
+
+        AuthorizationPolicy authPolicy = new AuthorizationPolicy();
+        authPolicy.setAuthorizationType(HttpAuthHeader.AUTH_TYPE_BASIC);
+        authPolicy.setUserName("user");
+        authPolicy.setPassword("passwd");
+        conduit.setAuthorization(authPolicy);
+
+        TLSClientParameters params = new TLSClientParameters();
+        params.setTrustManagers(new TrustManager[]{new BlindTrustManager()});
+        params.setDisableCNCheck(true);
+        conduit.setTlsClientParameters(params);
+
+        return client;
+    }
+
+    @Benchmark
+    public WebClient factoryWebClient() {
+        return factory.create(settings);
+    }
+
+}
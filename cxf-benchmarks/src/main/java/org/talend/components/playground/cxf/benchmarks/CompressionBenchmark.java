@@ -0,0 +1,109 @@
+package org.talend.components.playground.cxf.benchmarks;
+
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.talend.components.playground.cxf.client.builder.ClientSettings;
+import org.talend.components.playground.cxf.client.builder.Compression;
+import org.talend.components.playground.cxf.client.builder.JsonArrayReader;
+import org.talend.components.playground.cxf.client.builder.StreamingResponse;
+import org.talend.components.playground.cxf.client.builder.WebClientFactory;
+import org.talend.components.playground.cxf.rt.rs.client.HTTPServer;
+import org.talend.components.playground.cxf.rt.rs.client.RecordsHandler;
+
+import javax.ws.rs.core.MediaType;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records of the in-process HTTPServer records context and a large POST body, as is (identity) or compressed with the
+ * {@link Compression} of the client. The server compresses too, the time is the CPU cost of both sides on loopback,
+ * where the bandwidth saved is free: the bytes transferred per call are printed on tear down.
+ * Add {@code -prof gc} to compare the allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class CompressionBenchmark {
+
+    @Param({"identity", "gzip", "deflate"})
+    private String encoding;
+
+    @Param({"10000"})
+    private int records;
+
+    private HTTPServer.TestHTTPServer server;
+
+    private Compression compression;
+
+    private WebClientFactory factory;
+
+    private ClientSettings settings;
+
+    private String body;
+
+    @Setup
+    public void setup() {
+        server = HTTPServer.createServer();
+        server.getHttpServer().start();
+
+        compression = "identity".equals(encoding) ? Compression.builder().acceptEncoding("identity").build()
+                : Compression.builder().acceptEncoding(encoding).requestEncoding(encoding).build();
+        factory = WebClientFactory.builder().customizer(compression).build();
+        settings = ClientSettings.builder().baseUrl(server.getBaseUrl()).build();
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; sb.length() < 100_000; i++) {
+            sb.append("{\"id\": ").append(i).append(", \"name\": \"Peter ").append(i).append("\", \"active\": true}\n");
+        }
+        body = sb.toString();
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.getHttpServer().stop(0);
+        if (compression.getResponsesDecoded() > 0) {
+            System.out.printf("%n%s: %d bytes received per response for %d decoded, %d codecs%n", encoding,
+                    compression.getBytesReceived() / compression.getResponsesDecoded(),
+                    compression.getBytesDecoded() / compression.getResponsesDecoded(), compression.getCodecsCreated());
+        }
+        if (compression.getRequestsCompressed() > 0) {
+            System.out.printf("%n%s: %d bytes sent per request for %d written, %d codecs%n", encoding,
+                    compression.getBytesSent() / compression.getRequestsCompressed(),
+                    compression.getBytesWritten() / compression.getRequestsCompressed(), compression.getCodecsCreated());
+        }
+    }
+
+    @Benchmark
+    public long download() {
+        long ids = 0;
+        WebClient client = factory.create(settings).path(HTTPServer.HTTP_RECORDS).query(RecordsHandler.COUNT_PARAM, records);
+        try (StreamingResponse response = StreamingResponse.of(client.get());
+             JsonArrayReader reader = response.jsonArray("/data")) {
+            while (reader.hasNext()) {
+                ids += (Long) ((Map<?, ?>) reader.next()).get("id");
+            }
+        }
+        return ids;
+    }
+
+    @Benchmark
+    public int upload() {
+        return factory.create(settings).path("post").type(MediaType.TEXT_PLAIN_TYPE).post(body).readEntity(String.class)
+                .length();
+    }
+
+}
@@ -0,0 +1,74 @@
+package org.talend.components.playground.cxf.benchmarks;
+
+import org.apache.cxf.configuration.security.AuthorizationPolicy;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.transport.http.auth.HttpAuthHeader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.talend.components.playground.cxf.authent.digest.CachingDigestAuthSupplier;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Digest Authorization header computation per algorithm: preemptive from the cached session,
+ * and answer to a new challenge (parsing and HA1).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DigestBenchmark {
+
+    @Param({"MD5", "MD5-sess", "SHA-256", "SHA-256-sess", "SHA-512-256"})
+    private String algorithm;
+
+    private CachingDigestAuthSupplier supplier;
+
+    private AuthorizationPolicy policy;
+
+    private URI uri;
+
+    private Message message;
+
+    private String challenge;
+
+    @Setup
+    public void setup() {
+        supplier = new CachingDigestAuthSupplier();
+        policy = new AuthorizationPolicy();
+        policy.setAuthorizationType(HttpAuthHeader.AUTH_TYPE_DIGEST);
+        policy.setUserName("Mufasa");
+        policy.setPassword("Circle of Life");
+        uri = URI.create("http://www.example.org/dir/index.html?q=1");
+        message = new MessageImpl();
+        message.put(Message.HTTP_REQUEST_METHOD, "GET");
+        challenge = "Digest realm=\"http-auth@example.org\", qop=\"auth, auth-int\", algorithm=" + algorithm
+                + ", nonce=\"7ypf/xlj9XXwfDPEoM4URrv/xwf94BcCAzFZH4GiTo0v\", opaque=\"FQhe/qaU925kfnzjCev0ciny7QMkPqMAFRtzCUYo5tdS\"";
+
+        supplier.getAuthorization(policy, uri, message, challenge);
+    }
+
+    @Benchmark
+    public String preemptive() {
+        return supplier.getAuthorization(policy, uri, message, null);
+    }
+
+    @Benchmark
+    public String challenged() {
+        return supplier.getAuthorization(policy, uri, message, challenge);
+    }
+
+}
@@ -0,0 +1,87 @@
+package org.talend.components.playground.cxf.benchmarks;
+
+import org.apache.cxf.configuration.security.AuthorizationPolicy;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transport.http.auth.HttpAuthHeader;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.talend.components.playground.cxf.client.builder.ClientSettings;
+import org.talend.components.playground.cxf.client.builder.WebClientFactory;
+import org.talend.components.playground.cxf.rt.rs.client.JettyWithDigestAuth;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Digest authenticated calls to the in-process Jetty fixture: a new CXF client challenged on each call,
+ * against a WebClientFactory client sending a preemptive header.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DigestCallBenchmark {
+
+    private Server server;
+
+    private String url;
+
+    private WebClientFactory factory;
+
+    private ClientSettings settings;
+
+    @Setup
+    public void setup() throws Exception {
+        server = JettyWithDigestAuth.createServer(0);
+        server.start();
+        url = "http://127.0.0.1:" + ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+
+        factory = WebClientFactory.create();
+        settings = ClientSettings.builder()
+                .baseUrl(url)
+                .authorizationType(HttpAuthHeader.AUTH_TYPE_DIGEST)
+                .userName("plain")
+                .password("plain")
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        server.stop();
+    }
+
+    @Benchmark
+    public String challengedClient() {
+        WebClient client = WebClient.create(url);
+        HTTPConduit conduit = WebClient.getConfig(client).getHttpConduit();
+        AuthorizationPolicy policy = new AuthorizationPolicy();
+        policy.setAuthorizationType(HttpAuthHeader.AUTH_TYPE_DIGEST);
+        policy.setUserName("plain");
+        policy.setPassword("plain");
+        conduit.setAuthorization(policy);
+        return call(client);
+    }
+
+    @Benchmark
+    public String preemptiveClient() {
+        return call(factory.create(settings));
+    }
+
+    private static String call(WebClient client) {
+        return client.invoke("GET", null).readEntity(String.class);
+    }
+
+}
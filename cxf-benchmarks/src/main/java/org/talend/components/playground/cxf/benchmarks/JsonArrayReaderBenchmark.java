@@ -0,0 +1,92 @@
+package org.talend.components.playground.cxf.benchmarks;
+
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.talend.components.playground.cxf.client.builder.ClientSettings;
+import org.talend.components.playground.cxf.client.builder.JsonArrayReader;
+import org.talend.components.playground.cxf.client.builder.StreamingResponse;
+import org.talend.components.playground.cxf.client.builder.WebClientFactory;
+import org.talend.components.playground.cxf.rt.rs.client.HTTPServer;
+import org.talend.components.playground.cxf.rt.rs.client.RecordsHandler;
+
+import javax.ws.rs.core.Response;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records of the in-process HTTPServer records context, read with org.json from the whole body as a String,
+ * or one at a time with {@link JsonArrayReader}.
+ * Add {@code -prof gc} to compare the allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class JsonArrayReaderBenchmark {
+
+    @Param({"1000", "1000000"})
+    private int records;
+
+    private HTTPServer.TestHTTPServer server;
+
+    private WebClientFactory factory;
+
+    private ClientSettings settings;
+
+    @Setup
+    public void setup() {
+        server = HTTPServer.createServer();
+        server.getHttpServer().start();
+
+        factory = WebClientFactory.create();
+        settings = ClientSettings.builder().baseUrl("http://localhost:" + server.getPort() + HTTPServer.HTTP_RECORDS).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.getHttpServer().stop(0);
+    }
+
+    @Benchmark
+    public long orgJson() {
+        JSONArray data = new JSONObject(get().readEntity(String.class)).getJSONArray("data");
+        long ids = 0;
+        for (int i = 0; i < data.length(); i++) {
+            ids += data.getJSONObject(i).getLong("id");
+        }
+        return ids;
+    }
+
+    @Benchmark
+    public long jsonArrayReader() {
+        long ids = 0;
+        try (StreamingResponse response = StreamingResponse.of(get());
+             JsonArrayReader reader = response.jsonArray("/data")) {
+            while (reader.hasNext()) {
+                ids += (Long) ((Map<?, ?>) reader.next()).get("id");
+            }
+        }
+        return ids;
+    }
+
+    private Response get() {
+        WebClient client = factory.create(settings);
+        return client.query(RecordsHandler.COUNT_PARAM, records).accept("application/json").get();
+    }
+
+}
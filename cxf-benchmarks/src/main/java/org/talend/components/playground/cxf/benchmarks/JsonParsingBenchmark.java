@@ -0,0 +1,72 @@
+package org.talend.components.playground.cxf.benchmarks;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSONObject parsing of httpbin like responses, as done on the response bodies in MainTest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonParsingBenchmark {
+
+    /**
+     * Number of records in the response.
+     */
+    @Param({"1", "100"})
+    private int records;
+
+    private String response;
+
+    @Setup
+    public void setup() {
+        JSONArray data = new JSONArray();
+        for (int i = 0; i < records; i++) {
+            data.put(new JSONObject()
+                    .put("id", i)
+                    .put("name", "Peter " + i)
+                    .put("roles", new JSONArray().put("admin").put("user"))
+                    .put("active", i % 2 == 0)
+                    .put("score", i * 1.5));
+        }
+        response = new JSONObject()
+                .put("args", new JSONObject().put("name", "Peter").put("roles", new JSONArray().put("admin").put("user")))
+                .put("headers", new JSONObject()
+                        .put("Accept", "application/json")
+                        .put("Host", "localhost")
+                        .put("Multivaluedheader", "one,two,three"))
+                .put("url", "http://localhost/post?name=Peter")
+                .put("data", data)
+                .toString();
+    }
+
+    @Benchmark
+    public JSONObject parse() {
+        return new JSONObject(response);
+    }
+
+    @Benchmark
+    public String parseAndRead() {
+        JSONObject json = new JSONObject(response);
+        JSONArray data = json.getJSONArray("data");
+        return json.getJSONObject("headers").getString("Host") + data.getJSONObject(data.length() - 1).getString("name");
+    }
+
+}
@@ -0,0 +1,83 @@
+package org.talend.components.playground.cxf.benchmarks;
+
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.jaxrs.provider.FormEncodingProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.talend.components.playground.cxf.client.builder.ClientSettings;
+import org.talend.components.playground.cxf.client.builder.WebClientFactory;
+
+import javax.ws.rs.core.Form;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query, header and form building, as done in MainTest multiValued and the form tests, without sending the request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestBuildingBenchmark {
+
+    private WebClientFactory factory;
+
+    private ClientSettings settings;
+
+    private FormEncodingProvider<Form> formProvider;
+
+    private Form form;
+
+    @Setup
+    public void setup() {
+        factory = WebClientFactory.create();
+        settings = ClientSettings.builder().baseUrl("http://localhost:8080/echo").build();
+
+        formProvider = new FormEncodingProvider<>();
+        form = new Form();
+        form.param("name", "Peter");
+        form.param("city", "Besançon");
+        form.param("roles", "admin");
+        form.param("roles", "user");
+        form.param("comment", "a value with spaces & special = characters");
+    }
+
+    @Benchmark
+    public void multiValued(Blackhole bh) {
+        WebClient client = factory.create(settings);
+        client.header("header1", "val1");
+        client.header("header1", "val2");
+        client.header("headers2", "bbb1", "bbb2");
+        client.query("qa", "qa1");
+        client.query("qa", "qa2");
+        client.query("qb", "qb1", "qb2");
+        client.path("echo");
+
+        bh.consume(client.getCurrentURI());
+        bh.consume(client.getHeaders());
+    }
+
+    @Benchmark
+    public byte[] formUrlEncoding() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        formProvider.writeTo(form, Form.class, Form.class, new Annotation[0], MediaType.APPLICATION_FORM_URLENCODED_TYPE,
+                new MultivaluedHashMap<>(), out);
+        return out.toByteArray();
+    }
+
+}
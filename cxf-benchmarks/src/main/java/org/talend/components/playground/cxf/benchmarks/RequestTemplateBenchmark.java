@@ -0,0 +1,95 @@
+package org.talend.components.playground.cxf.benchmarks;
+
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.talend.components.playground.cxf.client.builder.ClientSettings;
+import org.talend.components.playground.cxf.client.builder.RequestTemplate;
+import org.talend.components.playground.cxf.client.builder.WebClientFactory;
+
+import javax.ws.rs.core.UriBuilder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The digest-auth path of MainTest with a query parameter and headers: built by WebClient.path(template, values)
+ * on each call, or bound on a {@link RequestTemplate} compiled once. Without sending the request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestTemplateBenchmark {
+
+    private final static String PATH = "digest-auth/{qop}/{user}/{passwd}/{algorithm}";
+
+    private WebClientFactory factory;
+
+    private ClientSettings settings;
+
+    private RequestTemplate template;
+
+    private String qop = "auth";
+
+    private String user = "john doe";
+
+    private String password = "abcde";
+
+    private String algorithm = "SHA-256";
+
+    private String query = "a value & more";
+
+    @Setup
+    public void setup() {
+        factory = WebClientFactory.create();
+        settings = ClientSettings.builder().baseUrl("http://localhost:8080").build();
+        template = RequestTemplate.builder()
+                .path(PATH)
+                .query("q", "{q}")
+                .header("Accept", "application/json")
+                .header("X-Client", "benchmark")
+                .build();
+    }
+
+    @Benchmark
+    public void webClientPath(Blackhole bh) {
+        WebClient client = factory.create(settings)
+                .path(PATH, qop, user, password, algorithm)
+                .query("q", query)
+                .header("Accept", "application/json")
+                .header("X-Client", "benchmark");
+
+        bh.consume(client.getCurrentURI());
+        bh.consume(client.getHeaders());
+    }
+
+    @Benchmark
+    public void requestTemplate(Blackhole bh) {
+        WebClient client = template.apply(factory.create(settings), qop, user, password, algorithm, query);
+
+        bh.consume(client.getCurrentURI());
+        bh.consume(client.getHeaders());
+    }
+
+    @Benchmark
+    public String uriBuilderExpand() {
+        return UriBuilder.fromPath(PATH).queryParam("q", "{q}").build(qop, user, password, algorithm, query)
+                .toString();
+    }
+
+    @Benchmark
+    public String requestTemplateExpand() {
+        return template.expand(qop, user, password, algorithm, query);
+    }
+
+}
@@ -0,0 +1,75 @@
+package org.talend.components.playground.cxf.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.talend.components.playground.cxf.client.builder.ClientSettings;
+import org.talend.components.playground.cxf.client.builder.LatencyHistogram;
+import org.talend.components.playground.cxf.client.builder.RequestTimings;
+import org.talend.components.playground.cxf.client.builder.WebClientFactory;
+import org.talend.components.playground.cxf.rt.rs.client.HTTPServer;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of {@link RequestTimings}: GETs to the in-process HTTPServer with and without the timings, and the
+ * recording in a {@link LatencyHistogram} shared by 4 threads.
+ * Add {@code -prof gc} to compare the allocations per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class RequestTimingsBenchmark {
+
+    @Param({"false", "true"})
+    private boolean timed;
+
+    private HTTPServer.TestHTTPServer server;
+
+    private WebClientFactory factory;
+
+    private ClientSettings settings;
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Setup
+    public void setup() {
+        server = HTTPServer.createServer();
+        server.getHttpServer().start();
+        factory = timed ? WebClientFactory.builder().customizer(RequestTimings.create()).build()
+                : WebClientFactory.create();
+        settings = ClientSettings.builder().baseUrl(server.getBaseUrl()).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.getHttpServer().stop(0);
+    }
+
+    @Benchmark
+    public String get() {
+        return factory.create(settings).path("get").get().readEntity(String.class);
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void record() {
+        histogram.record(ThreadLocalRandom.current().nextLong(100_000_000L));
+    }
+
+}
@@ -0,0 +1,92 @@
+package org.talend.components.playground.cxf.benchmarks;
+
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.talend.components.playground.cxf.client.builder.ClientSettings;
+import org.talend.components.playground.cxf.client.builder.WebClientFactory;
+import org.talend.components.playground.cxf.rt.rs.client.HTTPServer;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip to the in-process HTTPServer echo context, reading the response as a String or as a raw stream.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseReadingBenchmark {
+
+    @Param({"1024", "65536"})
+    private int size;
+
+    private HTTPServer.TestHTTPServer server;
+
+    private WebClientFactory factory;
+
+    private ClientSettings settings;
+
+    private String body;
+
+    private final byte[] buffer = new byte[8192];
+
+    @Setup
+    public void setup() {
+        server = HTTPServer.createServer();
+        server.getHttpServer().start();
+
+        factory = WebClientFactory.create();
+        settings = ClientSettings.builder().baseUrl("http://localhost:" + server.getPort() + HTTPServer.HTTP_ECHO).build();
+
+        StringBuilder sb = new StringBuilder(size);
+        while (sb.length() < size) {
+            sb.append((char) ('a' + sb.length() % 26));
+        }
+        body = sb.toString();
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.getHttpServer().stop(0);
+    }
+
+    @Benchmark
+    public String readEntityString() {
+        return post().readEntity(String.class);
+    }
+
+    @Benchmark
+    public long readInputStream() throws IOException {
+        long total = 0;
+        try (InputStream in = post().readEntity(InputStream.class)) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                total += n;
+            }
+        }
+        return total;
+    }
+
+    private Response post() {
+        WebClient client = factory.create(settings);
+        return client.type(MediaType.TEXT_PLAIN).invoke("POST", body);
+    }
+
+}
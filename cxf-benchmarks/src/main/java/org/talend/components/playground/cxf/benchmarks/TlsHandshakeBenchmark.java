@@ -0,0 +1,135 @@
+package org.talend.components.playground.cxf.benchmarks;
+
+import org.apache.cxf.configuration.jsse.TLSClientParameters;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.talend.components.playground.cxf.client.builder.TlsContextCache;
+import org.talend.components.playground.cxf.rt.rs.client.HTTPServer;
+
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+import javax.ws.rs.core.Response;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Batches of 10k sequential calls to the in-process HTTPS server, a new client per call as in MainTest: with new
+ * TLS parameters per client, against parameters sharing their SSLContext from a {@link TlsContextCache}, and their
+ * SSLSocketFactory too so HttpURLConnection reuses the connections between clients.
+ * With keepAlive false the server closes each connection, so the shared context shows the session resumption.
+ * The full handshakes are counted by the trust manager, called only when the session is not resumed, and
+ * printed at the end of each iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, batchSize = TlsHandshakeBenchmark.CALLS)
+@Measurement(iterations = 3, batchSize = TlsHandshakeBenchmark.CALLS)
+@Fork(1)
+public class TlsHandshakeBenchmark {
+
+    final static int CALLS = 10000;
+
+    @Param({"true", "false"})
+    private boolean keepAlive;
+
+    private HTTPServer.TestHTTPServer server;
+
+    private TlsContextCache cache;
+
+    private TlsContextCache socketFactoryCache;
+
+    private final CountingTrustManager trustManager = new CountingTrustManager();
+
+    private TrustManager[] trustManagers;
+
+    private long calls;
+
+    @Setup
+    public void setup() {
+        server = HTTPServer.createServer(HTTPServer.Config.builder().tls(true).build());
+        server.getHttpServer().start();
+        cache = TlsContextCache.builder().build();
+        socketFactoryCache = TlsContextCache.builder().shareSocketFactory(true).build();
+        trustManagers = new TrustManager[]{trustManager};
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.getHttpServer().stop(0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void handshakes() {
+        System.out.printf("%n%s full handshakes for %s calls%n", trustManager.handshakes.getAndSet(0), calls);
+        calls = 0;
+    }
+
+    @Benchmark
+    public int newContextPerClient() {
+        TLSClientParameters params = new TLSClientParameters();
+        params.setTrustManagers(trustManagers);
+        return call(params);
+    }
+
+    @Benchmark
+    public int sharedContext() {
+        return call(cache.parameters(trustManagers, null, false));
+    }
+
+    @Benchmark
+    public int sharedSocketFactory() {
+        return call(socketFactoryCache.parameters(trustManagers, null, false));
+    }
+
+    private int call(TLSClientParameters params) {
+        WebClient client = WebClient.create(server.getBaseUrl());
+        WebClient.getConfig(client).getHttpConduit().setTlsClientParameters(params);
+        client.path("response-headers");
+        if (!keepAlive) {
+            client.query("Connection", "close");
+        }
+        Response response = client.get();
+        response.readEntity(String.class);
+        calls++;
+        return response.getStatus();
+    }
+
+    private final static class CountingTrustManager implements X509TrustManager {
+
+        private final X509TrustManager delegate = (X509TrustManager) HTTPServer.trustManagers()[0];
+
+        private final AtomicLong handshakes = new AtomicLong();
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+            delegate.checkClientTrusted(chain, authType);
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+            handshakes.incrementAndGet();
+            delegate.checkServerTrusted(chain, authType);
+        }
+
+        @Override
+        public X509Certificate[] getAcceptedIssuers() {
+            return delegate.getAcceptedIssuers();
+        }
+    }
+
+}
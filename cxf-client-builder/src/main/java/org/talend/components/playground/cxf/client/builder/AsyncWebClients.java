@@ -0,0 +1,155 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transport.http.HTTPConduitFactory;
+import org.apache.cxf.transport.http.asyncclient.hc5.AsyncHTTPConduit;
+import org.apache.cxf.transport.http.asyncclient.hc5.AsyncHTTPConduitFactory;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.InvocationCallback;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking calls with the clients of a {@link WebClientFactory}.
+ * <p>
+ * cxf-rt-transports-http-hc5 is on the classpath, so the conduits are {@link AsyncHTTPConduit}: synchronous calls
+ * still use HttpURLConnection, asynchronous ones use the Apache HttpClient 5 NIO client and don't hold a thread
+ * while waiting for the response. The transport registers its conduit factory on the bus when loaded, so this applies
+ * to every client of the bus, also those not created by a {@link WebClientFactory}. Authentication, TLS, redirection and timeouts come from the same conduit
+ * configuration. The stage is completed from the I/O reactor threads, so long work should go to an async stage.
+ * <p>
+ * The conduit handles redirections and authentication challenges by waiting for the response in the calling thread,
+ * and then delivers the first response instead of the retransmitted one. So clients with autoRedirect or an auth
+ * supplier caching the request (Digest) are called with the blocking transport in an executor instead: by default a
+ * shared pool of {@link #DEFAULT_BLOCKING_THREADS} threads, the calls beyond wait for a thread.
+ * <p>
+ * {@code client.rx()} is not used since, without an executor, it only runs the blocking call in the common pool.
+ */
+public final class AsyncWebClients {
+
+    public final static int DEFAULT_MAX_CONNECTIONS = 5000;
+
+    public final static int DEFAULT_MAX_PER_HOST_CONNECTIONS = 1000;
+
+    public final static int DEFAULT_BLOCKING_THREADS = 64;
+
+    private final static ExecutorService BLOCKING_EXECUTOR = newBlockingExecutor(DEFAULT_BLOCKING_THREADS);
+
+    private AsyncWebClients() {
+        /** Don't instantiate **/
+    }
+
+    /**
+     * Connection pool of the async transport, shared by all the clients of the bus.
+     * The per host limit should stay under the number of keep-alive connections the server accepts, otherwise
+     * it closes the idle ones while the client still considers them reusable.
+     */
+    public static void setConnectionLimits(Bus bus, int maxConnections, int maxPerHostConnections) {
+        HTTPConduitFactory conduitFactory = bus.getExtension(HTTPConduitFactory.class);
+        if (!(conduitFactory instanceof AsyncHTTPConduitFactory)) {
+            throw new IllegalStateException("The async HTTP conduit is not registered on the bus: " + conduitFactory);
+        }
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(AsyncHTTPConduitFactory.MAX_CONNECTIONS, maxConnections);
+        properties.put(AsyncHTTPConduitFactory.MAX_PER_HOST_CONNECTIONS, maxPerHostConnections);
+        ((AsyncHTTPConduitFactory) conduitFactory).update(properties);
+    }
+
+    public static void setConnectionLimits(int maxConnections, int maxPerHostConnections) {
+        setConnectionLimits(BusFactory.getDefaultBus(), maxConnections, maxPerHostConnections);
+    }
+
+    public static CompletionStage<Response> get(WebClient client) {
+        return invoke(client, "GET", null);
+    }
+
+    public static CompletionStage<Response> post(WebClient client, Object body) {
+        return invoke(client, "POST", body);
+    }
+
+    /**
+     * @param client a client from {@link WebClientFactory#create}, with its path, query and headers set.
+     * @param body the request body, written with the client Content-Type, null for no body.
+     * @return the response, or an exception as the synchronous call would throw it.
+     */
+    public static CompletionStage<Response> invoke(WebClient client, String method, Object body) {
+        return invoke(client, method, body, BLOCKING_EXECUTOR);
+    }
+
+    /**
+     * @param blockingExecutor runs the calls that can't be done without blocking a thread, its size bounds how many of
+     *                         them are in flight.
+     */
+    public static CompletionStage<Response> invoke(WebClient client, String method, Object body, Executor blockingExecutor) {
+        if (needsRetransmission(client)) {
+            return CompletableFuture.supplyAsync(() -> client.invoke(method, body), blockingExecutor);
+        }
+
+        final CompletableFuture<Response> result = new CompletableFuture<>();
+        final InvocationCallback<Response> callback = new InvocationCallback<Response>() {
+
+            @Override
+            public void completed(Response response) {
+                result.complete(response);
+            }
+
+            @Override
+            public void failed(Throwable throwable) {
+                result.completeExceptionally(throwable);
+            }
+        };
+
+        try {
+            if (body == null) {
+                client.async().method(method, callback);
+            } else {
+                client.async().method(method, Entity.entity(body, contentType(client)), callback);
+            }
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * @return true if the conduit may have to send the request again, which the async transport can't do.
+     */
+    static boolean needsRetransmission(WebClient client) {
+        HTTPConduit conduit = WebClient.getConfig(client).getHttpConduit();
+        return conduit.getClient().isAutoRedirect()
+                || (conduit.getAuthSupplier() != null && conduit.getAuthSupplier().requiresRequestCaching());
+    }
+
+    private static ExecutorService newBlockingExecutor(int threads) {
+        final AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "async-web-client-blocking-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static MediaType contentType(WebClient client) {
+        Object type = client.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE);
+        return type == null ? MediaType.WILDCARD_TYPE : MediaType.valueOf(type.toString());
+    }
+
+}
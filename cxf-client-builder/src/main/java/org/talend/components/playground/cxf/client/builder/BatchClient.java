@@ -0,0 +1,210 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Builder;
+import org.apache.cxf.jaxrs.client.WebClient;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Sends many small requests to the same base URL, with up to maxInFlight of them at once.
+ * <pre>
+ * BatchClient batch = BatchClient.builder().settings(settings).maxInFlight(5).build();
+ * BatchResults&lt;String&gt; results = batch.execute(requests, response -&gt; response.readEntity(String.class));
+ * results.getFailures().forEach(failure -&gt; ...);
+ * </pre>
+ * Each call is a blocking call run in the executor, so at most maxInFlight threads are busy and the keep-alive
+ * connections of the transport are reused from one call to the next. The calls are blocking as those of the
+ * {@link ResilientInvoker} retrying them; for asynchronous calls, use {@link AsyncWebClients#invoke} instead.
+ * The blocking transport keeps at most http.maxConnections idle connections per host (5 by default in the JDK) and
+ * closes the others once their call is done, so a maxInFlight above it needs that system property raised as well,
+ * otherwise most calls open a new connection.
+ * The requests are read from the iterator or stream only when there is room for them, so a lazy stream of
+ * millions of requests is never held in memory. Each response is given to the reader, then closed.
+ * With a {@link ResilientInvoker}, the calls are sent through it: retried, and kept under the rate and concurrency the
+ * server sustains by its limiters, maxInFlight being only the upper bound.
+ * <p>
+ * A failed call, an error status (unless failOnErrorStatus is false) or a failed reader fails its result only,
+ * the failures are collected with the results and never stop the batch.
+ */
+public class BatchClient {
+
+    public final static int DEFAULT_MAX_IN_FLIGHT = 5;
+
+    private final static ExecutorService EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "batch-client");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final WebClientFactory factory;
+
+    private final ClientSettings settings;
+
+    private final int maxInFlight;
+
+    private final boolean failOnErrorStatus;
+
+    private final Executor executor;
+
+    private final ResilientInvoker invoker;
+
+    /**
+     * @param maxInFlight requests sent and not yet read, {@link #DEFAULT_MAX_IN_FLIGHT} by default as the JDK
+     *                    keep-alive cache; keep it under http.maxConnections.
+     * @param failOnErrorStatus fails the results of the responses with a 4xx or 5xx status, true by default.
+     * @param executor runs the calls and the readers, a shared cached pool of daemon threads by default.
+     * @param invoker sends the calls, with a plain invoke() when null.
+     */
+    @Builder
+    private BatchClient(WebClientFactory factory, ClientSettings settings, Integer maxInFlight,
+                        Boolean failOnErrorStatus, Executor executor, ResilientInvoker invoker) {
+        if (settings == null) {
+            throw new IllegalArgumentException("settings are required");
+        }
+        this.factory = factory == null ? WebClientFactory.create() : factory;
+        this.settings = settings;
+        this.maxInFlight = maxInFlight == null ? DEFAULT_MAX_IN_FLIGHT : maxInFlight;
+        this.failOnErrorStatus = failOnErrorStatus == null || failOnErrorStatus;
+        this.executor = executor == null ? EXECUTOR : executor;
+        this.invoker = invoker;
+        if (this.maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be greater than 0: " + this.maxInFlight);
+        }
+    }
+
+    /**
+     * Sends all the requests and waits for them.
+     *
+     * @return the results in the order of the requests.
+     */
+    public <T> BatchResults<T> execute(Iterable<BatchRequest> requests, Function<Response, T> reader) {
+        return execute(requests.iterator(), reader);
+    }
+
+    public <T> BatchResults<T> execute(Stream<BatchRequest> requests, Function<Response, T> reader) {
+        return execute(requests.iterator(), reader);
+    }
+
+    private <T> BatchResults<T> execute(Iterator<BatchRequest> requests, Function<Response, T> reader) {
+        final long start = System.nanoTime();
+        final List<BatchResult<T>> results = new ArrayList<>();
+        run(requests, reader, result -> {
+            while (results.size() <= result.getIndex()) {
+                results.add(null);
+            }
+            results.set(result.getIndex(), result);
+        });
+        return new BatchResults<>(results, System.nanoTime() - start);
+    }
+
+    /**
+     * Sends all the requests and gives their results to the consumer as soon as they are read. The consumer is
+     * called from the calling thread, one result at a time, and slows the sending down while it runs.
+     */
+    public <T> void forEachCompleted(Iterable<BatchRequest> requests, Function<Response, T> reader,
+                                     Consumer<BatchResult<T>> consumer) {
+        run(requests.iterator(), reader, consumer);
+    }
+
+    public <T> void forEachCompleted(Stream<BatchRequest> requests, Function<Response, T> reader,
+                                     Consumer<BatchResult<T>> consumer) {
+        run(requests.iterator(), reader, consumer);
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Sends the requests while under maxInFlight, and delivers the results in the calling thread.
+     */
+    private <T> void run(Iterator<BatchRequest> requests, Function<Response, T> reader,
+                         Consumer<BatchResult<T>> consumer) {
+        final BlockingQueue<BatchResult<T>> completed = new LinkedBlockingQueue<>();
+        int index = 0;
+        int inFlight = 0;
+        while (inFlight > 0 || requests.hasNext()) {
+            if (inFlight < maxInFlight && requests.hasNext()) {
+                send(index++, requests.next(), reader, completed);
+                inFlight++;
+            } else {
+                consumer.accept(take(completed));
+                inFlight--;
+            }
+            // Delivers what is already done, without waiting
+            BatchResult<T> result;
+            while ((result = completed.poll()) != null) {
+                consumer.accept(result);
+                inFlight--;
+            }
+        }
+    }
+
+    private <T> void send(int index, BatchRequest request, Function<Response, T> reader,
+                          BlockingQueue<BatchResult<T>> completed) {
+        final long start = System.nanoTime();
+        CompletableFuture.supplyAsync(() -> read(invoke(request), reader), executor)
+                .whenComplete((value, error) -> completed.add(new BatchResult<>(index, request, value,
+                        error instanceof CompletionException && error.getCause() != null ? error.getCause() : error,
+                        System.nanoTime() - start)));
+    }
+
+    private Response invoke(BatchRequest request) {
+        final WebClient client = client(request);
+        return invoker == null ? client.invoke(request.getMethod(), request.getBody())
+                : invoker.invoke(client, request.getMethod(), request.getBody());
+    }
+
+    private WebClient client(BatchRequest request) {
+        WebClient client = factory.create(settings);
+        if (request.getPath() != null) {
+            client.path(request.getPath());
+        }
+        request.getQueryParams().forEach((name, value) -> client.query(name, values(value)));
+        request.getHeaders().forEach((name, value) -> client.header(name, values(value)));
+        if (request.getContentType() != null) {
+            client.type(request.getContentType());
+        }
+        return client;
+    }
+
+    private <T> T read(Response response, Function<Response, T> reader) {
+        try {
+            if (failOnErrorStatus && response.getStatus() >= 400) {
+                throw new WebApplicationException("Status " + response.getStatus(), response.getStatus());
+            }
+            return reader.apply(response);
+        } finally {
+            response.close();
+        }
+    }
+
+    private static Object[] values(Object value) {
+        return value instanceof Collection ? ((Collection<?>) value).toArray() : new Object[]{value};
+    }
+
+    private static <T> BatchResult<T> take(BlockingQueue<BatchResult<T>> completed) {
+        try {
+            return completed.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the batch responses", e);
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * One call of a {@link BatchClient} batch, relative to the base URL of the batch settings.
+ */
+@Value
+@Builder(toBuilder = true)
+// The @Singular builder casts the values to Object
+@SuppressWarnings("cast")
+public class BatchRequest {
+
+    @Builder.Default
+    String method = "GET";
+
+    /**
+     * Added to the base URL, or null.
+     */
+    String path;
+
+    /**
+     * Query parameters, a Collection value is added as many parameters with the same name.
+     */
+    @Singular("query")
+    Map<String, Object> queryParams;
+
+    /**
+     * Headers, a Collection value is added as many values.
+     */
+    @Singular
+    Map<String, Object> headers;
+
+    /**
+     * The body, written with the contentType, null for no body.
+     */
+    Object body;
+
+    String contentType;
+
+}
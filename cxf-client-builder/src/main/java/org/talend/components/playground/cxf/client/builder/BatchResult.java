@@ -0,0 +1,40 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Value;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of one call of a {@link BatchClient} batch: the value read from the response, or the error.
+ */
+@Value
+public class BatchResult<T> {
+
+    /**
+     * Position of the request in the batch.
+     */
+    int index;
+
+    BatchRequest request;
+
+    T value;
+
+    /**
+     * The call, status or reader failure, null on success.
+     */
+    Throwable error;
+
+    /**
+     * From the dispatch of the request to the end of the reader.
+     */
+    long nanos;
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    public double getMillis() {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+}
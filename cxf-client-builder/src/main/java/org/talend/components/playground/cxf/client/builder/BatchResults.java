@@ -0,0 +1,48 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Results of a {@link BatchClient} batch, in the order of the requests, failures included.
+ */
+@Value
+public class BatchResults<T> {
+
+    List<BatchResult<T>> results;
+
+    /**
+     * Duration of the whole batch.
+     */
+    long nanos;
+
+    public boolean isSuccess() {
+        return results.stream().allMatch(BatchResult::isSuccess);
+    }
+
+    public List<BatchResult<T>> getFailures() {
+        return results.stream().filter(r -> !r.isSuccess()).collect(Collectors.toList());
+    }
+
+    /**
+     * @return the values, null for the failed calls.
+     */
+    public List<T> getValues() {
+        return results.stream().map(BatchResult::getValue).collect(Collectors.toList());
+    }
+
+    public int size() {
+        return results.size();
+    }
+
+    /**
+     * @return calls per second.
+     */
+    public double getThroughput() {
+        return nanos == 0 ? 0 : results.size() * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+}
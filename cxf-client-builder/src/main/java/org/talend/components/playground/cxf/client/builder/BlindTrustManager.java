@@ -0,0 +1,20 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import javax.net.ssl.X509TrustManager;
+import java.security.cert.X509Certificate;
+
+/**
+ * This dumb X509TrustManager trusts all certificate. This SHOULD NOT be used in Production.
+ */
+public class BlindTrustManager implements X509TrustManager {
+
+    public void checkClientTrusted(X509Certificate[] chain, String authType) {
+    }
+
+    public void checkServerTrusted(X509Certificate[] chain, String authType) {
+    }
+
+    public X509Certificate[] getAcceptedIssuers() {
+        return new X509Certificate[0];
+    }
+}
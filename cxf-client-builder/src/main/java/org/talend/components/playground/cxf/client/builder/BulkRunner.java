@@ -0,0 +1,270 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Builder;
+import org.apache.cxf.jaxrs.client.WebClient;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs many blocking WebClient calls concurrently, for bulk jobs keeping the simple
+ * {@code client.invoke("GET", null)} style.
+ * <p>
+ * On Java 21+ each call runs in its own virtual thread, so tens of thousands of calls can wait for their
+ * response without exhausting the threads. On older JDK, the calls run in a bounded pool of platform threads.
+ * In both modes, the number of calls in flight to the same host (scheme, host and port) is limited, to not overload
+ * the server nor the connection pool. The calls over the limit wait in a queue of their host, outside the executor,
+ * and are handed to it when a call to the same host completes: a slow host never holds the threads of the others.
+ */
+public class BulkRunner implements AutoCloseable {
+
+    public final static int DEFAULT_MAX_PER_HOST = 64;
+
+    public final static int DEFAULT_PLATFORM_THREADS = 200;
+
+    public enum Mode {
+        VIRTUAL,
+        PLATFORM
+    }
+
+    private final WebClientFactory factory;
+
+    private final int maxPerHost;
+
+    private final Mode mode;
+
+    private final ExecutorService executor;
+
+    private final Map<String, Host> hosts = new ConcurrentHashMap<>();
+
+    /**
+     * Calls submitted and not yet completed, close() waits on it for them.
+     */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private volatile boolean closed;
+
+    /**
+     * @param mode VIRTUAL or PLATFORM, by default virtual threads when the JDK has them.
+     * @param platformThreads size of the pool in PLATFORM mode.
+     */
+    @Builder
+    private BulkRunner(WebClientFactory factory, Integer maxPerHost, Mode mode, Integer platformThreads) {
+        this.factory = factory == null ? WebClientFactory.create() : factory;
+        this.maxPerHost = maxPerHost == null ? DEFAULT_MAX_PER_HOST : maxPerHost;
+        if (this.maxPerHost <= 0) {
+            throw new IllegalArgumentException("maxPerHost must be greater than 0: " + this.maxPerHost);
+        }
+
+        if (mode == Mode.VIRTUAL && !isVirtualThreadsSupported()) {
+            throw new IllegalStateException("Virtual threads need Java 21+, current version: " + Runtime.version());
+        }
+        this.mode = mode != null ? mode : isVirtualThreadsSupported() ? Mode.VIRTUAL : Mode.PLATFORM;
+        this.executor = this.mode == Mode.VIRTUAL
+                ? newVirtualThreadPerTaskExecutor()
+                : newPlatformExecutor(platformThreads == null ? DEFAULT_PLATFORM_THREADS : platformThreads);
+    }
+
+    public static BulkRunner create() {
+        return builder().build();
+    }
+
+    /**
+     * Runs the call with a client built from the settings once its host is under the concurrency limit.
+     * The call has to read or close the response, so the connection is released before the next call.
+     * A call cancelled while waiting for its host is not run.
+     *
+     * @throws RejectedExecutionException once the runner is closed.
+     */
+    public <T> CompletableFuture<T> submit(ClientSettings settings, Function<WebClient, T> call) {
+        if (closed) {
+            throw new RejectedExecutionException("The runner is closed");
+        }
+        final Host host = hosts.computeIfAbsent(Origins.of(settings.getBaseUrl()), k -> new Host());
+        final Call<T> task = new Call<>(host, settings, call);
+        pending.incrementAndGet();
+        host.submit(task);
+        return task.result;
+    }
+
+    /**
+     * Runs all the calls and waits for them.
+     *
+     * @return the results in the order of the calls.
+     * @throws java.util.concurrent.CompletionException with the first failure, once all the calls are done.
+     */
+    public <T> List<T> invokeAll(ClientSettings settings, List<Function<WebClient, T>> calls) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(calls.size());
+        calls.forEach(call -> futures.add(submit(settings, call)));
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+
+        List<T> results = new ArrayList<>(futures.size());
+        futures.forEach(f -> results.add(f.join()));
+        return results;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getMaxPerHost() {
+        return maxPerHost;
+    }
+
+    /**
+     * Waits for the submitted calls, then stops the threads. When interrupted, returns with the interrupt status set
+     * and the calls still running, the queued ones included.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            synchronized (pending) {
+                while (pending.get() > 0) {
+                    pending.wait();
+                }
+            }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void completed() {
+        if (pending.decrementAndGet() == 0) {
+            synchronized (pending) {
+                pending.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Calls to one host: at most maxPerHost of them in the executor, the others queued in submission order.
+     */
+    private final class Host {
+
+        private final Deque<Call<?>> waiting = new ArrayDeque<>();
+
+        private int running;
+
+        void submit(Call<?> call) {
+            synchronized (this) {
+                if (running >= maxPerHost) {
+                    waiting.add(call);
+                    return;
+                }
+                running++;
+            }
+            execute(call);
+        }
+
+        /**
+         * Hands the permit of a completed call to the next queued one.
+         */
+        void release() {
+            Call<?> next = next();
+            if (next != null) {
+                execute(next);
+            }
+        }
+
+        private synchronized Call<?> next() {
+            Call<?> next = waiting.poll();
+            if (next == null) {
+                running--;
+            }
+            return next;
+        }
+
+        /**
+         * Runs a call holding a permit, or fails it and passes the permit on when the executor rejects it.
+         */
+        private void execute(Call<?> call) {
+            while (call != null) {
+                try {
+                    executor.execute(call);
+                    return;
+                } catch (RejectedExecutionException e) {
+                    call.result.completeExceptionally(e);
+                    completed();
+                    call = next();
+                }
+            }
+        }
+
+    }
+
+    private final class Call<T> implements Runnable {
+
+        private final Host host;
+
+        private final ClientSettings settings;
+
+        private final Function<WebClient, T> call;
+
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        Call(Host host, ClientSettings settings, Function<WebClient, T> call) {
+            this.host = host;
+            this.settings = settings;
+            this.call = call;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (!result.isDone()) {
+                    result.complete(call.apply(factory.create(settings)));
+                }
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                host.release();
+                completed();
+            }
+        }
+
+    }
+
+    public static boolean isVirtualThreadsSupported() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    /**
+     * Compiled for Java 11, so Executors.newVirtualThreadPerTaskExecutor() is called by reflection.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Can't create the virtual thread executor", e);
+        }
+    }
+
+    private static ExecutorService newPlatformExecutor(int threads) {
+        final AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "bulk-runner-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+}
@@ -0,0 +1,51 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Small pool of reusable buffers, so streaming large responses doesn't allocate a new buffer per call.
+ * Released buffers above the capacity are left to the GC.
+ */
+final class ByteBufferPool {
+
+    private final int bufferSize;
+
+    private final int capacity;
+
+    private final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    ByteBufferPool(int bufferSize, int capacity) {
+        this.bufferSize = bufferSize;
+        this.capacity = capacity;
+    }
+
+    ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocate(bufferSize);
+        }
+        size.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    void release(ByteBuffer buffer) {
+        if (buffer.capacity() != bufferSize) {
+            return;
+        }
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            return;
+        }
+        buffers.offer(buffer);
+    }
+
+    int getBufferSize() {
+        return bufferSize;
+    }
+
+}
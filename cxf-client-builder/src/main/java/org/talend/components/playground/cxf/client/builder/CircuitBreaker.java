@@ -0,0 +1,183 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Builder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per host circuit breaker of a {@link ResilientInvoker}: stops sending calls to a host failing too often, so it can
+ * recover and the callers fail fast instead of waiting for timeouts.
+ * <p>
+ * CLOSED: the outcomes of the last slidingWindow calls are recorded, the circuit opens when at least minimumCalls
+ * have been recorded and the failure rate reaches failureRateThreshold. OPEN: the calls are refused for
+ * openDuration. HALF_OPEN: a single trial call is let through, it closes the circuit on success and opens it again
+ * on failure. A failure is an exception or a 5xx status.
+ */
+public class CircuitBreaker {
+
+    public final static double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+
+    public final static int DEFAULT_SLIDING_WINDOW = 20;
+
+    public final static int DEFAULT_MINIMUM_CALLS = 10;
+
+    public final static long DEFAULT_OPEN_DURATION = TimeUnit.SECONDS.toMillis(30);
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final double failureRateThreshold;
+
+    private final int slidingWindow;
+
+    private final int minimumCalls;
+
+    private final long openDurationNanos;
+
+    private final Map<String, Host> hosts = new ConcurrentHashMap<>();
+
+    /**
+     * @param failureRateThreshold failures / calls opening the circuit, from 0 to 1.
+     * @param slidingWindow number of last calls the failure rate is computed on.
+     * @param openDuration time in ms the calls are refused once the circuit is open.
+     */
+    @Builder
+    private CircuitBreaker(Double failureRateThreshold, Integer slidingWindow, Integer minimumCalls,
+                           Long openDuration) {
+        this.failureRateThreshold = failureRateThreshold == null ? DEFAULT_FAILURE_RATE_THRESHOLD : failureRateThreshold;
+        this.slidingWindow = slidingWindow == null ? DEFAULT_SLIDING_WINDOW : slidingWindow;
+        this.minimumCalls = Math.min(minimumCalls == null ? DEFAULT_MINIMUM_CALLS : minimumCalls, this.slidingWindow);
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDuration == null ? DEFAULT_OPEN_DURATION : openDuration);
+
+        if (this.failureRateThreshold <= 0 || this.failureRateThreshold > 1) {
+            throw new IllegalArgumentException("failureRateThreshold must be in ]0, 1]: " + this.failureRateThreshold);
+        }
+        if (this.slidingWindow <= 0) {
+            throw new IllegalArgumentException("slidingWindow must be greater than 0: " + this.slidingWindow);
+        }
+    }
+
+    public static CircuitBreaker create() {
+        return builder().build();
+    }
+
+    /**
+     * @return true when a call to the host can be sent, its outcome must then be recorded.
+     */
+    public boolean tryAcquire(String host) {
+        return hosts.computeIfAbsent(host, h -> new Host()).tryAcquire(System.nanoTime());
+    }
+
+    public void onSuccess(String host) {
+        hosts.computeIfAbsent(host, h -> new Host()).record(true, System.nanoTime());
+    }
+
+    public void onFailure(String host) {
+        hosts.computeIfAbsent(host, h -> new Host()).record(false, System.nanoTime());
+    }
+
+    public State getState(String host) {
+        Host state = hosts.get(host);
+        return state == null ? State.CLOSED : state.getState(System.nanoTime());
+    }
+
+    /**
+     * Closes all the circuits.
+     */
+    public void reset() {
+        hosts.clear();
+    }
+
+    private final class Host {
+
+        /**
+         * Outcomes of the last calls, as a ring.
+         */
+        private final boolean[] outcomes = new boolean[slidingWindow];
+
+        private int recorded;
+
+        private int next;
+
+        private int failures;
+
+        private State state = State.CLOSED;
+
+        private long openedAt;
+
+        private boolean trialInFlight;
+
+        private synchronized boolean tryAcquire(long now) {
+            switch (getState(now)) {
+                case CLOSED:
+                    return true;
+                case HALF_OPEN:
+                    if (trialInFlight) {
+                        return false;
+                    }
+                    trialInFlight = true;
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        private synchronized State getState(long now) {
+            if (state == State.OPEN && now - openedAt >= openDurationNanos) {
+                state = State.HALF_OPEN;
+                trialInFlight = false;
+            }
+            return state;
+        }
+
+        private synchronized void record(boolean success, long now) {
+            switch (getState(now)) {
+                case HALF_OPEN:
+                    if (success) {
+                        close();
+                    } else {
+                        open(now);
+                    }
+                    return;
+                case OPEN:
+                    // Call sent before the circuit opened
+                    return;
+                default:
+                    break;
+            }
+
+            if (recorded == outcomes.length && !outcomes[next]) {
+                failures--;
+            }
+            outcomes[next] = success;
+            next = (next + 1) % outcomes.length;
+            recorded = Math.min(recorded + 1, outcomes.length);
+            if (!success) {
+                failures++;
+            }
+            if (recorded >= minimumCalls && failures >= failureRateThreshold * recorded) {
+                open(now);
+            }
+        }
+
+        private void open(long now) {
+            state = State.OPEN;
+            openedAt = now;
+            trialInFlight = false;
+        }
+
+        private void close() {
+            state = State.CLOSED;
+            recorded = 0;
+            next = 0;
+            failures = 0;
+            trialInFlight = false;
+        }
+    }
+
+}
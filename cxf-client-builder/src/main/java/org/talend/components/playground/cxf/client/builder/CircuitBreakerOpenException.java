@@ -0,0 +1,24 @@
+package org.talend.components.playground.cxf.client.builder;
+
+/**
+ * A call of a {@link ResilientInvoker} refused without being sent, the circuit of its host is open.
+ */
+public class CircuitBreakerOpenException extends RuntimeException {
+
+    private final static long serialVersionUID = 1L;
+
+    private final String host;
+
+    public CircuitBreakerOpenException(String host) {
+        super("Circuit open for " + host);
+        this.host = host;
+    }
+
+    /**
+     * @return scheme://host:port
+     */
+    public String getHost() {
+        return host;
+    }
+
+}
@@ -0,0 +1,15 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import org.apache.cxf.jaxrs.client.WebClient;
+
+/**
+ * Hook called once per template, after the conduit has been configured from the settings.
+ * Clients handed out by the factory share the template configuration, so anything
+ * registered here (interceptors, auth supplier, conduit options) applies to all of them.
+ */
+@FunctionalInterface
+public interface ClientCustomizer {
+
+    void customize(WebClient template, ClientSettings settings);
+
+}
@@ -0,0 +1,77 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Builder;
+import lombok.ToString;
+import lombok.Value;
+
+/**
+ * Everything needed to configure a WebClient and its HTTPConduit.
+ * Two equal settings always produce equivalent clients, so it is used as the template cache key.
+ */
+@Value
+@Builder(toBuilder = true)
+public class ClientSettings {
+
+    /**
+     * The base URL, path and query are added on the returned client.
+     */
+    String baseUrl;
+
+    /**
+     * Basic, Digest, NTLM, Bearer... or null for no authentication.
+     */
+    String authorizationType;
+
+    /**
+     * The client id with Bearer.
+     */
+    String userName;
+
+    /**
+     * The client secret with Bearer.
+     */
+    @ToString.Exclude
+    String password;
+
+    /**
+     * With Bearer, the URL of the OAuth2 token endpoint.
+     */
+    String tokenUrl;
+
+    /**
+     * With Bearer, the scopes of the token, space separated.
+     */
+    String scope;
+
+    /**
+     * Trust all certificates. This SHOULD NOT be used in Production.
+     */
+    boolean acceptAllCertificates;
+
+    boolean disableCNCheck;
+
+    @Builder.Default
+    long connectionTimeout = 30000;
+
+    @Builder.Default
+    long receiveTimeout = 60000;
+
+    boolean autoRedirect;
+
+    /**
+     * Max redirects when autoRedirect is set, -1 means unlimited.
+     */
+    @Builder.Default
+    int maxRetransmits = -1;
+
+    /**
+     * Value of the "http.redirect.relative.uri" request context property.
+     */
+    boolean relativeRedirect;
+
+    /**
+     * Value of the "http.redirect.same.host.only" request context property.
+     */
+    boolean sameHostOnly;
+
+}
@@ -0,0 +1,100 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Small pool of reusable Inflater and Deflater, so compressed calls don't allocate the native zlib state of a new
+ * one per call. Released codecs above the capacity are ended.
+ */
+final class CodecPool {
+
+    private final int level;
+
+    private final int capacity;
+
+    /**
+     * Raw deflate (nowrap) for gzip, zlib wrapped for deflate.
+     */
+    private final Pool<Inflater> rawInflaters = new Pool<>();
+
+    private final Pool<Inflater> zlibInflaters = new Pool<>();
+
+    private final Pool<Deflater> rawDeflaters = new Pool<>();
+
+    private final Pool<Deflater> zlibDeflaters = new Pool<>();
+
+    private final LongAdder created = new LongAdder();
+
+    CodecPool(int level, int capacity) {
+        this.level = level;
+        this.capacity = capacity;
+    }
+
+    Inflater acquireInflater(boolean nowrap) {
+        Inflater inflater = (nowrap ? rawInflaters : zlibInflaters).poll();
+        if (inflater == null) {
+            created.increment();
+            return new Inflater(nowrap);
+        }
+        return inflater;
+    }
+
+    void releaseInflater(Inflater inflater, boolean nowrap) {
+        inflater.reset();
+        if (!(nowrap ? rawInflaters : zlibInflaters).offer(inflater)) {
+            inflater.end();
+        }
+    }
+
+    Deflater acquireDeflater(boolean nowrap) {
+        Deflater deflater = (nowrap ? rawDeflaters : zlibDeflaters).poll();
+        if (deflater == null) {
+            created.increment();
+            return new Deflater(level, nowrap);
+        }
+        return deflater;
+    }
+
+    void releaseDeflater(Deflater deflater, boolean nowrap) {
+        deflater.reset();
+        if (!(nowrap ? rawDeflaters : zlibDeflaters).offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    /**
+     * @return the codecs created, the ones reused excluded.
+     */
+    long getCreated() {
+        return created.sum();
+    }
+
+    private final class Pool<T> {
+
+        private final ConcurrentLinkedQueue<T> codecs = new ConcurrentLinkedQueue<>();
+
+        private final AtomicInteger size = new AtomicInteger();
+
+        private T poll() {
+            T codec = codecs.poll();
+            if (codec != null) {
+                size.decrementAndGet();
+            }
+            return codec;
+        }
+
+        private boolean offer(T codec) {
+            if (size.incrementAndGet() > capacity) {
+                size.decrementAndGet();
+                return false;
+            }
+            codecs.offer(codec);
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,574 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Builder;
+import org.apache.cxf.helpers.CastUtils;
+import org.apache.cxf.jaxrs.client.ClientConfiguration;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.talend.components.playground.cxf.authent.digest.AuthIntOutInterceptor;
+import org.talend.components.playground.cxf.authent.digest.CachingDigestAuthSupplier;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Negotiates compressed responses and compresses the large request bodies of the clients, with gzip and deflate.
+ * <pre>
+ * Compression compression = Compression.builder().requestEncoding(Compression.GZIP).build();
+ * WebClientFactory factory = WebClientFactory.builder().customizer(compression).build();
+ * </pre>
+ * The requests get an Accept-Encoding unless they have one, and the gzip or deflate responses are decompressed while
+ * read, the caller sees the decoded body without Content-Encoding nor Content-Length. Other encodings are left as is.
+ * <p>
+ * With a requestEncoding, the request bodies of minRequestSize bytes and more are compressed while written, and sent
+ * with a Content-Encoding: the first bytes are buffered until the size is known to be reached, the smaller bodies
+ * are sent as is. The server must accept the encoding, a 415 answers the ones that don't. With Digest qop=auth-int,
+ * the body is hashed once compressed, as the server receives it.
+ * <p>
+ * The Inflater and Deflater are pooled, their native zlib state is not allocated per call.
+ */
+public class Compression implements ClientCustomizer {
+
+    public final static String GZIP = "gzip";
+
+    public final static String DEFLATE = "deflate";
+
+    public final static String DEFAULT_ACCEPT_ENCODING = "gzip, deflate";
+
+    public final static int DEFAULT_MIN_REQUEST_SIZE = 1024;
+
+    public final static int DEFAULT_POOL_SIZE = 32;
+
+    private final static int BUFFER_SIZE = 8192;
+
+    private final static int GZIP_MAGIC = 0x8b1f;
+
+    private final String acceptEncoding;
+
+    private final String requestEncoding;
+
+    private final int minRequestSize;
+
+    private final CodecPool codecs;
+
+    private final LongAdder responsesDecoded = new LongAdder();
+
+    private final LongAdder bytesReceived = new LongAdder();
+
+    private final LongAdder bytesDecoded = new LongAdder();
+
+    private final LongAdder requestsCompressed = new LongAdder();
+
+    private final LongAdder bytesWritten = new LongAdder();
+
+    private final LongAdder bytesSent = new LongAdder();
+
+    private final RequestInterceptor requestInterceptor = new RequestInterceptor();
+
+    private final ResponseInterceptor responseInterceptor = new ResponseInterceptor();
+
+    /**
+     * @param acceptEncoding Accept-Encoding of the requests, "gzip, deflate" by default.
+     * @param requestEncoding gzip or deflate to compress the request bodies, none by default.
+     * @param minRequestSize smaller request bodies are not compressed.
+     * @param level Deflater level of the request bodies, from 1 (fast) to 9 (small), 6 by default.
+     * @param poolSize Inflater and Deflater kept for reuse, per kind.
+     */
+    @Builder
+    private Compression(String acceptEncoding, String requestEncoding, Integer minRequestSize, Integer level,
+                        Integer poolSize) {
+        this.acceptEncoding = acceptEncoding == null ? DEFAULT_ACCEPT_ENCODING : acceptEncoding;
+        this.requestEncoding = requestEncoding == null ? null : requestEncoding.toLowerCase(Locale.ROOT);
+        this.minRequestSize = minRequestSize == null ? DEFAULT_MIN_REQUEST_SIZE : minRequestSize;
+        this.codecs = new CodecPool(level == null ? Deflater.DEFAULT_COMPRESSION : level,
+                poolSize == null ? DEFAULT_POOL_SIZE : poolSize);
+
+        if (this.requestEncoding != null && !GZIP.equals(this.requestEncoding) && !DEFLATE.equals(this.requestEncoding)) {
+            throw new IllegalArgumentException("Unsupported request encoding: " + requestEncoding);
+        }
+        if (level != null && (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("level must be in [1, 9]: " + level);
+        }
+    }
+
+    public static Compression create() {
+        return builder().build();
+    }
+
+    @Override
+    public void customize(WebClient template, ClientSettings settings) {
+        ClientConfiguration config = WebClient.getConfig(template);
+        config.getOutInterceptors().add(requestInterceptor);
+        config.getInInterceptors().add(responseInterceptor);
+        if (requestEncoding != null) {
+            // A preemptive auth-int digest must hash the compressed body, not the entity
+            config.getRequestContext().put(CachingDigestAuthSupplier.ENCODED_ENTITY, true);
+        }
+    }
+
+    public long getResponsesDecoded() {
+        return responsesDecoded.sum();
+    }
+
+    /**
+     * @return the compressed bytes of the decoded responses read.
+     */
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    /**
+     * @return the decoded bytes of these responses.
+     */
+    public long getBytesDecoded() {
+        return bytesDecoded.sum();
+    }
+
+    public long getRequestsCompressed() {
+        return requestsCompressed.sum();
+    }
+
+    /**
+     * @return the bytes of the compressed request bodies, before compression.
+     */
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    /**
+     * @return the compressed bytes of these bodies.
+     */
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    /**
+     * @return the Inflater and Deflater created since the start, the reused ones excluded.
+     */
+    public long getCodecsCreated() {
+        return codecs.getCreated();
+    }
+
+    /**
+     * Adds the Accept-Encoding, and compresses the body once the conduit stream is there. After the auth-int stream
+     * of the digest authentication wraps it, so the body is hashed once compressed, as the server receives it.
+     */
+    private final class RequestInterceptor extends AbstractPhaseInterceptor<Message> {
+
+        private RequestInterceptor() {
+            super(Phase.PRE_STREAM);
+            addAfter(AuthIntOutInterceptor.class.getName());
+        }
+
+        @Override
+        public void handleMessage(Message message) {
+            final Map<String, List<Object>> headers = CastUtils.cast((Map<?, ?>) message.get(Message.PROTOCOL_HEADERS));
+            if (headers == null) {
+                return;
+            }
+            if (!acceptEncoding.isEmpty() && header(headers, "Accept-Encoding") == null) {
+                headers.put("Accept-Encoding", Collections.singletonList(acceptEncoding));
+            }
+
+            final OutputStream out = message.getContent(OutputStream.class);
+            if (requestEncoding != null && out != null && header(headers, "Content-Encoding") == null) {
+                message.setContent(OutputStream.class, new CompressingOutputStream(out, headers));
+            }
+        }
+    }
+
+    /**
+     * Replaces the gzip or deflate body by its decoded stream.
+     */
+    private final class ResponseInterceptor extends AbstractPhaseInterceptor<Message> {
+
+        private ResponseInterceptor() {
+            super(Phase.RECEIVE);
+        }
+
+        @Override
+        public void handleMessage(Message message) {
+            final Map<String, List<Object>> headers = CastUtils.cast((Map<?, ?>) message.get(Message.PROTOCOL_HEADERS));
+            final InputStream body = message.getContent(InputStream.class);
+            final String encoding = header(headers, "Content-Encoding");
+            if (body == null || encoding == null) {
+                return;
+            }
+            final String coding = encoding.trim().toLowerCase(Locale.ROOT);
+            final boolean gzip = GZIP.equals(coding) || "x-gzip".equals(coding);
+            if (!gzip && !DEFLATE.equals(coding)) {
+                return;
+            }
+
+            responsesDecoded.increment();
+            message.setContent(InputStream.class, new DecodingInputStream(body, gzip));
+            headers.keySet().removeIf(name -> "Content-Encoding".equalsIgnoreCase(name)
+                    || "Content-Length".equalsIgnoreCase(name));
+        }
+    }
+
+    /**
+     * Inflates a gzip or deflate body while read. The gzip header and trailer (CRC32 and size) are checked, a deflate
+     * body can be zlib wrapped as in the specification, or raw as sent by some servers.
+     */
+    private final class DecodingInputStream extends InputStream {
+
+        private final InputStream in;
+
+        private final boolean gzip;
+
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+
+        private final CRC32 crc = new CRC32();
+
+        private Inflater inflater;
+
+        /**
+         * End of the input last given to the inflater in the buffer, the unused bytes before it start the trailer.
+         */
+        private int inputEnd;
+
+        private boolean nowrap;
+
+        private boolean started;
+
+        private boolean finished;
+
+        private DecodingInputStream(InputStream in, boolean gzip) {
+            this.in = in;
+            this.gzip = gzip;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (finished) {
+                return -1;
+            }
+            if (!started && !start()) {
+                // Empty body, of a HEAD or a 204
+                finish();
+                return -1;
+            }
+            if (len == 0) {
+                return 0;
+            }
+            try {
+                while (true) {
+                    final int n = inflater.inflate(b, off, len);
+                    if (n > 0) {
+                        crc.update(b, off, n);
+                        bytesDecoded.add(n);
+                        return n;
+                    }
+                    if (inflater.finished()) {
+                        if (gzip) {
+                            readTrailer();
+                        }
+                        finish();
+                        return -1;
+                    }
+                    if (inflater.needsDictionary()) {
+                        throw new ZipException("Deflate dictionary not supported");
+                    }
+                    if (inflater.needsInput()) {
+                        final int read = in.read(buffer);
+                        if (read < 0) {
+                            throw new EOFException("Unexpected end of the compressed body");
+                        }
+                        bytesReceived.add(read);
+                        inputEnd = read;
+                        inflater.setInput(buffer, 0, read);
+                    }
+                }
+            } catch (DataFormatException e) {
+                throw new ZipException("Invalid compressed body: " + e.getMessage());
+            }
+        }
+
+        @Override
+        public int available() throws IOException {
+            return finished ? 0 : in.available() > 0 ? 1 : 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+            in.close();
+        }
+
+        /**
+         * Reads the gzip header, or the first bytes of a deflate body to know its format.
+         *
+         * @return false for an empty body.
+         */
+        private boolean start() throws IOException {
+            started = true;
+            final int first = in.read();
+            if (first < 0) {
+                return false;
+            }
+            bytesReceived.increment();
+            if (gzip) {
+                if ((readByte() << 8 | first) != GZIP_MAGIC) {
+                    throw new ZipException("Not in GZIP format");
+                }
+                readHeader();
+                nowrap = true;
+                inflater = codecs.acquireInflater(true);
+                return true;
+            }
+            // A zlib header is a multiple of 31, with the deflate method
+            final int second = in.read();
+            nowrap = second < 0 || (first & 0x0F) != 8 || ((first << 8) | second) % 31 != 0;
+            inflater = codecs.acquireInflater(nowrap);
+            buffer[0] = (byte) first;
+            buffer[1] = (byte) second;
+            if (second >= 0) {
+                bytesReceived.increment();
+            }
+            inputEnd = second < 0 ? 1 : 2;
+            inflater.setInput(buffer, 0, inputEnd);
+            return true;
+        }
+
+        /**
+         * Skips the header after the magic bytes, see RFC 1952.
+         */
+        private void readHeader() throws IOException {
+            if (readByte() != 8) {
+                throw new ZipException("Unsupported compression method");
+            }
+            final int flags = readByte();
+            // MTIME, XFL, OS
+            skip(6);
+            if ((flags & 4) != 0) {
+                skip(readByte() | readByte() << 8);
+            }
+            if ((flags & 8) != 0) {
+                while (readByte() != 0) {
+                    // File name
+                }
+            }
+            if ((flags & 16) != 0) {
+                while (readByte() != 0) {
+                    // Comment
+                }
+            }
+            if ((flags & 2) != 0) {
+                skip(2);
+            }
+        }
+
+        /**
+         * Checks the CRC32 and the size of the decoded body, first in the input left to the inflater.
+         */
+        private void readTrailer() throws IOException {
+            final byte[] trailer = new byte[8];
+            final int remaining = inflater.getRemaining();
+            final int fromBuffer = Math.min(remaining, 8);
+            System.arraycopy(buffer, inputEnd - remaining, trailer, 0, fromBuffer);
+            for (int i = fromBuffer; i < 8; i++) {
+                trailer[i] = (byte) readByte();
+            }
+            final long expectedCrc = littleEndian(trailer, 0);
+            final long expectedSize = littleEndian(trailer, 4);
+            if (expectedCrc != crc.getValue() || expectedSize != (inflater.getBytesWritten() & 0xFFFFFFFFL)) {
+                throw new ZipException("Corrupt GZIP trailer");
+            }
+        }
+
+        private int readByte() throws IOException {
+            final int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Unexpected end of the GZIP header");
+            }
+            bytesReceived.increment();
+            return b;
+        }
+
+        private void skip(int n) throws IOException {
+            for (int i = 0; i < n; i++) {
+                readByte();
+            }
+        }
+
+        private void finish() {
+            if (!finished) {
+                finished = true;
+                if (inflater != null) {
+                    codecs.releaseInflater(inflater, nowrap);
+                    inflater = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Buffers the first bytes of the body: sends them as is when the body ends before minRequestSize, else sets the
+     * Content-Encoding before the conduit writes the headers and compresses them with the rest.
+     */
+    private final class CompressingOutputStream extends OutputStream {
+
+        private final OutputStream out;
+
+        private final Map<String, List<Object>> headers;
+
+        private final boolean gzip = GZIP.equals(requestEncoding);
+
+        private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+
+        private final CRC32 crc = new CRC32();
+
+        private Deflater deflater;
+
+        private long written;
+
+        private long sent;
+
+        private boolean closed;
+
+        private CompressingOutputStream(OutputStream out, Map<String, List<Object>> headers) {
+            this.out = out;
+            this.headers = headers;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (deflater == null) {
+                pending.write(b, off, len);
+                if (pending.size() >= minRequestSize) {
+                    startCompression();
+                }
+                return;
+            }
+            deflate(b, off, len);
+        }
+
+        /**
+         * Only once compressing: the headers can't be sent before the encoding is known.
+         */
+        @Override
+        public void flush() throws IOException {
+            if (deflater != null) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (deflater == null) {
+                    pending.writeTo(out);
+                } else {
+                    deflater.finish();
+                    while (!deflater.finished()) {
+                        send(deflater.deflate(buffer));
+                    }
+                    if (gzip) {
+                        final byte[] trailer = new byte[8];
+                        writeLittleEndian(trailer, 0, crc.getValue());
+                        writeLittleEndian(trailer, 4, written);
+                        send(trailer, trailer.length);
+                    }
+                    requestsCompressed.increment();
+                    bytesWritten.add(written);
+                    bytesSent.add(sent);
+                }
+            } finally {
+                if (deflater != null) {
+                    codecs.releaseDeflater(deflater, gzip);
+                    deflater = null;
+                }
+                out.close();
+            }
+        }
+
+        private void startCompression() throws IOException {
+            headers.keySet().removeIf(name -> "Content-Length".equalsIgnoreCase(name));
+            headers.put("Content-Encoding", Collections.singletonList(requestEncoding));
+            deflater = codecs.acquireDeflater(gzip);
+            if (gzip) {
+                // Magic, deflate, no flag, no time, no extra flag, unknown OS
+                send(new byte[]{0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff}, 10);
+            }
+            final byte[] bytes = pending.toByteArray();
+            pending.reset();
+            deflate(bytes, 0, bytes.length);
+        }
+
+        private void deflate(byte[] b, int off, int len) throws IOException {
+            crc.update(b, off, len);
+            written += len;
+            deflater.setInput(b, off, len);
+            while (!deflater.needsInput()) {
+                send(deflater.deflate(buffer));
+            }
+        }
+
+        private void send(int n) throws IOException {
+            send(buffer, n);
+        }
+
+        private void send(byte[] bytes, int n) throws IOException {
+            if (n > 0) {
+                out.write(bytes, 0, n);
+                sent += n;
+            }
+        }
+    }
+
+    private static String header(Map<String, List<Object>> headers, String name) {
+        if (headers == null) {
+            return null;
+        }
+        for (Map.Entry<String, List<Object>> e : headers.entrySet()) {
+            if (name.equalsIgnoreCase(e.getKey()) && e.getValue() != null && !e.getValue().isEmpty()) {
+                return String.valueOf(e.getValue().get(0));
+            }
+        }
+        return null;
+    }
+
+    private static long littleEndian(byte[] b, int off) {
+        return (b[off] & 0xFFL) | (b[off + 1] & 0xFFL) << 8 | (b[off + 2] & 0xFFL) << 16 | (b[off + 3] & 0xFFL) << 24;
+    }
+
+    private static void writeLittleEndian(byte[] b, int off, long value) {
+        for (int i = 0; i < 4; i++) {
+            b[off + i] = (byte) (value >> (8 * i));
+        }
+    }
+
+}
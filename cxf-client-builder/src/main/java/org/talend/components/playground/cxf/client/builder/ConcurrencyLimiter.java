@@ -0,0 +1,184 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Builder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per host adaptive limit of the calls in flight of a {@link ResilientInvoker}, with AIMD (additive increase,
+ * multiplicative decrease) as TCP congestion control: the limit grows by one after a full limit of successful calls,
+ * and is multiplied by backoffRatio when the host is overloaded. It converges to the concurrency the host sustains
+ * instead of the one of the caller.
+ * <p>
+ * The host is overloaded when a call fails, is answered with a 429 or a 503, or is slower than maxLatency. The
+ * overloads of the calls sent before the last decrease are ignored, so a burst of rejections decreases the limit
+ * once. The limit only grows while it is used, a caller sending less calls doesn't inflate it.
+ */
+public class ConcurrencyLimiter {
+
+    public final static int DEFAULT_INITIAL_LIMIT = 10;
+
+    public final static int DEFAULT_MIN_LIMIT = 1;
+
+    public final static int DEFAULT_MAX_LIMIT = 200;
+
+    public final static double DEFAULT_BACKOFF_RATIO = 0.9;
+
+    private final int initialLimit;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double backoffRatio;
+
+    private final long maxLatencyNanos;
+
+    private final Map<String, Host> hosts = new ConcurrentHashMap<>();
+
+    private final LongAdder overloads = new LongAdder();
+
+    /**
+     * @param backoffRatio factor applied to the limit on overload, in ]0, 1[.
+     * @param maxLatency latency in ms counted as an overload, none by default.
+     */
+    @Builder
+    private ConcurrencyLimiter(Integer initialLimit, Integer minLimit, Integer maxLimit, Double backoffRatio,
+                               Long maxLatency) {
+        this.minLimit = minLimit == null ? DEFAULT_MIN_LIMIT : minLimit;
+        this.maxLimit = maxLimit == null ? DEFAULT_MAX_LIMIT : maxLimit;
+        this.initialLimit = Math.max(this.minLimit,
+                Math.min(initialLimit == null ? DEFAULT_INITIAL_LIMIT : initialLimit, this.maxLimit));
+        this.backoffRatio = backoffRatio == null ? DEFAULT_BACKOFF_RATIO : backoffRatio;
+        this.maxLatencyNanos = maxLatency == null ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(maxLatency);
+
+        if (this.minLimit <= 0 || this.maxLimit < this.minLimit) {
+            throw new IllegalArgumentException("Invalid limits: " + this.minLimit + " to " + this.maxLimit);
+        }
+        if (this.backoffRatio <= 0 || this.backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio must be in ]0, 1[: " + this.backoffRatio);
+        }
+    }
+
+    public static ConcurrencyLimiter create() {
+        return builder().build();
+    }
+
+    /**
+     * Waits until the host is under its limit.
+     *
+     * @return the permit of the call, to release with its outcome.
+     */
+    public Permit acquire(String host) {
+        final Host state = hosts.computeIfAbsent(host, h -> new Host());
+        try {
+            return state.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a call slot of " + host, e);
+        }
+    }
+
+    public int getLimit(String host) {
+        final Host state = hosts.get(host);
+        return state == null ? initialLimit : state.getLimit();
+    }
+
+    public int getInFlight(String host) {
+        final Host state = hosts.get(host);
+        return state == null ? 0 : state.getInFlight();
+    }
+
+    /**
+     * @return the overloads which decreased a limit.
+     */
+    public long getOverloads() {
+        return overloads.sum();
+    }
+
+    /**
+     * A call in flight.
+     */
+    public final class Permit {
+
+        private final Host host;
+
+        private final long start = System.nanoTime();
+
+        /**
+         * Decreases of the limit when the call was sent.
+         */
+        private final long generation;
+
+        private boolean released;
+
+        private Permit(Host host, long generation) {
+            this.host = host;
+            this.generation = generation;
+        }
+
+        /**
+         * @param status status of the response, or -1 when the call failed.
+         */
+        public void release(int status) {
+            release(status == -1 || status == 429 || status == 503 || System.nanoTime() - start > maxLatencyNanos);
+        }
+
+        /**
+         * @param overload the host was overloaded by the call.
+         */
+        public void release(boolean overload) {
+            synchronized (this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+            }
+            host.release(overload, generation);
+        }
+    }
+
+    private final class Host {
+
+        private double limit = initialLimit;
+
+        private int inFlight;
+
+        private long generation;
+
+        private synchronized Permit acquire() throws InterruptedException {
+            while (inFlight >= (int) limit) {
+                wait();
+            }
+            inFlight++;
+            return new Permit(this, generation);
+        }
+
+        private synchronized void release(boolean overload, long sentGeneration) {
+            final boolean used = inFlight >= (int) limit;
+            inFlight--;
+            if (overload) {
+                if (sentGeneration == generation) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    generation++;
+                    overloads.increment();
+                }
+            } else if (used) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            notifyAll();
+        }
+
+        private synchronized int getLimit() {
+            return (int) limit;
+        }
+
+        private synchronized int getInFlight() {
+            return inFlight;
+        }
+    }
+
+}
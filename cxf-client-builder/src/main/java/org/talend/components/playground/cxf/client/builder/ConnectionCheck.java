@@ -0,0 +1,84 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result of a {@link ConnectionChecker} check: the stages run, in order, until the first failed one.
+ */
+@Value
+public class ConnectionCheck {
+
+    public enum Stage {
+        /**
+         * Parses the base URL, http or https with a host.
+         */
+        URI,
+        /**
+         * Resolves the host.
+         */
+        DNS,
+        /**
+         * Opens a TCP connection to the first address accepting it.
+         */
+        CONNECT,
+        /**
+         * TLS handshake on the connection, validating the certificate and host name as the settings, https only.
+         * Done once per server and trust settings for a while, the other checks get its result.
+         */
+        TLS,
+        /**
+         * HEAD request on the base URL with the client of the settings, failed with a 401, 403 or 407 status.
+         * Only when the settings have an authorization type, and once per server and client settings for a while.
+         */
+        AUTH
+    }
+
+    @Value
+    public static class StageResult {
+
+        Stage stage;
+
+        boolean success;
+
+        long nanos;
+
+        /**
+         * Resolved address, TLS protocol, HTTP status... or the error.
+         */
+        String message;
+
+        public double getMillis() {
+            return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+
+    String url;
+
+    List<StageResult> stages;
+
+    public boolean isSuccess() {
+        return stages.stream().allMatch(StageResult::isSuccess);
+    }
+
+    /**
+     * @return the failed stage, null if all succeeded.
+     */
+    public Stage getFailedStage() {
+        return stages.stream().filter(s -> !s.isSuccess()).map(StageResult::getStage).findFirst().orElse(null);
+    }
+
+    /**
+     * @return the result of the stage, null if not run.
+     */
+    public StageResult get(Stage stage) {
+        return stages.stream().filter(s -> s.getStage() == stage).findFirst().orElse(null);
+    }
+
+    public long getNanos() {
+        return stages.stream().mapToLong(StageResult::getNanos).sum();
+    }
+
+}
@@ -0,0 +1,330 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Builder;
+import org.talend.components.playground.cxf.client.builder.ConnectionCheck.Stage;
+import org.talend.components.playground.cxf.client.builder.ConnectionCheck.StageResult;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Checks that endpoints can be called, stage by stage: URI, DNS resolution, TCP connection, TLS handshake and
+ * authentication (see {@link Stage}). Each stage is timed, and the check stops at the first failed one, so the
+ * result tells why an endpoint can't be called and where the time is spent.
+ * <pre>
+ * List&lt;ConnectionCheck&gt; checks = ConnectionChecker.create().checkAll(settings);
+ * </pre>
+ * The endpoints are checked concurrently in an executor, a shared cached pool of daemon threads by default, up to
+ * parallelism at a time by checkAll. Hosts are resolved once through a {@link DnsCache}. The TLS handshake is done
+ * once per server and trust settings, and the authentication once per server and client settings: the other checks
+ * of the server get their result for ttl. The authentication uses the clients of the {@link WebClientFactory}, by
+ * default sharing their SSLContext and socket factory so they resume the TLS sessions and reuse the connections.
+ * Checking many endpoints on a few servers costs little more than checking the servers.
+ */
+public class ConnectionChecker {
+
+    public final static int DEFAULT_CONNECT_TIMEOUT = 2000;
+
+    public final static int DEFAULT_PARALLELISM = 32;
+
+    public final static long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(1);
+
+    private final static ExecutorService EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "connection-check");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final WebClientFactory factory;
+
+    private final DnsCache dnsCache;
+
+    private final TlsContextCache tlsContextCache;
+
+    private final Executor executor;
+
+    private final int connectTimeout;
+
+    private final int parallelism;
+
+    private final long ttlNanos;
+
+    /**
+     * TLS results by server and trust settings, authentication results by server and client settings.
+     */
+    private final Map<Object, Shared> results = new ConcurrentHashMap<>();
+
+    /**
+     * @param factory clients of the authentication stage, by default sharing the SSLContext and socket factory of
+     *                a new TlsContextCache.
+     * @param connectTimeout timeout in ms of the TCP connection and of the TLS handshake.
+     * @param parallelism max checks run at a time by checkAll.
+     * @param ttl time in ms the TLS and authentication results of a server are shared by its other checks.
+     */
+    @Builder
+    private ConnectionChecker(WebClientFactory factory, DnsCache dnsCache, TlsContextCache tlsContextCache,
+                              Executor executor, Integer connectTimeout, Integer parallelism, Long ttl) {
+        this.factory = factory != null ? factory : WebClientFactory.builder()
+                .tlsContextCache(tlsContextCache != null ? tlsContextCache
+                        : TlsContextCache.builder().shareSocketFactory(true).build())
+                .build();
+        this.dnsCache = dnsCache == null ? DnsCache.create() : dnsCache;
+        this.tlsContextCache = tlsContextCache == null ? this.factory.getTlsContextCache() : tlsContextCache;
+        this.executor = executor == null ? EXECUTOR : executor;
+        this.connectTimeout = connectTimeout == null ? DEFAULT_CONNECT_TIMEOUT : connectTimeout;
+        this.parallelism = parallelism == null ? DEFAULT_PARALLELISM : parallelism;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttl == null ? DEFAULT_TTL : ttl);
+        if (this.connectTimeout < 0) {
+            throw new IllegalArgumentException("connectTimeout can't be negative: " + this.connectTimeout);
+        }
+        if (this.parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be greater than 0: " + this.parallelism);
+        }
+    }
+
+    public static ConnectionChecker create() {
+        return builder().build();
+    }
+
+    /**
+     * @return the checks of all the settings, in the same order, once all are done.
+     */
+    public List<ConnectionCheck> checkAll(Collection<ClientSettings> settings) {
+        final Semaphore permits = new Semaphore(parallelism);
+        final List<CompletableFuture<ConnectionCheck>> checks = new ArrayList<>(settings.size());
+        for (ClientSettings s : settings) {
+            permits.acquireUninterruptibly();
+            CompletableFuture<ConnectionCheck> check = check(s);
+            check.whenComplete((c, e) -> permits.release());
+            checks.add(check);
+        }
+        return checks.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
+
+    public CompletableFuture<ConnectionCheck> check(ClientSettings settings) {
+        return CompletableFuture.supplyAsync(() -> run(settings), executor);
+    }
+
+    private ConnectionCheck run(ClientSettings settings) {
+        final Stages stages = new Stages();
+        final String url = settings.getBaseUrl();
+
+        final URI uri = stages.run(Stage.URI, () -> {
+            URI parsed = new URI(url);
+            if (!"http".equalsIgnoreCase(parsed.getScheme()) && !"https".equalsIgnoreCase(parsed.getScheme())) {
+                throw new URISyntaxException(url, "Not an http or https URL");
+            }
+            if (parsed.getHost() == null) {
+                throw new URISyntaxException(url, "No host");
+            }
+            return parsed;
+        }, URI::toString);
+        if (uri == null) {
+            return stages.result(url);
+        }
+        final boolean tls = "https".equalsIgnoreCase(uri.getScheme());
+        final int port = Origins.port(uri);
+
+        final InetAddress[] addresses = stages.run(Stage.DNS, () -> dnsCache.resolve(uri.getHost()),
+                a -> a[0].getHostAddress());
+        if (addresses == null) {
+            return stages.result(url);
+        }
+
+        final Socket socket = stages.run(Stage.CONNECT, () -> connect(addresses, port),
+                s -> s.getInetAddress().getHostAddress() + ":" + s.getPort());
+        if (socket == null) {
+            return stages.result(url);
+        }
+
+        try {
+            final String server = uri.getHost() + ":" + port + ":" + settings.isAcceptAllCertificates() + ":"
+                    + settings.isDisableCNCheck();
+            if (tls && stages.run(Stage.TLS, () -> shared(server, () -> {
+                SSLSession session = handshake(socket, uri.getHost(), port, settings);
+                return session.getProtocol() + " " + session.getCipherSuite();
+            }), Function.identity()) == null) {
+                return stages.result(url);
+            }
+        } finally {
+            close(socket);
+        }
+
+        if (settings.getAuthorizationType() == null) {
+            return stages.result(url);
+        }
+        final List<Object> server = Arrays.asList(uri.getScheme(), uri.getHost(), port,
+                settings.toBuilder().baseUrl(null).build());
+        stages.run(Stage.AUTH, () -> shared(server, () -> {
+            Response response = factory.create(settings).head();
+            response.close();
+            int status = response.getStatus();
+            if (status == 401 || status == 403 || status == 407) {
+                throw new IllegalStateException("Status " + status);
+            }
+            return "Status " + status;
+        }), Function.identity());
+
+        return stages.result(url);
+    }
+
+    private Socket connect(InetAddress[] addresses, int port) throws IOException {
+        IOException last = null;
+        for (InetAddress address : addresses) {
+            Socket socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress(address, port), connectTimeout);
+                return socket;
+            } catch (IOException e) {
+                socket.close();
+                last = e;
+            }
+        }
+        throw last;
+    }
+
+    private static void close(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Only used by the check
+        }
+    }
+
+    /**
+     * @return the result of the step for the key, run by the first check and shared by the others for ttl.
+     */
+    private String shared(Object key, Step<String> step) throws Exception {
+        while (true) {
+            final Shared result = results.get(key);
+            if (result != null && !result.isExpired(System.nanoTime())) {
+                return result.get();
+            }
+
+            final Shared fresh = new Shared();
+            boolean owner = result == null ? results.putIfAbsent(key, fresh) == null : results.replace(key, result, fresh);
+            if (owner) {
+                // The other servers' expired results, not replaced by a new check
+                final long now = System.nanoTime();
+                results.values().removeIf(other -> other.isExpired(now));
+                fresh.run(step);
+                return fresh.get();
+            }
+            // Another check is running it
+        }
+    }
+
+    private SSLSession handshake(Socket socket, String host, int port, ClientSettings settings) throws IOException {
+        SSLContext context = tlsContextCache.sslContext(settings.isAcceptAllCertificates()
+                ? TlsContextCache.ACCEPT_ALL : null, null);
+        SSLSocket ssl = (SSLSocket) context.getSocketFactory().createSocket(socket, host, port, false);
+        SSLParameters parameters = ssl.getSSLParameters();
+        if (!settings.isDisableCNCheck()) {
+            parameters.setEndpointIdentificationAlgorithm("HTTPS");
+        }
+        ssl.setSSLParameters(parameters);
+        ssl.setSoTimeout(connectTimeout);
+        ssl.startHandshake();
+        return ssl.getSession();
+    }
+
+    /**
+     * The results of the stages run so far.
+     */
+    private final static class Stages {
+
+        private final List<StageResult> results = new ArrayList<>(Stage.values().length);
+
+        /**
+         * @return the value of the stage, null if it failed.
+         */
+        private <T> T run(Stage stage, Step<T> step, Function<T, String> message) {
+            final long start = System.nanoTime();
+            try {
+                T value = step.run();
+                results.add(new StageResult(stage, true, System.nanoTime() - start, message.apply(value)));
+                return value;
+            } catch (Exception e) {
+                results.add(new StageResult(stage, false, System.nanoTime() - start, e.toString()));
+                return null;
+            }
+        }
+
+        private ConnectionCheck result(String url) {
+            return new ConnectionCheck(url, results);
+        }
+    }
+
+    /**
+     * Result of a stage, shared by the checks of the same server.
+     */
+    private final class Shared {
+
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+
+        /**
+         * Set before the result is completed.
+         */
+        private volatile long expiresAt;
+
+        private void run(Step<String> step) {
+            try {
+                String value = step.run();
+                expiresAt = System.nanoTime() + ttlNanos;
+                result.complete(value);
+            } catch (Exception e) {
+                expiresAt = System.nanoTime() + ttlNanos;
+                result.completeExceptionally(e);
+            } catch (Throwable e) {
+                // Not shared with the next checks, but the ones waiting for it get it
+                expiresAt = System.nanoTime();
+                result.completeExceptionally(e);
+            }
+        }
+
+        private boolean isExpired(long now) {
+            return result.isDone() && now - expiresAt > 0;
+        }
+
+        private String get() throws Exception {
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw (Exception) e.getCause();
+            }
+        }
+    }
+
+    private interface Step<T> {
+
+        T run() throws Exception;
+    }
+
+}
@@ -0,0 +1,396 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Builder;
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.transport.http.HTTPConduitFactory;
+import org.apache.cxf.transport.http.asyncclient.hc5.AsyncHTTPConduitFactory;
+import org.apache.hc.client5.http.ConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.config.RegistryBuilder;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.client5.http.ssl.DefaultClientTlsStrategy;
+import org.apache.hc.core5.net.NamedEndpoint;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.reactor.ssl.SSLBufferMode;
+import org.apache.hc.core5.reactor.ssl.SSLSessionInitializer;
+import org.apache.hc.core5.reactor.ssl.SSLSessionVerifier;
+import org.apache.hc.core5.reactor.ssl.TlsDetails;
+import org.apache.hc.core5.reactor.ssl.TransportSecurityLayer;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import javax.net.ssl.SSLContext;
+import java.net.InetAddress;
+import java.net.SocketAddress;
+import java.net.UnknownHostException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Manages and measures the connection pools of the clients of a bus.
+ * <p>
+ * Once built, the CXF async conduit factory of the bus is replaced by one building instrumented pools, so it applies
+ * to the clients created after. By default only the asynchronous calls use these pools, the synchronous ones keep
+ * the HttpURLConnection keep-alive cache which can't be sized nor observed, unless allCalls is set. Each
+ * WebClientFactory template has its own pool, the limits and statistics are per pool, not global per host. The pool
+ * of an evicted template is closed once its copies are garbage collected.
+ * <p>
+ * Idle connections are kept alive for keepAlive, or less if the server says so with a Keep-Alive header, and closed
+ * by a background task once idle for maxIdle. Connections are not reused after connectionTtl.
+ * <p>
+ * {@link #getStats()} gives the live state of the pools per host (leased, idle, pending) with the counters since
+ * the manager is built: requests, reused connections, connects, TLS handshakes, connect and wait times.
+ * Events are also sent to the {@link ConnectionPoolMetrics}, to export them.
+ * <p>
+ * HTTP Client 5.1 completes the connect before the TLS handshake, so the connect time doesn't include it: TLS cost
+ * shows as handshakes count, and a low reuse ratio. The handshake and DNS resolution times are only sent to the
+ * metrics.
+ */
+public class ConnectionPoolManager implements AutoCloseable {
+
+    public final static long DEFAULT_KEEP_ALIVE = TimeUnit.MINUTES.toMillis(1);
+
+    public final static long DEFAULT_MAX_IDLE = TimeUnit.MINUTES.toMillis(1);
+
+    public final static long DEFAULT_CONNECTION_TTL = TimeUnit.MINUTES.toMillis(1);
+
+    private final static ScheduledExecutorService EVICTION = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "connection-pool-eviction");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Bus bus;
+
+    private final HTTPConduitFactory previous;
+
+    private final InstrumentedConduitFactory conduitFactory;
+
+    private final ConnectionPoolMetrics metrics;
+
+    private final DnsResolver dnsResolver;
+
+    private final long keepAlive;
+
+    private final long maxIdle;
+
+    private volatile int maxConnections;
+
+    private volatile int maxPerHost;
+
+    private volatile long connectionTtl;
+
+    private final Set<InstrumentedConnectionManager> pools = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    private final ScheduledFuture<?> eviction;
+
+    /**
+     * @param bus the bus of the clients, the default one by default.
+     * @param maxConnections max connections of each pool, one pool per WebClientFactory template (HTTPClientPolicy):
+     *                       the clients of the bus may open more in total.
+     *                       {@link AsyncWebClients#DEFAULT_MAX_CONNECTIONS} by default.
+     * @param maxPerHost max connections to a host in each pool, so several templates calling the same host may open
+     *                   more. {@link AsyncWebClients#DEFAULT_MAX_PER_HOST_CONNECTIONS} by default.
+     * @param allCalls use the pools for the synchronous calls too, instead of HttpURLConnection: they then go through
+     *                 HTTP Client 5 for every client of the bus. False by default.
+     * @param keepAlive max time in ms an idle connection is kept for reuse.
+     * @param maxIdle idle connections are closed after that time in ms.
+     * @param connectionTtl max life time in ms of a connection.
+     * @param dnsCache resolves the hosts of the new connections, the system resolver by default.
+     */
+    @Builder
+    private ConnectionPoolManager(Bus bus, Integer maxConnections, Integer maxPerHost, Long keepAlive, Long maxIdle,
+                                  Long connectionTtl, Boolean allCalls, ConnectionPoolMetrics metrics,
+                                  DnsCache dnsCache) {
+        this.bus = bus == null ? BusFactory.getDefaultBus() : bus;
+        this.maxConnections = maxConnections == null ? AsyncWebClients.DEFAULT_MAX_CONNECTIONS : maxConnections;
+        this.maxPerHost = maxPerHost == null ? AsyncWebClients.DEFAULT_MAX_PER_HOST_CONNECTIONS : maxPerHost;
+        this.keepAlive = keepAlive == null ? DEFAULT_KEEP_ALIVE : keepAlive;
+        this.maxIdle = maxIdle == null ? DEFAULT_MAX_IDLE : maxIdle;
+        this.connectionTtl = connectionTtl == null ? DEFAULT_CONNECTION_TTL : connectionTtl;
+        this.metrics = metrics == null ? new ConnectionPoolMetrics() {
+        } : metrics;
+        this.dnsResolver = new TimedDnsResolver(dnsCache == null ? SystemDefaultDnsResolver.INSTANCE : dnsCache);
+        if (this.maxConnections <= 0 || this.maxPerHost <= 0) {
+            throw new IllegalArgumentException("maxConnections and maxPerHost must be greater than 0");
+        }
+
+        this.conduitFactory = new InstrumentedConduitFactory(this.bus, this);
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(AsyncHTTPConduitFactory.MAX_CONNECTIONS, this.maxConnections);
+        properties.put(AsyncHTTPConduitFactory.MAX_PER_HOST_CONNECTIONS, this.maxPerHost);
+        properties.put(AsyncHTTPConduitFactory.CONNECTION_TTL, (int) this.connectionTtl);
+        properties.put(AsyncHTTPConduitFactory.CONNECTION_MAX_IDLE, (int) this.maxIdle);
+        properties.put(AsyncHTTPConduitFactory.SO_KEEPALIVE, true);
+        properties.put(AsyncHTTPConduitFactory.USE_POLICY, allCalls != null && allCalls ? "ALWAYS" : "ASYNC_ONLY");
+        conduitFactory.update(properties);
+
+        this.previous = this.bus.getExtension(HTTPConduitFactory.class);
+        this.bus.setExtension(conduitFactory, HTTPConduitFactory.class);
+
+        long period = Math.max(this.maxIdle / 2, 100);
+        this.eviction = EVICTION.scheduleWithFixedDelay(this::evict, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public static ConnectionPoolManager create() {
+        return builder().build();
+    }
+
+    /**
+     * @return the state and counters of each host, sorted by host.
+     */
+    public Map<String, ConnectionPoolStats> getStats() {
+        Map<String, int[]> live = new HashMap<>();
+        for (InstrumentedConnectionManager pool : pools) {
+            for (HttpRoute route : pool.getRoutes()) {
+                PoolStats stats = pool.getStats(route);
+                int[] state = live.computeIfAbsent(InstrumentedConnectionManager.host(route), h -> new int[3]);
+                state[0] += stats.getLeased();
+                state[1] += stats.getAvailable();
+                state[2] += stats.getPending();
+            }
+        }
+
+        Map<String, ConnectionPoolStats> stats = new TreeMap<>();
+        counters.forEach((host, c) -> {
+            int[] state = live.getOrDefault(host, new int[3]);
+            stats.put(host, c.stats(host, state[0], state[1], state[2]));
+        });
+        return stats;
+    }
+
+    /**
+     * @return the pools not closed yet, one per WebClientFactory template of the bus not garbage collected.
+     */
+    public int getPoolCount() {
+        return pools.size();
+    }
+
+    /**
+     * @return the state and counters of all hosts.
+     */
+    public ConnectionPoolStats getTotalStats() {
+        int leased = 0;
+        int available = 0;
+        int pending = 0;
+        long leases = 0;
+        long reused = 0;
+        long connects = 0;
+        long connectFailures = 0;
+        long tlsHandshakes = 0;
+        long connectNanos = 0;
+        long waitNanos = 0;
+        for (ConnectionPoolStats s : getStats().values()) {
+            leased += s.getLeased();
+            available += s.getAvailable();
+            pending += s.getPending();
+            leases += s.getLeases();
+            reused += s.getReused();
+            connects += s.getConnects();
+            connectFailures += s.getConnectFailures();
+            tlsHandshakes += s.getTlsHandshakes();
+            connectNanos += s.getConnectNanos();
+            waitNanos += s.getWaitNanos();
+        }
+        return new ConnectionPoolStats(null, leased, available, pending, leases, reused, connects, connectFailures,
+                tlsHandshakes, connectNanos, waitNanos);
+    }
+
+    /**
+     * Closes the pools and restores the previous conduit factory of the bus.
+     * Clients created while the manager was installed should not be used anymore.
+     */
+    @Override
+    public void close() {
+        eviction.cancel(false);
+        if (bus.getExtension(HTTPConduitFactory.class) == conduitFactory) {
+            bus.setExtension(previous, HTTPConduitFactory.class);
+        }
+        conduitFactory.shutdown();
+    }
+
+    InstrumentedConnectionManager newPool(TlsStrategy tlsStrategy) {
+        InstrumentedConnectionManager pool = new InstrumentedConnectionManager(RegistryBuilder.<TlsStrategy>create()
+                .register("https", new TimedTlsStrategy(tlsStrategy != null ? tlsStrategy
+                        : DefaultClientTlsStrategy.getSystemDefault()))
+                .build(), TimeValue.ofMilliseconds(connectionTtl), dnsResolver, new CountingMetrics(), pools::remove);
+        pool.setMaxTotal(maxConnections);
+        pool.setDefaultMaxPerRoute(maxPerHost);
+        pools.add(pool);
+        return pool;
+    }
+
+    ConnectionKeepAliveStrategy keepAliveStrategy() {
+        final TimeValue max = TimeValue.ofMilliseconds(keepAlive);
+        return (response, context) -> {
+            TimeValue duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return duration == null || duration.compareTo(max) > 0 ? max : duration;
+        };
+    }
+
+    void update(Map<String, Object> properties) {
+        Object value = properties.get(AsyncHTTPConduitFactory.MAX_CONNECTIONS);
+        if (value != null) {
+            maxConnections = Integer.parseInt(value.toString());
+        }
+        value = properties.get(AsyncHTTPConduitFactory.MAX_PER_HOST_CONNECTIONS);
+        if (value != null) {
+            maxPerHost = Integer.parseInt(value.toString());
+        }
+        value = properties.get(AsyncHTTPConduitFactory.CONNECTION_TTL);
+        if (value != null) {
+            connectionTtl = Long.parseLong(value.toString());
+        }
+    }
+
+    private void evict() {
+        for (InstrumentedConnectionManager pool : pools) {
+            pool.closeExpired();
+            pool.closeIdle(TimeValue.ofMilliseconds(maxIdle));
+        }
+    }
+
+    private Counters counters(String host) {
+        return counters.computeIfAbsent(host, h -> new Counters());
+    }
+
+    /**
+     * Counts the events, then forwards them to the metrics.
+     */
+    private class CountingMetrics implements ConnectionPoolMetrics {
+
+        @Override
+        public void leased(String host, long waitNanos, boolean reused) {
+            Counters c = counters(host);
+            c.leases.increment();
+            c.waitNanos.add(waitNanos);
+            if (reused) {
+                c.reused.increment();
+            }
+            metrics.leased(host, waitNanos, reused);
+        }
+
+        @Override
+        public void connected(String host, long connectNanos, boolean tls) {
+            Counters c = counters(host);
+            c.connects.increment();
+            c.connectNanos.add(connectNanos);
+            if (tls) {
+                c.tlsHandshakes.increment();
+            }
+            metrics.connected(host, connectNanos, tls);
+        }
+
+        @Override
+        public void connectFailed(String host, Exception cause) {
+            counters(host).connectFailures.increment();
+            metrics.connectFailed(host, cause);
+        }
+
+        @Override
+        public void released(String host, boolean keptAlive) {
+            metrics.released(host, keptAlive);
+        }
+    }
+
+    /**
+     * Sends the resolution times to the metrics.
+     */
+    private class TimedDnsResolver implements DnsResolver {
+
+        private final DnsResolver delegate;
+
+        private TimedDnsResolver(DnsResolver delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public InetAddress[] resolve(String host) throws UnknownHostException {
+            final long start = System.nanoTime();
+            try {
+                return delegate.resolve(host);
+            } finally {
+                metrics.resolved(host, System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public String resolveCanonicalHostname(String host) throws UnknownHostException {
+            return delegate.resolveCanonicalHostname(host);
+        }
+    }
+
+    /**
+     * Sends the handshake times to the metrics: the handshake is asynchronous, it ends when its session is verified.
+     */
+    private class TimedTlsStrategy implements TlsStrategy {
+
+        private final TlsStrategy delegate;
+
+        private TimedTlsStrategy(TlsStrategy delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean upgrade(TransportSecurityLayer sessionLayer, HttpHost host, SocketAddress localAddress,
+                               SocketAddress remoteAddress, Object attachment, Timeout handshakeTimeout) {
+            return delegate.upgrade(new TransportSecurityLayer() {
+
+                @Override
+                public void startTls(SSLContext sslContext, NamedEndpoint endpoint, SSLBufferMode sslBufferMode,
+                                     SSLSessionInitializer initializer, SSLSessionVerifier verifier,
+                                     Timeout timeout) {
+                    final long start = System.nanoTime();
+                    sessionLayer.startTls(sslContext, endpoint, sslBufferMode, initializer, (e, engine) -> {
+                        final TlsDetails details = verifier == null ? null : verifier.verify(e, engine);
+                        metrics.handshaked(host.toURI(), System.nanoTime() - start);
+                        return details;
+                    }, timeout);
+                }
+
+                @Override
+                public TlsDetails getTlsDetails() {
+                    return sessionLayer.getTlsDetails();
+                }
+            }, host, localAddress, remoteAddress, attachment, handshakeTimeout);
+        }
+    }
+
+    private final static class Counters {
+
+        private final LongAdder leases = new LongAdder();
+
+        private final LongAdder reused = new LongAdder();
+
+        private final LongAdder connects = new LongAdder();
+
+        private final LongAdder connectFailures = new LongAdder();
+
+        private final LongAdder tlsHandshakes = new LongAdder();
+
+        private final LongAdder connectNanos = new LongAdder();
+
+        private final LongAdder waitNanos = new LongAdder();
+
+        private ConnectionPoolStats stats(String host, int leased, int available, int pending) {
+            return new ConnectionPoolStats(host, leased, available, pending, leases.sum(), reused.sum(),
+                    connects.sum(), connectFailures.sum(), tlsHandshakes.sum(), connectNanos.sum(), waitNanos.sum());
+        }
+    }
+
+}
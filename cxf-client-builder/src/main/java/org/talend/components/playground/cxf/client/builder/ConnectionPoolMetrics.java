@@ -0,0 +1,47 @@
+package org.talend.components.playground.cxf.client.builder;
+
+/**
+ * Events of the connection pools of a {@link ConnectionPoolManager}, to export them to a metrics library.
+ * The host is scheme://host:port. Called from the I/O threads, implementations must be fast and thread safe.
+ */
+public interface ConnectionPoolMetrics {
+
+    /**
+     * A connection is leased for a request.
+     *
+     * @param waitNanos time waiting for a free connection in the pool.
+     * @param reused true for a kept alive connection, false if it has to be connected.
+     */
+    default void leased(String host, long waitNanos, boolean reused) {
+    }
+
+    /**
+     * @param connectNanos time to open the connection.
+     * @param tls true if a TLS handshake is started on the connection.
+     */
+    default void connected(String host, long connectNanos, boolean tls) {
+    }
+
+    default void connectFailed(String host, Exception cause) {
+    }
+
+    /**
+     * @param host the host name, without scheme nor port.
+     * @param resolveNanos time to resolve the addresses of a new connection, from the DNS cache or not.
+     */
+    default void resolved(String host, long resolveNanos) {
+    }
+
+    /**
+     * @param handshakeNanos time of the TLS handshake of a new connection, after its connect.
+     */
+    default void handshaked(String host, long handshakeNanos) {
+    }
+
+    /**
+     * @param keptAlive true if the connection goes back to the pool, false if it is closed.
+     */
+    default void released(String host, boolean keptAlive) {
+    }
+
+}
@@ -0,0 +1,65 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Value;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection pool state and counters of a host, or of all hosts.
+ */
+@Value
+public class ConnectionPoolStats {
+
+    /**
+     * scheme://host:port, or null for the total.
+     */
+    String host;
+
+    /**
+     * Connections used by a request.
+     */
+    int leased;
+
+    /**
+     * Idle connections kept alive in the pool.
+     */
+    int available;
+
+    /**
+     * Requests waiting for a connection.
+     */
+    int pending;
+
+    long leases;
+
+    /**
+     * Leases of a kept alive connection.
+     */
+    long reused;
+
+    long connects;
+
+    long connectFailures;
+
+    long tlsHandshakes;
+
+    long connectNanos;
+
+    long waitNanos;
+
+    /**
+     * @return the part of the requests sent on a kept alive connection, 0 without request.
+     */
+    public double getReuseRatio() {
+        return leases == 0 ? 0 : (double) reused / leases;
+    }
+
+    public double getAverageConnectMillis() {
+        return connects == 0 ? 0 : (double) connectNanos / connects / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public double getAverageWaitMillis() {
+        return leases == 0 ? 0 : (double) waitNanos / leases / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+}
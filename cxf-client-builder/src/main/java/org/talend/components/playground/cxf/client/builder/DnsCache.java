@@ -0,0 +1,157 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Builder;
+import org.apache.hc.client5.http.DnsResolver;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches the resolved addresses of the hosts for ttl, and the unknown hosts for negativeTtl.
+ * <p>
+ * Concurrent lookups of a host wait for the same resolution, so checking hundreds of endpoints on a few hosts
+ * only resolves each host once. It is also an HTTP Client 5 DnsResolver, see
+ * {@link ConnectionPoolManager.ConnectionPoolManagerBuilder#dnsCache}.
+ */
+public class DnsCache implements DnsResolver {
+
+    public final static long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(1);
+
+    public final static long DEFAULT_NEGATIVE_TTL = TimeUnit.SECONDS.toMillis(10);
+
+    /**
+     * Resolves a host, {@link InetAddress#getAllByName} by default.
+     */
+    public interface Resolver {
+
+        InetAddress[] resolve(String host) throws UnknownHostException;
+    }
+
+    private final long ttlNanos;
+
+    private final long negativeTtlNanos;
+
+    private final Resolver resolver;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param ttl time in ms the addresses of a host are cached.
+     * @param negativeTtl time in ms an unknown host is cached.
+     */
+    @Builder
+    private DnsCache(Long ttl, Long negativeTtl, Resolver resolver) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttl == null ? DEFAULT_TTL : ttl);
+        this.negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(negativeTtl == null ? DEFAULT_NEGATIVE_TTL : negativeTtl);
+        this.resolver = resolver == null ? InetAddress::getAllByName : resolver;
+    }
+
+    public static DnsCache create() {
+        return builder().build();
+    }
+
+    @Override
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+        while (true) {
+            final Entry entry = entries.get(host);
+            if (entry != null && !entry.isExpired(System.nanoTime())) {
+                hits.increment();
+                return entry.get();
+            }
+
+            final Entry fresh = new Entry();
+            boolean owner = entry == null ? entries.putIfAbsent(host, fresh) == null : entries.replace(host, entry, fresh);
+            if (owner) {
+                misses.increment();
+                // The other hosts' expired entries, not replaced by a new lookup
+                final long now = System.nanoTime();
+                entries.values().removeIf(other -> other.isExpired(now));
+                fresh.resolve(host);
+                return fresh.get();
+            }
+            // Another thread is resolving it
+        }
+    }
+
+    @Override
+    public String resolveCanonicalHostname(String host) throws UnknownHostException {
+        if (host == null) {
+            return null;
+        }
+        InetAddress[] addresses = resolve(host);
+        return addresses.length > 0 ? addresses[0].getCanonicalHostName() : host;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private final class Entry {
+
+        private final CompletableFuture<InetAddress[]> addresses = new CompletableFuture<>();
+
+        /**
+         * Set before the addresses are completed.
+         */
+        private volatile long expiresAt;
+
+        private void resolve(String host) {
+            try {
+                InetAddress[] resolved = resolver.resolve(host);
+                expiresAt = System.nanoTime() + ttlNanos;
+                addresses.complete(resolved);
+            } catch (UnknownHostException | RuntimeException e) {
+                expiresAt = System.nanoTime() + negativeTtlNanos;
+                addresses.completeExceptionally(e);
+            } catch (Error e) {
+                // Not cached, but the threads waiting for the entry get it
+                entries.remove(host, this);
+                expiresAt = System.nanoTime();
+                addresses.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        private boolean isExpired(long now) {
+            // Not expired while resolving
+            return addresses.isDone() && now - expiresAt > 0;
+        }
+
+        private InetAddress[] get() throws UnknownHostException {
+            try {
+                return addresses.join().clone();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof UnknownHostException) {
+                    throw new UnknownHostException(e.getCause().getMessage());
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw (RuntimeException) e.getCause();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,812 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Builder;
+import org.apache.cxf.helpers.CastUtils;
+import org.apache.cxf.interceptor.MessageSenderInterceptor;
+import org.apache.cxf.jaxrs.client.ClientConfiguration;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.transport.MessageObserver;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Client side cache of the GET responses, with the HTTP semantics of a private cache: Cache-Control, Expires,
+ * ETag and Last-Modified.
+ * <pre>
+ * HttpCache cache = HttpCache.builder().maxBytes(64L &lt;&lt; 20).directory(Paths.get("/var/cache/client")).build();
+ * WebClientFactory factory = WebClientFactory.builder().customizer(cache).build();
+ * </pre>
+ * A fresh response is replayed without any network call, through the in interceptors as the conduit would have
+ * received it. A stale one is revalidated with If-None-Match and If-Modified-Since, and a 304 is answered with the
+ * cached body. The requests with Cache-Control no-cache or max-age=0 are always revalidated, the ones with max-age=n
+ * when the response is older than n seconds, Age included. The ones with no-store or their own conditional headers
+ * bypass the cache. A request with another method invalidates its URL. max-stale and min-fresh are ignored: a stale
+ * response is never returned without a revalidation, so must-revalidate is always honored.
+ * <p>
+ * The 200 responses are stored while the caller reads them, once the body is read to its end, when it is under
+ * maxEntryBytes and has a freshness lifetime or a validator. no-store responses and Vary: * are never stored, no-cache
+ * ones are always revalidated. private responses are stored, as by any private cache, and s-maxage is ignored. A
+ * stored response is only returned to the requests with the same Authorization and Vary headers.
+ * <p>
+ * The entries are kept in memory in LRU order up to maxBytes. With a directory, the entries evicted from memory are
+ * written there and read back memory mapped, up to maxDiskBytes. Their headers stay in memory, so the body files
+ * left by a previous run can't be used: they are deleted when the cache is built. Each file has a unique name, but a
+ * new cache also deletes the files of the caches using the same directory, so each cache should have its own.
+ */
+public class HttpCache implements ClientCustomizer {
+
+    public final static long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+
+    public final static long DEFAULT_MAX_ENTRY_BYTES = 1024 * 1024;
+
+    public final static long DEFAULT_MAX_DISK_BYTES = 256L * 1024 * 1024;
+
+    /**
+     * Request property: cached entry sent for revalidation.
+     */
+    private final static String STALE = HttpCache.class.getName() + ".stale";
+
+    /**
+     * Request property: URL of a GET request that can be stored.
+     */
+    private final static String KEY = HttpCache.class.getName() + ".key";
+
+    /**
+     * Response property: replayed from the cache.
+     */
+    private final static String HIT = HttpCache.class.getName() + ".hit";
+
+    private final static String FILE_PREFIX = "http-cache-";
+
+    private final static String FILE_SUFFIX = ".body";
+
+    private final static List<String> HOP_BY_HOP = List.of("connection", "keep-alive", "transfer-encoding",
+            "proxy-connection", "upgrade", "trailer", "te");
+
+    private final long maxBytes;
+
+    private final long maxEntryBytes;
+
+    private final Path directory;
+
+    private final long maxDiskBytes;
+
+    private final Map<String, Entry> memory = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Map<String, Entry> disk = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long memoryBytes;
+
+    private long diskBytes;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder revalidations = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder bytesSaved = new LongAdder();
+
+    private final RequestInterceptor requestInterceptor = new RequestInterceptor();
+
+    private final ResponseInterceptor responseInterceptor = new ResponseInterceptor();
+
+    /**
+     * @param maxBytes size of the bodies kept in memory.
+     * @param maxEntryBytes larger bodies are not stored.
+     * @param directory directory of the disk tier, none by default.
+     * @param maxDiskBytes size of the bodies kept in the directory.
+     */
+    @Builder
+    private HttpCache(Long maxBytes, Long maxEntryBytes, Path directory, Long maxDiskBytes) {
+        this.maxBytes = maxBytes == null ? DEFAULT_MAX_BYTES : maxBytes;
+        this.maxEntryBytes = Math.min(maxEntryBytes == null ? DEFAULT_MAX_ENTRY_BYTES : maxEntryBytes, this.maxBytes);
+        this.directory = directory;
+        this.maxDiskBytes = maxDiskBytes == null ? DEFAULT_MAX_DISK_BYTES : maxDiskBytes;
+
+        if (this.maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be greater than 0: " + this.maxBytes);
+        }
+        if (directory != null) {
+            try {
+                Files.createDirectories(directory);
+                // Left by a previous run
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+                    files.forEach(HttpCache::delete);
+                }
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Can't create the cache directory " + directory, e);
+            }
+        }
+    }
+
+    public static HttpCache create() {
+        return builder().build();
+    }
+
+    @Override
+    public void customize(WebClient template, ClientSettings settings) {
+        ClientConfiguration config = WebClient.getConfig(template);
+        config.getOutInterceptors().add(requestInterceptor);
+        config.getInInterceptors().add(responseInterceptor);
+    }
+
+    /**
+     * @return the requests answered from the cache without any network call.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the requests answered with a 304 and the cached body.
+     */
+    public long getRevalidations() {
+        return revalidations.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return (hits + revalidations) / requests, 0 before the first one.
+     */
+    public double getHitRatio() {
+        final long served = getHits() + getRevalidations();
+        final long total = served + getMisses();
+        return total == 0 ? 0 : served / (double) total;
+    }
+
+    /**
+     * @return the bytes of the bodies not downloaded thanks to the cache.
+     */
+    public long getBytesSaved() {
+        return bytesSaved.sum();
+    }
+
+    public synchronized int size() {
+        return memory.size() + disk.size();
+    }
+
+    public synchronized long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    public synchronized long getDiskBytes() {
+        return diskBytes;
+    }
+
+    /**
+     * Forgets the response of url.
+     */
+    public void invalidate(String url) {
+        final Entry removed;
+        synchronized (this) {
+            removeMemory(url);
+            removed = removeDisk(url);
+        }
+        delete(removed);
+    }
+
+    public void clear() {
+        final List<Entry> removed;
+        synchronized (this) {
+            removed = new ArrayList<>(disk.values());
+            memory.clear();
+            disk.clear();
+            memoryBytes = 0;
+            diskBytes = 0;
+        }
+        removed.forEach(HttpCache::delete);
+    }
+
+    private synchronized Entry get(String url) {
+        Entry entry = memory.get(url);
+        return entry != null ? entry : disk.get(url);
+    }
+
+    /**
+     * Keeps the entry in memory, and moves the least recently used ones to the disk tier while over maxBytes.
+     */
+    private void put(Entry entry) {
+        final List<Entry> evicted = new ArrayList<>();
+        final List<Entry> deleted = new ArrayList<>();
+        synchronized (this) {
+            deleted.add(removeDisk(entry.url));
+            removeMemory(entry.url);
+            memory.put(entry.url, entry);
+            memoryBytes += entry.size;
+
+            Iterator<Entry> eldest = memory.values().iterator();
+            while (memoryBytes > maxBytes && eldest.hasNext()) {
+                Entry e = eldest.next();
+                eldest.remove();
+                memoryBytes -= e.size;
+                evicted.add(e);
+            }
+        }
+        deleted.forEach(HttpCache::delete);
+        if (directory != null) {
+            evicted.forEach(this::putDisk);
+        }
+    }
+
+    /**
+     * Writes the body evicted from memory in the directory, and deletes the least recently used files while over
+     * maxDiskBytes.
+     */
+    private void putDisk(Entry entry) {
+        if (entry.size > maxDiskBytes) {
+            return;
+        }
+        Path file = null;
+        try {
+            file = Files.createTempFile(directory, FILE_PREFIX, FILE_SUFFIX);
+            Files.write(file, entry.body);
+        } catch (IOException e) {
+            if (file != null) {
+                delete(file);
+            }
+            return;
+        }
+
+        final List<Entry> deleted = new ArrayList<>();
+        synchronized (this) {
+            if (memory.containsKey(entry.url) || disk.containsKey(entry.url)) {
+                // Stored again in the meantime
+                deleted.add(entry.onDisk(file));
+            } else {
+                disk.put(entry.url, entry.onDisk(file));
+                diskBytes += entry.size;
+            }
+            Iterator<Entry> eldest = disk.values().iterator();
+            while (diskBytes > maxDiskBytes && eldest.hasNext()) {
+                Entry e = eldest.next();
+                eldest.remove();
+                diskBytes -= e.size;
+                deleted.add(e);
+            }
+        }
+        deleted.forEach(HttpCache::delete);
+    }
+
+    private void removeMemory(String url) {
+        Entry removed = memory.remove(url);
+        if (removed != null) {
+            memoryBytes -= removed.size;
+        }
+    }
+
+    private Entry removeDisk(String url) {
+        Entry removed = disk.remove(url);
+        if (removed != null) {
+            diskBytes -= removed.size;
+        }
+        return removed;
+    }
+
+    private static void delete(Entry entry) {
+        if (entry != null && entry.file != null) {
+            delete(entry.file);
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Left in the directory
+        }
+    }
+
+    /**
+     * Stored response: the headers, and the body in memory or in a file.
+     */
+    private final static class Entry {
+
+        private final String url;
+
+        private final Map<String, List<String>> headers;
+
+        /**
+         * Values of the request headers the response varies on, Authorization included.
+         */
+        private final Map<String, String> vary;
+
+        private final byte[] body;
+
+        private final Path file;
+
+        private final int size;
+
+        private final long expiresAt;
+
+        /**
+         * When the response was generated by the server: received minus its Age.
+         */
+        private final long generatedAt;
+
+        private Entry(String url, Map<String, List<String>> headers, Map<String, String> vary, byte[] body,
+                      Path file, int size, long expiresAt, long generatedAt) {
+            this.url = url;
+            this.headers = headers;
+            this.vary = vary;
+            this.body = body;
+            this.file = file;
+            this.size = size;
+            this.expiresAt = expiresAt;
+            this.generatedAt = generatedAt;
+        }
+
+        private Entry onDisk(Path file) {
+            return new Entry(url, headers, vary, null, file, size, expiresAt, generatedAt);
+        }
+
+        /**
+         * Same entry with the headers of the 304 response.
+         */
+        private Entry revalidated(Map<String, List<String>> notModified, long now) {
+            Map<String, List<String>> merged = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            merged.putAll(headers);
+            notModified.forEach((name, values) -> {
+                if (!"Content-Length".equalsIgnoreCase(name) && !"Content-Type".equalsIgnoreCase(name)) {
+                    merged.put(name, values);
+                }
+            });
+            return new Entry(url, storedHeaders(merged), vary, body, file, size, now + freshness(merged),
+                    now - age(merged));
+        }
+
+        /**
+         * @return whether the entry can be replayed: fresh, and not older than the max-age of the request.
+         */
+        private boolean isFresh(long now, CacheControl request) {
+            if (request.noCache || request.maxAge == 0 || expiresAt - now <= 0) {
+                return false;
+            }
+            return request.maxAge < 0 || now - generatedAt <= TimeUnit.SECONDS.toNanos(request.maxAge);
+        }
+
+        private boolean matches(Map<String, List<Object>> request) {
+            for (Map.Entry<String, String> e : vary.entrySet()) {
+                if (!Objects.equals(e.getValue(), header(request, e.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private InputStream open() throws IOException {
+            if (body != null) {
+                return new ByteArrayInputStream(body);
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return new ByteBufferInputStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            }
+        }
+    }
+
+    /**
+     * Replays the fresh responses, and adds the validators of the stale ones to the request.
+     */
+    private final class RequestInterceptor extends AbstractPhaseInterceptor<Message> {
+
+        private RequestInterceptor() {
+            super(Phase.PREPARE_SEND);
+            addBefore(MessageSenderInterceptor.class.getName());
+        }
+
+        @Override
+        public void handleMessage(Message message) {
+            final String method = (String) message.get(Message.HTTP_REQUEST_METHOD);
+            final String url = (String) message.get(Message.ENDPOINT_ADDRESS);
+            if (url == null) {
+                return;
+            }
+            if (!"GET".equals(method) && !"HEAD".equals(method) && !"OPTIONS".equals(method)) {
+                // Unsafe method, the response is not fresh anymore once the request is sent
+                invalidate(url);
+                return;
+            }
+            final Map<String, List<Object>> headers = CastUtils.cast((Map<?, ?>) message.get(Message.PROTOCOL_HEADERS));
+            final CacheControl requestControl = CacheControl.parse(header(headers, "Cache-Control"));
+            if (!"GET".equals(method) || headers == null || requestControl.noStore
+                    || header(headers, "If-None-Match") != null || header(headers, "If-Modified-Since") != null) {
+                return;
+            }
+            message.put(KEY, url);
+
+            final Entry entry = get(url);
+            if (entry == null || !entry.matches(headers)) {
+                misses.increment();
+                return;
+            }
+            if (entry.isFresh(System.nanoTime(), requestControl)) {
+                if (replay(message, entry)) {
+                    return;
+                }
+            }
+
+            final String etag = first(entry.headers, "ETag");
+            final String lastModified = first(entry.headers, "Last-Modified");
+            if (etag != null) {
+                headers.put("If-None-Match", Collections.singletonList(etag));
+            }
+            if (lastModified != null) {
+                headers.put("If-Modified-Since", Collections.singletonList(lastModified));
+            }
+            if (etag != null || lastModified != null) {
+                message.put(STALE, entry);
+            } else {
+                misses.increment();
+            }
+        }
+
+        /**
+         * Stops the request before the conduit, and gives the cached response to the in interceptors, as
+         * ClientRequestFilter.abortWith() does.
+         */
+        private boolean replay(Message message, Entry entry) {
+            final InputStream body;
+            try {
+                body = entry.open();
+            } catch (IOException e) {
+                // File deleted or unreadable
+                invalidate(entry.url);
+                return false;
+            }
+            hits.increment();
+            bytesSaved.add(entry.size);
+
+            final Exchange exchange = message.getExchange();
+            message.getInterceptorChain().abort();
+            Message response = new MessageImpl();
+            response.setExchange(exchange);
+            response.put(HIT, Boolean.TRUE);
+            setResponse(response, entry, body);
+            exchange.setInMessage(response);
+            exchange.get(MessageObserver.class).onMessage(response);
+            return true;
+        }
+    }
+
+    /**
+     * Answers the 304 with the cached body, stores the cacheable responses while they are read.
+     */
+    private final class ResponseInterceptor extends AbstractPhaseInterceptor<Message> {
+
+        private ResponseInterceptor() {
+            super(Phase.RECEIVE);
+        }
+
+        @Override
+        public void handleMessage(Message message) {
+            final Message request = message.getExchange().getOutMessage();
+            final String url = request == null ? null : (String) request.get(KEY);
+            if (url == null || message.get(HIT) != null) {
+                return;
+            }
+            final Integer status = (Integer) message.get(Message.RESPONSE_CODE);
+            final Map<String, List<String>> headers = CastUtils.cast((Map<?, ?>) message.get(Message.PROTOCOL_HEADERS));
+            final Entry stale = (Entry) request.get(STALE);
+            final long now = System.nanoTime();
+
+            if (stale != null && status != null && status == 304) {
+                final InputStream body;
+                try {
+                    body = stale.open();
+                } catch (IOException e) {
+                    // The caller gets the 304
+                    invalidate(url);
+                    return;
+                }
+                Entry entry = stale.revalidated(headers == null ? Collections.emptyMap() : headers, now);
+                put(entry);
+                revalidations.increment();
+                bytesSaved.add(entry.size);
+                setResponse(message, entry, body);
+                return;
+            }
+            if (stale != null) {
+                misses.increment();
+            }
+
+            final InputStream body = message.getContent(InputStream.class);
+            final CacheControl control = CacheControl.parse(first(headers, "Cache-Control"));
+            final String vary = first(headers, "Vary");
+            if (status == null || status != 200 || headers == null || body == null || control.noStore
+                    || (vary != null && vary.contains("*"))) {
+                if (stale != null) {
+                    invalidate(url);
+                }
+                return;
+            }
+            final long freshness = control.noCache ? 0 : freshness(headers);
+            if (freshness <= 0 && first(headers, "ETag") == null && first(headers, "Last-Modified") == null) {
+                // Neither fresh nor revalidable
+                return;
+            }
+
+            final Map<String, List<Object>> requestHeaders = CastUtils.cast((Map<?, ?>) request.get(Message.PROTOCOL_HEADERS));
+            final Map<String, String> varyValues = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            varyValues.put("Authorization", header(requestHeaders, "Authorization"));
+            if (vary != null) {
+                for (String name : vary.split(",")) {
+                    varyValues.put(name.trim(), header(requestHeaders, name.trim()));
+                }
+            }
+            final Map<String, List<String>> stored = storedHeaders(headers);
+            final long age = age(headers);
+            message.setContent(InputStream.class, new StoringInputStream(body, bytes -> {
+                final long storedAt = System.nanoTime();
+                put(new Entry(url, stored, varyValues, bytes, null, bytes.length, storedAt + freshness,
+                        storedAt - age));
+            }));
+        }
+    }
+
+    /**
+     * Copies the body read by the caller, and stores it on its end.
+     */
+    private final class StoringInputStream extends FilterInputStream {
+
+        private final Consumer<byte[]> onEnd;
+
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        private StoringInputStream(InputStream in, Consumer<byte[]> onEnd) {
+            super(in);
+            this.onEnd = onEnd;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b < 0) {
+                end();
+            } else if (copy != null) {
+                copy.write(b);
+                checkSize();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n < 0) {
+                end();
+            } else if (copy != null) {
+                copy.write(b, off, n);
+                checkSize();
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // The copy would miss the skipped bytes
+            copy = null;
+            return super.skip(n);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void checkSize() {
+            if (copy.size() > maxEntryBytes) {
+                copy = null;
+            }
+        }
+
+        private void end() {
+            if (copy != null) {
+                onEnd.accept(copy.toByteArray());
+                copy = null;
+            }
+        }
+    }
+
+    private final static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    /**
+     * The directives used by a private cache.
+     */
+    private final static class CacheControl {
+
+        private final static CacheControl NONE = new CacheControl(false, false, -1);
+
+        private final boolean noStore;
+
+        private final boolean noCache;
+
+        /**
+         * In seconds, -1 when absent.
+         */
+        private final long maxAge;
+
+        private CacheControl(boolean noStore, boolean noCache, long maxAge) {
+            this.noStore = noStore;
+            this.noCache = noCache;
+            this.maxAge = maxAge;
+        }
+
+        private static CacheControl parse(String header) {
+            if (header == null) {
+                return NONE;
+            }
+            boolean noStore = false;
+            boolean noCache = false;
+            long maxAge = -1;
+            for (String directive : header.toLowerCase(Locale.ROOT).split(",")) {
+                directive = directive.trim();
+                if (directive.equals("no-store")) {
+                    noStore = true;
+                } else if (directive.equals("no-cache") || directive.startsWith("no-cache=")) {
+                    noCache = true;
+                } else if (directive.startsWith("max-age=")) {
+                    maxAge = seconds(directive.substring("max-age=".length()));
+                }
+            }
+            return new CacheControl(noStore, noCache, maxAge);
+        }
+    }
+
+    /**
+     * @return the freshness lifetime left in ns: max-age or Expires, minus Age.
+     */
+    private static long freshness(Map<String, List<String>> headers) {
+        final CacheControl control = CacheControl.parse(first(headers, "Cache-Control"));
+        if (control.noCache) {
+            return 0;
+        }
+        long lifetime = control.maxAge;
+        final String expires = first(headers, "Expires");
+        if (lifetime < 0 && expires != null) {
+            final String date = first(headers, "Date");
+            final ZonedDateTime expiresAt = date(expires);
+            final ZonedDateTime sentAt = date == null ? ZonedDateTime.now() : date(date);
+            lifetime = expiresAt == null || sentAt == null ? 0
+                    : expiresAt.toEpochSecond() - sentAt.toEpochSecond();
+        }
+        lifetime -= TimeUnit.NANOSECONDS.toSeconds(age(headers));
+        return lifetime <= 0 ? 0 : TimeUnit.SECONDS.toNanos(lifetime);
+    }
+
+    /**
+     * @return the Age header in ns, 0 when absent.
+     */
+    private static long age(Map<String, List<String>> headers) {
+        final String age = first(headers, "Age");
+        return age == null ? 0 : TimeUnit.SECONDS.toNanos(Math.max(seconds(age), 0));
+    }
+
+    private static void setResponse(Message response, Entry entry, InputStream body) {
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.putAll(entry.headers);
+        headers.put("Content-Length", Collections.singletonList(String.valueOf(entry.size)));
+        response.put(Message.RESPONSE_CODE, 200);
+        response.put(Message.PROTOCOL_HEADERS, headers);
+        response.put(Message.CONTENT_TYPE, first(headers, "Content-Type"));
+        response.setContent(InputStream.class, body);
+        response.getExchange().put(Message.RESPONSE_CODE, 200);
+    }
+
+    private static Map<String, List<String>> storedHeaders(Map<String, List<String>> headers) {
+        Map<String, List<String>> stored = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.forEach((name, values) -> {
+            if (name != null && !HOP_BY_HOP.contains(name.toLowerCase(Locale.ROOT))) {
+                stored.put(name, List.copyOf(values));
+            }
+        });
+        return Collections.unmodifiableMap(stored);
+    }
+
+    private static String header(Map<String, List<Object>> headers, String name) {
+        if (headers == null) {
+            return null;
+        }
+        for (Map.Entry<String, List<Object>> e : headers.entrySet()) {
+            if (name.equalsIgnoreCase(e.getKey()) && e.getValue() != null && !e.getValue().isEmpty()) {
+                StringBuilder value = new StringBuilder();
+                for (Object v : e.getValue()) {
+                    value.append(value.length() == 0 ? "" : ",").append(v);
+                }
+                return value.toString();
+            }
+        }
+        return null;
+    }
+
+    private static String first(Map<String, List<String>> headers, String name) {
+        if (headers == null) {
+            return null;
+        }
+        for (Map.Entry<String, List<String>> e : headers.entrySet()) {
+            if (name.equalsIgnoreCase(e.getKey()) && e.getValue() != null && !e.getValue().isEmpty()) {
+                return String.join(",", e.getValue());
+            }
+        }
+        return null;
+    }
+
+    private static ZonedDateTime date(String value) {
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static long seconds(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.transport.http.asyncclient.hc5.AsyncHTTPConduit;
+import org.apache.cxf.transport.http.asyncclient.hc5.AsyncHTTPConduitFactory;
+import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClientBuilder;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * The CXF async conduit factory, with the pools of the {@link ConnectionPoolManager}.
+ * <p>
+ * The factory builds one HTTP Client 5 client per HTTPClientPolicy, so per WebClientFactory template, with the TLS
+ * strategy of the first conduit of the policy. The pool it creates is replaced in adaptClientBuilder, which doesn't
+ * get that TLS strategy: it is kept in a field while the client is built, under the lock of the factory, so the pool
+ * gets the strategy of the conduit creating it whatever the thread.
+ */
+final class InstrumentedConduitFactory extends AsyncHTTPConduitFactory {
+
+    private final ConnectionPoolManager manager;
+
+    /**
+     * The TLS strategy of the client being built, guarded by this.
+     */
+    private TlsStrategy tlsStrategy;
+
+    InstrumentedConduitFactory(Bus bus, ConnectionPoolManager manager) {
+        super(bus);
+        this.manager = manager;
+    }
+
+    /**
+     * Also called by {@link AsyncWebClients#setConnectionLimits}, the next pools get the new limits.
+     */
+    @Override
+    public void update(Map<String, Object> properties) {
+        if (manager != null) {
+            manager.update(properties);
+        }
+        super.update(properties);
+    }
+
+    /**
+     * Called once per conduit, which keeps its client.
+     */
+    @Override
+    public synchronized CloseableHttpAsyncClient createClient(AsyncHTTPConduit conduit, TlsStrategy tlsStrategy)
+            throws IOException {
+        this.tlsStrategy = tlsStrategy;
+        try {
+            return super.createClient(conduit, tlsStrategy);
+        } finally {
+            this.tlsStrategy = null;
+        }
+    }
+
+    @Override
+    public synchronized void setupNIOClient(HTTPClientPolicy clientPolicy, TlsStrategy tlsStrategy) {
+        this.tlsStrategy = tlsStrategy;
+        try {
+            super.setupNIOClient(clientPolicy, tlsStrategy);
+        } finally {
+            this.tlsStrategy = null;
+        }
+    }
+
+    /**
+     * Only called from createClient and setupNIOClient, while holding the lock.
+     */
+    @Override
+    protected void adaptClientBuilder(HttpAsyncClientBuilder builder) {
+        builder.setConnectionManager(manager.newPool(tlsStrategy));
+        builder.setKeepAliveStrategy(manager.keepAliveStrategy());
+    }
+
+}
@@ -0,0 +1,138 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.DefaultSchemePortResolver;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.nio.AsyncConnectionEndpoint;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.config.Lookup;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.reactor.ConnectionInitiator;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * The pool of an HTTP Client 5 async client, reporting the leases and connections to the metrics.
+ * Same settings as the pool built by the CXF AsyncHTTPConduitFactory, but the DNS resolver.
+ */
+final class InstrumentedConnectionManager extends PoolingAsyncClientConnectionManager {
+
+    private final ConnectionPoolMetrics metrics;
+
+    private final Consumer<InstrumentedConnectionManager> onClose;
+
+    /**
+     * Routes of the leased endpoints, the endpoint doesn't expose it.
+     */
+    private final Map<AsyncConnectionEndpoint, HttpRoute> routes = new ConcurrentHashMap<>();
+
+    InstrumentedConnectionManager(Lookup<TlsStrategy> tlsStrategies, TimeValue timeToLive, DnsResolver dnsResolver,
+                                  ConnectionPoolMetrics metrics, Consumer<InstrumentedConnectionManager> onClose) {
+        super(tlsStrategies, PoolConcurrencyPolicy.STRICT, PoolReusePolicy.LIFO, timeToLive,
+                DefaultSchemePortResolver.INSTANCE, dnsResolver);
+        this.metrics = metrics;
+        this.onClose = onClose;
+    }
+
+    static String host(HttpRoute route) {
+        return route.getTargetHost().toURI();
+    }
+
+    @Override
+    public Future<AsyncConnectionEndpoint> lease(String id, HttpRoute route, Object state, Timeout requestTimeout,
+                                                 FutureCallback<AsyncConnectionEndpoint> callback) {
+        final long start = System.nanoTime();
+        return super.lease(id, route, state, requestTimeout, new FutureCallback<AsyncConnectionEndpoint>() {
+
+            @Override
+            public void completed(AsyncConnectionEndpoint endpoint) {
+                routes.put(endpoint, route);
+                metrics.leased(host(route), System.nanoTime() - start, endpoint.isConnected());
+                if (callback != null) {
+                    callback.completed(endpoint);
+                }
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                if (callback != null) {
+                    callback.failed(ex);
+                }
+            }
+
+            @Override
+            public void cancelled() {
+                if (callback != null) {
+                    callback.cancelled();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void release(AsyncConnectionEndpoint endpoint, Object state, TimeValue keepAlive) {
+        final HttpRoute route = routes.remove(endpoint);
+        final boolean keptAlive = endpoint.isConnected() && TimeValue.isPositive(keepAlive);
+        super.release(endpoint, state, keepAlive);
+        if (route != null) {
+            metrics.released(host(route), keptAlive);
+        }
+    }
+
+    @Override
+    public Future<AsyncConnectionEndpoint> connect(AsyncConnectionEndpoint endpoint, ConnectionInitiator connectionInitiator,
+                                                   Timeout timeout, Object attachment, HttpContext context,
+                                                   FutureCallback<AsyncConnectionEndpoint> callback) {
+        final HttpRoute route = routes.get(endpoint);
+        final long start = System.nanoTime();
+        return super.connect(endpoint, connectionInitiator, timeout, attachment, context, new FutureCallback<AsyncConnectionEndpoint>() {
+
+            @Override
+            public void completed(AsyncConnectionEndpoint result) {
+                if (route != null) {
+                    metrics.connected(host(route), System.nanoTime() - start, route.isSecure());
+                }
+                if (callback != null) {
+                    callback.completed(result);
+                }
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                if (route != null) {
+                    metrics.connectFailed(host(route), ex);
+                }
+                if (callback != null) {
+                    callback.failed(ex);
+                }
+            }
+
+            @Override
+            public void cancelled() {
+                if (callback != null) {
+                    callback.cancelled();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void close(CloseMode closeMode) {
+        try {
+            super.close(closeMode);
+        } finally {
+            onClose.accept(this);
+        }
+    }
+
+}
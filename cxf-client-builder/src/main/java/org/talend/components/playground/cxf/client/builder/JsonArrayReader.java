@@ -0,0 +1,165 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import org.talend.components.playground.cxf.client.builder.JsonTokenizer.Token;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates over the elements of a JSON array read from a stream, one record at a time.
+ * <p>
+ * The array is the top-level value, or is addressed by a JSON pointer (RFC 6901) such as {@code /data}
+ * or {@code /result/0/items}. The values before the array are skipped without being built, and only the current
+ * element is in memory, as Map, List, String, Long, BigDecimal, Boolean or null (see {@link JsonTokenizer}).
+ * <pre>
+ * try (JsonArrayReader records = response.jsonArray("/data")) {
+ *     records.forEachRemaining(record -&gt; ...);
+ * }
+ * </pre>
+ * The read errors are thrown as UncheckedIOException from the iterator.
+ */
+public class JsonArrayReader implements Iterator<Object>, AutoCloseable {
+
+    private final JsonTokenizer tokens;
+
+    private final String pointer;
+
+    private final List<String> segments;
+
+    private boolean positioned;
+
+    private boolean done;
+
+    /**
+     * Next element read by hasNext().
+     */
+    private Token next;
+
+    public JsonArrayReader(JsonTokenizer tokens, String pointer) {
+        this.tokens = tokens;
+        this.pointer = pointer == null ? "" : pointer;
+        this.segments = JsonPointer.segments(this.pointer);
+    }
+
+    /**
+     * Reads the UTF-8 stream.
+     */
+    public static JsonArrayReader of(InputStream in, String pointer) {
+        return new JsonArrayReader(new JsonTokenizer(new InputStreamReader(in, StandardCharsets.UTF_8)), pointer);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        if (done) {
+            return false;
+        }
+        try {
+            if (!positioned) {
+                position();
+                positioned = true;
+            }
+            Token token = tokens.next();
+            if (token == Token.END_ARRAY) {
+                done = true;
+                return false;
+            }
+            next = token;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Object next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        next = null;
+        try {
+            return tokens.readValue();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the remaining elements as a sequential stream, closing the reader when the stream is closed.
+     */
+    public Stream<Object> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false)
+                .onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        try {
+            tokens.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Moves the tokenizer on the start of the array addressed by the pointer.
+     */
+    private void position() throws IOException {
+        Token token = tokens.next();
+        for (String segment : segments) {
+            if (token == Token.START_OBJECT) {
+                token = field(segment);
+            } else if (token == Token.START_ARRAY) {
+                token = element(segment);
+            } else {
+                token = null;
+            }
+            if (token == null) {
+                throw new IOException("No value at '" + pointer + "', '" + segment + "' not found");
+            }
+        }
+        if (token != Token.START_ARRAY) {
+            throw new IOException("The value at '" + pointer + "' is not an array: " + token);
+        }
+    }
+
+    private Token field(String name) throws IOException {
+        while (tokens.next() == Token.FIELD_NAME) {
+            if (name.equals(tokens.getText())) {
+                return tokens.next();
+            }
+            tokens.skipValue();
+        }
+        return null;
+    }
+
+    private Token element(String segment) throws IOException {
+        int index = JsonPointer.index(segment);
+        if (index < 0) {
+            return null;
+        }
+        for (int i = 0; ; i++) {
+            Token token = tokens.next();
+            if (token == Token.END_ARRAY) {
+                return null;
+            }
+            if (i == index) {
+                return token;
+            }
+            tokens.skipValue();
+        }
+    }
+
+}
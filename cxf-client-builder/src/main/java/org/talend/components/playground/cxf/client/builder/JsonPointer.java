@@ -0,0 +1,60 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON pointers (RFC 6901) such as {@code /data} or {@code /pages/1/items}, the empty pointer being the whole value.
+ */
+final class JsonPointer {
+
+    private JsonPointer() {
+        /** Don't instantiate **/
+    }
+
+    static List<String> segments(String pointer) {
+        List<String> segments = new ArrayList<>();
+        if (pointer == null || pointer.isEmpty()) {
+            return segments;
+        }
+        if (pointer.charAt(0) != '/') {
+            throw new IllegalArgumentException("A JSON pointer starts with '/': " + pointer);
+        }
+        for (String segment : pointer.substring(1).split("/", -1)) {
+            segments.add(segment.replace("~1", "/").replace("~0", "~"));
+        }
+        return segments;
+    }
+
+    /**
+     * @param value a value built by {@link JsonTokenizer#readValue()}.
+     * @return the value at the pointer, null if there is none.
+     */
+    static Object resolve(Object value, String pointer) {
+        for (String segment : segments(pointer)) {
+            if (value instanceof Map) {
+                value = ((Map<?, ?>) value).get(segment);
+            } else if (value instanceof List) {
+                List<?> list = (List<?>) value;
+                int index = index(segment);
+                value = index >= 0 && index < list.size() ? list.get(index) : null;
+            } else {
+                return null;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * @return the array index, -1 if the segment is not one.
+     */
+    static int index(String segment) {
+        try {
+            return Integer.parseInt(segment);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+}
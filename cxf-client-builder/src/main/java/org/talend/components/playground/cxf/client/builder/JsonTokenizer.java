@@ -0,0 +1,353 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pull tokenizer reading JSON from a stream, one token at a time, so a large document can be processed
+ * record by record without holding it in memory.
+ * <pre>
+ * JsonTokenizer tokens = response.jsonTokens();
+ * tokens.next(); // START_ARRAY
+ * while (tokens.next() == Token.START_OBJECT) {
+ *     Map&lt;String, Object&gt; record = (Map&lt;String, Object&gt;) tokens.readValue();
+ * }
+ * </pre>
+ * {@link #readValue()} builds the current value with Map, List, String, Long, BigDecimal, Boolean and null.
+ */
+public class JsonTokenizer implements Closeable {
+
+    public enum Token {
+        START_OBJECT,
+        END_OBJECT,
+        START_ARRAY,
+        END_ARRAY,
+        FIELD_NAME,
+        STRING,
+        NUMBER,
+        TRUE,
+        FALSE,
+        NULL
+    }
+
+    private final static int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    private int position;
+
+    private int limit;
+
+    /**
+     * Characters read before the buffer, for the error messages.
+     */
+    private long offset;
+
+    /**
+     * Opened containers, true for an object.
+     */
+    private boolean[] containers = new boolean[32];
+
+    private int depth;
+
+    /**
+     * In an object, after '{' or ','.
+     */
+    private boolean nameExpected;
+
+    private final StringBuilder text = new StringBuilder();
+
+    private Token current;
+
+    public JsonTokenizer(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @return the next token, null at the end of the input.
+     */
+    public Token next() throws IOException {
+        int c = nextSignificant();
+        while (c == ',' || c == ':') {
+            if (c == ',' && depth > 0 && containers[depth - 1]) {
+                nameExpected = true;
+            }
+            c = nextSignificant();
+        }
+
+        text.setLength(0);
+        switch (c) {
+            case -1:
+                if (depth > 0) {
+                    throw error("Unexpected end of input");
+                }
+                current = null;
+                break;
+            case '{':
+                push(true);
+                nameExpected = true;
+                current = Token.START_OBJECT;
+                break;
+            case '[':
+                push(false);
+                current = Token.START_ARRAY;
+                break;
+            case '}':
+            case ']':
+                if (depth == 0 || containers[depth - 1] != (c == '}')) {
+                    throw error("Unexpected '" + (char) c + "'");
+                }
+                depth--;
+                nameExpected = false;
+                current = c == '}' ? Token.END_OBJECT : Token.END_ARRAY;
+                break;
+            case '"':
+                readString();
+                if (nameExpected) {
+                    nameExpected = false;
+                    current = Token.FIELD_NAME;
+                } else {
+                    current = Token.STRING;
+                }
+                break;
+            case 't':
+                readLiteral("rue");
+                current = Token.TRUE;
+                break;
+            case 'f':
+                readLiteral("alse");
+                current = Token.FALSE;
+                break;
+            case 'n':
+                readLiteral("ull");
+                current = Token.NULL;
+                break;
+            default:
+                if (c != '-' && (c < '0' || c > '9')) {
+                    throw error("Unexpected '" + (char) c + "'");
+                }
+                readNumber((char) c);
+                current = Token.NUMBER;
+        }
+        return current;
+    }
+
+    public Token current() {
+        return current;
+    }
+
+    /**
+     * @return the field name, the string or the number of the current token.
+     */
+    public String getText() {
+        return text.toString();
+    }
+
+    /**
+     * @return the number of opened objects and arrays, the current one included.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Skips the current value: to its end for an object or an array, to the value for a field name.
+     */
+    public void skipValue() throws IOException {
+        if (current == Token.FIELD_NAME) {
+            next();
+        }
+        if (current == Token.START_OBJECT || current == Token.START_ARRAY) {
+            int end = depth - 1;
+            while (depth > end) {
+                next();
+            }
+        }
+    }
+
+    /**
+     * Builds the current value, or the value of the current field name. The tokenizer is then on the last token
+     * of the value.
+     */
+    public Object readValue() throws IOException {
+        if (current == Token.FIELD_NAME) {
+            next();
+        }
+        if (current == null) {
+            throw error("No value");
+        }
+        switch (current) {
+            case START_OBJECT:
+                Map<String, Object> object = new LinkedHashMap<>();
+                while (next() == Token.FIELD_NAME) {
+                    String name = getText();
+                    next();
+                    object.put(name, readValue());
+                }
+                return object;
+            case START_ARRAY:
+                List<Object> array = new ArrayList<>();
+                while (next() != Token.END_ARRAY) {
+                    array.add(readValue());
+                }
+                return array;
+            case STRING:
+                return getText();
+            case NUMBER:
+                return number(getText());
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case NULL:
+                return null;
+            default:
+                throw error("Unexpected " + current);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static Object number(String value) {
+        if (value.indexOf('.') < 0 && value.indexOf('e') < 0 && value.indexOf('E') < 0 && value.length() < 19) {
+            return Long.parseLong(value);
+        }
+        return new BigDecimal(value);
+    }
+
+    private void push(boolean object) {
+        if (depth == containers.length) {
+            containers = Arrays.copyOf(containers, depth * 2);
+        }
+        containers[depth++] = object;
+    }
+
+    private void readString() throws IOException {
+        while (true) {
+            // Copies the unescaped runs in one go
+            int start = position;
+            while (position < limit) {
+                char c = buffer[position];
+                if (c == '"' || c == '\\') {
+                    break;
+                }
+                position++;
+            }
+            text.append(buffer, start, position - start);
+
+            int c = read();
+            if (c == -1) {
+                throw error("Unterminated string");
+            }
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                text.append(escaped());
+            } else {
+                // The run stopped at the end of the buffer
+                text.append((char) c);
+            }
+        }
+    }
+
+    private char escaped() throws IOException {
+        int c = read();
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                return (char) c;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                int code = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) {
+                        throw error("Invalid unicode escape");
+                    }
+                    code = code * 16 + digit;
+                }
+                return (char) code;
+            default:
+                throw error("Invalid escape");
+        }
+    }
+
+    private void readNumber(char first) throws IOException {
+        text.append(first);
+        while (true) {
+            if (position == limit && !fill()) {
+                return;
+            }
+            char c = buffer[position];
+            if ((c >= '0' && c <= '9') || c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+                text.append(c);
+                position++;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void readLiteral(String rest) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            if (read() != rest.charAt(i)) {
+                throw error("Invalid literal");
+            }
+        }
+    }
+
+    private int nextSignificant() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c == ' ' || c == '\n' || c == '\r' || c == '\t');
+        return c;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        offset += limit;
+        position = 0;
+        limit = 0;
+        int n = reader.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        limit = n;
+        return true;
+    }
+
+    private IOException error(String message) {
+        return new IOException(message + " at offset " + (offset + position));
+    }
+
+}
@@ -0,0 +1,140 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations in ns, with log-linear buckets: 16 buckets per power of two, so a percentile is
+ * within 6.25% of the recorded value. Durations over 2^40 ns (18 minutes) are counted in the last bucket.
+ * <p>
+ * Recording is an atomic increment, without lock nor allocation. The reads see the values recorded so far, not a
+ * consistent snapshot while recording goes on.
+ */
+public class LatencyHistogram {
+
+    private final static int SUB_BUCKET_BITS = 4;
+
+    private final static int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final static int MAX_EXPONENT = 40;
+
+    private final static int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        final long value = Math.max(nanos, 0);
+        buckets.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return the sum of the durations in ns.
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return the mean in ns, 0 when empty.
+     */
+    public double getMean() {
+        final long n = getCount();
+        return n == 0 ? 0 : (double) getSum() / n;
+    }
+
+    /**
+     * @param percentile from 0 to 100.
+     * @return the duration in ns under which percentile % of the durations are, 0 when empty, the max for 100.
+     */
+    public long getPercentile(double percentile) {
+        if (percentile >= 100) {
+            return getMax();
+        }
+        final long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(middle(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    public double getPercentileMillis(double percentile) {
+        return (double) getPercentile(percentile) / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int exponent = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_EXPONENT);
+        if (exponent == MAX_EXPONENT && value >>> MAX_EXPONENT > 1) {
+            return BUCKETS - 1;
+        }
+        final int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * @return the lowest value of the bucket.
+     */
+    static long lowest(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        final long sub = index % SUB_BUCKETS;
+        return (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    private static long middle(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        return lowest(index) + (1L << (exponent - SUB_BUCKET_BITS)) / 2;
+    }
+
+}
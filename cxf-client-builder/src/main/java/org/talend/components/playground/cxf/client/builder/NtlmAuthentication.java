@@ -0,0 +1,264 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Builder;
+import org.apache.cxf.Bus;
+import org.apache.cxf.configuration.security.AuthorizationPolicy;
+import org.apache.cxf.endpoint.ConduitSelector;
+import org.apache.cxf.endpoint.UpfrontConduitSelector;
+import org.apache.cxf.jaxrs.client.ClientConfiguration;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.transport.MessageObserver;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transport.http.auth.HttpAuthSupplier;
+import org.apache.hc.client5.http.auth.AuthChallenge;
+import org.apache.hc.client5.http.auth.AuthScheme;
+import org.apache.hc.client5.http.auth.AuthSchemeFactory;
+import org.apache.hc.client5.http.auth.AuthenticationException;
+import org.apache.hc.client5.http.auth.Credentials;
+import org.apache.hc.client5.http.auth.CredentialsProvider;
+import org.apache.hc.client5.http.auth.MalformedChallengeException;
+import org.apache.hc.client5.http.auth.NTCredentials;
+import org.apache.hc.client5.http.auth.StandardAuthScheme;
+import org.apache.hc.client5.http.impl.auth.NTLMScheme;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.config.RegistryBuilder;
+import org.apache.hc.core5.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.security.Principal;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * NTLM authentication of the clients with the {@link #AUTH_TYPE_NTLM} authorizationType, keeping the authenticated
+ * connections for the next calls of the same credentials.
+ * <p>
+ * NTLM authenticates a connection, not a request: the three legs handshake (negotiate, challenge, authenticate) is
+ * only needed on a new connection, the next requests on that connection are sent without Authorization. The calls
+ * of these clients go through their own HTTP Client 5 transport, whose pools tag each connection with the principal
+ * of the credentials that authenticated it, and lease the connections of a principal to its calls only: a call
+ * reuses a connection already authenticated for its credentials, or opens a new one and authenticates it.
+ * <p>
+ * The conduit caches the request bodies, the transport sends them again on the handshake legs. The conduit never
+ * retransmits, the redirections aren't followed.
+ * <p>
+ * The userName may be DOMAIN\\user. The handshakes and the authenticated calls are counted, see
+ * {@link #getHandshakesAvoided()}.
+ */
+public class NtlmAuthentication {
+
+    public final static String AUTH_TYPE_NTLM = "NTLM";
+
+    private final String workstation;
+
+    private final LongAdder handshakes = new LongAdder();
+
+    private final LongAdder calls = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final ResponseInterceptor responseInterceptor = new ResponseInterceptor();
+
+    private NtlmConduitFactory conduitFactory;
+
+    private final static HttpAuthSupplier TRANSPORT_AUTH = new TransportAuthSupplier();
+
+    /**
+     * @param workstation name of this host sent to the server, none by default.
+     */
+    @Builder
+    private NtlmAuthentication(String workstation) {
+        this.workstation = workstation;
+    }
+
+    public static NtlmAuthentication create() {
+        return builder().build();
+    }
+
+    /**
+     * Sends the calls of the template with NTLM authentication.
+     */
+    void configure(ClientConfiguration config, ClientSettings settings) {
+        final NTCredentials credentials = credentials(settings);
+
+        // Before the conduit of the bus is created
+        final ConduitSelector previous = config.getConduitSelector();
+        final HTTPConduit conduit;
+        try {
+            conduit = conduitFactory(config.getBus()).createConduit(config.getBus(),
+                    previous.getEndpoint().getEndpointInfo(), null);
+            conduit.finalizeConfig();
+        } catch (IOException e) {
+            throw new IllegalStateException("Can't create the NTLM conduit", e);
+        }
+        final UpfrontConduitSelector selector = new UpfrontConduitSelector(conduit) {
+
+            @Override
+            public void prepare(Message message) {
+                // As when the selector creates the conduit: the observer of the first exchange gets the responses
+                if (conduit.getMessageObserver() == null) {
+                    conduit.setMessageObserver(message.getExchange().get(MessageObserver.class));
+                }
+                super.prepare(message);
+            }
+        };
+        selector.setEndpoint(previous.getEndpoint());
+        config.setConduitSelector(selector);
+        conduit.setAuthSupplier(TRANSPORT_AUTH);
+
+        // The pool tags the connections with the principal of these credentials
+        config.getRequestContext().put(Credentials.class.getName(), credentials);
+        // NTLM only: a server also offering Negotiate gets NTLM
+        config.getRequestContext().put(AuthSchemeFactory.class.getName(), RegistryBuilder.<AuthSchemeFactory>create()
+                .register(StandardAuthScheme.NTLM, context -> new CountingScheme(new NTLMScheme(), credentials))
+                .build());
+        config.getInInterceptors().add(responseInterceptor);
+    }
+
+    private synchronized NtlmConduitFactory conduitFactory(Bus bus) {
+        if (conduitFactory == null) {
+            conduitFactory = new NtlmConduitFactory(bus);
+        }
+        return conduitFactory;
+    }
+
+    private NTCredentials credentials(ClientSettings settings) {
+        final String userName = settings.getUserName();
+        if (userName == null || settings.getPassword() == null) {
+            throw new IllegalArgumentException("NTLM needs a userName and a password");
+        }
+        final int separator = userName.indexOf('\\');
+        final String domain = separator < 0 ? null : userName.substring(0, separator);
+        final String user = separator < 0 ? userName : userName.substring(separator + 1);
+        return new NTCredentials(user, settings.getPassword().toCharArray(), workstation, domain);
+    }
+
+    /**
+     * @return the handshakes done, one per connection authenticated.
+     */
+    public long getHandshakes() {
+        return handshakes.sum();
+    }
+
+    /**
+     * @return the calls answered with another status than 401.
+     */
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    /**
+     * @return the calls answered with a 401, their credentials were refused.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return the calls sent on a connection already authenticated, without handshake.
+     */
+    public long getHandshakesAvoided() {
+        return Math.max(getCalls() - getHandshakes(), 0);
+    }
+
+    /**
+     * Counts the challenges answered, the scheme is created per call. Answers with the credentials of its template.
+     */
+    private final class CountingScheme implements AuthScheme {
+
+        private final AuthScheme delegate;
+
+        private final Credentials credentials;
+
+        private CountingScheme(AuthScheme delegate, Credentials credentials) {
+            this.delegate = delegate;
+            this.credentials = credentials;
+        }
+
+        @Override
+        public String getName() {
+            return delegate.getName();
+        }
+
+        @Override
+        public boolean isConnectionBased() {
+            return delegate.isConnectionBased();
+        }
+
+        @Override
+        public void processChallenge(AuthChallenge challenge, HttpContext context)
+                throws MalformedChallengeException {
+            delegate.processChallenge(challenge, context);
+            // The second leg: the server challenge, answered by the authenticate message
+            if (challenge.getValue() != null) {
+                handshakes.increment();
+            }
+        }
+
+        @Override
+        public boolean isChallengeComplete() {
+            return delegate.isChallengeComplete();
+        }
+
+        @Override
+        public String getRealm() {
+            return delegate.getRealm();
+        }
+
+        @Override
+        public boolean isResponseReady(HttpHost host, CredentialsProvider credentialsProvider, HttpContext context)
+                throws AuthenticationException {
+            // The conduit registers the credentials under a scope matching no port
+            return delegate.isResponseReady(host, (scope, ctx) -> credentials, context);
+        }
+
+        @Override
+        public Principal getPrincipal() {
+            return delegate.getPrincipal();
+        }
+
+        @Override
+        public String generateAuthResponse(HttpHost host, HttpRequest request, HttpContext context)
+                throws AuthenticationException {
+            return delegate.generateAuthResponse(host, request, context);
+        }
+    }
+
+    /**
+     * Makes the conduit cache the request body, the transport sends it again after the challenge. The conduit
+     * itself never answers a 401.
+     */
+    private final static class TransportAuthSupplier implements HttpAuthSupplier {
+
+        @Override
+        public boolean requiresRequestCaching() {
+            return true;
+        }
+
+        @Override
+        public String getAuthorization(AuthorizationPolicy authPolicy, URI uri, Message message, String fullHeader) {
+            return null;
+        }
+    }
+
+    private final class ResponseInterceptor extends AbstractPhaseInterceptor<Message> {
+
+        private ResponseInterceptor() {
+            super(Phase.RECEIVE);
+        }
+
+        @Override
+        public void handleMessage(Message message) {
+            final Object status = message.get(Message.RESPONSE_CODE);
+            if (status instanceof Integer && (Integer) status == 401) {
+                rejected.increment();
+            } else {
+                calls.increment();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,308 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.io.CachedOutputStream;
+import org.apache.cxf.transport.http.asyncclient.hc5.AsyncHTTPConduitFactory;
+import org.apache.hc.client5.http.async.AsyncExecCallback;
+import org.apache.hc.client5.http.async.AsyncExecChain;
+import org.apache.hc.client5.http.async.AsyncExecChainHandler;
+import org.apache.hc.client5.http.impl.ChainElement;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClientBuilder;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.nio.AsyncDataConsumer;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.http.nio.entity.BasicAsyncEntityProducer;
+import org.apache.hc.core5.http.nio.entity.FileEntityProducer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The CXF async conduit factory of the {@link NtlmAuthentication} clients: their own clients and pools, whatever the
+ * conduit factory of the bus.
+ * <p>
+ * The transport answers a challenge by sending the request again on the same connection, but the CXF producer can't
+ * send its body twice: the body sent by the first leg of a handshake is recorded, and sent again by the next legs.
+ * Whether the server challenges a request is only known from its response, so the first leg is recorded until then:
+ * the recording stops as soon as the response is not a challenge, as on an already authenticated connection.
+ * The recording is a CachedOutputStream, in memory up to its threshold then in a temporary file, so big bodies don't
+ * fill the heap. It is deleted once the exchange is done.
+ */
+final class NtlmConduitFactory extends AsyncHTTPConduitFactory {
+
+    private final static String SENT_BODY = NtlmConduitFactory.class.getName() + ".sentBody";
+
+    NtlmConduitFactory(Bus bus) {
+        super(bus);
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(USE_POLICY, "ALWAYS");
+        update(properties);
+    }
+
+    @Override
+    protected void adaptClientBuilder(HttpAsyncClientBuilder builder) {
+        // Around all the legs
+        builder.addExecInterceptorFirst("ntlm-body-release", new ReleaseBodyHandler());
+        // After the authentication, so called for each leg
+        builder.addExecInterceptorBefore(ChainElement.CONNECT.name(), "ntlm-body", new ReplayBodyHandler());
+    }
+
+    /**
+     * Deletes the recorded body once the exchange is done, whatever its outcome.
+     */
+    private final static class ReleaseBodyHandler implements AsyncExecChainHandler {
+
+        @Override
+        public void execute(HttpRequest request, AsyncEntityProducer entityProducer, AsyncExecChain.Scope scope,
+                            AsyncExecChain chain, AsyncExecCallback callback) throws HttpException, IOException {
+            if (entityProducer == null) {
+                chain.proceed(request, null, scope, callback);
+                return;
+            }
+            final Runnable release = () -> {
+                final RecordingProducer sent = (RecordingProducer) scope.clientContext.removeAttribute(SENT_BODY);
+                if (sent != null) {
+                    sent.discard();
+                }
+            };
+            chain.proceed(request, entityProducer, scope, new AsyncExecCallback() {
+
+                @Override
+                public AsyncDataConsumer handleResponse(HttpResponse response, EntityDetails entityDetails)
+                        throws HttpException, IOException {
+                    return callback.handleResponse(response, entityDetails);
+                }
+
+                @Override
+                public void handleInformationResponse(HttpResponse response) throws HttpException, IOException {
+                    callback.handleInformationResponse(response);
+                }
+
+                @Override
+                public void completed() {
+                    release.run();
+                    callback.completed();
+                }
+
+                @Override
+                public void failed(Exception cause) {
+                    release.run();
+                    callback.failed(cause);
+                }
+            });
+        }
+    }
+
+    private final static class ReplayBodyHandler implements AsyncExecChainHandler {
+
+        @Override
+        public void execute(HttpRequest request, AsyncEntityProducer entityProducer, AsyncExecChain.Scope scope,
+                            AsyncExecChain chain, AsyncExecCallback callback) throws HttpException, IOException {
+            if (entityProducer == null) {
+                chain.proceed(request, null, scope, callback);
+                return;
+            }
+            final RecordingProducer sent = (RecordingProducer) scope.clientContext.getAttribute(SENT_BODY);
+            if (sent == null) {
+                final RecordingProducer recording = new RecordingProducer(entityProducer);
+                scope.clientContext.setAttribute(SENT_BODY, recording);
+                chain.proceed(request, recording, scope, new StopRecordingCallback(callback, recording,
+                        () -> scope.clientContext.removeAttribute(SENT_BODY)));
+            } else {
+                chain.proceed(request, sent.replay(), scope, callback);
+            }
+        }
+    }
+
+    /**
+     * Stops the recording of the first leg once its response is not a challenge: no leg will replay the body.
+     */
+    private final static class StopRecordingCallback implements AsyncExecCallback {
+
+        private final AsyncExecCallback delegate;
+
+        private final RecordingProducer recording;
+
+        private final Runnable drop;
+
+        private StopRecordingCallback(AsyncExecCallback delegate, RecordingProducer recording, Runnable drop) {
+            this.delegate = delegate;
+            this.recording = recording;
+            this.drop = drop;
+        }
+
+        @Override
+        public AsyncDataConsumer handleResponse(HttpResponse response, EntityDetails entityDetails)
+                throws HttpException, IOException {
+            if (response.getCode() != HttpStatus.SC_UNAUTHORIZED
+                    && response.getCode() != HttpStatus.SC_PROXY_AUTHENTICATION_REQUIRED) {
+                drop.run();
+                recording.discard();
+            }
+            return delegate.handleResponse(response, entityDetails);
+        }
+
+        @Override
+        public void handleInformationResponse(HttpResponse response) throws HttpException, IOException {
+            delegate.handleInformationResponse(response);
+        }
+
+        @Override
+        public void completed() {
+            delegate.completed();
+        }
+
+        @Override
+        public void failed(Exception cause) {
+            delegate.failed(cause);
+        }
+    }
+
+    /**
+     * Keeps a copy of the bytes written by the CXF producer, until discarded.
+     */
+    private final static class RecordingProducer implements AsyncEntityProducer {
+
+        private final AsyncEntityProducer delegate;
+
+        /**
+         * Guarded by this, written by the thread producing the body, discarded by the one receiving the response.
+         */
+        private final CachedOutputStream body = new CachedOutputStream();
+
+        private boolean recording = true;
+
+        private RecordingProducer(AsyncEntityProducer delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * Stops the recording and deletes it.
+         */
+        private synchronized void discard() {
+            if (!recording) {
+                return;
+            }
+            recording = false;
+            try {
+                body.close();
+            } catch (IOException e) {
+                // Temporary file left
+            }
+        }
+
+        /**
+         * @return a producer of the recorded body, from memory or from its temporary file.
+         */
+        private synchronized AsyncEntityProducer replay() throws IOException {
+            body.flush();
+            final String type = getContentType();
+            final ContentType contentType = type == null ? null : ContentType.parse(type);
+            final File file = body.getTempFile();
+            return file == null ? new BasicAsyncEntityProducer(body.getBytes(), contentType)
+                    : new FileEntityProducer(file, contentType);
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return delegate.isRepeatable();
+        }
+
+        @Override
+        public void failed(Exception cause) {
+            delegate.failed(cause);
+        }
+
+        @Override
+        public long getContentLength() {
+            return delegate.getContentLength();
+        }
+
+        @Override
+        public String getContentType() {
+            return delegate.getContentType();
+        }
+
+        @Override
+        public String getContentEncoding() {
+            return delegate.getContentEncoding();
+        }
+
+        @Override
+        public boolean isChunked() {
+            return delegate.isChunked();
+        }
+
+        @Override
+        public Set<String> getTrailerNames() {
+            return delegate.getTrailerNames();
+        }
+
+        @Override
+        public int available() {
+            return delegate.available();
+        }
+
+        @Override
+        public void produce(DataStreamChannel channel) throws IOException {
+            delegate.produce(new DataStreamChannel() {
+
+                @Override
+                public void requestOutput() {
+                    channel.requestOutput();
+                }
+
+                @Override
+                public int write(ByteBuffer src) throws IOException {
+                    final int position = src.position();
+                    final int written = channel.write(src);
+                    if (written > 0) {
+                        record(src, position, written);
+                    }
+                    return written;
+                }
+
+                @Override
+                public void endStream() throws IOException {
+                    channel.endStream();
+                }
+
+                @Override
+                public void endStream(List<? extends Header> trailers) throws IOException {
+                    channel.endStream(trailers);
+                }
+            });
+        }
+
+        private synchronized void record(ByteBuffer src, int position, int length) throws IOException {
+            if (!recording) {
+                return;
+            }
+            if (src.hasArray()) {
+                body.write(src.array(), src.arrayOffset() + position, length);
+            } else {
+                final byte[] bytes = new byte[length];
+                src.duplicate().position(position).get(bytes);
+                body.write(bytes, 0, length);
+            }
+        }
+
+        @Override
+        public void releaseResources() {
+            delegate.releaseResources();
+        }
+    }
+
+}
@@ -0,0 +1,41 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import java.net.URI;
+
+/**
+ * The origin of a URI, scheme://host:port with the default port of the scheme when there is none: the key of the
+ * per host state of the clients.
+ */
+final class Origins {
+
+    private Origins() {
+        /** Don't instantiate **/
+    }
+
+    /**
+     * @return scheme://host:port.
+     */
+    static String of(URI uri) {
+        return uri.getScheme() + "://" + uri.getHost() + ':' + port(uri);
+    }
+
+    /**
+     * @throws IllegalArgumentException when the URL is not a valid URI.
+     * @see #of(URI)
+     */
+    static String of(String url) {
+        return of(URI.create(url));
+    }
+
+    /**
+     * @return the port of the URI, else 443 for https and 80 for the other schemes.
+     */
+    static int port(URI uri) {
+        final int port = uri.getPort();
+        if (port != -1) {
+            return port;
+        }
+        return "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+    }
+
+}
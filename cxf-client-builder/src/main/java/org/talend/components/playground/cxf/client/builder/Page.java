@@ -0,0 +1,50 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Value;
+
+import javax.ws.rs.core.Link;
+import javax.ws.rs.core.MultivaluedMap;
+import java.net.URI;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A page read by a {@link Paginator}. The whole body is kept, pages are expected to be small.
+ */
+@Value
+public class Page {
+
+    /**
+     * 0 for the first page.
+     */
+    int index;
+
+    PageRequest request;
+
+    /**
+     * The URL called, with the query.
+     */
+    URI uri;
+
+    MultivaluedMap<String, String> headers;
+
+    Set<Link> links;
+
+    /**
+     * The body as built by {@link JsonTokenizer#readValue()}.
+     */
+    Object body;
+
+    /**
+     * The array of the body at the records pointer.
+     */
+    List<Object> records;
+
+    /**
+     * @return the value of the body at the JSON pointer, null if there is none.
+     */
+    public Object get(String pointer) {
+        return JsonPointer.resolve(body, pointer);
+    }
+
+}
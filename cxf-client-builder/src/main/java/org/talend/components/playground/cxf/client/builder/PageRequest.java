@@ -0,0 +1,26 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * Where to get a page: an URL and query parameters added to the client.
+ */
+@Value
+@Builder(toBuilder = true)
+// The @Singular builder casts the values to Object
+@SuppressWarnings("cast")
+public class PageRequest {
+
+    /**
+     * Absolute URL of the page, or null for the base URL of the paginator settings.
+     */
+    String url;
+
+    @Singular
+    Map<String, Object> queryParams;
+
+}
@@ -0,0 +1,24 @@
+package org.talend.components.playground.cxf.client.builder;
+
+/**
+ * A page of a {@link Paginator} can't be read.
+ */
+public class PaginationException extends RuntimeException {
+
+    private final static long serialVersionUID = 1L;
+
+    private final int status;
+
+    public PaginationException(String message, int status) {
+        super(message);
+        this.status = status;
+    }
+
+    /**
+     * @return the HTTP status of the page.
+     */
+    public int getStatus() {
+        return status;
+    }
+
+}
@@ -0,0 +1,119 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import javax.ws.rs.core.Link;
+import java.net.URI;
+
+/**
+ * How a {@link Paginator} finds the next page. Implementations must be stateless, next() can be called more
+ * than once for a page and from the fetching threads.
+ */
+public interface PaginationStrategy {
+
+    PageRequest first();
+
+    /**
+     * @return the request of the page after this one, null if this is the last page.
+     */
+    PageRequest next(Page page);
+
+    /**
+     * @return the request of the page after this request when it doesn't depend on the response, null otherwise.
+     * Then several pages can be requested at once, and next() only tells where the pagination stops.
+     */
+    default PageRequest predict(PageRequest request) {
+        return null;
+    }
+
+    /**
+     * Offset and limit query parameters, the last page is the first one with less than limit records.
+     * The next pages are predictable, so they are fetched concurrently.
+     */
+    static PaginationStrategy offset(String offsetParam, String limitParam, int limit) {
+        return new PaginationStrategy() {
+
+            @Override
+            public PageRequest first() {
+                return PageRequest.builder().queryParam(offsetParam, 0).queryParam(limitParam, limit).build();
+            }
+
+            @Override
+            public PageRequest next(Page page) {
+                return page.getRecords().size() < limit ? null : predict(page.getRequest());
+            }
+
+            @Override
+            public PageRequest predict(PageRequest request) {
+                long offset = ((Number) request.getQueryParams().get(offsetParam)).longValue();
+                return request.toBuilder().queryParam(offsetParam, offset + limit).build();
+            }
+        };
+    }
+
+    /**
+     * Cursor query parameter, read from the body of the previous page; no cursor means the last page.
+     */
+    static PaginationStrategy cursor(String cursorParam, String cursorPointer) {
+        return new PaginationStrategy() {
+
+            @Override
+            public PageRequest first() {
+                return PageRequest.builder().build();
+            }
+
+            @Override
+            public PageRequest next(Page page) {
+                Object cursor = page.get(cursorPointer);
+                if (cursor == null || cursor.toString().isEmpty()) {
+                    return null;
+                }
+                return page.getRequest().toBuilder().queryParam(cursorParam, cursor).build();
+            }
+        };
+    }
+
+    /**
+     * Link header with rel="next", as GitHub; no next link means the last page.
+     */
+    static PaginationStrategy linkHeader() {
+        return new PaginationStrategy() {
+
+            @Override
+            public PageRequest first() {
+                return PageRequest.builder().build();
+            }
+
+            @Override
+            public PageRequest next(Page page) {
+                for (Link link : page.getLinks()) {
+                    if (link.getRels().contains("next")) {
+                        return PageRequest.builder().url(page.getUri().resolve(link.getUri()).toString()).build();
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    /**
+     * URL of the next page in the body, absolute or relative to the current page; no URL means the last page.
+     */
+    static PaginationStrategy nextUrl(String nextUrlPointer) {
+        return new PaginationStrategy() {
+
+            @Override
+            public PageRequest first() {
+                return PageRequest.builder().build();
+            }
+
+            @Override
+            public PageRequest next(Page page) {
+                Object url = page.get(nextUrlPointer);
+                if (url == null || url.toString().isEmpty()) {
+                    return null;
+                }
+                return PageRequest.builder().url(page.getUri().resolve(URI.create(url.toString())).toString()).build();
+            }
+        };
+    }
+
+}
@@ -0,0 +1,259 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Builder;
+import org.apache.cxf.jaxrs.client.WebClient;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates over the pages of a paginated JSON resource, fetching the next pages while the current one is processed.
+ * <pre>
+ * try (Paginator pages = Paginator.builder()
+ *         .settings(settings)
+ *         .strategy(PaginationStrategy.offset("offset", "limit", 100))
+ *         .recordsPointer("/data")
+ *         .build()) {
+ *     pages.records().forEach(record -&gt; ...);
+ * }
+ * </pre>
+ * Up to lookahead pages after the current one are fetched or fetching. When the next page depends on the previous
+ * response (cursor, links, next URL), they are fetched one after the other but ahead of the caller. When the
+ * strategy can predict the next requests (offset), they are fetched concurrently, and up to lookahead requests past
+ * the last page may be sent and discarded.
+ * The caller never waits for more than lookahead pages to be fetched, so memory is bounded and a slow caller slows
+ * the fetching down.
+ * <p>
+ * Pages are fetched in an executor, by default a pool of {@link #DEFAULT_THREADS} daemon threads shared by the
+ * paginators only: a page request never waits for another task, so the pages beyond wait for a thread but can't
+ * deadlock. An iterator has only one consumer and is not thread safe. A page with another status than 2xx fails the
+ * iteration with a {@link PaginationException}.
+ */
+public class Paginator implements Iterator<Page>, AutoCloseable {
+
+    public final static int DEFAULT_LOOKAHEAD = 2;
+
+    public final static int DEFAULT_THREADS = 16;
+
+    private final static ExecutorService EXECUTOR = newExecutor(DEFAULT_THREADS);
+
+    private final WebClientFactory factory;
+
+    private final ClientSettings settings;
+
+    private final PaginationStrategy strategy;
+
+    private final String recordsPointer;
+
+    private final int lookahead;
+
+    private final Executor executor;
+
+    /**
+     * Pages after the current one, in order. A page completed with null means there is no more page.
+     */
+    private final Deque<CompletableFuture<Page>> pages = new ArrayDeque<>();
+
+    private CompletableFuture<Page> tail;
+
+    private PageRequest tailRequest;
+
+    private int tailIndex = -1;
+
+    private Page next;
+
+    private boolean ended;
+
+    /**
+     * @param recordsPointer JSON pointer of the records array in a page, empty for a top-level array.
+     * @param lookahead pages fetched ahead of the current one, 0 to fetch them one by one when needed.
+     * @param executor runs the page requests, the shared pool of the paginators by default. Its tasks must not
+     *                 wait for the page requests.
+     */
+    @Builder
+    private Paginator(WebClientFactory factory, ClientSettings settings, PaginationStrategy strategy,
+                      String recordsPointer, Integer lookahead, Executor executor) {
+        if (settings == null || strategy == null) {
+            throw new IllegalArgumentException("settings and strategy are required");
+        }
+        this.factory = factory == null ? WebClientFactory.create() : factory;
+        this.settings = settings;
+        this.strategy = strategy;
+        this.recordsPointer = recordsPointer == null ? "" : recordsPointer;
+        this.lookahead = lookahead == null ? DEFAULT_LOOKAHEAD : lookahead;
+        this.executor = executor == null ? EXECUTOR : executor;
+        if (this.lookahead < 0) {
+            throw new IllegalArgumentException("lookahead can't be negative: " + this.lookahead);
+        }
+        JsonPointer.segments(this.recordsPointer);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        if (ended) {
+            return false;
+        }
+
+        fill(1);
+        final Page page;
+        try {
+            page = join(pages.poll());
+        } catch (RuntimeException e) {
+            end();
+            throw e;
+        }
+        if (page == null) {
+            end();
+            return false;
+        }
+        if (strategy.next(page) == null) {
+            // Cancel the predicted pages past the last one
+            end();
+        }
+        next = page;
+        fill(lookahead);
+        return true;
+    }
+
+    @Override
+    public Page next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Page page = next;
+        next = null;
+        return page;
+    }
+
+    /**
+     * @return the records of all the remaining pages.
+     */
+    public Stream<Object> records() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false)
+                .flatMap(page -> page.getRecords().stream());
+    }
+
+    /**
+     * Stops the iteration, the pages being fetched are discarded.
+     */
+    @Override
+    public void close() {
+        next = null;
+        end();
+    }
+
+    private void end() {
+        ended = true;
+        pages.forEach(page -> page.cancel(false));
+        pages.clear();
+    }
+
+    /**
+     * Requests pages until size pages are fetched or fetching after the current one.
+     */
+    private void fill(int size) {
+        while (!ended && pages.size() < size) {
+            final int index = ++tailIndex;
+            if (tail == null) {
+                tailRequest = strategy.first();
+                tail = fetch(tailRequest, index);
+            } else {
+                PageRequest predicted = tailRequest == null ? null : strategy.predict(tailRequest);
+                tailRequest = predicted;
+                if (predicted != null) {
+                    tail = fetch(predicted, index);
+                } else {
+                    tail = tail.thenCompose(previous -> {
+                        PageRequest request = previous == null ? null : strategy.next(previous);
+                        return request == null ? CompletableFuture.completedFuture(null) : fetch(request, index);
+                    });
+                }
+            }
+            pages.add(tail);
+        }
+    }
+
+    private CompletableFuture<Page> fetch(PageRequest request, int index) {
+        return CompletableFuture.supplyAsync(() -> load(request, index), executor);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Page load(PageRequest request, int index) {
+        WebClient client = factory.create(settings);
+        if (request.getUrl() != null) {
+            client.to(request.getUrl(), false);
+        }
+        request.getQueryParams().forEach(client::query);
+        final URI uri = client.getCurrentURI();
+
+        try (StreamingResponse response = StreamingResponse.of(client.accept(MediaType.APPLICATION_JSON).get())) {
+            if (response.getResponse().getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+                throw new PaginationException(String.format("Page %s failed with status %s: %s",
+                        index, response.getStatus(), uri), response.getStatus());
+            }
+            final MultivaluedMap<String, String> headers = response.getResponse().getStringHeaders();
+
+            final JsonTokenizer tokens = response.jsonTokens();
+            final Object body = tokens.next() == null ? null : tokens.readValue();
+            final Object records = JsonPointer.resolve(body, recordsPointer);
+            if (records != null && !(records instanceof List)) {
+                throw new PaginationException(String.format("Page %s has no records array at '%s': %s",
+                        index, recordsPointer, uri), response.getStatus());
+            }
+
+            return new Page(index, request, uri, headers, response.getResponse().getLinks(), body,
+                    records == null ? Collections.emptyList() : Collections.unmodifiableList((List<Object>) records));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ExecutorService newExecutor(int threads) {
+        final AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "paginator-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static Page join(CompletableFuture<Page> page) {
+        try {
+            return page.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+}
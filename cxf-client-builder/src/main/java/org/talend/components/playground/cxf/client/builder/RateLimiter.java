@@ -0,0 +1,156 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Builder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per host token bucket of a {@link ResilientInvoker}: each call to a host takes a token, the tokens are refilled at
+ * permitsPerSecond up to burst, and a call without token waits for the next one.
+ * <p>
+ * The tokens are reserved, so the waiting callers are served in order without spinning. A Retry-After of the host
+ * {@link #pause(String, long) pauses} its bucket, the following calls wait for its end instead of being throttled.
+ */
+public class RateLimiter {
+
+    public final static double DEFAULT_PERMITS_PER_SECOND = 100;
+
+    public final static int DEFAULT_BURST = 1;
+
+    private final double permitsPerNano;
+
+    private final int burst;
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    private final LongAdder waits = new LongAdder();
+
+    private final LongAdder waitNanos = new LongAdder();
+
+    /**
+     * @param permitsPerSecond sustained rate of calls per host.
+     * @param burst tokens accumulated while idle, the calls sent at once after an idle period.
+     */
+    @Builder
+    private RateLimiter(Double permitsPerSecond, Integer burst) {
+        final double rate = permitsPerSecond == null ? DEFAULT_PERMITS_PER_SECOND : permitsPerSecond;
+        this.burst = burst == null ? DEFAULT_BURST : burst;
+
+        if (rate <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be greater than 0: " + rate);
+        }
+        if (this.burst <= 0) {
+            throw new IllegalArgumentException("burst must be greater than 0: " + this.burst);
+        }
+        this.permitsPerNano = rate / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    public static RateLimiter create(double permitsPerSecond) {
+        return builder().permitsPerSecond(permitsPerSecond).build();
+    }
+
+    /**
+     * Takes a token of the host, waiting for it when needed.
+     */
+    public void acquire(String host) {
+        final long wait = bucket(host).reserve(System.nanoTime());
+        if (wait <= 0) {
+            return;
+        }
+        waits.increment();
+        waitNanos.add(wait);
+        try {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a token of " + host, e);
+        }
+    }
+
+    /**
+     * @return true when a token was available and has been taken.
+     */
+    public boolean tryAcquire(String host) {
+        return bucket(host).tryTake(System.nanoTime());
+    }
+
+    /**
+     * Gives no token for the host before millis, on a Retry-After.
+     */
+    public void pause(String host, long millis) {
+        bucket(host).pause(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    /**
+     * @return the calls which waited for a token.
+     */
+    public long getWaits() {
+        return waits.sum();
+    }
+
+    public long getWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos.sum());
+    }
+
+    private Bucket bucket(String host) {
+        return buckets.computeIfAbsent(host, h -> new Bucket(System.nanoTime()));
+    }
+
+    private final class Bucket {
+
+        /**
+         * Negative when tokens are reserved by waiting callers.
+         */
+        private double tokens;
+
+        private long refilledAt;
+
+        private long pausedUntil;
+
+        private Bucket(long now) {
+            this.tokens = burst;
+            this.refilledAt = now;
+            this.pausedUntil = now;
+        }
+
+        /**
+         * @return the wait in ns before the reserved token.
+         */
+        private synchronized long reserve(long now) {
+            refill(now);
+            tokens -= 1;
+            // After now while paused
+            final long start = Math.max(refilledAt - now, 0);
+            return start + (tokens >= 0 ? 0 : (long) Math.ceil(-tokens / permitsPerNano));
+        }
+
+        private synchronized boolean tryTake(long now) {
+            refill(now);
+            if (tokens < 1 || pausedUntil - now > 0) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+
+        private synchronized void pause(long until) {
+            if (until - pausedUntil > 0) {
+                pausedUntil = until;
+                // One call at the end of the pause, the next ones spread again from there
+                tokens = Math.min(tokens, 1);
+                refilledAt = Math.max(refilledAt, until);
+            }
+        }
+
+        private void refill(long now) {
+            if (now - refilledAt > 0) {
+                tokens = Math.min(burst, tokens + (now - refilledAt) * permitsPerNano);
+                refilledAt = now;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,363 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Builder;
+import org.apache.cxf.configuration.security.AuthorizationPolicy;
+import org.apache.cxf.interceptor.MessageSenderInterceptor;
+import org.apache.cxf.jaxrs.client.ClientConfiguration;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageUtils;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.transport.Conduit;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transport.http.auth.DefaultBasicAuthSupplier;
+import org.apache.cxf.transport.http.auth.HttpAuthSupplier;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the redirections followed by the clients with autoRedirect, so the next GET and HEAD requests to the
+ * same URL are sent straight to the final location instead of paying every hop again.
+ * <pre>
+ * RedirectCache redirects = RedirectCache.builder().temporaryTtl(60_000L).build();
+ * WebClientFactory factory = WebClientFactory.builder().customizer(redirects).build();
+ * </pre>
+ * Permanent redirections (301, 308) are kept for ttl, temporary ones (302, 303, 307) only when temporaryTtl is set.
+ * The cached hops are followed with the rules of the conduit: maxRetransmits, http.redirect.relative.uri,
+ * http.redirect.same.host.only and http.redirect.allowed.uri, so a request is never redirected where the conduit
+ * would not have gone. A shortcut ending with an error status is forgotten.
+ * <p>
+ * The hops are learned by wrapping the proxy authentication supplier of the conduit, the only hook called on each
+ * redirection with its location.
+ */
+public class RedirectCache implements ClientCustomizer {
+
+    public final static int DEFAULT_MAX_ENTRIES = 1024;
+
+    public final static long DEFAULT_TTL = TimeUnit.HOURS.toMillis(1);
+
+    public final static String REDIRECT_ALLOWED_URI = "http.redirect.allowed.uri";
+
+    /**
+     * Longest chain followed in the cache, longer ones are loops.
+     */
+    private final static int MAX_HOPS = 32;
+
+    /**
+     * Request property: URL of the last hop sent.
+     */
+    private final static String CURRENT_URL = RedirectCache.class.getName() + ".current";
+
+    /**
+     * Request property: URL requested by the caller when the request has been redirected from the cache.
+     */
+    private final static String SHORTCUT_URL = RedirectCache.class.getName() + ".shortcut";
+
+    private final int maxEntries;
+
+    private final long ttlNanos;
+
+    private final long temporaryTtlNanos;
+
+    private final Map<String, Hop> hops = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder hopsSaved = new LongAdder();
+
+    private final ShortcutInterceptor shortcutInterceptor = new ShortcutInterceptor();
+
+    private final ResponseInterceptor responseInterceptor = new ResponseInterceptor();
+
+    /**
+     * @param ttl time in ms a permanent redirection is cached.
+     * @param temporaryTtl time in ms a temporary redirection is cached, 0 to not cache them.
+     */
+    @Builder
+    private RedirectCache(Integer maxEntries, Long ttl, Long temporaryTtl) {
+        this.maxEntries = maxEntries == null ? DEFAULT_MAX_ENTRIES : maxEntries;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttl == null ? DEFAULT_TTL : ttl);
+        this.temporaryTtlNanos = TimeUnit.MILLISECONDS.toNanos(temporaryTtl == null ? 0 : temporaryTtl);
+
+        if (this.maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be greater than 0: " + this.maxEntries);
+        }
+    }
+
+    public static RedirectCache create() {
+        return builder().build();
+    }
+
+    /**
+     * Registers the cache on the templates with autoRedirect, the other ones must see the redirections.
+     */
+    @Override
+    public void customize(WebClient template, ClientSettings settings) {
+        if (!settings.isAutoRedirect()) {
+            return;
+        }
+        ClientConfiguration config = WebClient.getConfig(template);
+        config.getOutInterceptors().add(shortcutInterceptor);
+        config.getInInterceptors().add(responseInterceptor);
+
+        // Created by the conduit on the first request otherwise, as for a proxy without authentication
+        HTTPConduit conduit = config.getHttpConduit();
+        HttpAuthSupplier proxyAuthSupplier = conduit.getProxyAuthSupplier();
+        conduit.setProxyAuthSupplier(new HopObserver(
+                proxyAuthSupplier == null ? new DefaultBasicAuthSupplier() : proxyAuthSupplier));
+    }
+
+    /**
+     * @param relative relative redirections are allowed.
+     * @param sameHostOnly redirections to another scheme or host are refused.
+     * @param allowedUri prefix of the allowed locations, or null.
+     * @param maxHops max redirections, -1 for unlimited.
+     * @return the final location of the cached redirections from url, url when there is none or when the conduit
+     * would not follow them.
+     */
+    public String resolve(String url, boolean relative, boolean sameHostOnly, String allowedUri, int maxHops) {
+        final long now = System.nanoTime();
+        String current = url;
+        int count = 0;
+        while (true) {
+            Hop hop = hops.get(current);
+            if (hop != null && hop.isExpired(now)) {
+                hops.remove(current, hop);
+                hop = null;
+            }
+            if (hop == null || !hop.isAllowed(current, relative, sameHostOnly, allowedUri)) {
+                break;
+            }
+            if (count == MAX_HOPS || (maxHops >= 0 && count == maxHops)) {
+                // The conduit would fail on this chain
+                current = url;
+                count = 0;
+                break;
+            }
+            current = hop.location;
+            count++;
+        }
+
+        if (count == 0) {
+            misses.increment();
+        } else {
+            hits.increment();
+            hopsSaved.add(count);
+        }
+        return current;
+    }
+
+    /**
+     * Records a redirection followed by a client.
+     *
+     * @param relative the redirection was followed with relative redirections allowed, so its location may have
+     * been relative.
+     */
+    public void put(String url, int status, String location, boolean relative) {
+        final boolean permanent = status == 301 || status == 308;
+        final long ttl = permanent ? ttlNanos : temporaryTtlNanos;
+        if (ttl <= 0 || url.equals(location)) {
+            return;
+        }
+        final long now = System.nanoTime();
+        hops.put(url, new Hop(location, relative, now + ttl, now));
+        if (hops.size() > maxEntries) {
+            evict(now);
+        }
+    }
+
+    /**
+     * Forgets the redirection from url.
+     */
+    public void invalidate(String url) {
+        hops.remove(url);
+    }
+
+    /**
+     * Remove expired redirections, then the oldest ones while the cache is too big.
+     */
+    private synchronized void evict(long now) {
+        hops.values().removeIf(h -> h.isExpired(now));
+
+        while (hops.size() > maxEntries) {
+            Map.Entry<String, Hop> eldest = null;
+            for (Map.Entry<String, Hop> e : hops.entrySet()) {
+                if (eldest == null || e.getValue().created - eldest.getValue().created < 0) {
+                    eldest = e;
+                }
+            }
+            if (eldest != null) {
+                hops.remove(eldest.getKey(), eldest.getValue());
+            }
+        }
+    }
+
+    public int size() {
+        return hops.size();
+    }
+
+    /**
+     * @return the requests sent straight to a cached location.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the redirections not sent thanks to the cache.
+     */
+    public long getHopsSaved() {
+        return hopsSaved.sum();
+    }
+
+    public void clear() {
+        hops.clear();
+    }
+
+    private static boolean isRedirect(Integer status) {
+        return status != null && (status == 301 || status == 302 || status == 303 || status == 307 || status == 308);
+    }
+
+    private final static class Hop {
+
+        private final String location;
+
+        private final boolean relative;
+
+        private final long expiresAt;
+
+        private final long created;
+
+        private Hop(String location, boolean relative, long expiresAt, long created) {
+            this.location = location;
+            this.relative = relative;
+            this.expiresAt = expiresAt;
+            this.created = created;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt > 0;
+        }
+
+        /**
+         * Same checks as the conduit on a redirection.
+         */
+        private boolean isAllowed(String url, boolean relativeAllowed, boolean sameHostOnly, String allowedUri) {
+            if (relative && !relativeAllowed) {
+                return false;
+            }
+            if (allowedUri != null && !location.startsWith(allowedUri)) {
+                return false;
+            }
+            if (sameHostOnly) {
+                URI from = URI.create(url);
+                URI to = URI.create(location);
+                return Objects.equals(from.getScheme(), to.getScheme()) && Objects.equals(from.getHost(), to.getHost());
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Sends the GET and HEAD requests to the final cached location.
+     */
+    private final class ShortcutInterceptor extends AbstractPhaseInterceptor<Message> {
+
+        private ShortcutInterceptor() {
+            super(Phase.PREPARE_SEND);
+            addBefore(MessageSenderInterceptor.class.getName());
+        }
+
+        @Override
+        public void handleMessage(Message message) {
+            final String method = (String) message.get(Message.HTTP_REQUEST_METHOD);
+            final String url = (String) message.get(Message.ENDPOINT_ADDRESS);
+            if (url == null || !("GET".equals(method) || "HEAD".equals(method))) {
+                return;
+            }
+
+            final String location = resolve(url,
+                    MessageUtils.getContextualBoolean(message, WebClientFactory.REDIRECT_RELATIVE_URI),
+                    MessageUtils.getContextualBoolean(message, WebClientFactory.REDIRECT_SAME_HOST_ONLY),
+                    (String) message.getContextualProperty(REDIRECT_ALLOWED_URI),
+                    maxRetransmits(message));
+            if (!location.equals(url)) {
+                message.put(Message.ENDPOINT_ADDRESS, location);
+                message.put(Message.REQUEST_URI, location);
+                message.put(SHORTCUT_URL, url);
+            }
+
+            message.put(CURRENT_URL, location);
+        }
+    }
+
+    private static int maxRetransmits(Message message) {
+        Conduit conduit = message.getExchange().getConduit(message);
+        return conduit instanceof HTTPConduit ? ((HTTPConduit) conduit).getClient(message).getMaxRetransmits() : -1;
+    }
+
+    /**
+     * Forgets the shortcut of a request ending with an error.
+     */
+    private final class ResponseInterceptor extends AbstractPhaseInterceptor<Message> {
+
+        private ResponseInterceptor() {
+            super(Phase.RECEIVE);
+        }
+
+        @Override
+        public void handleMessage(Message message) {
+            final Message request = message.getExchange().getOutMessage();
+            final Object shortcut = request == null ? null : request.get(SHORTCUT_URL);
+            final Object status = message.get(Message.RESPONSE_CODE);
+            if (shortcut != null && status instanceof Integer && (Integer) status >= 400) {
+                invalidate((String) shortcut);
+            }
+        }
+    }
+
+    /**
+     * Proxy authentication supplier of the conduit, asked for the proxy credentials of each redirection location
+     * once the exchange has the status of the redirection.
+     */
+    private final class HopObserver implements HttpAuthSupplier {
+
+        private final HttpAuthSupplier delegate;
+
+        private HopObserver(HttpAuthSupplier delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean requiresRequestCaching() {
+            return delegate.requiresRequestCaching();
+        }
+
+        @Override
+        public String getAuthorization(AuthorizationPolicy authPolicy, URI uri, Message message, String fullHeader) {
+            final Integer status = (Integer) message.getExchange().get(Message.RESPONSE_CODE);
+            final String current = (String) message.get(CURRENT_URL);
+            // Also called for the first request, and with the challenge for a proxy authentication
+            if (fullHeader == null && isRedirect(status) && current != null) {
+                final String location = uri.toString();
+                put(current, status, location,
+                        MessageUtils.getContextualBoolean(message, WebClientFactory.REDIRECT_RELATIVE_URI));
+                message.put(CURRENT_URL, location);
+            }
+            return delegate.getAuthorization(authPolicy, uri, message, fullHeader);
+        }
+    }
+
+}
@@ -0,0 +1,346 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Builder;
+import lombok.Singular;
+import org.apache.cxf.jaxrs.client.WebClient;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A path, query parameters and headers compiled once, then applied to many clients by binding only the variables.
+ * <p>
+ * The path and the query values are URI templates: "{qop}/{user}/{passwd}/{algorithm}", "{verb}"... They are parsed
+ * and their literal parts encoded when the template is built, so a call only encodes the values of the variables
+ * and appends them to a single buffer. The client gets the resulting URI as is, without a UriBuilder parsing the
+ * template again, and the headers from arrays built once.
+ * <p>
+ * A path variable is one segment: its '/' are encoded. The values are encoded in UTF-8, the literal parts of the path
+ * and of the query keep their percent-encoded characters, as WebClient.path and WebClient.query do. The values are bound by position, in the order of {@link #getVariables()}, or by name.
+ * Immutable, to share between threads.
+ */
+// The @Singular builder casts the values to Object
+@SuppressWarnings("cast")
+public class RequestTemplate {
+
+    /**
+     * Unreserved characters (RFC 3986): the only ones not encoded in a query name or value.
+     */
+    private final static boolean[] QUERY = allowed("");
+
+    /**
+     * Literal parts of a query: unreserved characters and the ones already percent-encoded.
+     */
+    private final static boolean[] QUERY_LITERAL = allowed("%");
+
+    /**
+     * Path segment characters (RFC 3986 pchar).
+     */
+    private final static boolean[] SEGMENT = allowed("!$&'()*+,;=:@");
+
+    /**
+     * Literal parts of a path: segments, their separators and the characters already percent-encoded.
+     */
+    private final static boolean[] PATH_LITERAL = allowed("!$&'()*+,;=:@/%");
+
+    private final static char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * The URI is literals[0], the value of variables[slots[0]], literals[1]... Query slots are encoded as query values.
+     */
+    private final String[] literals;
+
+    private final int[] slots;
+
+    private final boolean[] querySlots;
+
+    private final List<String> variables;
+
+    /**
+     * Added after a '/', else the query is added right after the base URL.
+     */
+    private final boolean hasPath;
+
+    private final String[] headerNames;
+
+    private final String[][] headerValues;
+
+    /**
+     * Appended length estimated per variable, to size the buffer once.
+     */
+    private final int capacity;
+
+    /**
+     * @param path added to the base URL of the client, with its variables, or null.
+     * @param queryParams query parameters, the values may contain variables. A Collection value is added as many
+     *                    parameters with the same name.
+     * @param headers static headers, a Collection value is added as many values.
+     */
+    @Builder
+    private RequestTemplate(String path, @Singular("query") Map<String, Object> queryParams,
+                            @Singular Map<String, Object> headers) {
+        final List<String> literals = new ArrayList<>();
+        final List<Integer> slots = new ArrayList<>();
+        final List<Boolean> querySlots = new ArrayList<>();
+        final List<String> variables = new ArrayList<>();
+        final StringBuilder literal = new StringBuilder();
+
+        final String relative = path == null || !path.startsWith("/") ? path : path.substring(1);
+        this.hasPath = relative != null && !relative.isEmpty();
+        if (hasPath) {
+            compile(relative, false, literal, literals, slots, querySlots, variables);
+        }
+        char separator = '?';
+        for (Map.Entry<String, Object> param : queryParams.entrySet()) {
+            for (Object value : values(param.getValue())) {
+                literal.append(separator);
+                encode(literal, param.getKey(), QUERY_LITERAL);
+                literal.append('=');
+                compile(String.valueOf(value), true, literal, literals, slots, querySlots, variables);
+                separator = '&';
+            }
+        }
+        literals.add(literal.toString());
+
+        this.literals = literals.toArray(new String[0]);
+        this.slots = slots.stream().mapToInt(Integer::intValue).toArray();
+        this.querySlots = new boolean[querySlots.size()];
+        for (int i = 0; i < this.querySlots.length; i++) {
+            this.querySlots[i] = querySlots.get(i);
+        }
+        this.variables = Collections.unmodifiableList(variables);
+        int capacity = this.slots.length * 16;
+        for (String part : this.literals) {
+            capacity += part.length();
+        }
+        this.capacity = capacity;
+
+        this.headerNames = headers.keySet().toArray(new String[0]);
+        this.headerValues = new String[headerNames.length][];
+        for (int i = 0; i < headerNames.length; i++) {
+            this.headerValues[i] = values(headers.get(headerNames[i])).stream().map(String::valueOf)
+                    .toArray(String[]::new);
+        }
+    }
+
+    /**
+     * @return a template of this path, without query parameters nor headers.
+     */
+    public static RequestTemplate of(String path) {
+        return builder().path(path).build();
+    }
+
+    /**
+     * Parses the variables of a template, the text between them is encoded and appended to literal.
+     */
+    private static void compile(String template, boolean query, StringBuilder literal, List<String> literals,
+                                List<Integer> slots, List<Boolean> querySlots, List<String> variables) {
+        int start = 0;
+        while (start < template.length()) {
+            final int open = template.indexOf('{', start);
+            if (open < 0) {
+                break;
+            }
+            final int close = template.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed variable in template: " + template);
+            }
+            encode(literal, template.substring(start, open), query ? QUERY_LITERAL : PATH_LITERAL);
+
+            // {name} or {name: regex}, the regex is ignored
+            final String variable = template.substring(open + 1, close);
+            final int colon = variable.indexOf(':');
+            final String name = (colon < 0 ? variable : variable.substring(0, colon)).trim();
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("Variable without name in template: " + template);
+            }
+            int slot = variables.indexOf(name);
+            if (slot < 0) {
+                slot = variables.size();
+                variables.add(name);
+            }
+            literals.add(literal.toString());
+            literal.setLength(0);
+            slots.add(slot);
+            querySlots.add(query);
+            start = close + 1;
+        }
+        encode(literal, template.substring(start), query ? QUERY_LITERAL : PATH_LITERAL);
+    }
+
+    /**
+     * @return the names of the variables, in the order of their first use: the order of the values.
+     */
+    public List<String> getVariables() {
+        return variables;
+    }
+
+    /**
+     * @return the path and query, encoded, relative to a base URL.
+     */
+    public String expand(Object... values) {
+        final StringBuilder uri = new StringBuilder(capacity);
+        expand(uri, check(values));
+        return uri.toString();
+    }
+
+    /**
+     * @return the path and query, encoded, relative to a base URL.
+     */
+    public String expand(Map<String, ?> values) {
+        return expand(values(values));
+    }
+
+    /**
+     * Sets the URI of the client to its base URL followed by the expanded template, replacing the path and query
+     * already set, and sets the headers, replacing the values the client already has for them. So a client can be
+     * applied the same template again.
+     *
+     * @param values of the variables, in the order of {@link #getVariables()}.
+     * @return the client.
+     */
+    public WebClient apply(WebClient client, Object... values) {
+        check(values);
+        final String base = client.getBaseURI().toString();
+        final StringBuilder uri = new StringBuilder(base.length() + 1 + capacity);
+        uri.append(base);
+        if (hasPath && !base.endsWith("/")) {
+            uri.append('/');
+        }
+        expand(uri, values);
+        client.to(uri.toString(), true);
+
+        for (int i = 0; i < headerNames.length; i++) {
+            client.replaceHeader(headerNames[i], null);
+            client.header(headerNames[i], (Object[]) headerValues[i]);
+        }
+        return client;
+    }
+
+    /**
+     * @see #apply(WebClient, Object...)
+     */
+    public WebClient apply(WebClient client, Map<String, ?> values) {
+        return apply(client, values(values));
+    }
+
+    private void expand(StringBuilder uri, Object[] values) {
+        uri.append(literals[0]);
+        for (int i = 0; i < slots.length; i++) {
+            encode(uri, values[slots[i]].toString(), querySlots[i] ? QUERY : SEGMENT);
+            uri.append(literals[i + 1]);
+        }
+    }
+
+    private Object[] check(Object[] values) {
+        if (values.length != variables.size()) {
+            throw new IllegalArgumentException(String.format("%d values for the %d variables %s", values.length,
+                    variables.size(), variables));
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                throw new IllegalArgumentException("No value for the variable " + variables.get(i));
+            }
+        }
+        return values;
+    }
+
+    private Object[] values(Map<String, ?> values) {
+        final Object[] array = new Object[variables.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(variables.get(i));
+        }
+        return array;
+    }
+
+    private static Collection<?> values(Object value) {
+        return value instanceof Collection ? (Collection<?>) value : Collections.singletonList(value);
+    }
+
+    /**
+     * Appends the value, its characters not allowed percent-encoded in UTF-8. Appended as is when all are allowed.
+     * When '%' is allowed, it is kept only as the start of a percent-encoded character.
+     */
+    private static void encode(StringBuilder out, String value, boolean[] allowed) {
+        final int length = value.length();
+        int i = 0;
+        while (i < length) {
+            if (!isAllowed(value, i, allowed)) {
+                break;
+            }
+            i++;
+        }
+        if (i == length) {
+            out.append(value);
+            return;
+        }
+        out.append(value, 0, i);
+        while (i < length) {
+            if (isAllowed(value, i, allowed)) {
+                out.append(value.charAt(i));
+                i++;
+                continue;
+            }
+            final int codePoint = value.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (codePoint < 0x80) {
+                appendEscaped(out, codePoint);
+            } else if (codePoint < 0x800) {
+                appendEscaped(out, 0xC0 | codePoint >> 6);
+                appendEscaped(out, 0x80 | codePoint & 0x3F);
+            } else if (Character.isSurrogate((char) codePoint)) {
+                // Unpaired surrogate, replaced as String.getBytes does
+                appendEscaped(out, '?');
+            } else if (codePoint < 0x10000) {
+                appendEscaped(out, 0xE0 | codePoint >> 12);
+                appendEscaped(out, 0x80 | codePoint >> 6 & 0x3F);
+                appendEscaped(out, 0x80 | codePoint & 0x3F);
+            } else {
+                appendEscaped(out, 0xF0 | codePoint >> 18);
+                appendEscaped(out, 0x80 | codePoint >> 12 & 0x3F);
+                appendEscaped(out, 0x80 | codePoint >> 6 & 0x3F);
+                appendEscaped(out, 0x80 | codePoint & 0x3F);
+            }
+        }
+    }
+
+    private static boolean isAllowed(String value, int i, boolean[] allowed) {
+        final char c = value.charAt(i);
+        if (c >= 128 || !allowed[c]) {
+            return false;
+        }
+        return c != '%' || i + 2 < value.length() && isHex(value.charAt(i + 1)) && isHex(value.charAt(i + 2));
+    }
+
+    private static boolean isHex(char c) {
+        return c >= '0' && c <= '9' || c >= 'a' && c <= 'f' || c >= 'A' && c <= 'F';
+    }
+
+    private static void appendEscaped(StringBuilder out, int b) {
+        out.append('%').append(HEX[b >> 4]).append(HEX[b & 0xF]);
+    }
+
+    private static boolean[] allowed(String extra) {
+        final boolean[] allowed = new boolean[128];
+        for (char c = 'a'; c <= 'z'; c++) {
+            allowed[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            allowed[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            allowed[c] = true;
+        }
+        for (char c : "-._~".toCharArray()) {
+            allowed[c] = true;
+        }
+        for (char c : extra.toCharArray()) {
+            allowed[c] = true;
+        }
+        return allowed;
+    }
+
+}
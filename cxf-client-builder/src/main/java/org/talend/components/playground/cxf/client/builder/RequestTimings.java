@@ -0,0 +1,517 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Builder;
+import lombok.Value;
+import org.apache.cxf.configuration.security.AuthorizationPolicy;
+import org.apache.cxf.interceptor.MessageSenderInterceptor;
+import org.apache.cxf.jaxrs.client.ClientConfiguration;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.transport.Conduit;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transport.http.auth.HttpAuthSupplier;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the phases of the calls of the clients, in {@link LatencyHistogram} per host, method, status and phase.
+ * <pre>
+ * RequestTimings timings = RequestTimings.create();
+ * WebClientFactory factory = WebClientFactory.builder().customizer(timings).build();
+ * ConnectionPoolManager pools = ConnectionPoolManager.builder().metrics(timings).allCalls(true).build();
+ * timings.registerMBean(RequestTimings.DEFAULT_OBJECT_NAME);
+ * </pre>
+ * The phases of the calls ({@link TimingPhase}) are measured by interceptors, and by the authentication suppliers of
+ * the conduit for the challenges and the redirections it follows. They are recorded once the response headers are
+ * received, the body and the total once the body is read to its end or closed: a body left open is not recorded.
+ * The calls failing without response are not recorded.
+ * <p>
+ * The connection phases (DNS, connect, TLS handshake, wait for a connection) are only known for the connections of a
+ * {@link ConnectionPoolManager} with these timings as metrics. Other connections are opened by HttpURLConnection,
+ * their setup is part of TTFB.
+ * <p>
+ * The timings are read with {@link #getTimings()}, or through JMX once registered, and sent to the
+ * {@link TimingListener} to export them elsewhere. Recording is lock-free, without allocation but the per call state:
+ * a call looks its histograms up once, when its status is known.
+ */
+public class RequestTimings implements ClientCustomizer, ConnectionPoolMetrics, RequestTimingsMXBean {
+
+    public final static String DEFAULT_OBJECT_NAME = "org.talend.components.playground.cxf:type=RequestTimings";
+
+    /**
+     * Exchange property: timing of the call.
+     */
+    private final static String TIMING = RequestTimings.class.getName() + ".timing";
+
+    private final static TimingPhase[] PHASES = TimingPhase.values();
+
+    private final TimingListener listener;
+
+    private final Map<Series, LatencyHistogram[]> series = new ConcurrentHashMap<>();
+
+    /**
+     * The series of the connection phases, by host: looked up without a key to allocate.
+     */
+    private final Map<String, LatencyHistogram[]> connections = new ConcurrentHashMap<>();
+
+    private final StartInterceptor startInterceptor = new StartInterceptor();
+
+    private final SendInterceptor sendInterceptor = new SendInterceptor();
+
+    private final ResponseInterceptor responseInterceptor = new ResponseInterceptor();
+
+    private volatile ObjectName objectName;
+
+    /**
+     * @param listener gets each recorded timing, none by default.
+     */
+    @Builder
+    private RequestTimings(TimingListener listener) {
+        this.listener = listener == null ? (host, method, status, phase, nanos) -> {
+        } : listener;
+    }
+
+    public static RequestTimings create() {
+        return builder().build();
+    }
+
+    @Override
+    public void customize(WebClient template, ClientSettings settings) {
+        ClientConfiguration config = WebClient.getConfig(template);
+        config.getOutInterceptors().add(startInterceptor);
+        config.getOutInterceptors().add(sendInterceptor);
+        config.getInInterceptors().add(responseInterceptor);
+    }
+
+    /**
+     * @param method null and status 0 for the connection phases.
+     * @return the histogram, or null when nothing was recorded.
+     */
+    public LatencyHistogram getHistogram(String host, String method, int status, TimingPhase phase) {
+        final LatencyHistogram[] histograms = series.get(new Series(host, method, status));
+        return histograms == null ? null : histograms[phase.ordinal()];
+    }
+
+    /**
+     * @return the recorded timings, sorted by host, method, status and phase.
+     */
+    @Override
+    public List<TimingStats> getTimings() {
+        final double millis = TimeUnit.MILLISECONDS.toNanos(1);
+        final List<TimingStats> timings = new ArrayList<>();
+        series.forEach((key, histograms) -> {
+            for (TimingPhase phase : PHASES) {
+                final LatencyHistogram h = histograms[phase.ordinal()];
+                if (h.getCount() > 0) {
+                    timings.add(new TimingStats(key.host, key.method, key.status, phase, h.getCount(),
+                            h.getMean() / millis, h.getPercentileMillis(50), h.getPercentileMillis(90),
+                            h.getPercentileMillis(99), h.getMax() / millis));
+                }
+            }
+        });
+        timings.sort(Comparator.comparing(TimingStats::getHost)
+                .thenComparing(TimingStats::getMethod, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparingInt(TimingStats::getStatus)
+                .thenComparing(TimingStats::getPhase));
+        return timings;
+    }
+
+    @Override
+    public void reset() {
+        series.clear();
+        connections.clear();
+    }
+
+    /**
+     * Registers the timings in the platform MBean server.
+     *
+     * @param name object name, as {@link #DEFAULT_OBJECT_NAME}.
+     */
+    public ObjectName registerMBean(String name) {
+        try {
+            final ObjectName objectName = new ObjectName(name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            this.objectName = objectName;
+            return objectName;
+        } catch (InstanceAlreadyExistsException e) {
+            throw new IllegalStateException("Already registered: " + name, e);
+        } catch (JMException e) {
+            throw new IllegalArgumentException("Can't register " + name, e);
+        }
+    }
+
+    public void unregisterMBean() {
+        final ObjectName registered = objectName;
+        if (registered == null) {
+            return;
+        }
+        objectName = null;
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.unregisterMBean(registered);
+        } catch (InstanceNotFoundException e) {
+            // Already unregistered
+        } catch (JMException e) {
+            throw new IllegalStateException("Can't unregister " + registered, e);
+        }
+    }
+
+    @Override
+    public void leased(String host, long waitNanos, boolean reused) {
+        recordConnection(host, TimingPhase.POOL_WAIT, waitNanos);
+    }
+
+    @Override
+    public void connected(String host, long connectNanos, boolean tls) {
+        recordConnection(host, TimingPhase.CONNECT, connectNanos);
+    }
+
+    @Override
+    public void resolved(String host, long resolveNanos) {
+        recordConnection(host, TimingPhase.DNS, resolveNanos);
+    }
+
+    @Override
+    public void handshaked(String host, long handshakeNanos) {
+        recordConnection(host, TimingPhase.TLS, handshakeNanos);
+    }
+
+    private void recordConnection(String host, TimingPhase phase, long nanos) {
+        LatencyHistogram[] histograms = connections.get(host);
+        if (histograms == null) {
+            histograms = histograms(host, null, 0);
+            connections.put(host, histograms);
+        }
+        record(histograms, host, null, 0, phase, nanos);
+    }
+
+    private void record(LatencyHistogram[] histograms, String host, String method, int status, TimingPhase phase,
+                        long nanos) {
+        histograms[phase.ordinal()].record(nanos);
+        listener.recorded(host, method, status, phase, nanos);
+    }
+
+    private LatencyHistogram[] histograms(String host, String method, int status) {
+        final Series key = new Series(host, method, status);
+        LatencyHistogram[] histograms = series.get(key);
+        if (histograms == null) {
+            histograms = series.computeIfAbsent(key, k -> {
+                final LatencyHistogram[] created = new LatencyHistogram[PHASES.length];
+                for (int i = 0; i < created.length; i++) {
+                    created[i] = new LatencyHistogram();
+                }
+                return created;
+            });
+        }
+        return histograms;
+    }
+
+    private static Timing timing(Message message) {
+        final Exchange exchange = message.getExchange();
+        return exchange == null ? null : (Timing) exchange.get(TIMING);
+    }
+
+    @Value
+    private static class Series {
+
+        String host;
+
+        String method;
+
+        int status;
+    }
+
+    /**
+     * Instants of a call in ns. Set by the caller thread until the response, which may be received by another one.
+     */
+    private final class Timing {
+
+        private final long start = System.nanoTime();
+
+        private final String host;
+
+        private final String method;
+
+        private volatile long ready;
+
+        private volatile long written;
+
+        /**
+         * Last request sent on the wire: the first one, or a retransmission.
+         */
+        private volatile long sent;
+
+        private volatile long challenges;
+
+        private volatile long redirects;
+
+        private volatile long headers;
+
+        private volatile int status;
+
+        /**
+         * The series of the host, method and status, once received.
+         */
+        private volatile LatencyHistogram[] histograms;
+
+        private boolean done;
+
+        private Timing(String host, String method) {
+            this.host = host;
+            this.method = method;
+        }
+
+        private void retransmitted(TimingPhase phase) {
+            if (sent == 0) {
+                return;
+            }
+            final long now = System.nanoTime();
+            if (phase == TimingPhase.AUTH_CHALLENGE) {
+                challenges += now - sent;
+            } else {
+                redirects += now - sent;
+            }
+            sent = now;
+        }
+
+        /**
+         * Records the phases until the response headers.
+         */
+        private void received(int status) {
+            this.headers = System.nanoTime();
+            this.status = status;
+            this.histograms = histograms(host, method, status);
+            if (ready != 0) {
+                record(TimingPhase.PREPARE, ready - start);
+            }
+            if (written != 0) {
+                record(TimingPhase.WRITE, written - ready);
+            }
+            if (challenges != 0) {
+                record(TimingPhase.AUTH_CHALLENGE, challenges);
+            }
+            if (redirects != 0) {
+                record(TimingPhase.REDIRECT, redirects);
+            }
+            if (sent != 0) {
+                record(TimingPhase.TTFB, headers - sent);
+            }
+        }
+
+        /**
+         * Records the body and the total, once.
+         */
+        private void completed() {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+            }
+            final long now = System.nanoTime();
+            record(TimingPhase.BODY, now - headers);
+            record(TimingPhase.TOTAL, now - start);
+        }
+
+        private void record(TimingPhase phase, long nanos) {
+            RequestTimings.this.record(histograms, host, method, status, phase, nanos);
+        }
+    }
+
+    /**
+     * Starts the timing of the call, first of the out chain.
+     */
+    private final class StartInterceptor extends AbstractPhaseInterceptor<Message> {
+
+        private StartInterceptor() {
+            super(Phase.SETUP);
+        }
+
+        @Override
+        public void handleMessage(Message message) {
+            final Object url = message.get(Message.ENDPOINT_ADDRESS);
+            if (url == null || message.getExchange() == null) {
+                return;
+            }
+            final String host;
+            try {
+                host = Origins.of(url.toString());
+            } catch (IllegalArgumentException e) {
+                return;
+            }
+            message.getExchange().put(TIMING, new Timing(host, (String) message.get(Message.HTTP_REQUEST_METHOD)));
+        }
+    }
+
+    /**
+     * Once the conduit is ready: observes the end of the request body, and the retransmissions of the conduit.
+     */
+    private final class SendInterceptor extends AbstractPhaseInterceptor<Message> {
+
+        private SendInterceptor() {
+            super(Phase.PREPARE_SEND);
+            addAfter(MessageSenderInterceptor.class.getName());
+        }
+
+        @Override
+        public void handleMessage(Message message) {
+            final Timing timing = timing(message);
+            if (timing == null) {
+                return;
+            }
+            timing.ready = System.nanoTime();
+
+            final OutputStream out = message.getContent(OutputStream.class);
+            if (out != null) {
+                message.setContent(OutputStream.class, new FilterOutputStream(out) {
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        out.write(b, off, len);
+                    }
+
+                    /**
+                     * The conduit sends the request and waits for the response while closing.
+                     */
+                    @Override
+                    public void close() throws IOException {
+                        if (timing.written == 0) {
+                            timing.written = System.nanoTime();
+                            timing.sent = timing.written;
+                        }
+                        super.close();
+                    }
+                });
+            }
+
+            // The suppliers are created by the conduit on its first request
+            final Conduit conduit = message.getExchange().getConduit(message);
+            if (conduit instanceof HTTPConduit) {
+                final HTTPConduit http = (HTTPConduit) conduit;
+                final HttpAuthSupplier auth = http.getAuthSupplier();
+                if (auth != null && !(auth instanceof RetransmitObserver)) {
+                    http.setAuthSupplier(new RetransmitObserver(auth, TimingPhase.AUTH_CHALLENGE));
+                }
+                final HttpAuthSupplier proxyAuth = http.getProxyAuthSupplier();
+                if (proxyAuth != null && !(proxyAuth instanceof RetransmitObserver)) {
+                    http.setProxyAuthSupplier(new RetransmitObserver(proxyAuth, TimingPhase.REDIRECT));
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the phases until the headers, and the body once read.
+     */
+    private final class ResponseInterceptor extends AbstractPhaseInterceptor<Message> {
+
+        private ResponseInterceptor() {
+            super(Phase.RECEIVE);
+        }
+
+        @Override
+        public void handleMessage(Message message) {
+            final Timing timing = timing(message);
+            if (timing == null || timing.headers != 0) {
+                return;
+            }
+            final Object status = message.get(Message.RESPONSE_CODE);
+            timing.received(status instanceof Integer ? (Integer) status : 0);
+
+            final InputStream body = message.getContent(InputStream.class);
+            if (body == null) {
+                timing.completed();
+                return;
+            }
+            message.setContent(InputStream.class, new FilterInputStream(body) {
+
+                @Override
+                public int read() throws IOException {
+                    final int b = super.read();
+                    if (b == -1) {
+                        timing.completed();
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    final int n = super.read(b, off, len);
+                    if (n == -1) {
+                        timing.completed();
+                    }
+                    return n;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        timing.completed();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Authentication supplier of the conduit: asked for the credentials once a challenge is received, and the proxy
+     * one for the credentials of each redirection location.
+     */
+    private final static class RetransmitObserver implements HttpAuthSupplier {
+
+        private final HttpAuthSupplier delegate;
+
+        private final TimingPhase phase;
+
+        private RetransmitObserver(HttpAuthSupplier delegate, TimingPhase phase) {
+            this.delegate = delegate;
+            this.phase = phase;
+        }
+
+        @Override
+        public boolean requiresRequestCaching() {
+            return delegate.requiresRequestCaching();
+        }
+
+        @Override
+        public String getAuthorization(AuthorizationPolicy authPolicy, URI uri, Message message, String fullHeader) {
+            final Timing timing = timing(message);
+            if (timing != null) {
+                if (phase == TimingPhase.AUTH_CHALLENGE && fullHeader != null) {
+                    timing.retransmitted(phase);
+                } else if (phase == TimingPhase.REDIRECT && fullHeader == null && isRedirect(message)) {
+                    timing.retransmitted(phase);
+                }
+            }
+            return delegate.getAuthorization(authPolicy, uri, message, fullHeader);
+        }
+
+        private static boolean isRedirect(Message message) {
+            final Object status = message.getExchange().get(Message.RESPONSE_CODE);
+            return status instanceof Integer && (Integer) status >= 300 && (Integer) status < 400;
+        }
+    }
+
+}
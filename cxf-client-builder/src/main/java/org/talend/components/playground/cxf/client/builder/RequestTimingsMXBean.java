@@ -0,0 +1,17 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import java.util.List;
+
+/**
+ * JMX view of the {@link RequestTimings}.
+ */
+public interface RequestTimingsMXBean {
+
+    /**
+     * @return the durations in ms per host, method, status and phase.
+     */
+    List<TimingStats> getTimings();
+
+    void reset();
+
+}
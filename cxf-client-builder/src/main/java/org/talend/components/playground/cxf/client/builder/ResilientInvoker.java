@@ -0,0 +1,354 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Builder;
+import org.apache.cxf.jaxrs.client.WebClient;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends the calls of a WebClient with retries, a per host circuit breaker, rate and concurrency limits, and hedged
+ * requests, each optional.
+ * <pre>
+ * ResilientInvoker invoker = ResilientInvoker.builder()
+ *         .retry(RetryPolicy.create())
+ *         .circuitBreaker(CircuitBreaker.create())
+ *         .hedgePercentile(95.0)
+ *         .build();
+ * Response response = invoker.invoke(factory.create(settings).path("get"), "GET", null);
+ * </pre>
+ * <ul>
+ *     <li>Retry: the exceptions and the retryable statuses of the {@link RetryPolicy} are retried after a jittered
+ *     exponential backoff, for the idempotent methods only. Once the attempts are exhausted, the last response is
+ *     returned or the last exception thrown.</li>
+ *     <li>Circuit breaker: each attempt is first allowed by the {@link CircuitBreaker} of its host, or fails with a
+ *     {@link CircuitBreakerOpenException} without being sent.</li>
+ *     <li>Limits: each attempt then takes a token of the {@link RateLimiter} and a permit of the
+ *     {@link ConcurrencyLimiter} of its host, waiting for them when needed. The permit is released once the response
+ *     status is known, and a Retry-After of a 429 or 503 pauses the rate limiter of the host.</li>
+ *     <li>Hedging: when an idempotent attempt is slower than the hedgePercentile of the latencies of its host, a
+ *     second identical attempt is sent and the first response wins, the other one is closed on arrival. It cuts the
+ *     tail latency caused by a slow server thread or connection, for about (100 - hedgePercentile)% more calls.</li>
+ * </ul>
+ * The client is used for the first attempt without hedging, copies of it are sent when hedging.
+ */
+public class ResilientInvoker {
+
+    public final static long DEFAULT_MIN_HEDGE_DELAY = 10;
+
+    /**
+     * Latencies kept per host for the percentile.
+     */
+    private final static int LATENCY_SAMPLES = 256;
+
+    /**
+     * Latencies needed before hedging.
+     */
+    private final static int MIN_LATENCY_SAMPLES = 20;
+
+    private final static ExecutorService EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "resilient-invoker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final RetryPolicy retry;
+
+    private final CircuitBreaker circuitBreaker;
+
+    private final RateLimiter rateLimiter;
+
+    private final ConcurrencyLimiter concurrencyLimiter;
+
+    private final Double hedgePercentile;
+
+    private final long minHedgeDelay;
+
+    private final Executor executor;
+
+    private final Map<String, Latencies> latencies = new ConcurrentHashMap<>();
+
+    private final LongAdder retries = new LongAdder();
+
+    private final LongAdder hedges = new LongAdder();
+
+    private final LongAdder hedgeWins = new LongAdder();
+
+    /**
+     * @param retry no retry when null.
+     * @param circuitBreaker no circuit breaker when null.
+     * @param rateLimiter no rate limit when null.
+     * @param concurrencyLimiter no concurrency limit when null.
+     * @param hedgePercentile latency percentile (0 to 100) after which a hedged attempt is sent, no hedging when null.
+     * @param minHedgeDelay minimal delay in ms before a hedged attempt.
+     * @param executor runs the hedged attempts, a shared cached pool of daemon threads by default.
+     */
+    @Builder
+    private ResilientInvoker(RetryPolicy retry, CircuitBreaker circuitBreaker, RateLimiter rateLimiter,
+                             ConcurrencyLimiter concurrencyLimiter, Double hedgePercentile, Long minHedgeDelay,
+                             Executor executor) {
+        this.retry = retry == null ? RetryPolicy.builder().maxAttempts(1).build() : retry;
+        this.circuitBreaker = circuitBreaker;
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.hedgePercentile = hedgePercentile;
+        this.minHedgeDelay = minHedgeDelay == null ? DEFAULT_MIN_HEDGE_DELAY : minHedgeDelay;
+        this.executor = executor == null ? EXECUTOR : executor;
+
+        if (hedgePercentile != null && (hedgePercentile <= 0 || hedgePercentile >= 100)) {
+            throw new IllegalArgumentException("hedgePercentile must be in ]0, 100[: " + hedgePercentile);
+        }
+    }
+
+    /**
+     * @return the response of the last attempt, with a retryable status when the attempts are exhausted.
+     * @throws CircuitBreakerOpenException when the circuit of the host is open.
+     * @throws ProcessingException the failure of the last attempt.
+     */
+    public Response invoke(WebClient client, String method, Object body) {
+        final String host = Origins.of(client.getCurrentURI());
+        final boolean idempotent = retry.isRetryable(method);
+        for (int attempt = 1; ; attempt++) {
+            final boolean last = !idempotent || attempt >= retry.getMaxAttempts();
+            final Response response;
+            try {
+                response = attempt(client, method, body, host, idempotent);
+            } catch (ProcessingException e) {
+                if (last) {
+                    throw e;
+                }
+                backoff(retry.delay(attempt, null));
+                continue;
+            }
+
+            if (last || !retry.isRetryable(response.getStatus())) {
+                return response;
+            }
+            final String retryAfter = response.getHeaderString(HttpHeaders.RETRY_AFTER);
+            response.close();
+            backoff(retry.delay(attempt, retryAfter));
+        }
+    }
+
+    /**
+     * @return the attempts sent again after a failure.
+     */
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /**
+     * @return the hedged attempts sent.
+     */
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    /**
+     * @return the hedged attempts answering before the first one.
+     */
+    public long getHedgeWins() {
+        return hedgeWins.sum();
+    }
+
+    /**
+     * @return the hedging delay in ms for the host, or -1 while its latencies are unknown.
+     */
+    public long getHedgeDelay(String host) {
+        final Latencies hostLatencies = latencies.get(host);
+        if (hedgePercentile == null || hostLatencies == null) {
+            return -1;
+        }
+        final long percentile = hostLatencies.percentile(hedgePercentile);
+        return percentile < 0 ? -1 : Math.max(TimeUnit.NANOSECONDS.toMillis(percentile), minHedgeDelay);
+    }
+
+    private Response attempt(WebClient client, String method, Object body, String host, boolean idempotent) {
+        final long hedgeDelay = idempotent ? getHedgeDelay(host) : -1;
+        if (hedgeDelay < 0) {
+            return send(client, method, body, host);
+        }
+
+        final CompletableFuture<Response> winner = new CompletableFuture<>();
+        final AtomicInteger failures = new AtomicInteger();
+        final CompletableFuture<Response> first = race(copy(client), method, body, host, winner, failures, false);
+        try {
+            return first.get(hedgeDelay, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Slower than the percentile
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + host, e);
+        }
+
+        if (circuitBreaker == null || circuitBreaker.tryAcquire(host)) {
+            hedges.increment();
+            race(copy(client), method, body, host, winner, failures, true);
+        } else {
+            failures.incrementAndGet();
+        }
+        try {
+            return winner.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + host, e);
+        }
+    }
+
+    /**
+     * Sends one of the two attempts of a hedged call: the first response wins, a late one is closed, and the call
+     * fails with the second failure.
+     */
+    private CompletableFuture<Response> race(WebClient client, String method, Object body, String host,
+                                             CompletableFuture<Response> winner, AtomicInteger failures,
+                                             boolean hedged) {
+        final AtomicBoolean acquired = new AtomicBoolean(hedged);
+        return CompletableFuture.supplyAsync(() -> {
+            if (!acquired.get() && circuitBreaker != null && !circuitBreaker.tryAcquire(host)) {
+                throw new CircuitBreakerOpenException(host);
+            }
+            acquired.set(true);
+            return sendAcquired(client, method, body, host);
+        }, executor).whenComplete((response, error) -> {
+            if (response != null) {
+                if (winner.complete(response)) {
+                    if (hedged) {
+                        hedgeWins.increment();
+                    }
+                } else {
+                    response.close();
+                }
+            } else if (failures.incrementAndGet() == 2 || !acquired.get()) {
+                winner.completeExceptionally(error);
+            }
+        });
+    }
+
+    /**
+     * Sends the attempt once allowed by the circuit breaker.
+     */
+    private Response send(WebClient client, String method, Object body, String host) {
+        if (circuitBreaker != null && !circuitBreaker.tryAcquire(host)) {
+            throw new CircuitBreakerOpenException(host);
+        }
+        return sendAcquired(client, method, body, host);
+    }
+
+    /**
+     * Sends the attempt, the circuit breaker already acquired: whatever is thrown, the concurrency permit is released
+     * and the circuit gets a failure, so neither a permit nor a half-open trial is lost.
+     */
+    private Response sendAcquired(WebClient client, String method, Object body, String host) {
+        ConcurrencyLimiter.Permit permit = null;
+        Response response = null;
+        try {
+            if (rateLimiter != null) {
+                rateLimiter.acquire(host);
+            }
+            permit = concurrencyLimiter == null ? null : concurrencyLimiter.acquire(host);
+            final long start = System.nanoTime();
+            response = client.invoke(method, body);
+
+            if (permit != null) {
+                permit.release(response.getStatus());
+            }
+            if (circuitBreaker != null) {
+                if (response.getStatus() >= 500) {
+                    circuitBreaker.onFailure(host);
+                } else {
+                    circuitBreaker.onSuccess(host);
+                }
+            }
+            if (rateLimiter != null && (response.getStatus() == 429 || response.getStatus() == 503)) {
+                final long retryAfter = RetryPolicy.retryAfterMillis(response.getHeaderString(HttpHeaders.RETRY_AFTER));
+                if (retryAfter > 0) {
+                    rateLimiter.pause(host, retryAfter);
+                }
+            }
+            if (hedgePercentile != null && response.getStatus() < 500) {
+                latencies.computeIfAbsent(host, h -> new Latencies()).add(System.nanoTime() - start);
+            }
+            return response;
+        } finally {
+            if (response == null) {
+                if (permit != null) {
+                    permit.release(-1);
+                }
+                if (circuitBreaker != null) {
+                    circuitBreaker.onFailure(host);
+                }
+            }
+        }
+    }
+
+    private void backoff(long delay) {
+        retries.increment();
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry", e);
+        }
+    }
+
+    private static WebClient copy(WebClient client) {
+        return WebClient.fromClient(client, true);
+    }
+
+    private static RuntimeException unwrap(ExecutionException e) {
+        return e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                : new ProcessingException(e.getCause());
+    }
+
+    /**
+     * Last latencies of a host, as a ring.
+     */
+    private final static class Latencies {
+
+        private final long[] samples = new long[LATENCY_SAMPLES];
+
+        private int count;
+
+        private int next;
+
+        private synchronized void add(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        /**
+         * @return the percentile in ns, -1 with too few samples.
+         */
+        private long percentile(double percentile) {
+            final long[] sorted;
+            synchronized (this) {
+                if (count < MIN_LATENCY_SAMPLES) {
+                    return -1;
+                }
+                sorted = Arrays.copyOf(samples, count);
+            }
+            Arrays.sort(sorted);
+            return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile / 100 * sorted.length) - 1)];
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Builder;
+import lombok.Singular;
+
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retries of a {@link ResilientInvoker}: how many attempts, which failures, and the exponential backoff between them.
+ * <p>
+ * The delay before the attempt n + 1 is drawn between 0 and min(maxBackoff, initialBackoff * multiplier^(n - 1))
+ * (full jitter), so the clients failing together don't retry together. A Retry-After header in seconds is honored
+ * up to maxBackoff.
+ */
+public class RetryPolicy {
+
+    public final static int DEFAULT_MAX_ATTEMPTS = 3;
+
+    public final static long DEFAULT_INITIAL_BACKOFF = 100;
+
+    public final static long DEFAULT_MAX_BACKOFF = TimeUnit.SECONDS.toMillis(10);
+
+    public final static double DEFAULT_MULTIPLIER = 2;
+
+    public final static Set<Integer> DEFAULT_RETRY_STATUSES = Set.of(429, 502, 503, 504);
+
+    /**
+     * Methods without side effect when sent twice, see RFC 7231 section 4.2.2.
+     */
+    public final static Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE", "PUT", "DELETE");
+
+    private final int maxAttempts;
+
+    private final long initialBackoff;
+
+    private final long maxBackoff;
+
+    private final double multiplier;
+
+    private final Set<Integer> retryStatuses;
+
+    private final boolean retryNonIdempotent;
+
+    /**
+     * @param maxAttempts attempts of a call, the first one included.
+     * @param initialBackoff max delay in ms before the second attempt.
+     * @param maxBackoff max delay in ms between two attempts.
+     * @param retryStatuses statuses retried, 429, 502, 503 and 504 by default.
+     * @param retryNonIdempotent also retries POST and PATCH, false by default.
+     */
+    @Builder
+    private RetryPolicy(Integer maxAttempts, Long initialBackoff, Long maxBackoff, Double multiplier,
+                        @Singular Set<Integer> retryStatuses, Boolean retryNonIdempotent) {
+        this.maxAttempts = maxAttempts == null ? DEFAULT_MAX_ATTEMPTS : maxAttempts;
+        this.initialBackoff = initialBackoff == null ? DEFAULT_INITIAL_BACKOFF : initialBackoff;
+        this.maxBackoff = maxBackoff == null ? DEFAULT_MAX_BACKOFF : maxBackoff;
+        this.multiplier = multiplier == null ? DEFAULT_MULTIPLIER : multiplier;
+        this.retryStatuses = retryStatuses == null || retryStatuses.isEmpty() ? DEFAULT_RETRY_STATUSES : retryStatuses;
+        this.retryNonIdempotent = retryNonIdempotent != null && retryNonIdempotent;
+
+        if (this.maxAttempts <= 0) {
+            throw new IllegalArgumentException("maxAttempts must be greater than 0: " + this.maxAttempts);
+        }
+        if (this.initialBackoff < 0 || this.maxBackoff < this.initialBackoff) {
+            throw new IllegalArgumentException("Invalid backoff: " + this.initialBackoff + " to " + this.maxBackoff);
+        }
+        if (this.multiplier < 1) {
+            throw new IllegalArgumentException("multiplier must be at least 1: " + this.multiplier);
+        }
+    }
+
+    public static RetryPolicy create() {
+        return builder().build();
+    }
+
+    /**
+     * @return true when a call with this method can be sent again.
+     */
+    public boolean isRetryable(String method) {
+        return retryNonIdempotent || IDEMPOTENT_METHODS.contains(method);
+    }
+
+    public boolean isRetryable(int status) {
+        return retryStatuses.contains(status);
+    }
+
+    /**
+     * @param attempt the attempt that failed, from 1.
+     * @param retryAfter Retry-After header of the response, or null.
+     * @return the delay in ms before the next attempt.
+     */
+    public long delay(int attempt, String retryAfter) {
+        final long serverDelay = retryAfterMillis(retryAfter);
+        if (serverDelay >= 0) {
+            return Math.min(serverDelay, maxBackoff);
+        }
+        final double ceiling = Math.min(maxBackoff, initialBackoff * Math.pow(multiplier, attempt - 1));
+        return (long) (ThreadLocalRandom.current().nextDouble() * ceiling);
+    }
+
+    /**
+     * @return the delay in ms of a Retry-After header in seconds, -1 when absent or an HTTP date.
+     */
+    static long retryAfterMillis(String retryAfter) {
+        if (retryAfter == null) {
+            return -1;
+        }
+        try {
+            return TimeUnit.SECONDS.toMillis(Math.max(Long.parseLong(retryAfter.trim()), 0));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+}
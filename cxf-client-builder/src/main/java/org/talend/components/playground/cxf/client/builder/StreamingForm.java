@@ -0,0 +1,93 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import org.apache.cxf.jaxrs.client.WebClient;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * An application/x-www-form-urlencoded body encoded while sent, for field sets too large to build as a Form.
+ * <pre>
+ * Response response = StreamingForm.of(fields).post(factory.create(settings).path("import"));
+ * </pre>
+ * The fields are iterated once per write, so they can be generated lazily. A Collection value is written as many
+ * fields with the same name, a null value as an empty one.
+ */
+public class StreamingForm implements StreamingOutput {
+
+    private final static int BUFFER_SIZE = 64 * 1024;
+
+    private final Iterable<? extends Map.Entry<String, ?>> fields;
+
+    private final Charset charset;
+
+    private StreamingForm(Iterable<? extends Map.Entry<String, ?>> fields, Charset charset) {
+        this.fields = fields;
+        this.charset = charset;
+    }
+
+    /**
+     * @return the fields encoded in UTF-8.
+     */
+    public static StreamingForm of(Iterable<? extends Map.Entry<String, ?>> fields) {
+        return of(fields, StandardCharsets.UTF_8);
+    }
+
+    public static StreamingForm of(Iterable<? extends Map.Entry<String, ?>> fields, Charset charset) {
+        return new StreamingForm(fields, charset);
+    }
+
+    public MediaType getMediaType() {
+        return MediaType.APPLICATION_FORM_URLENCODED_TYPE;
+    }
+
+    /**
+     * Posts the body with its Content-Type.
+     */
+    public Response post(WebClient client) {
+        return client.type(getMediaType()).post(this);
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        // Encoded as ASCII
+        final Writer out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.US_ASCII), BUFFER_SIZE);
+        boolean first = true;
+        for (Map.Entry<String, ?> field : fields) {
+            final String name = URLEncoder.encode(field.getKey(), charset);
+            if (field.getValue() instanceof Collection) {
+                for (Object value : (Collection<?>) field.getValue()) {
+                    first = write(out, name, value, first);
+                }
+            } else {
+                first = write(out, name, field.getValue(), first);
+            }
+        }
+        // Not closed, the conduit closes its stream
+        out.flush();
+    }
+
+    private boolean write(Writer out, String name, Object value, boolean first) throws IOException {
+        if (!first) {
+            out.write('&');
+        }
+        out.write(name);
+        out.write('=');
+        if (value != null) {
+            out.write(URLEncoder.encode(value.toString(), charset));
+        }
+        return false;
+    }
+
+}
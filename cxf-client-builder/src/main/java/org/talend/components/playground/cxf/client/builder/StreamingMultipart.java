@@ -0,0 +1,229 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+import org.apache.cxf.jaxrs.client.WebClient;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * A multipart/form-data body written part by part while sent, so files of several GB are uploaded without being held
+ * in memory.
+ * <pre>
+ * StreamingMultipart body = StreamingMultipart.builder()
+ *         .part(StreamingMultipart.Part.field("name", "peter"))
+ *         .part(StreamingMultipart.Part.file("export", Paths.get("export.csv"), "text/csv"))
+ *         .build();
+ * Response response = body.post(factory.create(settings).path("upload"));
+ * </pre>
+ * The files are read from their FileChannel and the streams from their InputStream, through one pooled buffer. The
+ * conduit sends the body with a chunked transfer encoding once it is over its chunking threshold, the memory used
+ * stays bounded by the buffer whatever the size of the parts.
+ * <p>
+ * The boundary is random unless given, a part containing it would end early. A body with a stream part can be sent
+ * once, the stream is closed once written.
+ */
+public class StreamingMultipart implements StreamingOutput {
+
+    public final static int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final static ByteBufferPool pool = new ByteBufferPool(DEFAULT_BUFFER_SIZE, 16);
+
+    private final static SecureRandom random = new SecureRandom();
+
+    /**
+     * RFC 2046 section 5.1.1, without the spaces.
+     */
+    private final static Pattern BOUNDARY = Pattern.compile("[0-9A-Za-z'()+_,\\-./:=?]{1,70}");
+
+    private final static byte[] CRLF = {'\r', '\n'};
+
+    private final static byte[] DASHES = {'-', '-'};
+
+    private final List<Part> parts;
+
+    private final String boundary;
+
+    /**
+     * @param parts written in order.
+     * @param boundary a random one by default.
+     */
+    @Builder
+    private StreamingMultipart(@Singular List<Part> parts, String boundary) {
+        this.parts = parts;
+        this.boundary = boundary == null ? randomBoundary() : boundary;
+
+        if (!BOUNDARY.matcher(this.boundary).matches()) {
+            throw new IllegalArgumentException("Invalid boundary: " + this.boundary);
+        }
+        for (Part part : this.parts) {
+            if (part.getName() == null) {
+                throw new IllegalArgumentException("A part has no name");
+            }
+        }
+    }
+
+    /**
+     * @return multipart/form-data with the boundary.
+     */
+    public MediaType getMediaType() {
+        return new MediaType("multipart", "form-data", Collections.singletonMap("boundary", boundary));
+    }
+
+    public String getBoundary() {
+        return boundary;
+    }
+
+    public List<Part> getParts() {
+        return parts;
+    }
+
+    /**
+     * Posts the body with its Content-Type.
+     */
+    public Response post(WebClient client) {
+        return client.type(getMediaType()).post(this);
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        final byte[] delimiter = ("--" + boundary).getBytes(StandardCharsets.US_ASCII);
+        final ByteBuffer buffer = pool.acquire();
+        try {
+            for (Part part : parts) {
+                output.write(delimiter);
+                output.write(CRLF);
+                output.write(part.headers().getBytes(StandardCharsets.UTF_8));
+                part.writeContent(output, buffer);
+                output.write(CRLF);
+            }
+            output.write(delimiter);
+            output.write(DASHES);
+            output.write(CRLF);
+            output.flush();
+        } finally {
+            pool.release(buffer);
+        }
+    }
+
+    private static String randomBoundary() {
+        final byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        final StringBuilder sb = new StringBuilder("----");
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A form field, or a file from a path or a stream. Create them with {@link #field}, {@link #file} and
+     * {@link #stream}.
+     */
+    @Value
+    @Builder
+    public static class Part {
+
+        String name;
+
+        /**
+         * Filename of the Content-Disposition, or null for a field.
+         */
+        String filename;
+
+        /**
+         * Content-Type of the part, or null.
+         */
+        String contentType;
+
+        /**
+         * The content: a String, a byte[], a Path or an InputStream.
+         */
+        Object content;
+
+        public static Part field(String name, String value) {
+            return Part.builder().name(name).content(value).build();
+        }
+
+        /**
+         * @return the file, with its file name and application/octet-stream.
+         */
+        public static Part file(String name, Path file) {
+            return file(name, file, MediaType.APPLICATION_OCTET_STREAM);
+        }
+
+        public static Part file(String name, Path file, String contentType) {
+            return Part.builder().name(name).filename(file.getFileName().toString()).contentType(contentType)
+                    .content(file).build();
+        }
+
+        /**
+         * @return the stream, read until its end and closed.
+         */
+        public static Part stream(String name, String filename, String contentType, InputStream content) {
+            return Part.builder().name(name).filename(filename).contentType(contentType).content(content).build();
+        }
+
+        private String headers() {
+            final StringBuilder sb = new StringBuilder("Content-Disposition: form-data; name=\"")
+                    .append(escape(name)).append('"');
+            if (filename != null) {
+                sb.append("; filename=\"").append(escape(filename)).append('"');
+            }
+            sb.append("\r\n");
+            if (contentType != null) {
+                sb.append("Content-Type: ").append(contentType).append("\r\n");
+            }
+            return sb.append("\r\n").toString();
+        }
+
+        private void writeContent(OutputStream output, ByteBuffer buffer) throws IOException {
+            if (content instanceof String) {
+                output.write(((String) content).getBytes(StandardCharsets.UTF_8));
+            } else if (content instanceof byte[]) {
+                output.write((byte[]) content);
+            } else if (content instanceof Path) {
+                try (FileChannel channel = FileChannel.open((Path) content, StandardOpenOption.READ)) {
+                    buffer.clear();
+                    while (channel.read(buffer) != -1) {
+                        output.write(buffer.array(), 0, buffer.position());
+                        buffer.clear();
+                    }
+                }
+            } else if (content instanceof InputStream) {
+                try (InputStream in = (InputStream) content) {
+                    final byte[] bytes = buffer.array();
+                    int n;
+                    while ((n = in.read(bytes)) != -1) {
+                        output.write(bytes, 0, n);
+                    }
+                }
+            } else if (content != null) {
+                throw new IllegalStateException("Unsupported content of the part " + name + ": " + content.getClass());
+            }
+        }
+
+        /**
+         * Quotes and line breaks are percent-encoded, as the browsers do.
+         */
+        private static String escape(String value) {
+            return value.replace("\"", "%22").replace("\r", "%0D").replace("\n", "%0A");
+        }
+    }
+
+}
@@ -0,0 +1,184 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Reads a response body as a stream, without copying it in a byte[] or a String.
+ * <p>
+ * The body is the conduit input stream, it can be read once: as an InputStream or a channel, as a sequence of
+ * pooled buffers, transferred to a file or another sink, tokenized as JSON with {@link #jsonTokens()} or read
+ * record by record with {@link #jsonArray(String)}.
+ * Memory stays bounded by the buffer size whatever the size of the body, so large exports can be processed.
+ * <pre>
+ * try (StreamingResponse response = StreamingResponse.of(client.get())) {
+ *     response.transferTo(Paths.get("export.json"));
+ * }
+ * </pre>
+ */
+public class StreamingResponse implements AutoCloseable {
+
+    public final static int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final static ByteBufferPool pool = new ByteBufferPool(DEFAULT_BUFFER_SIZE, 64);
+
+    private final Response response;
+
+    private InputStream body;
+
+    private StreamingResponse(Response response) {
+        this.response = response;
+    }
+
+    public static StreamingResponse of(Response response) {
+        return new StreamingResponse(response);
+    }
+
+    public int getStatus() {
+        return response.getStatus();
+    }
+
+    public Response getResponse() {
+        return response;
+    }
+
+    /**
+     * @return the body as sent by the conduit, not buffered; an empty stream for a response without body.
+     */
+    public InputStream getInputStream() {
+        if (body == null) {
+            body = response.hasEntity() ? response.readEntity(InputStream.class) : InputStream.nullInputStream();
+        }
+        return body;
+    }
+
+    public ReadableByteChannel getChannel() {
+        return Channels.newChannel(getInputStream());
+    }
+
+    /**
+     * Gives the body to the consumer buffer by buffer. The buffer is ready to be read and is reused once the
+     * consumer returns, so it must not be kept.
+     *
+     * @return the body size.
+     */
+    public long forEachBuffer(Consumer<ByteBuffer> consumer) throws IOException {
+        final ReadableByteChannel channel = getChannel();
+        final ByteBuffer buffer = pool.acquire();
+        long size = 0;
+        try {
+            // Full buffers, then the last one
+            while (channel.read(buffer) != -1) {
+                if (buffer.hasRemaining()) {
+                    continue;
+                }
+                buffer.flip();
+                size += buffer.remaining();
+                consumer.accept(buffer);
+                buffer.clear();
+            }
+            if (buffer.position() > 0) {
+                buffer.flip();
+                size += buffer.remaining();
+                consumer.accept(buffer);
+            }
+        } finally {
+            pool.release(buffer);
+        }
+        return size;
+    }
+
+    /**
+     * Writes the body in the file, created or truncated, with {@link FileChannel#transferFrom}.
+     *
+     * @return the body size.
+     */
+    public long transferTo(Path file) throws IOException {
+        try (FileChannel target = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ReadableByteChannel channel = getChannel();
+            long position = 0;
+            long n;
+            // Returns 0 only at the end of a blocking channel
+            while ((n = target.transferFrom(channel, position, Long.MAX_VALUE)) > 0) {
+                position += n;
+            }
+            return position;
+        }
+    }
+
+    /**
+     * @return the body size.
+     */
+    public long transferTo(WritableByteChannel target) throws IOException {
+        return forEachBuffer(buffer -> {
+            try {
+                while (buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * @return the body size.
+     */
+    public long transferTo(OutputStream target) throws IOException {
+        return getInputStream().transferTo(target);
+    }
+
+    /**
+     * @return a tokenizer reading the body with the charset of the Content-Type, UTF-8 by default.
+     */
+    public JsonTokenizer jsonTokens() {
+        return new JsonTokenizer(new InputStreamReader(getInputStream(), charset()));
+    }
+
+    /**
+     * @param pointer JSON pointer of the array, empty for a top-level array.
+     * @return a reader of the array elements, one record at a time.
+     */
+    public JsonArrayReader jsonArray(String pointer) {
+        return new JsonArrayReader(jsonTokens(), pointer);
+    }
+
+    /**
+     * Closes the body and the response, the connection is released to the pool once the body has been fully read.
+     */
+    @Override
+    public void close() {
+        try {
+            if (body != null) {
+                body.close();
+            }
+        } catch (IOException e) {
+            // The response is closed anyway
+        } finally {
+            response.close();
+        }
+    }
+
+    private Charset charset() {
+        MediaType type = response.getMediaType();
+        String charset = type == null ? null : type.getParameters().get(MediaType.CHARSET_PARAMETER);
+        return charset == null ? StandardCharsets.UTF_8 : Charset.forName(charset);
+    }
+
+}
@@ -0,0 +1,17 @@
+package org.talend.components.playground.cxf.client.builder;
+
+/**
+ * Timings recorded by {@link RequestTimings}, to export them to a metrics library.
+ * Called from the caller and I/O threads, implementations must be fast and thread safe.
+ */
+@FunctionalInterface
+public interface TimingListener {
+
+    /**
+     * @param host scheme://host:port, or the host name for {@link TimingPhase#DNS}.
+     * @param method HTTP method, null for the connection phases.
+     * @param status status of the response, 0 for the connection phases.
+     */
+    void recorded(String host, String method, int status, TimingPhase phase, long nanos);
+
+}
@@ -0,0 +1,63 @@
+package org.talend.components.playground.cxf.client.builder;
+
+/**
+ * Phases of a call measured by {@link RequestTimings}.
+ */
+public enum TimingPhase {
+
+    /**
+     * Host name resolution of a new connection, pooled connections only.
+     */
+    DNS,
+
+    /**
+     * TCP connect of a new connection, pooled connections only.
+     */
+    CONNECT,
+
+    /**
+     * TLS handshake of a new connection, pooled connections only.
+     */
+    TLS,
+
+    /**
+     * Wait for a connection of the pool, pooled connections only.
+     */
+    POOL_WAIT,
+
+    /**
+     * From the call to the conduit ready to send: out interceptors and connection setup.
+     */
+    PREPARE,
+
+    /**
+     * Request body written by the providers.
+     */
+    WRITE,
+
+    /**
+     * Round trips answered with a 401 or 407 challenge, before the one with the credentials.
+     */
+    AUTH_CHALLENGE,
+
+    /**
+     * Round trips answered with a redirection.
+     */
+    REDIRECT,
+
+    /**
+     * Time to first byte: from the last request sent to the response headers received.
+     */
+    TTFB,
+
+    /**
+     * Response body read, until its end or its close.
+     */
+    BODY,
+
+    /**
+     * The whole call, the body included.
+     */
+    TOTAL
+
+}
@@ -0,0 +1,40 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Value;
+
+/**
+ * Durations of a phase of the calls to a host with a method and a status, in ms.
+ */
+@Value
+public class TimingStats {
+
+    /**
+     * scheme://host:port, or the host name for {@link TimingPhase#DNS}.
+     */
+    String host;
+
+    /**
+     * Null for the connection phases.
+     */
+    String method;
+
+    /**
+     * 0 for the connection phases.
+     */
+    int status;
+
+    TimingPhase phase;
+
+    long count;
+
+    double mean;
+
+    double p50;
+
+    double p90;
+
+    double p99;
+
+    double max;
+
+}
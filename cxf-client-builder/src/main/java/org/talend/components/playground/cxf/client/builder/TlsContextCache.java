@@ -0,0 +1,244 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Builder;
+import org.apache.cxf.configuration.jsse.TLSClientParameters;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shares SSLContext between clients using the same trust and key material.
+ * <p>
+ * A TLSClientParameters with its own TrustManagers gets its own SSLContext, so its own TLS session cache: each new
+ * client does a full handshake. The parameters returned here are new, so they can be customized, but they share the
+ * SSLContext of their trust and key managers: new connections resume the TLS session instead of doing a full
+ * handshake.
+ * <p>
+ * With shareSocketFactory, the parameters share the SSLSocketFactory too, so HttpURLConnection also reuses the kept
+ * alive connections between clients. The async conduit doesn't support a socket factory and falls back to
+ * HttpURLConnection, so it is only for clients making synchronous calls without a {@link ConnectionPoolManager}.
+ * <p>
+ * The trust and key managers are compared by identity, so they must be kept and reused too, like {@link #ACCEPT_ALL}.
+ * Null managers are the JVM default ones. The cache is bounded, the least recently used context is dropped when it is
+ * full, so managers built for each client don't pile up.
+ */
+public class TlsContextCache {
+
+    /**
+     * Trusts all certificates. This SHOULD NOT be used in Production.
+     */
+    public final static TrustManager[] ACCEPT_ALL = {new BlindTrustManager()};
+
+    public final static String DEFAULT_PROTOCOL = "TLS";
+
+    public final static int DEFAULT_MAX_CONTEXTS = 64;
+
+    private final static TlsContextCache DEFAULT = builder().build();
+
+    private final String protocol;
+
+    private final Integer sessionCacheSize;
+
+    private final Integer sessionTimeout;
+
+    private final boolean shareSocketFactory;
+
+    private final int maxContexts;
+
+    private final Map<Key, Context> contexts = new ConcurrentHashMap<>();
+
+    /**
+     * Orders the accesses to the contexts, for the LRU eviction.
+     */
+    private final AtomicLong accesses = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param protocol SSLContext protocol, TLS by default.
+     * @param sessionCacheSize max TLS sessions kept by a context for resumption, JVM default if null.
+     * @param sessionTimeout life time in seconds of a TLS session, JVM default if null.
+     * @param shareSocketFactory set the shared SSLSocketFactory in the parameters, false by default.
+     * @param maxContexts max contexts kept, {@link #DEFAULT_MAX_CONTEXTS} by default.
+     */
+    @Builder
+    private TlsContextCache(String protocol, Integer sessionCacheSize, Integer sessionTimeout,
+                            Boolean shareSocketFactory, Integer maxContexts) {
+        this.protocol = protocol == null ? DEFAULT_PROTOCOL : protocol;
+        this.sessionCacheSize = sessionCacheSize;
+        this.sessionTimeout = sessionTimeout;
+        this.shareSocketFactory = shareSocketFactory != null && shareSocketFactory;
+        this.maxContexts = maxContexts == null ? DEFAULT_MAX_CONTEXTS : maxContexts;
+        if (this.maxContexts <= 0) {
+            throw new IllegalArgumentException("maxContexts must be greater than 0: " + this.maxContexts);
+        }
+    }
+
+    /**
+     * @return the cache shared by the WebClientFactory instances.
+     */
+    public static TlsContextCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @return new parameters with the shared SSLContext of the managers, and SSLSocketFactory if shared. The managers
+     * are set too but only describe the context, which is used first by the conduits.
+     */
+    public TLSClientParameters parameters(TrustManager[] trustManagers, KeyManager[] keyManagers, boolean disableCNCheck) {
+        Context context = context(trustManagers, keyManagers);
+        TLSClientParameters params = new TLSClientParameters();
+        params.setTrustManagers(trustManagers);
+        params.setKeyManagers(keyManagers);
+        params.setSslContext(context.sslContext);
+        if (shareSocketFactory) {
+            params.setSSLSocketFactory(context.socketFactory);
+        }
+        params.setDisableCNCheck(disableCNCheck);
+        return params;
+    }
+
+    /**
+     * @return the shared SSLContext of the managers, built on the first call.
+     */
+    public SSLContext sslContext(TrustManager[] trustManagers, KeyManager[] keyManagers) {
+        return context(trustManagers, keyManagers).sslContext;
+    }
+
+    public int size() {
+        return contexts.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Drop all contexts, the next connections will do a full handshake.
+     */
+    public void clear() {
+        contexts.clear();
+    }
+
+    private Context context(TrustManager[] trustManagers, KeyManager[] keyManagers) {
+        Key key = new Key(trustManagers, keyManagers);
+        Context context = contexts.get(key);
+        if (context != null) {
+            hits.increment();
+            context.lastAccess = accesses.incrementAndGet();
+            return context;
+        }
+        context = contexts.computeIfAbsent(key, k -> {
+            misses.increment();
+            return new Context(build(trustManagers, keyManagers));
+        });
+        context.lastAccess = accesses.incrementAndGet();
+        evict();
+        return context;
+    }
+
+    /**
+     * Remove the least recently used contexts while the cache is too big. Only called on a miss.
+     */
+    private synchronized void evict() {
+        while (contexts.size() > maxContexts) {
+            Map.Entry<Key, Context> eldest = null;
+            for (Map.Entry<Key, Context> e : contexts.entrySet()) {
+                if (eldest == null || e.getValue().lastAccess < eldest.getValue().lastAccess) {
+                    eldest = e;
+                }
+            }
+            if (eldest != null && contexts.remove(eldest.getKey(), eldest.getValue())) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private SSLContext build(TrustManager[] trustManagers, KeyManager[] keyManagers) {
+        try {
+            SSLContext sslContext = SSLContext.getInstance(protocol);
+            sslContext.init(keyManagers, trustManagers, null);
+
+            SSLSessionContext sessions = sslContext.getClientSessionContext();
+            if (sessionCacheSize != null) {
+                sessions.setSessionCacheSize(sessionCacheSize);
+            }
+            if (sessionTimeout != null) {
+                sessions.setSessionTimeout(sessionTimeout);
+            }
+            return sslContext;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Can't create the " + protocol + " context", e);
+        }
+    }
+
+    private final static class Context {
+
+        private final SSLContext sslContext;
+
+        private final SSLSocketFactory socketFactory;
+
+        private volatile long lastAccess;
+
+        private Context(SSLContext sslContext) {
+            this.sslContext = sslContext;
+            this.socketFactory = sslContext.getSocketFactory();
+        }
+    }
+
+    /**
+     * The managers, compared by identity.
+     */
+    private final static class Key {
+
+        private final List<TrustManager> trustManagers;
+
+        private final List<KeyManager> keyManagers;
+
+        private Key(TrustManager[] trustManagers, KeyManager[] keyManagers) {
+            this.trustManagers = trustManagers == null ? null : Arrays.asList(trustManagers.clone());
+            this.keyManagers = keyManagers == null ? null : Arrays.asList(keyManagers.clone());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Objects.equals(trustManagers, key.trustManagers) && Objects.equals(keyManagers, key.keyManagers);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(trustManagers, keyManagers);
+        }
+    }
+
+}
@@ -0,0 +1,348 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import lombok.Builder;
+import lombok.Singular;
+import org.apache.cxf.configuration.jsse.TLSClientParameters;
+import org.apache.cxf.configuration.security.AuthorizationPolicy;
+import org.apache.cxf.jaxrs.client.ClientConfiguration;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transport.http.auth.HttpAuthHeader;
+import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
+import org.talend.components.playground.cxf.authent.digest.AuthIntOutInterceptor;
+import org.talend.components.playground.cxf.authent.digest.CachingDigestAuthSupplier;
+import org.talend.components.playground.cxf.authent.digest.DigestCache;
+import org.talend.components.playground.cxf.authent.oauth2.BearerTokenInterceptor;
+import org.talend.components.playground.cxf.authent.oauth2.ClientCredentials;
+import org.talend.components.playground.cxf.authent.oauth2.TokenCache;
+
+import javax.net.ssl.TrustManager;
+import java.lang.ref.Cleaner;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Builds WebClient from {@link ClientSettings}.
+ * <p>
+ * The first call for some settings creates and configures a template client (conduit, authentication, TLS,
+ * timeouts, redirection). Next calls only return a copy of that template with {@link WebClient#fromClient},
+ * the copy shares the template configuration and conduit, so it is cheap and can be used from any thread.
+ * Templates are kept in a bounded pool, the least recently used one is evicted when the pool is full,
+ * and the ones not used since idleTimeout are evicted too. The conduit of an evicted template, with the async client,
+ * I/O threads and connection pool of the asynchronous transport, is closed once all its copies are garbage collected.
+ * <p>
+ * Digest authentication uses a {@link CachingDigestAuthSupplier} sharing the factory {@link DigestCache},
+ * so only the first call to a host is challenged, and an {@link AuthIntOutInterceptor} to stream auth-int bodies.
+ * NTLM authentication goes through the factory {@link NtlmAuthentication}, which keeps the authenticated connections
+ * of each credentials for their next calls.
+ * Bearer authentication gets OAuth2 client credentials tokens from the factory {@link TokenCache}, shared by the
+ * clients of the same token URL, client id and scope. A token refused with a 401 is invalidated. With the
+ * acceptAllCertificates or disableCNCheck settings, the tokens are requested by a client of the factory with the
+ * same TLS options rather than by the endpoint of the cache.
+ * TLS parameters share their SSLContext through a {@link TlsContextCache}, the default one unless set, so the
+ * TLS sessions are resumed across templates and factories.
+ */
+public class WebClientFactory {
+
+    public final static String REDIRECT_RELATIVE_URI = "http.redirect.relative.uri";
+
+    public final static String REDIRECT_SAME_HOST_ONLY = "http.redirect.same.host.only";
+
+    public final static int DEFAULT_MAX_TEMPLATES = 64;
+
+    public final static long DEFAULT_IDLE_TIMEOUT = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * Last access time is only updated when older than that, to not write a shared field on each call.
+     */
+    private final static long TOUCH_GRANULARITY = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final static AuthIntOutInterceptor AUTH_INT_INTERCEPTOR = new AuthIntOutInterceptor();
+
+    /**
+     * Counts the copies garbage collected. Not the configuration they share with their template: once the conduit has
+     * an async client, the conduit factory of the bus keeps the configuration reachable.
+     */
+    private final static Cleaner CLEANER = Cleaner.create(r -> {
+        Thread thread = new Thread(r, "web-client-factory-cleaner");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int maxTemplates;
+
+    private final long idleTimeoutNanos;
+
+    private final List<ClientCustomizer> customizers;
+
+    private final DigestCache digestCache;
+
+    private final NtlmAuthentication ntlm;
+
+    private final TokenCache tokenCache;
+
+    private final TlsContextCache tlsContextCache;
+
+    private final Map<ClientSettings, Template> templates = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    @Builder
+    private WebClientFactory(Integer maxTemplates, Long idleTimeout, @Singular List<ClientCustomizer> customizers,
+                             DigestCache digestCache, NtlmAuthentication ntlm, TokenCache tokenCache,
+                             TlsContextCache tlsContextCache) {
+        this.maxTemplates = maxTemplates == null ? DEFAULT_MAX_TEMPLATES : maxTemplates;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeout == null ? DEFAULT_IDLE_TIMEOUT : idleTimeout);
+        this.customizers = customizers == null ? Collections.emptyList() : customizers;
+        this.digestCache = digestCache == null ? new DigestCache() : digestCache;
+        this.ntlm = ntlm == null ? NtlmAuthentication.create() : ntlm;
+        this.tokenCache = tokenCache == null ? TokenCache.create() : tokenCache;
+        this.tlsContextCache = tlsContextCache == null ? TlsContextCache.getDefault() : tlsContextCache;
+
+        if (this.maxTemplates <= 0) {
+            throw new IllegalArgumentException("maxTemplates must be greater than 0: " + this.maxTemplates);
+        }
+    }
+
+    public static WebClientFactory create() {
+        return builder().build();
+    }
+
+    /**
+     * @return a new client configured from the settings, to use for one or many calls.
+     */
+    public WebClient create(ClientSettings settings) {
+        while (true) {
+            final Template template = entry(settings);
+            // Evicted and closed since it was looked up, the next lookup builds a new one
+            if (template.acquire()) {
+                final WebClient client = WebClient.fromClient(template.client);
+                CLEANER.register(client, template::release);
+                return client;
+            }
+        }
+    }
+
+    WebClient template(ClientSettings settings) {
+        return entry(settings).client;
+    }
+
+    private Template entry(ClientSettings settings) {
+        final long now = System.nanoTime();
+
+        Template template = templates.get(settings);
+        if (template != null && !template.isIdle(now, idleTimeoutNanos)) {
+            hits.increment();
+            template.touch(now);
+            return template;
+        }
+
+        if (template != null && templates.remove(settings, template)) {
+            evictions.increment();
+            template.release();
+        }
+
+        template = templates.computeIfAbsent(settings, s -> {
+            misses.increment();
+            return new Template(build(s), now);
+        });
+        evict(now);
+
+        return template;
+    }
+
+    private WebClient build(ClientSettings settings) {
+        final WebClient client = WebClient.create(settings.getBaseUrl());
+        final ClientConfiguration config = WebClient.getConfig(client);
+        final boolean ntlmAuth = NtlmAuthentication.AUTH_TYPE_NTLM.equalsIgnoreCase(settings.getAuthorizationType());
+        if (ntlmAuth) {
+            // Its own conduit, the one of the bus would send the credentials as Basic
+            ntlm.configure(config, settings);
+        }
+        final HTTPConduit conduit = config.getHttpConduit();
+
+        // Timeouts and redirection
+        final HTTPClientPolicy policy = conduit.getClient();
+        policy.setConnectionTimeout(settings.getConnectionTimeout());
+        policy.setReceiveTimeout(settings.getReceiveTimeout());
+        policy.setAutoRedirect(settings.isAutoRedirect());
+        // With NTLM the transport answers the 401s, the conduit would send the request again after the last one
+        policy.setMaxRetransmits(ntlmAuth ? 0 : settings.getMaxRetransmits());
+        config.getRequestContext().put(REDIRECT_RELATIVE_URI, settings.isRelativeRedirect());
+        config.getRequestContext().put(REDIRECT_SAME_HOST_ONLY, settings.isSameHostOnly());
+
+        // Authentication
+        if (BearerTokenInterceptor.AUTH_TYPE_BEARER.equalsIgnoreCase(settings.getAuthorizationType())) {
+            final boolean tls = settings.isAcceptAllCertificates() || settings.isDisableCNCheck();
+            final BearerTokenInterceptor bearer = new BearerTokenInterceptor(tokenCache, ClientCredentials.builder()
+                    .tokenUrl(settings.getTokenUrl())
+                    .clientId(settings.getUserName())
+                    .clientSecret(settings.getPassword())
+                    .scope(settings.getScope())
+                    // The token server trusted as the resource server
+                    .endpoint(tls ? new WebClientTokenEndpoint(this, settings) : null)
+                    .build());
+            config.getOutInterceptors().add(bearer);
+            config.getInInterceptors().add(bearer.getResponseInterceptor());
+        } else if (!ntlmAuth && settings.getAuthorizationType() != null) {
+            AuthorizationPolicy authPolicy = new AuthorizationPolicy();
+            authPolicy.setAuthorizationType(settings.getAuthorizationType());
+            authPolicy.setUserName(settings.getUserName());
+            authPolicy.setPassword(settings.getPassword());
+            conduit.setAuthorization(authPolicy);
+
+            if (HttpAuthHeader.AUTH_TYPE_DIGEST.equals(settings.getAuthorizationType())) {
+                conduit.setAuthSupplier(new CachingDigestAuthSupplier(digestCache));
+                config.getOutInterceptors().add(AUTH_INT_INTERCEPTOR);
+            }
+        }
+
+        // TLS, with the SSLContext shared by the clients trusting the same certificates
+        if (settings.isAcceptAllCertificates() || settings.isDisableCNCheck()) {
+            TrustManager[] trustManagers = settings.isAcceptAllCertificates() ? TlsContextCache.ACCEPT_ALL : null;
+            TLSClientParameters params = conduit.getTlsClientParameters();
+            if (params == null) {
+                conduit.setTlsClientParameters(tlsContextCache.parameters(trustManagers, null, settings.isDisableCNCheck()));
+            } else {
+                // Configured on the bus, kept as is
+                if (trustManagers != null) {
+                    params.setTrustManagers(trustManagers);
+                }
+                params.setDisableCNCheck(settings.isDisableCNCheck());
+            }
+        }
+
+        customizers.forEach(c -> c.customize(client, settings));
+
+        return client;
+    }
+
+    /**
+     * Remove idle templates, then the least recently used ones while the pool is too big.
+     * Only called on a miss, so not on the hot path.
+     */
+    private synchronized void evict(long now) {
+        templates.entrySet().removeIf(e -> {
+            boolean idle = e.getValue().isIdle(now, idleTimeoutNanos);
+            if (idle) {
+                evictions.increment();
+                e.getValue().release();
+            }
+            return idle;
+        });
+
+        while (templates.size() > maxTemplates) {
+            Map.Entry<ClientSettings, Template> eldest = null;
+            for (Map.Entry<ClientSettings, Template> e : templates.entrySet()) {
+                if (eldest == null || e.getValue().lastAccess < eldest.getValue().lastAccess) {
+                    eldest = e;
+                }
+            }
+            if (eldest != null && templates.remove(eldest.getKey(), eldest.getValue())) {
+                evictions.increment();
+                eldest.getValue().release();
+            }
+        }
+    }
+
+    public int size() {
+        return templates.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public DigestCache getDigestCache() {
+        return digestCache;
+    }
+
+    public NtlmAuthentication getNtlm() {
+        return ntlm;
+    }
+
+    public TokenCache getTokenCache() {
+        return tokenCache;
+    }
+
+    public TlsContextCache getTlsContextCache() {
+        return tlsContextCache;
+    }
+
+    /**
+     * Drop all templates. Clients already returned keep working since they hold their own reference, the conduits are
+     * closed once they are garbage collected.
+     */
+    public void clear() {
+        templates.forEach((settings, template) -> {
+            if (templates.remove(settings, template)) {
+                template.release();
+            }
+        });
+    }
+
+    private final static class Template {
+
+        private final WebClient client;
+
+        private volatile long lastAccess;
+
+        /**
+         * Copies not garbage collected, plus one while in the pool. The conduit is closed when it drops to 0.
+         */
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        private Template(WebClient client, long now) {
+            this.client = client;
+            this.lastAccess = now;
+        }
+
+        /**
+         * @return false when already closed.
+         */
+        private boolean acquire() {
+            int count;
+            do {
+                count = references.get();
+                if (count == 0) {
+                    return false;
+                }
+            } while (!references.compareAndSet(count, count + 1));
+            return true;
+        }
+
+        private void release() {
+            if (references.decrementAndGet() == 0) {
+                WebClient.getConfig(client).getHttpConduit().close();
+            }
+        }
+
+        private void touch(long now) {
+            if (now - lastAccess > TOUCH_GRANULARITY) {
+                lastAccess = now;
+            }
+        }
+
+        private boolean isIdle(long now, long idleTimeoutNanos) {
+            return now - lastAccess > idleTimeoutNanos;
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import org.talend.components.playground.cxf.authent.oauth2.AccessToken;
+import org.talend.components.playground.cxf.authent.oauth2.ClientCredentials;
+import org.talend.components.playground.cxf.authent.oauth2.HttpTokenEndpoint;
+import org.talend.components.playground.cxf.authent.oauth2.TokenEndpoint;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * The client credentials grant of {@link HttpTokenEndpoint}, sent by a client of the factory with the timeouts and
+ * TLS options of the settings of the protected resource: its certificates are trusted the same way.
+ */
+final class WebClientTokenEndpoint implements TokenEndpoint {
+
+    private final WebClientFactory factory;
+
+    private final ClientSettings settings;
+
+    WebClientTokenEndpoint(WebClientFactory factory, ClientSettings settings) {
+        this.factory = factory;
+        this.settings = ClientSettings.builder()
+                .connectionTimeout(settings.getConnectionTimeout())
+                .receiveTimeout(settings.getReceiveTimeout())
+                .acceptAllCertificates(settings.isAcceptAllCertificates())
+                .disableCNCheck(settings.isDisableCNCheck())
+                .build();
+    }
+
+    @Override
+    public AccessToken fetch(ClientCredentials credentials) throws IOException {
+        final Instant issuedAt = Instant.now();
+        final Response response;
+        try {
+            response = factory.create(settings.toBuilder().baseUrl(credentials.getTokenUrl()).build())
+                    .type(MediaType.APPLICATION_FORM_URLENCODED)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .header("Authorization", HttpTokenEndpoint.authorization(credentials))
+                    .post(HttpTokenEndpoint.form(credentials));
+        } catch (ProcessingException e) {
+            throw new IOException("Can't get a token from " + credentials.getTokenUrl() + ": " + e.getMessage(), e);
+        }
+        try {
+            return HttpTokenEndpoint.parse(credentials, response.getStatus(), response.readEntity(String.class),
+                    issuedAt, HttpTokenEndpoint.DEFAULT_LIFETIME);
+        } catch (ProcessingException e) {
+            throw new IOException("Can't read the token of " + credentials.getTokenUrl() + ": " + e.getMessage(), e);
+        } finally {
+            response.close();
+        }
+    }
+
+}
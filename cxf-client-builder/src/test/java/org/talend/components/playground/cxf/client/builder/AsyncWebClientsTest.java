@@ -0,0 +1,43 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transport.http.asyncclient.hc5.AsyncHTTPConduit;
+import org.apache.cxf.transport.http.auth.HttpAuthHeader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class AsyncWebClientsTest {
+
+    private final static ClientSettings SETTINGS = ClientSettings.builder()
+            .baseUrl("http://localhost:8080/api")
+            .build();
+
+    private final WebClientFactory factory = WebClientFactory.create();
+
+    @Test
+    public void asyncConduit() {
+        HTTPConduit conduit = WebClient.getConfig(factory.create(SETTINGS)).getHttpConduit();
+        Assertions.assertTrue(conduit instanceof AsyncHTTPConduit);
+        Assertions.assertFalse(AsyncWebClients.needsRetransmission(factory.create(SETTINGS)));
+    }
+
+    @Test
+    public void retransmissionsAreBlocking() {
+        Assertions.assertTrue(AsyncWebClients.needsRetransmission(factory.create(SETTINGS.toBuilder()
+                .autoRedirect(true)
+                .build())));
+        Assertions.assertTrue(AsyncWebClients.needsRetransmission(factory.create(SETTINGS.toBuilder()
+                .authorizationType(HttpAuthHeader.AUTH_TYPE_DIGEST)
+                .userName("peter")
+                .password("aze123#")
+                .build())));
+        // Basic is sent preemptively
+        Assertions.assertFalse(AsyncWebClients.needsRetransmission(factory.create(SETTINGS.toBuilder()
+                .authorizationType(HttpAuthHeader.AUTH_TYPE_BASIC)
+                .userName("peter")
+                .password("aze123#")
+                .build())));
+    }
+
+}
@@ -0,0 +1,121 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+class BulkRunnerTest {
+
+    private final static ClientSettings SETTINGS = ClientSettings.builder()
+            .baseUrl("http://localhost:8080/api")
+            .build();
+
+    @Test
+    public void defaultMode() {
+        try (BulkRunner runner = BulkRunner.create()) {
+            Assertions.assertEquals(BulkRunner.isVirtualThreadsSupported() ? BulkRunner.Mode.VIRTUAL : BulkRunner.Mode.PLATFORM,
+                    runner.getMode());
+        }
+        if (!BulkRunner.isVirtualThreadsSupported()) {
+            Assertions.assertThrows(IllegalStateException.class, () -> BulkRunner.builder().mode(BulkRunner.Mode.VIRTUAL).build());
+        }
+    }
+
+    @Test
+    public void concurrencyIsLimitedPerHost() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger max = new AtomicInteger();
+
+        try (BulkRunner runner = BulkRunner.builder().maxPerHost(3).platformThreads(20).build()) {
+            List<Integer> results = runner.invokeAll(SETTINGS, calls(50, i -> {
+                max.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                sleep(5);
+                inFlight.decrementAndGet();
+                return i;
+            }));
+
+            Assertions.assertEquals(50, results.size());
+            Assertions.assertEquals(49, results.get(49));
+            Assertions.assertEquals(3, max.get());
+        }
+    }
+
+    @Test
+    public void slowHostDoesNotHoldTheThreads() throws Exception {
+        ClientSettings other = ClientSettings.builder().baseUrl("http://localhost:8081/api").build();
+        CountDownLatch slow = new CountDownLatch(1);
+        AtomicInteger run = new AtomicInteger();
+
+        try (BulkRunner runner = BulkRunner.builder().mode(BulkRunner.Mode.PLATFORM).maxPerHost(1).platformThreads(2).build()) {
+            List<CompletableFuture<Integer>> blocked = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                blocked.add(runner.submit(SETTINGS, client -> {
+                    run.incrementAndGet();
+                    await(slow);
+                    return 0;
+                }));
+            }
+            CompletableFuture<Integer> cancelled = runner.submit(SETTINGS, client -> run.incrementAndGet());
+            cancelled.cancel(false);
+
+            try {
+                // The calls queued for the slow host don't take the second thread
+                Assertions.assertEquals(1, runner.submit(other, client -> 1).get(5, TimeUnit.SECONDS));
+            } finally {
+                slow.countDown();
+            }
+            for (CompletableFuture<Integer> call : blocked) {
+                Assertions.assertEquals(0, call.get(5, TimeUnit.SECONDS));
+            }
+        }
+        Assertions.assertEquals(3, run.get());
+    }
+
+    @Test
+    public void failureIsReported() {
+        try (BulkRunner runner = BulkRunner.create()) {
+            CompletionException e = Assertions.assertThrows(CompletionException.class, () -> runner.invokeAll(SETTINGS, calls(5, i -> {
+                if (i == 3) {
+                    throw new IllegalArgumentException("call " + i);
+                }
+                return i;
+            })));
+            Assertions.assertEquals("call 3", e.getCause().getMessage());
+        }
+    }
+
+    private static List<Function<WebClient, Integer>> calls(int n, Function<Integer, Integer> call) {
+        List<Function<WebClient, Integer>> calls = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            final int index = i;
+            calls.add(client -> call.apply(index));
+        }
+        return calls;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
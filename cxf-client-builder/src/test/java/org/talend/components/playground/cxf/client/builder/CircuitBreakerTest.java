@@ -0,0 +1,78 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+    private final static String HOST = "http://localhost:80";
+
+    @Test
+    public void opensOnFailureRate() {
+        CircuitBreaker breaker = CircuitBreaker.builder().slidingWindow(10).minimumCalls(4)
+                .failureRateThreshold(0.5).build();
+
+        // Not enough calls yet
+        breaker.onFailure(HOST);
+        breaker.onFailure(HOST);
+        breaker.onFailure(HOST);
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(HOST));
+        Assertions.assertTrue(breaker.tryAcquire(HOST));
+
+        breaker.onSuccess(HOST);
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.getState(HOST));
+        Assertions.assertFalse(breaker.tryAcquire(HOST));
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState("http://other:80"));
+    }
+
+    @Test
+    public void oldOutcomesLeaveTheWindow() {
+        CircuitBreaker breaker = CircuitBreaker.builder().slidingWindow(4).minimumCalls(4).build();
+        breaker.onFailure(HOST);
+        breaker.onSuccess(HOST);
+        breaker.onSuccess(HOST);
+        breaker.onSuccess(HOST);
+        // The first failure is replaced by this one: 1 / 4
+        breaker.onFailure(HOST);
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(HOST));
+        breaker.onFailure(HOST);
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.getState(HOST));
+    }
+
+    @Test
+    public void halfOpenLetsOneTrialThrough() throws Exception {
+        CircuitBreaker breaker = CircuitBreaker.builder().slidingWindow(2).minimumCalls(2).openDuration(100L).build();
+        breaker.onFailure(HOST);
+        breaker.onFailure(HOST);
+        Assertions.assertFalse(breaker.tryAcquire(HOST));
+
+        Thread.sleep(150);
+        Assertions.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState(HOST));
+        Assertions.assertTrue(breaker.tryAcquire(HOST));
+        Assertions.assertFalse(breaker.tryAcquire(HOST));
+        breaker.onFailure(HOST);
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.getState(HOST));
+
+        Thread.sleep(150);
+        Assertions.assertTrue(breaker.tryAcquire(HOST));
+        breaker.onSuccess(HOST);
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(HOST));
+        Assertions.assertTrue(breaker.tryAcquire(HOST));
+    }
+
+    @Test
+    public void backoffIsJitteredAndBounded() {
+        RetryPolicy retry = RetryPolicy.builder().initialBackoff(100L).maxBackoff(1_000L).build();
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertTrue(retry.delay(1, null) < 100);
+            Assertions.assertTrue(retry.delay(3, null) < 400);
+            Assertions.assertTrue(retry.delay(20, null) < 1_000);
+        }
+        Assertions.assertEquals(1_000, retry.delay(1, "3600"));
+        Assertions.assertEquals(0, retry.delay(5, "0"));
+        Assertions.assertTrue(retry.isRetryable("PUT"));
+        Assertions.assertFalse(retry.isRetryable("POST"));
+        Assertions.assertTrue(RetryPolicy.builder().retryNonIdempotent(true).build().isRetryable("POST"));
+    }
+
+}
@@ -0,0 +1,102 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class DnsCacheTest {
+
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    private InetAddress[] resolve(String host) throws UnknownHostException {
+        lookups.incrementAndGet();
+        if (host.endsWith(".invalid")) {
+            throw new UnknownHostException(host);
+        }
+        return new InetAddress[]{InetAddress.getByAddress(host, new byte[]{127, 0, 0, 1})};
+    }
+
+    @Test
+    public void addressesAreCachedForTtl() throws Exception {
+        DnsCache cache = DnsCache.builder().ttl(200L).resolver(this::resolve).build();
+
+        Assertions.assertEquals("127.0.0.1", cache.resolve("a.test")[0].getHostAddress());
+        cache.resolve("a.test");
+        cache.resolve("b.test");
+        Assertions.assertEquals(2, lookups.get());
+        Assertions.assertEquals(1, cache.getHits());
+        Assertions.assertEquals(2, cache.getMisses());
+
+        Thread.sleep(300);
+        cache.resolve("a.test");
+        Assertions.assertEquals(3, lookups.get());
+        // b.test expired, purged by the lookup
+        Assertions.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void errorsAreNotCached() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        DnsCache cache = DnsCache.builder().resolver(host -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new AssertionError("resolver failure");
+            }
+            return resolve(host);
+        }).build();
+
+        Assertions.assertThrows(AssertionError.class, () -> cache.resolve("a.test"));
+        Assertions.assertEquals("127.0.0.1", cache.resolve("a.test")[0].getHostAddress());
+        Assertions.assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void unknownHostsAreCachedForNegativeTtl() throws Exception {
+        DnsCache cache = DnsCache.builder().negativeTtl(200L).resolver(this::resolve).build();
+
+        Assertions.assertThrows(UnknownHostException.class, () -> cache.resolve("unknown.invalid"));
+        Assertions.assertThrows(UnknownHostException.class, () -> cache.resolve("unknown.invalid"));
+        Assertions.assertEquals(1, lookups.get());
+
+        Thread.sleep(300);
+        Assertions.assertThrows(UnknownHostException.class, () -> cache.resolve("unknown.invalid"));
+        Assertions.assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void concurrentLookupsResolveOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        DnsCache cache = DnsCache.builder().resolver(host -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return resolve(host);
+        }).build();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<?>[] futures = new Future[8];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executor.submit(() -> cache.resolve("a.test"));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assertions.assertEquals(1, lookups.get());
+    }
+
+}
@@ -0,0 +1,63 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+class JsonArrayReaderTest {
+
+    private final static String JSON = "{\"count\": 3, \"meta\": {\"data\": \"not this one\"}, "
+            + "\"data\": [{\"id\": 1}, {\"id\": 2}, {\"id\": 3}], "
+            + "\"pages\": [{\"items\": [\"a\"]}, {\"items\": [\"b\", \"c\"]}], \"a/b\": [true]}";
+
+    @Test
+    public void topLevel() {
+        Assertions.assertEquals(Arrays.asList(1L, "two", null, Collections.singletonList(4L)),
+                read("[1, \"two\", null, [4]]", ""));
+        Assertions.assertEquals(Collections.emptyList(), read("[]", ""));
+    }
+
+    @Test
+    public void pointer() {
+        List<Object> records = read(JSON, "/data");
+        Assertions.assertEquals(3, records.size());
+        Assertions.assertEquals(2L, ((Map<?, ?>) records.get(1)).get("id"));
+
+        Assertions.assertEquals(Arrays.asList("b", "c"), read(JSON, "/pages/1/items"));
+        Assertions.assertEquals(Collections.singletonList(true), read(JSON, "/a~1b"));
+    }
+
+    @Test
+    public void stream() {
+        try (JsonArrayReader reader = reader(JSON, "/data")) {
+            Assertions.assertEquals(6L, reader.stream().mapToLong(r -> (Long) ((Map<?, ?>) r).get("id")).sum());
+        }
+    }
+
+    @Test
+    public void notAnArray() {
+        Assertions.assertThrows(UncheckedIOException.class, () -> read(JSON, "/count"));
+        Assertions.assertThrows(UncheckedIOException.class, () -> read(JSON, "/missing"));
+        Assertions.assertThrows(UncheckedIOException.class, () -> read(JSON, "/pages/2/items"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> reader(JSON, "data"));
+    }
+
+    private static List<Object> read(String json, String pointer) {
+        try (JsonArrayReader reader = reader(json, pointer)) {
+            return reader.stream().collect(Collectors.toList());
+        }
+    }
+
+    private static JsonArrayReader reader(String json, String pointer) {
+        return JsonArrayReader.of(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), pointer);
+    }
+
+}
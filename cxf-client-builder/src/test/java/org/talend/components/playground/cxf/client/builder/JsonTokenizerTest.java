@@ -0,0 +1,109 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.talend.components.playground.cxf.client.builder.JsonTokenizer.Token;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+class JsonTokenizerTest {
+
+    @Test
+    public void tokens() throws IOException {
+        JsonTokenizer tokens = new JsonTokenizer(new StringReader(
+                "{\"name\": \"Peter\", \"age\": 42, \"tags\": [true, false, null], \"empty\": {}}"));
+        List<Token> expected = Arrays.asList(Token.START_OBJECT,
+                Token.FIELD_NAME, Token.STRING,
+                Token.FIELD_NAME, Token.NUMBER,
+                Token.FIELD_NAME, Token.START_ARRAY, Token.TRUE, Token.FALSE, Token.NULL, Token.END_ARRAY,
+                Token.FIELD_NAME, Token.START_OBJECT, Token.END_OBJECT,
+                Token.END_OBJECT);
+        List<Token> actual = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        Token token;
+        while ((token = tokens.next()) != null) {
+            actual.add(token);
+            if (token == Token.FIELD_NAME || token == Token.STRING || token == Token.NUMBER) {
+                texts.add(tokens.getText());
+            }
+        }
+        Assertions.assertEquals(expected, actual);
+        Assertions.assertEquals(Arrays.asList("name", "Peter", "age", "42", "tags", "empty"), texts);
+    }
+
+    @Test
+    public void stringsAndNumbers() throws IOException {
+        JsonTokenizer tokens = new JsonTokenizer(new StringReader(
+                "[\"a\\\"b\\\\c\\/\\n\\u00e9\", -12, 3.5e2, 12345678901234567890]"));
+        tokens.next();
+        Assertions.assertEquals(Arrays.asList("a\"b\\c/\n\u00e9", -12L, new BigDecimal("3.5e2"),
+                new BigDecimal("12345678901234567890")), tokens.readValue());
+    }
+
+    @Test
+    public void recordAtATime() throws IOException {
+        StringBuilder json = new StringBuilder("{\"count\": 1000, \"data\": [");
+        for (int i = 0; i < 1000; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"id\": ").append(i)
+                    .append(", \"name\": \"record ").append(i).append("\", \"nested\": {\"list\": [1, 2]}}");
+        }
+        json.append("], \"next\": null}");
+
+        // Strings crossing the buffer boundaries
+        JsonTokenizer tokens = new JsonTokenizer(new StringReader(json.toString()));
+        long ids = 0;
+        int records = 0;
+        while (tokens.next() != null) {
+            if (tokens.current() == Token.FIELD_NAME && "data".equals(tokens.getText())) {
+                tokens.next();
+                while (tokens.next() == Token.START_OBJECT) {
+                    Map<?, ?> record = (Map<?, ?>) tokens.readValue();
+                    ids += (Long) record.get("id");
+                    Assertions.assertEquals("record " + records, record.get("name"));
+                    records++;
+                }
+                Assertions.assertEquals(Token.END_ARRAY, tokens.current());
+                Assertions.assertEquals(1, tokens.getDepth());
+            } else if (tokens.current() == Token.FIELD_NAME) {
+                tokens.skipValue();
+            }
+        }
+        Assertions.assertEquals(1000, records);
+        Assertions.assertEquals(999 * 1000 / 2, ids);
+    }
+
+    @Test
+    public void skipValue() throws IOException {
+        JsonTokenizer tokens = new JsonTokenizer(new StringReader("{\"skipped\": {\"a\": [1, {\"b\": 2}]}, \"kept\": \"yes\"}"));
+        tokens.next();
+        tokens.next();
+        tokens.skipValue();
+        Assertions.assertEquals(Token.END_OBJECT, tokens.current());
+        Assertions.assertEquals(Token.FIELD_NAME, tokens.next());
+        Assertions.assertEquals(Collections.singletonList("yes"), Collections.singletonList(tokens.readValue()));
+    }
+
+    @Test
+    public void malformed() {
+        Assertions.assertThrows(IOException.class, () -> new JsonTokenizer(new StringReader("[1, 2}")).readValue());
+        Assertions.assertThrows(IOException.class, () -> {
+            JsonTokenizer tokens = new JsonTokenizer(new StringReader("[\"unterminated"));
+            tokens.next();
+            tokens.next();
+        });
+        Assertions.assertThrows(IOException.class, () -> {
+            JsonTokenizer tokens = new JsonTokenizer(new StringReader("{\"a\": tru}"));
+            tokens.next();
+            tokens.next();
+            tokens.next();
+        });
+    }
+
+}
@@ -0,0 +1,72 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+class LatencyHistogramTest {
+
+    @Test
+    public void bucketsCoverTheValues() {
+        int previous = -1;
+        for (long value = 0; value < 1_000_000; value += 1 + value / 100) {
+            int index = LatencyHistogram.index(value);
+            Assertions.assertTrue(index >= previous, "Index of " + value);
+            Assertions.assertTrue(LatencyHistogram.lowest(index) <= value, "Lowest of " + value);
+            Assertions.assertTrue(LatencyHistogram.index(LatencyHistogram.lowest(index)) == index, "Bucket of " + value);
+            previous = index;
+        }
+        // Exact under 16, then 16 buckets per power of two
+        Assertions.assertEquals(15, LatencyHistogram.index(15));
+        Assertions.assertEquals(16, LatencyHistogram.index(16));
+        Assertions.assertEquals(LatencyHistogram.index(32), LatencyHistogram.index(33));
+        Assertions.assertEquals(LatencyHistogram.index(Long.MAX_VALUE), LatencyHistogram.index(1L << 42));
+    }
+
+    @Test
+    public void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assertions.assertEquals(0, histogram.getPercentile(99));
+        for (int ms = 1; ms <= 100; ms++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(ms));
+        }
+        Assertions.assertEquals(100, histogram.getCount());
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(100), histogram.getMax());
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(5050), histogram.getSum());
+        Assertions.assertEquals(50, histogram.getPercentileMillis(50), 50 * 0.0625);
+        Assertions.assertEquals(90, histogram.getPercentileMillis(90), 90 * 0.0625);
+        Assertions.assertEquals(99, histogram.getPercentileMillis(99), 99 * 0.0625);
+        Assertions.assertEquals(100, histogram.getPercentileMillis(100));
+
+        histogram.reset();
+        Assertions.assertEquals(0, histogram.getCount());
+        Assertions.assertEquals(0, histogram.getMax());
+        Assertions.assertEquals(0, histogram.getMean());
+    }
+
+    @Test
+    public void concurrentRecording() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Random random = new Random(t);
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(random.nextInt(1_000_000));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertEquals(400_000, histogram.getCount());
+        Assertions.assertEquals(500_000, histogram.getPercentile(50), 500_000 * 0.07);
+        Assertions.assertTrue(histogram.getMax() < 1_000_000);
+    }
+
+}
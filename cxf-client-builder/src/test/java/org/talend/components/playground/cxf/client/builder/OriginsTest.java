@@ -0,0 +1,18 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+
+class OriginsTest {
+
+    @Test
+    public void defaultPorts() {
+        Assertions.assertEquals("http://localhost:80", Origins.of("http://localhost/api"));
+        Assertions.assertEquals("https://localhost:443", Origins.of("https://localhost/api?q=1"));
+        Assertions.assertEquals("http://localhost:8080", Origins.of("http://localhost:8080"));
+        Assertions.assertEquals(443, Origins.port(URI.create("HTTPS://localhost")));
+    }
+
+}
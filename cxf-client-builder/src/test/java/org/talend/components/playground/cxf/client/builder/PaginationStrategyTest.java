@@ -0,0 +1,81 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.ws.rs.core.Link;
+import javax.ws.rs.core.MultivaluedHashMap;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class PaginationStrategyTest {
+
+    private final static URI PAGE_URI = URI.create("http://localhost:8080/api/items?page=1");
+
+    @Test
+    public void offset() {
+        PaginationStrategy strategy = PaginationStrategy.offset("offset", "limit", 2);
+        PageRequest first = strategy.first();
+        Assertions.assertEquals(0, first.getQueryParams().get("offset"));
+        Assertions.assertEquals(2, first.getQueryParams().get("limit"));
+
+        PageRequest second = strategy.predict(first);
+        Assertions.assertEquals(2L, second.getQueryParams().get("offset"));
+        Assertions.assertEquals(2, second.getQueryParams().get("limit"));
+
+        Assertions.assertEquals(second, strategy.next(page(first, Arrays.asList(1, 2), null, Collections.emptySet())));
+        // Short page
+        Assertions.assertNull(strategy.next(page(second, Collections.singletonList(3), null, Collections.emptySet())));
+    }
+
+    @Test
+    public void cursor() {
+        PaginationStrategy strategy = PaginationStrategy.cursor("cursor", "/meta/next");
+        PageRequest first = strategy.first();
+        Assertions.assertNull(strategy.predict(first));
+
+        Map<String, Object> meta = new HashMap<>();
+        meta.put("next", "abc");
+        PageRequest next = strategy.next(page(first, Collections.emptyList(), Collections.singletonMap("meta", meta), Collections.emptySet()));
+        Assertions.assertEquals("abc", next.getQueryParams().get("cursor"));
+
+        meta.put("next", null);
+        Assertions.assertNull(strategy.next(page(next, Collections.emptyList(), Collections.singletonMap("meta", meta), Collections.emptySet())));
+    }
+
+    @Test
+    public void linkHeader() {
+        PaginationStrategy strategy = PaginationStrategy.linkHeader();
+        Set<Link> links = new HashSet<>(Arrays.asList(
+                Link.fromUri("items?page=2").rel("next").build(),
+                Link.fromUri("items?page=9").rel("last").build()));
+        Assertions.assertEquals("http://localhost:8080/api/items?page=2",
+                strategy.next(page(strategy.first(), Collections.emptyList(), null, links)).getUrl());
+
+        Assertions.assertNull(strategy.next(page(strategy.first(), Collections.emptyList(), null,
+                Collections.singleton(Link.fromUri("items?page=1").rel("first").build()))));
+    }
+
+    @Test
+    public void nextUrl() {
+        PaginationStrategy strategy = PaginationStrategy.nextUrl("/next");
+        Assertions.assertEquals("http://localhost:8080/api/items?page=2",
+                strategy.next(page(strategy.first(), Collections.emptyList(), Collections.singletonMap("next", "items?page=2"),
+                        Collections.emptySet())).getUrl());
+        Assertions.assertEquals("http://other:8080/items?page=2",
+                strategy.next(page(strategy.first(), Collections.emptyList(), Collections.singletonMap("next", "http://other:8080/items?page=2"),
+                        Collections.emptySet())).getUrl());
+        Assertions.assertNull(strategy.next(page(strategy.first(), Collections.emptyList(), Collections.emptyMap(), Collections.emptySet())));
+    }
+
+    private static Page page(PageRequest request, List<Object> records, Object body, Set<Link> links) {
+        return new Page(0, request, PAGE_URI, new MultivaluedHashMap<>(), links, body, records);
+    }
+
+}
@@ -0,0 +1,118 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+class RequestTemplateTest {
+
+    private final static String BASE = "http://localhost:8080/base";
+
+    @Test
+    public void sameUriAsWebClientPath() {
+        RequestTemplate template = RequestTemplate.of("{qop}/{user}/{passwd}/{algorithm}");
+        Assertions.assertEquals(Arrays.asList("qop", "user", "passwd", "algorithm"), template.getVariables());
+
+        WebClient expected = WebClient.create(BASE).path("{qop}/{user}/{passwd}/{algorithm}", "auth", "john",
+                "abcde", "MD5");
+        WebClient actual = template.apply(WebClient.create(BASE), "auth", "john", "abcde", "MD5");
+
+        Assertions.assertEquals(expected.getCurrentURI(), actual.getCurrentURI());
+        Assertions.assertEquals(BASE + "/redirect/5",
+                RequestTemplate.of("/{action}/{n}").apply(WebClient.create(BASE + "/"), "redirect", 5)
+                        .getCurrentURI().toString());
+    }
+
+    @Test
+    public void queryAndHeaders() {
+        RequestTemplate template = RequestTemplate.builder()
+                .path("echo")
+                .query("qa", Arrays.asList("qa1", "{qa}"))
+                .query("qb", "{qb}")
+                .header("header1", Arrays.asList("val1", "val2"))
+                .header("Accept", "application/json")
+                .build();
+
+        WebClient client = template.apply(WebClient.create(BASE), "qa2", "qb1");
+
+        Assertions.assertEquals(BASE + "/echo?qa=qa1&qa=qa2&qb=qb1", client.getCurrentURI().toString());
+        Assertions.assertEquals(Arrays.asList("val1", "val2"), client.getHeaders().get("header1"));
+        Assertions.assertEquals(Collections.singletonList("application/json"), client.getHeaders().get("Accept"));
+        Assertions.assertEquals(BASE + "/?q=x", RequestTemplate.builder().query("q", "{q}").build()
+                .apply(WebClient.create(BASE + "/"), "x").getCurrentURI().toString());
+    }
+
+    @Test
+    public void appliedAgain() {
+        RequestTemplate template = RequestTemplate.builder()
+                .path("items/{id}")
+                .header("header1", Arrays.asList("val1", "val2"))
+                .header("Accept", "application/json")
+                .build();
+
+        WebClient client = template.apply(WebClient.create(BASE).header("Accept", "text/plain"), 1);
+        template.apply(client, 2);
+
+        Assertions.assertEquals(BASE + "/items/2", client.getCurrentURI().toString());
+        Assertions.assertEquals(Arrays.asList("val1", "val2"), client.getHeaders().get("header1"));
+        Assertions.assertEquals(Collections.singletonList("application/json"), client.getHeaders().get("Accept"));
+    }
+
+    @Test
+    public void encoding() {
+        RequestTemplate template = RequestTemplate.builder()
+                .path("files/{name}/a b%20c")
+                .query("q", "{q}")
+                .query("city", "Besan\u00e7on")
+                .build();
+
+        Assertions.assertEquals("files/a%2Fb%3Fc%20d/a%20b%20c?q=x%26y%3Dz%2B1&city=Besan%C3%A7on",
+                template.expand("a/b?c d", "x&y=z+1"));
+        Assertions.assertEquals("files/%F0%9F%98%80:@!/a%20b%20c?q=%E2%82%AC&city=Besan%C3%A7on",
+                template.expand("\ud83d\ude00:@!", "\u20ac"));
+    }
+
+    @Test
+    public void percentEncodedLiterals() {
+        RequestTemplate template = RequestTemplate.builder()
+                .path("files/a%20b/{name}")
+                .query("q", "a%20b")
+                .query("r", Arrays.asList("100%", "%2"))
+                .query("s%5B%5D", "{s}")
+                .build();
+
+        WebClient expected = WebClient.create(BASE).path("files/a%20b/c").query("q", "a%20b")
+                .query("r", "100%", "%2").query("s%5B%5D", "d");
+        Assertions.assertEquals(expected.getCurrentURI(), template.apply(WebClient.create(BASE), "c", "d")
+                .getCurrentURI());
+        Assertions.assertEquals("files/a%20b/c?q=a%20b&r=100%25&r=%252&s%5B%5D=d", template.expand("c", "d"));
+    }
+
+    @Test
+    public void boundByName() {
+        RequestTemplate template = RequestTemplate.builder().path("{a}/{b}/{a}").query("c", "{c}").build();
+        Map<String, Object> values = new HashMap<>();
+        values.put("a", "x");
+        values.put("b", "y");
+        values.put("c", 1);
+
+        Assertions.assertEquals(Arrays.asList("a", "b", "c"), template.getVariables());
+        Assertions.assertEquals("x/y/x?c=1", template.expand(values));
+        Assertions.assertEquals("x/y/x?c=1", template.expand("x", "y", 1));
+    }
+
+    @Test
+    public void invalid() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> RequestTemplate.of("{unclosed"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> RequestTemplate.of("{}"));
+        RequestTemplate template = RequestTemplate.of("{a}/{b}");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> template.expand("x"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> template.expand("x", null));
+    }
+
+}
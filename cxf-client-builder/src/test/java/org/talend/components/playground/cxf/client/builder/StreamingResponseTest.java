@@ -0,0 +1,85 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.ws.rs.core.Response;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class StreamingResponseTest {
+
+    private final static byte[] BODY = new byte[3 * StreamingResponse.DEFAULT_BUFFER_SIZE + 100];
+
+    static {
+        for (int i = 0; i < BODY.length; i++) {
+            BODY[i] = (byte) (i % 251);
+        }
+    }
+
+    @Test
+    public void buffers() throws IOException {
+        AtomicInteger buffers = new AtomicInteger();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (StreamingResponse response = StreamingResponse.of(response(BODY))) {
+            long size = response.forEachBuffer(buffer -> {
+                buffers.incrementAndGet();
+                out.write(buffer.array(), buffer.position(), buffer.remaining());
+            });
+            Assertions.assertEquals(BODY.length, size);
+        }
+        Assertions.assertEquals(4, buffers.get());
+        Assertions.assertArrayEquals(BODY, out.toByteArray());
+    }
+
+    @Test
+    public void transferToFile(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("body.bin");
+        try (StreamingResponse response = StreamingResponse.of(response(BODY))) {
+            Assertions.assertEquals(BODY.length, response.transferTo(file));
+        }
+        Assertions.assertArrayEquals(BODY, Files.readAllBytes(file));
+    }
+
+    @Test
+    public void transferToChannel() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (StreamingResponse response = StreamingResponse.of(response(BODY))) {
+            Assertions.assertEquals(BODY.length, response.transferTo(Channels.newChannel(out)));
+        }
+        Assertions.assertArrayEquals(BODY, out.toByteArray());
+    }
+
+    @Test
+    public void noContent() throws IOException {
+        try (StreamingResponse response = StreamingResponse.of(Response.noContent().build())) {
+            Assertions.assertEquals(0, response.transferTo(new ByteArrayOutputStream()));
+        }
+    }
+
+    @Test
+    public void jsonTokens() throws IOException {
+        byte[] json = "{\"name\": \"Ren\u00e9\", \"values\": [1, 2]}".getBytes(StandardCharsets.UTF_8);
+        try (StreamingResponse response = StreamingResponse.of(response(json))) {
+            JsonTokenizer tokens = response.jsonTokens();
+            tokens.next();
+            Map<?, ?> value = (Map<?, ?>) tokens.readValue();
+            Assertions.assertEquals("Ren\u00e9", value.get("name"));
+            Assertions.assertEquals(Arrays.asList(1L, 2L), value.get("values"));
+        }
+    }
+
+    private static Response response(byte[] body) {
+        return Response.ok(new ByteArrayInputStream(body), "application/json").build();
+    }
+
+}
@@ -0,0 +1,96 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import org.apache.cxf.configuration.jsse.TLSClientParameters;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+
+class TlsContextCacheTest {
+
+    @Test
+    public void contextIsSharedBySameManagers() {
+        TlsContextCache cache = TlsContextCache.builder().sessionCacheSize(100).build();
+
+        TLSClientParameters first = cache.parameters(TlsContextCache.ACCEPT_ALL, null, true);
+        TLSClientParameters second = cache.parameters(TlsContextCache.ACCEPT_ALL.clone(), null, false);
+
+        Assertions.assertNotSame(first, second);
+        Assertions.assertSame(first.getSslContext(), second.getSslContext());
+        Assertions.assertTrue(first.isDisableCNCheck());
+        Assertions.assertFalse(second.isDisableCNCheck());
+        Assertions.assertEquals(100, first.getSslContext().getClientSessionContext().getSessionCacheSize());
+        Assertions.assertEquals(1, cache.size());
+        Assertions.assertEquals(1, cache.getMisses());
+        Assertions.assertEquals(1, cache.getHits());
+        Assertions.assertNull(first.getSSLSocketFactory());
+    }
+
+    @Test
+    public void socketFactoryIsShared() {
+        TlsContextCache cache = TlsContextCache.builder().shareSocketFactory(true).build();
+
+        TLSClientParameters first = cache.parameters(TlsContextCache.ACCEPT_ALL, null, true);
+        TLSClientParameters second = cache.parameters(TlsContextCache.ACCEPT_ALL, null, true);
+
+        Assertions.assertNotNull(first.getSSLSocketFactory());
+        Assertions.assertSame(first.getSSLSocketFactory(), second.getSSLSocketFactory());
+    }
+
+    @Test
+    public void otherManagersHaveTheirContext() {
+        TlsContextCache cache = TlsContextCache.builder().build();
+
+        TLSClientParameters blind = cache.parameters(TlsContextCache.ACCEPT_ALL, null, false);
+        TLSClientParameters other = cache.parameters(new TrustManager[]{new BlindTrustManager()}, null, false);
+        TLSClientParameters jvm = cache.parameters(null, null, false);
+
+        Assertions.assertNotSame(blind.getSslContext(), other.getSslContext());
+        Assertions.assertNotSame(blind.getSslContext(), jvm.getSslContext());
+        Assertions.assertEquals(3, cache.size());
+
+        cache.clear();
+        Assertions.assertNotSame(jvm.getSslContext(), cache.sslContext(null, null));
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvicted() {
+        TlsContextCache cache = TlsContextCache.builder().maxContexts(2).build();
+        TrustManager[] first = {new BlindTrustManager()};
+        TrustManager[] second = {new BlindTrustManager()};
+
+        SSLContext context = cache.sslContext(first, null);
+        SSLContext evicted = cache.sslContext(second, null);
+        Assertions.assertSame(context, cache.sslContext(first, null));
+        cache.sslContext(new TrustManager[]{new BlindTrustManager()}, null);
+
+        Assertions.assertSame(context, cache.sslContext(first, null));
+        Assertions.assertEquals(1, cache.getEvictions());
+
+        // Managers built for each client don't pile up
+        for (int i = 0; i < 10; i++) {
+            cache.sslContext(new TrustManager[]{new BlindTrustManager()}, null);
+        }
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertNotSame(evicted, cache.sslContext(second, null));
+    }
+
+    @Test
+    public void factoryUsesTheCache() {
+        TlsContextCache cache = TlsContextCache.builder().build();
+        WebClientFactory factory = WebClientFactory.builder().tlsContextCache(cache).build();
+        ClientSettings settings = ClientSettings.builder()
+                .baseUrl("https://localhost:8443/api")
+                .acceptAllCertificates(true)
+                .build();
+
+        factory.create(settings);
+        factory.create(settings.toBuilder().userName("other").build());
+
+        Assertions.assertEquals(2, factory.getMisses());
+        Assertions.assertEquals(1, cache.size());
+        Assertions.assertEquals(1, cache.getHits());
+    }
+
+}
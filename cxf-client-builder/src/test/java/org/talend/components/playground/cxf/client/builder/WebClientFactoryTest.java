@@ -0,0 +1,94 @@
+package org.talend.components.playground.cxf.client.builder;
+
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+class WebClientFactoryTest {
+
+    private final static ClientSettings SETTINGS = ClientSettings.builder()
+            .baseUrl("https://localhost:8443/api")
+            .authorizationType("Basic")
+            .userName("peter")
+            .password("aze123#")
+            .acceptAllCertificates(true)
+            .disableCNCheck(true)
+            .connectionTimeout(2000)
+            .receiveTimeout(3000)
+            .autoRedirect(true)
+            .maxRetransmits(5)
+            .build();
+
+    @Test
+    public void templateIsConfiguredOnce() {
+        AtomicInteger customized = new AtomicInteger();
+        WebClientFactory factory = WebClientFactory.builder()
+                .customizer((c, s) -> customized.incrementAndGet())
+                .build();
+
+        WebClient first = factory.create(SETTINGS);
+        WebClient second = factory.create(SETTINGS.toBuilder().build());
+
+        Assertions.assertNotSame(first, second);
+        Assertions.assertSame(WebClient.getConfig(first), WebClient.getConfig(second));
+        Assertions.assertEquals(1, customized.get());
+        Assertions.assertEquals(1, factory.getMisses());
+        Assertions.assertEquals(1, factory.getHits());
+
+        HTTPConduit conduit = WebClient.getConfig(first).getHttpConduit();
+        Assertions.assertEquals(2000, conduit.getClient().getConnectionTimeout());
+        Assertions.assertEquals(3000, conduit.getClient().getReceiveTimeout());
+        Assertions.assertTrue(conduit.getClient().isAutoRedirect());
+        Assertions.assertEquals(5, conduit.getClient().getMaxRetransmits());
+        Assertions.assertEquals("peter", conduit.getAuthorization().getUserName());
+        Assertions.assertTrue(conduit.getTlsClientParameters().isDisableCNCheck());
+        Assertions.assertTrue(conduit.getTlsClientParameters().getTrustManagers()[0] instanceof BlindTrustManager);
+    }
+
+    @Test
+    public void copiesDoNotShareState() {
+        WebClientFactory factory = WebClientFactory.create();
+
+        WebClient first = factory.create(SETTINGS).path("users").query("name", "Peter").header("h", "v");
+        WebClient second = factory.create(SETTINGS);
+
+        Assertions.assertEquals("https://localhost:8443/api/users?name=Peter", first.getCurrentURI().toString());
+        Assertions.assertEquals("https://localhost:8443/api", second.getCurrentURI().toString());
+        Assertions.assertFalse(second.getHeaders().containsKey("h"));
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvicted() throws InterruptedException {
+        WebClientFactory factory = WebClientFactory.builder().maxTemplates(2).build();
+        ClientSettings a = SETTINGS.toBuilder().baseUrl("http://a").build();
+        ClientSettings b = SETTINGS.toBuilder().baseUrl("http://b").build();
+        ClientSettings c = SETTINGS.toBuilder().baseUrl("http://c").build();
+
+        WebClient templateA = factory.template(a);
+        factory.template(b);
+        Thread.sleep(200);
+        factory.template(a);
+        factory.template(c);
+
+        Assertions.assertEquals(2, factory.size());
+        Assertions.assertEquals(1, factory.getEvictions());
+        Assertions.assertSame(templateA, factory.template(a));
+        Assertions.assertEquals(3, factory.getMisses());
+    }
+
+    @Test
+    public void idleTemplateIsRebuilt() throws InterruptedException {
+        WebClientFactory factory = WebClientFactory.builder().idleTimeout(50L).build();
+
+        WebClient template = factory.template(SETTINGS);
+        Thread.sleep(100);
+
+        Assertions.assertNotSame(template, factory.template(SETTINGS));
+        Assertions.assertEquals(1, factory.getEvictions());
+        Assertions.assertEquals(1, factory.size());
+    }
+
+}
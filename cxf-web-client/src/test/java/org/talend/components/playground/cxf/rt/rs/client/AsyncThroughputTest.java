@@ -0,0 +1,144 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.transport.http.auth.HttpAuthHeader;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.talend.components.playground.cxf.client.builder.AsyncWebClients;
+import org.talend.components.playground.cxf.client.builder.ClientSettings;
+import org.talend.components.playground.cxf.client.builder.WebClientFactory;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Blocking calls with a thread per in-flight request against non-blocking calls, with the same concurrency.
+ * The async calls share a pool of MAX_CONNECTIONS connections, waiting requests don't hold a thread.
+ */
+class AsyncThroughputTest {
+
+    private final static int CONCURRENCY = 1000;
+
+    private final static int CALLS = 5000;
+
+    /**
+     * The JDK HttpServer closes the keep-alive connections above 200 idle ones, the pool stays well under
+     * so no pooled connection is closed by the server while reused.
+     */
+    private final static int MAX_CONNECTIONS = 100;
+
+    private final static HTTPServer.TestHTTPServer server = HTTPServer.createServer();
+
+    private final static ExecutorService serverExecutor = Executors.newFixedThreadPool(16);
+
+    private final static WebClientFactory factory = WebClientFactory.create();
+
+    @BeforeAll
+    public static void beforeAll() {
+        AsyncWebClients.setConnectionLimits(MAX_CONNECTIONS, MAX_CONNECTIONS);
+        server.getHttpServer().setExecutor(serverExecutor);
+        server.getHttpServer().start();
+    }
+
+    @AfterAll
+    public static void afterAll() {
+        server.getHttpServer().stop(0);
+        serverExecutor.shutdownNow();
+        AsyncWebClients.setConnectionLimits(AsyncWebClients.DEFAULT_MAX_CONNECTIONS, AsyncWebClients.DEFAULT_MAX_PER_HOST_CONNECTIONS);
+    }
+
+    @Test
+    public void blockingVsAsync() throws Exception {
+        ClientSettings settings = ClientSettings.builder()
+                .baseUrl("http://localhost:" + server.getPort() + HTTPServer.HTTP_ECHO)
+                .build();
+        Supplier<WebClient> client = () -> factory.create(settings).type(MediaType.TEXT_PLAIN).query("q", "async");
+
+        // Warm up both paths
+        blocking(client, 100, 100);
+        async(client, 100, 100);
+
+        long blocking = blocking(client, CALLS, CONCURRENCY);
+        long async = async(client, CALLS, CONCURRENCY);
+
+        System.out.println(String.format("%s calls, %s in flight: blocking %s req/s, async %s req/s",
+                CALLS, CONCURRENCY, perSecond(CALLS, blocking), perSecond(CALLS, async)));
+    }
+
+    @Test
+    public void asyncDigest() throws Exception {
+        ClientSettings settings = ClientSettings.builder()
+                .baseUrl("http://localhost:" + server.getPort() + HTTPServer.HTTP_DIGEST_AUTH + "/auth/asyncUser/passwd/MD5")
+                .authorizationType(HttpAuthHeader.AUTH_TYPE_DIGEST)
+                .userName("asyncUser")
+                .password("passwd")
+                .build();
+        int challenges = server.getDigestAuth().getChallenges();
+
+        // Run with the blocking transport since challenges need retransmissions, first call challenged, next ones preemptive
+        for (int i = 0; i < 10; i++) {
+            Response response = AsyncWebClients.get(factory.create(settings).accept(MediaType.APPLICATION_JSON))
+                    .toCompletableFuture().get(30, TimeUnit.SECONDS);
+            Assertions.assertEquals(200, response.getStatus());
+            Assertions.assertTrue(response.readEntity(String.class).contains("\"authenticated\": true"));
+        }
+        Assertions.assertEquals(challenges + 1, server.getDigestAuth().getChallenges());
+    }
+
+    private static long blocking(Supplier<WebClient> client, int calls, int concurrency) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        AtomicInteger ok = new AtomicInteger();
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < calls; i++) {
+                executor.submit(() -> {
+                    Response response = client.get().post("body");
+                    if (response.getStatus() == 200 && response.readEntity(String.class).contains("async")) {
+                        ok.incrementAndGet();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            Assertions.assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+        }
+        long duration = System.nanoTime() - start;
+        Assertions.assertEquals(calls, ok.get());
+        return duration;
+    }
+
+    private static long async(Supplier<WebClient> client, int calls, int concurrency) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(concurrency);
+        CountDownLatch done = new CountDownLatch(calls);
+        AtomicInteger ok = new AtomicInteger();
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            inFlight.acquire();
+            AsyncWebClients.post(client.get(), "body").whenComplete((response, error) -> {
+                if (error == null && response.getStatus() == 200 && response.readEntity(String.class).contains("async")) {
+                    ok.incrementAndGet();
+                }
+                inFlight.release();
+                done.countDown();
+            });
+        }
+        Assertions.assertTrue(done.await(5, TimeUnit.MINUTES));
+        long duration = System.nanoTime() - start;
+        Assertions.assertEquals(calls, ok.get());
+        return duration;
+    }
+
+    private static long perSecond(int calls, long nanos) {
+        return calls * TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+}
@@ -0,0 +1,184 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import org.apache.cxf.transport.http.auth.HttpAuthHeader;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.talend.components.playground.cxf.client.builder.ClientSettings;
+import org.talend.components.playground.cxf.client.builder.WebClientFactory;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Digest qop=auth-int with bodies hashed while written.
+ */
+class AuthIntStreamingTest {
+
+    private final static long BIG_BODY_SIZE = 300L * 1024 * 1024;
+
+    private final static int MAX_NONCE_COUNT = 3;
+
+    private final static HTTPServer.TestHTTPServer server = HTTPServer.createServer(MAX_NONCE_COUNT);
+
+    private final static WebClientFactory factory = WebClientFactory.create();
+
+    @BeforeAll
+    public static void beforeAll() {
+        server.getHttpServer().start();
+    }
+
+    @AfterAll
+    public static void afterAll() {
+        server.getHttpServer().stop(0);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"MD5", "SHA-256", "SHA-512"})
+    public void streamedBodies(String algo) {
+        // One user per algorithm, the digest sessions are by host and user
+        ClientSettings settings = settings("user" + algo, algo);
+        int challenges = server.getDigestAuth().getChallenges();
+
+        // The first call is challenged, its body was hashed with each algorithm while sent
+        post(settings, new ByteArrayInputStream("first".getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertEquals(challenges + 1, server.getDigestAuth().getChallenges());
+
+        // Then preemptive, nonce stale after MAX_NONCE_COUNT calls
+        for (int i = 0; i < 2 * MAX_NONCE_COUNT; i++) {
+            post(settings, new ByteArrayInputStream(("body " + i).getBytes(StandardCharsets.UTF_8)));
+        }
+        Assertions.assertEquals(challenges + 3, server.getDigestAuth().getChallenges());
+    }
+
+    @Test
+    public void bigBodyWithBoundedHeap() throws Exception {
+        ClientSettings settings = settings("bigBody", "SHA-256");
+        post(settings, new ByteArrayInputStream("warm up".getBytes(StandardCharsets.UTF_8)));
+        long bodyBytes = server.getDigestAuth().getBodyBytes();
+
+        HeapWatcher watcher = new HeapWatcher();
+        watcher.start();
+        try {
+            post(settings, new GeneratedInputStream(BIG_BODY_SIZE));
+        } finally {
+            watcher.stop();
+        }
+
+        System.out.println(String.format("auth-int body of %s MB, max live heap during upload %s MB (%s MB before)",
+                BIG_BODY_SIZE >> 20, watcher.getMax() >> 20, watcher.getInitial() >> 20));
+        Assertions.assertEquals(BIG_BODY_SIZE, server.getDigestAuth().getBodyBytes() - bodyBytes);
+        Assertions.assertTrue(watcher.getMax() - watcher.getInitial() < BIG_BODY_SIZE / 4,
+                "The body seems to be buffered: " + (watcher.getMax() >> 20) + " MB");
+    }
+
+    private static ClientSettings settings(String user, String algo) {
+        return ClientSettings.builder()
+                .baseUrl("http://localhost:" + server.getPort() + HTTPServer.HTTP_DIGEST_AUTH + "/auth-int/" + user + "/passwd/" + algo)
+                .authorizationType(HttpAuthHeader.AUTH_TYPE_DIGEST)
+                .userName(user)
+                .password("passwd")
+                .build();
+    }
+
+    private static void post(ClientSettings settings, InputStream body) {
+        Response response = factory.create(settings)
+                .type(MediaType.APPLICATION_OCTET_STREAM)
+                .accept(MediaType.APPLICATION_JSON)
+                .invoke("POST", body);
+        Assertions.assertEquals(200, response.getStatus());
+        Assertions.assertTrue(response.readEntity(String.class).contains("\"authenticated\": true"));
+    }
+
+    /**
+     * Bytes generated on the fly, never in memory.
+     */
+    private static class GeneratedInputStream extends InputStream {
+
+        private final long size;
+
+        private long position;
+
+        GeneratedInputStream(long size) {
+            this.size = size;
+        }
+
+        @Override
+        public int read() {
+            return position < size ? (int) (position++ % 251) : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (position >= size) {
+                return -1;
+            }
+            int n = (int) Math.min(len, size - position);
+            for (int i = 0; i < n; i++) {
+                b[off + i] = (byte) (position++ % 251);
+            }
+            return n;
+        }
+    }
+
+    /**
+     * Samples the heap used after a GC, so only the live objects are counted.
+     */
+    private static class HeapWatcher {
+
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        private final AtomicBoolean running = new AtomicBoolean(true);
+
+        private final AtomicLong max = new AtomicLong();
+
+        private long initial;
+
+        private Thread thread;
+
+        void start() {
+            initial = liveHeap();
+            thread = new Thread(() -> {
+                while (running.get()) {
+                    max.accumulateAndGet(liveHeap(), Math::max);
+                    try {
+                        Thread.sleep(250);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void stop() throws InterruptedException {
+            running.set(false);
+            thread.join();
+        }
+
+        long getInitial() {
+            return initial;
+        }
+
+        long getMax() {
+            return max.get();
+        }
+
+        private long liveHeap() {
+            System.gc();
+            return memory.getHeapMemoryUsage().getUsed();
+        }
+    }
+
+}
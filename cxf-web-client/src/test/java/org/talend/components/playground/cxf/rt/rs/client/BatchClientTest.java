@@ -0,0 +1,141 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.talend.components.playground.cxf.client.builder.BatchClient;
+import org.talend.components.playground.cxf.client.builder.BatchRequest;
+import org.talend.components.playground.cxf.client.builder.BatchResult;
+import org.talend.components.playground.cxf.client.builder.BatchResults;
+import org.talend.components.playground.cxf.client.builder.ClientSettings;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Batches of small calls to the httpbin endpoints, with bounded concurrency and per call failures.
+ */
+class BatchClientTest {
+
+    private final static HTTPServer.TestHTTPServer server = HTTPServer.createServer(HTTPServer.Config.builder()
+            .threads(8)
+            .build());
+
+    private final static Function<Response, JSONObject> JSON = r -> new JSONObject(r.readEntity(String.class));
+
+    private static ClientSettings settings;
+
+    @BeforeAll
+    public static void beforeAll() {
+        server.getHttpServer().start();
+        settings = ClientSettings.builder().baseUrl(server.getBaseUrl()).build();
+    }
+
+    @AfterAll
+    public static void afterAll() {
+        server.getHttpServer().stop(0);
+    }
+
+    @Test
+    public void resultsAreInOrder() {
+        BatchClient batch = BatchClient.builder().settings(settings).maxInFlight(16).build();
+
+        // As multiValued and urlEncodedData in MainTest
+        Stream<BatchRequest> requests = IntStream.range(0, 200).mapToObj(i -> i % 2 == 0
+                ? BatchRequest.builder()
+                .path("get")
+                .query("i", i)
+                .query("multi", Arrays.asList("a", "b"))
+                .header("X-Call", i)
+                .build()
+                : BatchRequest.builder()
+                .method("POST")
+                .path("post")
+                .query("i", i)
+                .body("name=Peter&i=" + i)
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .build());
+
+        BatchResults<JSONObject> results = batch.execute(requests, JSON);
+
+        Assertions.assertTrue(results.isSuccess(), () -> results.getFailures().toString());
+        Assertions.assertEquals(200, results.size());
+        for (int i = 0; i < 200; i++) {
+            JSONObject json = results.getValues().get(i);
+            Assertions.assertEquals(String.valueOf(i), json.getJSONObject("args").getString("i"));
+            if (i % 2 == 0) {
+                Assertions.assertEquals("a", json.getJSONObject("args").getJSONArray("multi").getString(0));
+                Assertions.assertEquals(String.valueOf(i), json.getJSONObject("headers").getString("X-call"));
+            } else {
+                Assertions.assertEquals(String.valueOf(i), json.getJSONObject("form").getString("i"));
+            }
+        }
+    }
+
+    @Test
+    public void failuresAreCollected() {
+        BatchClient batch = BatchClient.builder().settings(settings).build();
+        List<BatchRequest> requests = Arrays.asList(
+                BatchRequest.builder().path("get").build(),
+                BatchRequest.builder().path("unknown").build(),
+                BatchRequest.builder().path("get").build(),
+                BatchRequest.builder().path("bytes/10").build());
+
+        BatchResults<JSONObject> results = batch.execute(requests, JSON);
+
+        List<BatchResult<JSONObject>> failures = results.getFailures();
+        Assertions.assertEquals(2, failures.size());
+        Assertions.assertEquals(1, failures.get(0).getIndex());
+        Assertions.assertEquals(404, ((WebApplicationException) failures.get(0).getError()).getResponse().getStatus());
+        // The reader failed on the binary body
+        Assertions.assertEquals(3, failures.get(1).getIndex());
+        Assertions.assertTrue(results.getResults().get(0).isSuccess());
+        Assertions.assertTrue(results.getResults().get(2).isSuccess());
+
+        BatchClient noStatusCheck = BatchClient.builder().settings(settings).failOnErrorStatus(false).build();
+        Assertions.assertEquals(Arrays.asList(200, 404),
+                noStatusCheck.execute(requests.subList(0, 2), Response::getStatus).getValues());
+    }
+
+    @Test
+    public void inFlightRequestsAreBounded() {
+        BatchClient batch = BatchClient.builder().settings(settings).maxInFlight(5).build();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        Function<Response, Integer> reader = r -> {
+            maxInFlight.accumulateAndGet(inFlight.get(), Math::max);
+            return r.getStatus();
+        };
+
+        // 20 calls of 100 ms, 5 at once
+        Stream<BatchRequest> requests = IntStream.range(0, 20).mapToObj(i -> {
+            inFlight.incrementAndGet();
+            return BatchRequest.builder().path("get").query("latency", 100).build();
+        });
+        Set<Integer> indexes = new HashSet<>();
+        long start = System.nanoTime();
+        batch.forEachCompleted(requests, reader, result -> {
+            inFlight.decrementAndGet();
+            Assertions.assertTrue(result.isSuccess());
+            indexes.add(result.getIndex());
+        });
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        Assertions.assertEquals(IntStream.range(0, 20).boxed().collect(Collectors.toSet()), indexes);
+        Assertions.assertTrue(maxInFlight.get() <= 5, "Max in flight: " + maxInFlight.get());
+        Assertions.assertTrue(millis >= 400, "Duration: " + millis);
+    }
+
+}
@@ -0,0 +1,190 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.talend.components.playground.cxf.authent.oauth2.BearerTokenInterceptor;
+import org.talend.components.playground.cxf.authent.oauth2.TokenCache;
+import org.talend.components.playground.cxf.client.builder.ClientSettings;
+import org.talend.components.playground.cxf.client.builder.WebClientFactory;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.Response;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OAuth2 client credentials tokens from the stand-in of {@link OAuth2Handler}, shared by the clients.
+ */
+class BearerTokenTest {
+
+    private final static HTTPServer.TestHTTPServer server = HTTPServer.createServer(HTTPServer.Config.builder()
+            .threads(8)
+            .build());
+
+    private final static HTTPServer.TestHTTPServer tlsServer = HTTPServer.createServer(HTTPServer.Config.builder()
+            .threads(4)
+            .tls(true)
+            .build());
+
+    @BeforeAll
+    public static void beforeAll() {
+        server.getHttpServer().start();
+        tlsServer.getHttpServer().start();
+    }
+
+    @AfterAll
+    public static void afterAll() {
+        server.getHttpServer().stop(0);
+        tlsServer.getHttpServer().stop(0);
+    }
+
+    @Test
+    public void concurrentClientsFetchOneToken() throws Exception {
+        WebClientFactory factory = WebClientFactory.create();
+        int issued = server.getOauth2().getTokensIssued();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> statuses = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                // Distinct templates, the same credentials
+                ClientSettings settings = settings("concurrent", "read").toBuilder().receiveTimeout(60000 + i).build();
+                statuses.add(executor.submit(() -> {
+                    start.await();
+                    Response response = factory.create(settings).get();
+                    response.readEntity(String.class);
+                    return response.getStatus();
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> status : statuses) {
+                Assertions.assertEquals(200, status.get(1, TimeUnit.MINUTES));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(16, factory.size());
+        Assertions.assertEquals(issued + 1, server.getOauth2().getTokensIssued());
+        Assertions.assertEquals(1, factory.getTokenCache().getFetches());
+    }
+
+    @Test
+    public void tokenPerClientAndScope() {
+        WebClientFactory factory = WebClientFactory.create();
+        int issued = server.getOauth2().getTokensIssued();
+
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertEquals("read", get(factory, settings("scoped", "read")).getString("scope"));
+            Assertions.assertEquals("write", get(factory, settings("scoped", "write")).getString("scope"));
+            Assertions.assertEquals("other", get(factory, settings("other", "read")).getString("client"));
+        }
+
+        Assertions.assertEquals(issued + 3, server.getOauth2().getTokensIssued());
+        Assertions.assertEquals(3, factory.getTokenCache().size());
+        Assertions.assertEquals(12, factory.getTokenCache().getHits());
+    }
+
+    @Test
+    public void refreshedBeforeExpiry() throws Exception {
+        WebClientFactory factory = WebClientFactory.builder()
+                .tokenCache(TokenCache.builder().refreshBefore(Duration.ofSeconds(10)).build())
+                .build();
+        int refused = server.getOauth2().getRefused();
+        server.getOauth2().setExpiresIn(2);
+        try {
+            // Refreshed at half the lifetime, the calls never wait for a token nor are refused
+            long end = System.currentTimeMillis() + 3500;
+            while (System.currentTimeMillis() < end) {
+                Assertions.assertEquals("refreshed", get(factory, settings("refreshed", null)).getString("client"));
+                Thread.sleep(50);
+            }
+        } finally {
+            server.getOauth2().setExpiresIn(3600);
+        }
+
+        Assertions.assertEquals(refused, server.getOauth2().getRefused());
+        Assertions.assertTrue(factory.getTokenCache().getRefreshes() >= 2,
+                "Refreshes: " + factory.getTokenCache().getRefreshes());
+        Assertions.assertEquals(factory.getTokenCache().getRefreshes() + 1, factory.getTokenCache().getFetches());
+    }
+
+    @Test
+    public void revokedTokenIsReplaced() {
+        WebClientFactory factory = WebClientFactory.create();
+        ClientSettings settings = settings("revoked", null);
+        int issued = server.getOauth2().getTokensIssued();
+        Assertions.assertEquals("revoked", get(factory, settings).getString("client"));
+
+        server.getOauth2().revokeTokens();
+        Response refused = factory.create(settings).get();
+        Assertions.assertEquals(401, refused.getStatus());
+        refused.close();
+        Assertions.assertEquals(1, factory.getTokenCache().getInvalidations());
+
+        // The next call gets a new token
+        Assertions.assertEquals("revoked", get(factory, settings).getString("client"));
+        Assertions.assertEquals(issued + 2, server.getOauth2().getTokensIssued());
+    }
+
+    @Test
+    public void tokenServerTrustedAsTheResource() {
+        WebClientFactory factory = WebClientFactory.create();
+        int issued = tlsServer.getOauth2().getTokensIssued();
+        ClientSettings settings = ClientSettings.builder()
+                .baseUrl(tlsServer.getBaseUrl() + HTTPServer.HTTP_OAUTH2 + "/resource")
+                .authorizationType(BearerTokenInterceptor.AUTH_TYPE_BEARER)
+                .tokenUrl(tlsServer.getBaseUrl() + HTTPServer.HTTP_OAUTH2 + "/token")
+                .userName("tls")
+                .password(OAuth2Handler.CLIENT_SECRET)
+                .acceptAllCertificates(true)
+                .disableCNCheck(true)
+                .build();
+
+        // The self-signed certificate of the token server is accepted too
+        Assertions.assertEquals("tls", get(factory, settings).getString("client"));
+        Assertions.assertEquals(issued + 1, tlsServer.getOauth2().getTokensIssued());
+        Assertions.assertEquals(0, factory.getTokenCache().getFailures());
+    }
+
+    @Test
+    public void wrongSecret() {
+        WebClientFactory factory = WebClientFactory.create();
+        int refused = server.getOauth2().getRefused();
+
+        Assertions.assertThrows(ProcessingException.class, () -> factory.create(settings("wrong", null).toBuilder()
+                .password("not-the-secret").build()).get());
+        Assertions.assertEquals(refused + 1, server.getOauth2().getRefused());
+        Assertions.assertEquals(1, factory.getTokenCache().getFailures());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> factory.create(settings("wrong", null).toBuilder()
+                .tokenUrl(null).build()));
+    }
+
+    private static JSONObject get(WebClientFactory factory, ClientSettings settings) {
+        Response response = factory.create(settings).get();
+        Assertions.assertEquals(200, response.getStatus());
+        return new JSONObject(response.readEntity(String.class));
+    }
+
+    private static ClientSettings settings(String clientId, String scope) {
+        return ClientSettings.builder()
+                .baseUrl(server.getBaseUrl() + HTTPServer.HTTP_OAUTH2 + "/resource")
+                .authorizationType(BearerTokenInterceptor.AUTH_TYPE_BEARER)
+                .tokenUrl(server.getBaseUrl() + HTTPServer.HTTP_OAUTH2 + "/token")
+                .userName(clientId)
+                .password(OAuth2Handler.CLIENT_SECRET)
+                .scope(scope)
+                .build();
+    }
+
+}
@@ -0,0 +1,93 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.talend.components.playground.cxf.client.builder.BulkRunner;
+import org.talend.components.playground.cxf.client.builder.ClientSettings;
+
+import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk blocking calls to the echo context, reporting throughput and p99 latency for each executor mode.
+ * All the calls are submitted at once, the latency is measured once the call has its thread and host permit.
+ */
+class BulkRunnerLoadTest {
+
+    private final static int CALLS = 10000;
+
+    private final static int MAX_PER_HOST = 200;
+
+    private final static HTTPServer.TestHTTPServer server = HTTPServer.createServer();
+
+    private final static ExecutorService serverExecutor = Executors.newFixedThreadPool(16);
+
+    @BeforeAll
+    public static void beforeAll() {
+        server.getHttpServer().setExecutor(serverExecutor);
+        server.getHttpServer().start();
+    }
+
+    @AfterAll
+    public static void afterAll() {
+        server.getHttpServer().stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @ParameterizedTest
+    @EnumSource(BulkRunner.Mode.class)
+    public void echo(BulkRunner.Mode mode) throws Exception {
+        Assumptions.assumeTrue(mode != BulkRunner.Mode.VIRTUAL || BulkRunner.isVirtualThreadsSupported(),
+                "Virtual threads need Java 21+");
+
+        ClientSettings settings = ClientSettings.builder()
+                .baseUrl("http://localhost:" + server.getPort() + HTTPServer.HTTP_ECHO)
+                .build();
+
+        try (BulkRunner runner = BulkRunner.builder().mode(mode).maxPerHost(MAX_PER_HOST).build()) {
+            // Warm up
+            run(runner, settings, 500);
+
+            long start = System.nanoTime();
+            long[] latencies = run(runner, settings, CALLS);
+            long duration = System.nanoTime() - start;
+
+            Arrays.sort(latencies);
+            System.out.println(String.format("%s threads, %s calls, %s per host: %s req/s, p50 %s ms, p99 %s ms",
+                    mode, CALLS, MAX_PER_HOST, CALLS * TimeUnit.SECONDS.toNanos(1) / duration,
+                    TimeUnit.NANOSECONDS.toMillis(latencies[CALLS / 2]),
+                    TimeUnit.NANOSECONDS.toMillis(latencies[CALLS * 99 / 100])));
+        }
+    }
+
+    private static long[] run(BulkRunner runner, ClientSettings settings, int calls) {
+        List<CompletableFuture<Long>> futures = new ArrayList<>(calls);
+        for (int i = 0; i < calls; i++) {
+            final String query = "call" + i;
+            futures.add(runner.submit(settings, client -> {
+                long start = System.nanoTime();
+                Response response = client.query("q", query).invoke("GET", null);
+                Assertions.assertEquals(200, response.getStatus());
+                Assertions.assertTrue(response.readEntity(String.class).contains(query));
+                return System.nanoTime() - start;
+            }));
+        }
+
+        long[] latencies = new long[calls];
+        for (int i = 0; i < calls; i++) {
+            latencies[i] = futures.get(i).join();
+        }
+        return latencies;
+    }
+
+}
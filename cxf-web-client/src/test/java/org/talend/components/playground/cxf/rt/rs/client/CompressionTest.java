@@ -0,0 +1,161 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import org.apache.cxf.transport.http.auth.HttpAuthHeader;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.talend.components.playground.cxf.client.builder.ClientSettings;
+import org.talend.components.playground.cxf.client.builder.Compression;
+import org.talend.components.playground.cxf.client.builder.JsonArrayReader;
+import org.talend.components.playground.cxf.client.builder.StreamingResponse;
+import org.talend.components.playground.cxf.client.builder.WebClientFactory;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.Map;
+
+/**
+ * Compressed responses and requests with the {@link Compression} of the clients.
+ */
+class CompressionTest {
+
+    private final static HTTPServer.TestHTTPServer server = HTTPServer.createServer();
+
+    private final static ClientSettings SETTINGS = ClientSettings.builder()
+            .baseUrl(server.getBaseUrl())
+            .build();
+
+    @BeforeAll
+    public static void beforeAll() {
+        server.getHttpServer().start();
+    }
+
+    @AfterAll
+    public static void afterAll() {
+        server.getHttpServer().stop(0);
+    }
+
+    @Test
+    public void responsesAreDecoded() {
+        Compression compression = Compression.create();
+        WebClientFactory factory = WebClientFactory.builder().customizer(compression).build();
+
+        for (String encoding : new String[]{"gzip", "deflate"}) {
+            Response response = factory.create(SETTINGS).path(encoding).query("payload", 10_000).get();
+            Assertions.assertEquals(200, response.getStatus());
+            Assertions.assertNull(response.getHeaderString("Content-Encoding"));
+            JSONObject json = new JSONObject(response.readEntity(String.class));
+            Assertions.assertTrue(json.getBoolean(encoding + "ped"));
+            Assertions.assertEquals("gzip, deflate", json.getJSONObject("headers").getString("Accept-encoding"));
+            Assertions.assertEquals(10_000, json.getString("payload").length());
+        }
+        Assertions.assertEquals(2, compression.getResponsesDecoded());
+        Assertions.assertTrue(compression.getBytesReceived() * 10 < compression.getBytesDecoded(),
+                compression.getBytesReceived() + " bytes received for " + compression.getBytesDecoded());
+
+        // Not compressed by the server
+        Assertions.assertEquals(200, factory.create(SETTINGS).path("get").get().getStatus());
+        Assertions.assertEquals(2, compression.getResponsesDecoded());
+        // The caller's own Accept-Encoding is kept
+        Response identity = factory.create(SETTINGS).path("get").header("Accept-Encoding", "identity").get();
+        Assertions.assertEquals("identity",
+                new JSONObject(identity.readEntity(String.class)).getJSONObject("headers").getString("Accept-encoding"));
+    }
+
+    @Test
+    public void largeResponsesAreStreamed() {
+        Compression compression = Compression.builder().acceptEncoding("deflate").build();
+        WebClientFactory factory = WebClientFactory.builder().customizer(compression).build();
+
+        for (int call = 0; call < 3; call++) {
+            int count = 100_000;
+            long ids = 0;
+            int records = 0;
+            try (StreamingResponse response = StreamingResponse.of(factory.create(SETTINGS)
+                    .path(HTTPServer.HTTP_RECORDS)
+                    .query(RecordsHandler.COUNT_PARAM, count)
+                    .get());
+                 JsonArrayReader reader = response.jsonArray("/data")) {
+                while (reader.hasNext()) {
+                    Map<?, ?> record = (Map<?, ?>) reader.next();
+                    ids += (Long) record.get("id");
+                    records++;
+                }
+            }
+            Assertions.assertEquals(count, records);
+            Assertions.assertEquals((long) count * (count - 1) / 2, ids);
+        }
+        Assertions.assertEquals(3, compression.getResponsesDecoded());
+        Assertions.assertTrue(compression.getBytesReceived() * 5 < compression.getBytesDecoded(),
+                compression.getBytesReceived() + " bytes received for " + compression.getBytesDecoded());
+        // One inflater reused by the three calls
+        Assertions.assertEquals(1, compression.getCodecsCreated());
+    }
+
+    @Test
+    public void largeRequestsAreCompressed() {
+        for (String encoding : new String[]{"gzip", "deflate"}) {
+            Compression compression = Compression.builder().requestEncoding(encoding).minRequestSize(1024).build();
+            WebClientFactory factory = WebClientFactory.builder().customizer(compression).build();
+
+            StringBuilder large = new StringBuilder();
+            while (large.length() < 100_000) {
+                large.append("{\"id\": ").append(large.length()).append(", \"name\": \"Peter\"}\n");
+            }
+            JSONObject json = post(factory, large.toString());
+            Assertions.assertEquals(large.toString(), json.getString("data"));
+            Assertions.assertEquals(encoding, json.getJSONObject("headers").getString("Content-encoding"));
+            Assertions.assertEquals(1, compression.getRequestsCompressed());
+            Assertions.assertEquals(large.length(), compression.getBytesWritten());
+            Assertions.assertTrue(compression.getBytesSent() * 5 < large.length(),
+                    compression.getBytesSent() + " bytes sent for " + large.length());
+
+            // Under minRequestSize
+            json = post(factory, "small");
+            Assertions.assertEquals("small", json.getString("data"));
+            Assertions.assertFalse(json.getJSONObject("headers").has("Content-encoding"));
+            Assertions.assertEquals(1, compression.getRequestsCompressed());
+        }
+    }
+
+    @Test
+    public void compressedAuthIntBodies() {
+        Compression compression = Compression.builder().requestEncoding(Compression.GZIP).minRequestSize(1024).build();
+        WebClientFactory factory = WebClientFactory.builder().customizer(compression).build();
+        ClientSettings settings = ClientSettings.builder()
+                .baseUrl(server.getBaseUrl() + HTTPServer.HTTP_DIGEST_AUTH + "/auth-int/compressed/passwd/SHA-256")
+                .authorizationType(HttpAuthHeader.AUTH_TYPE_DIGEST)
+                .userName("compressed")
+                .password("passwd")
+                .build();
+        StringBuilder large = new StringBuilder();
+        while (large.length() < 100_000) {
+            large.append("{\"id\": ").append(large.length()).append(", \"name\": \"Peter\"}\n");
+        }
+
+        // Challenged, then preemptive: the server hashes the compressed body it receives
+        for (int i = 0; i < 3; i++) {
+            Response response = factory.create(settings).type(MediaType.TEXT_PLAIN_TYPE).post(large.toString());
+            Assertions.assertEquals(200, response.getStatus());
+            Assertions.assertTrue(response.readEntity(String.class).contains("\"authenticated\": true"));
+        }
+        Assertions.assertEquals(3, compression.getRequestsCompressed());
+        Assertions.assertTrue(compression.getBytesSent() * 5 < compression.getBytesWritten(),
+                compression.getBytesSent() + " bytes sent for " + compression.getBytesWritten());
+    }
+
+    @Test
+    public void invalidSettings() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Compression.builder().requestEncoding("br").build());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Compression.builder().level(10).build());
+    }
+
+    private static JSONObject post(WebClientFactory factory, String body) {
+        Response response = factory.create(SETTINGS).path("post").type(MediaType.TEXT_PLAIN_TYPE).post(body);
+        Assertions.assertEquals(200, response.getStatus());
+        return new JSONObject(response.readEntity(String.class));
+    }
+
+}
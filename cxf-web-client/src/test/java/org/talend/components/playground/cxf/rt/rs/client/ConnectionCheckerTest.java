@@ -0,0 +1,155 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import org.apache.cxf.transport.http.auth.HttpAuthHeader;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.talend.components.playground.cxf.client.builder.ClientSettings;
+import org.talend.components.playground.cxf.client.builder.ConnectionCheck;
+import org.talend.components.playground.cxf.client.builder.ConnectionCheck.Stage;
+import org.talend.components.playground.cxf.client.builder.ConnectionChecker;
+import org.talend.components.playground.cxf.client.builder.DnsCache;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks of many endpoints of the local servers, and of endpoints failing at each stage.
+ */
+class ConnectionCheckerTest {
+
+    private final static int ENDPOINTS = 300;
+
+    private final static HTTPServer.TestHTTPServer server = HTTPServer.createServer(HTTPServer.Config.builder()
+            .threads(8)
+            .build());
+
+    private final static HTTPServer.TestHTTPServer tlsServer = HTTPServer.createServer(HTTPServer.Config.builder()
+            .tls(true)
+            .threads(8)
+            .build());
+
+    /**
+     * localhost, or an unknown host for the .invalid ones.
+     */
+    private final static DnsCache dnsCache = DnsCache.builder().resolver(host -> {
+        if (host.endsWith(".invalid")) {
+            throw new UnknownHostException(host);
+        }
+        return InetAddress.getAllByName(host);
+    }).build();
+
+    private final static ConnectionChecker checker = ConnectionChecker.builder()
+            .dnsCache(dnsCache)
+            .connectTimeout(500)
+            .build();
+
+    @BeforeAll
+    public static void beforeAll() {
+        server.getHttpServer().start();
+        tlsServer.getHttpServer().start();
+    }
+
+    @AfterAll
+    public static void afterAll() {
+        server.getHttpServer().stop(0);
+        tlsServer.getHttpServer().stop(0);
+    }
+
+    /**
+     * Endpoints of a few servers and credentials, as the datasets of a job.
+     */
+    @Test
+    public void manyEndpoints() {
+        // Loads the classes
+        Assertions.assertTrue(checker.check(tls("/get").build()).join().isSuccess());
+
+        List<ClientSettings> settings = new ArrayList<>();
+        for (int i = 0; i < ENDPOINTS; i++) {
+            if (i % 3 == 0) {
+                settings.add(ClientSettings.builder().baseUrl(server.getBaseUrl() + "/anything/" + i).build());
+            } else if (i % 3 == 1) {
+                settings.add(tls("/anything/" + i).build());
+            } else {
+                settings.add(basic(server.getBaseUrl() + "/basic-auth/user" + i % 10 + "/passwd?endpoint=" + i,
+                        "user" + i % 10, "passwd"));
+            }
+        }
+
+        long start = System.nanoTime();
+        List<ConnectionCheck> checks = checker.checkAll(settings);
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.out.println(String.format("%s endpoints checked in %s ms", ENDPOINTS, millis));
+
+        Assertions.assertEquals(ENDPOINTS, checks.size());
+        checks.forEach(check -> Assertions.assertTrue(check.isSuccess(), check.toString()));
+        Assertions.assertEquals(settings.get(1).getBaseUrl(), checks.get(1).getUrl());
+        Assertions.assertNotNull(checks.get(1).get(Stage.TLS));
+        Assertions.assertNull(checks.get(0).get(Stage.TLS));
+        Assertions.assertNotNull(checks.get(2).get(Stage.AUTH));
+        Assertions.assertNull(checks.get(1).get(Stage.AUTH));
+        Assertions.assertTrue(millis < 1000, "Checked in " + millis + " ms");
+    }
+
+    @Test
+    public void malformedUri() {
+        assertFailedAt(Stage.URI, ClientSettings.builder().baseUrl("https://htt % pbin.org/get").build());
+        assertFailedAt(Stage.URI, ClientSettings.builder().baseUrl("ftp://localhost/file").build());
+    }
+
+    @Test
+    public void unknownHost() {
+        assertFailedAt(Stage.DNS, ClientSettings.builder().baseUrl("https://unknown.invalid/get").build());
+    }
+
+    @Test
+    public void connectionRefused() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        assertFailedAt(Stage.CONNECT, ClientSettings.builder().baseUrl("http://localhost:" + port).build());
+    }
+
+    @Test
+    public void untrustedCertificate() {
+        assertFailedAt(Stage.TLS, tls("/get").acceptAllCertificates(false).build());
+    }
+
+    @Test
+    public void wrongPassword() {
+        ConnectionCheck check = assertFailedAt(Stage.AUTH,
+                basic(server.getBaseUrl() + "/basic-auth/peter/passwd", "peter", "wrong"));
+        Assertions.assertTrue(check.get(Stage.AUTH).getMessage().contains("401"), check.toString());
+    }
+
+    private static ConnectionCheck assertFailedAt(Stage stage, ClientSettings settings) {
+        ConnectionCheck check = checker.check(settings).join();
+        Assertions.assertFalse(check.isSuccess());
+        Assertions.assertEquals(stage, check.getFailedStage(), check.toString());
+        Assertions.assertEquals(stage, check.getStages().get(check.getStages().size() - 1).getStage());
+        return check;
+    }
+
+    private static ClientSettings.ClientSettingsBuilder tls(String path) {
+        return ClientSettings.builder()
+                .baseUrl(tlsServer.getBaseUrl() + path)
+                .acceptAllCertificates(true);
+    }
+
+    private static ClientSettings basic(String baseUrl, String user, String password) {
+        return ClientSettings.builder()
+                .baseUrl(baseUrl)
+                .authorizationType(HttpAuthHeader.AUTH_TYPE_BASIC)
+                .userName(user)
+                .password(password)
+                .build();
+    }
+
+}
@@ -0,0 +1,190 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import org.apache.cxf.transport.http.auth.HttpAuthHeader;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.talend.components.playground.cxf.client.builder.AsyncWebClients;
+import org.talend.components.playground.cxf.client.builder.ClientSettings;
+import org.talend.components.playground.cxf.client.builder.ConnectionPoolManager;
+import org.talend.components.playground.cxf.client.builder.ConnectionPoolMetrics;
+import org.talend.components.playground.cxf.client.builder.ConnectionPoolStats;
+import org.talend.components.playground.cxf.client.builder.WebClientFactory;
+
+import javax.ws.rs.core.Response;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Connection reuse and eviction of the pools of the default bus, for synchronous calls (allCalls).
+ */
+class ConnectionPoolManagerTest {
+
+    private final static HTTPServer.TestHTTPServer server = HTTPServer.createServer();
+
+    private final static HTTPServer.TestHTTPServer tlsServer = HTTPServer.createServer(HTTPServer.Config.builder()
+            .tls(true)
+            .build());
+
+    private final static AtomicInteger released = new AtomicInteger();
+
+    private static ConnectionPoolManager manager;
+
+    @BeforeAll
+    public static void beforeAll() {
+        server.getHttpServer().start();
+        tlsServer.getHttpServer().start();
+        manager = ConnectionPoolManager.builder()
+                .maxIdle(500L)
+                .allCalls(true)
+                .metrics(new ConnectionPoolMetrics() {
+
+                    @Override
+                    public void released(String host, boolean keptAlive) {
+                        released.incrementAndGet();
+                    }
+                })
+                .build();
+    }
+
+    @AfterAll
+    public static void afterAll() {
+        manager.close();
+        server.getHttpServer().stop(0);
+        tlsServer.getHttpServer().stop(0);
+    }
+
+    @Test
+    public void connectionIsReused() {
+        ConnectionPoolStats stats = calls(server.getBaseUrl(), false, 100);
+        Assertions.assertTrue(stats.getLeases() >= 100);
+        // A few connections may be discarded by the async transport instead of kept alive
+        Assertions.assertTrue(stats.getConnects() <= 10, "Connects: " + stats.getConnects());
+        Assertions.assertTrue(stats.getReuseRatio() >= 0.9, "Reuse ratio: " + stats.getReuseRatio());
+        Assertions.assertEquals(0, stats.getTlsHandshakes());
+        Assertions.assertEquals(0, stats.getLeased());
+        Assertions.assertTrue(stats.getAvailable() >= 1);
+        Assertions.assertTrue(released.get() >= 100);
+    }
+
+    @Test
+    public void tlsHandshakeIsReused() {
+        ConnectionPoolStats stats = calls(tlsServer.getBaseUrl(), true, 20);
+        Assertions.assertTrue(stats.getLeases() >= 20);
+        Assertions.assertEquals(stats.getConnects(), stats.getTlsHandshakes());
+        Assertions.assertTrue(stats.getTlsHandshakes() <= 5, "Handshakes: " + stats.getTlsHandshakes());
+    }
+
+    @Test
+    public void idleConnectionsAreEvicted() throws InterruptedException {
+        String host = calls(server.getBaseUrl(), false, 1).getHost();
+        Thread.sleep(1500);
+        Assertions.assertEquals(0, manager.getStats().get(host).getAvailable());
+    }
+
+    @Test
+    public void evictedTemplatesAreClosed() {
+        WebClientFactory factory = WebClientFactory.builder().maxTemplates(1).build();
+        final int pools = manager.getPoolCount();
+        for (int i = 0; i < 5; i++) {
+            ClientSettings settings = ClientSettings.builder().baseUrl(server.getBaseUrl()).receiveTimeout(10000 + i).build();
+            Response response = factory.create(settings).path("get").get();
+            Assertions.assertEquals(200, response.getStatus());
+            response.readEntity(String.class);
+        }
+
+        // Only the pool of the last template is left once the others are collected
+        final long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (manager.getPoolCount() > pools + 1 && System.nanoTime() - end < 0) {
+            System.gc();
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+        }
+        Assertions.assertTrue(manager.getPoolCount() <= pools + 1, "Pools: " + manager.getPoolCount() + ", before: " + pools);
+    }
+
+    @Test
+    public void synchronousCallsOptIn() {
+        try (ConnectionPoolManager asyncOnly = ConnectionPoolManager.create()) {
+            WebClientFactory factory = WebClientFactory.create();
+            ClientSettings settings = ClientSettings.builder().baseUrl(server.getBaseUrl()).build();
+
+            Response response = factory.create(settings).path("get").get();
+            Assertions.assertEquals(200, response.getStatus());
+            response.readEntity(String.class);
+            Assertions.assertEquals(0, asyncOnly.getTotalStats().getLeases());
+
+            response = AsyncWebClients.get(factory.create(settings).path("get")).toCompletableFuture().join();
+            Assertions.assertEquals(200, response.getStatus());
+            response.readEntity(String.class);
+            Assertions.assertEquals(1, asyncOnly.getTotalStats().getLeases());
+        }
+    }
+
+    @Test
+    public void digestAuthentication() {
+        WebClientFactory factory = WebClientFactory.create();
+        ClientSettings settings = ClientSettings.builder()
+                .baseUrl(server.getBaseUrl() + HTTPServer.HTTP_DIGEST_AUTH + "/auth/poolUser/passwd/MD5")
+                .authorizationType(HttpAuthHeader.AUTH_TYPE_DIGEST)
+                .userName("poolUser")
+                .password("passwd")
+                .build();
+        for (int i = 0; i < 3; i++) {
+            Response response = factory.create(settings).get();
+            Assertions.assertEquals(200, response.getStatus());
+            response.readEntity(String.class);
+        }
+    }
+
+    @Test
+    public void redirection() {
+        WebClientFactory factory = WebClientFactory.create();
+        ClientSettings settings = ClientSettings.builder()
+                .baseUrl(server.getBaseUrl())
+                .autoRedirect(true)
+                .relativeRedirect(true)
+                .build();
+        Response response = factory.create(settings).path("redirect/2").get();
+        Assertions.assertEquals(200, response.getStatus());
+        response.readEntity(String.class);
+    }
+
+    /**
+     * Calls the base URL with a new factory, so a new pool.
+     */
+    private static ConnectionPoolStats calls(String baseUrl, boolean tls, int count) {
+        WebClientFactory factory = WebClientFactory.create();
+        ClientSettings settings = ClientSettings.builder()
+                .baseUrl(baseUrl)
+                .acceptAllCertificates(tls)
+                .disableCNCheck(tls)
+                .build();
+        ConnectionPoolStats before = manager.getStats().get(host(baseUrl));
+        for (int i = 0; i < count; i++) {
+            Response response = factory.create(settings).path("get").get();
+            Assertions.assertEquals(200, response.getStatus());
+            response.readEntity(String.class);
+        }
+        // The connection of the last response is released by an I/O reactor thread
+        final long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (manager.getStats().get(host(baseUrl)).getLeased() > 0 && System.nanoTime() - end < 0) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        ConnectionPoolStats after = manager.getStats().get(host(baseUrl));
+        return before == null ? after : new ConnectionPoolStats(after.getHost(), after.getLeased(),
+                after.getAvailable(), after.getPending(), after.getLeases() - before.getLeases(),
+                after.getReused() - before.getReused(), after.getConnects() - before.getConnects(),
+                after.getConnectFailures() - before.getConnectFailures(),
+                after.getTlsHandshakes() - before.getTlsHandshakes(),
+                after.getConnectNanos() - before.getConnectNanos(), after.getWaitNanos() - before.getWaitNanos());
+    }
+
+    private static String host(String url) {
+        URI uri = URI.create(url);
+        return uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+    }
+
+}
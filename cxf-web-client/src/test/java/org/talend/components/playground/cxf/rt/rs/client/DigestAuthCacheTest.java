@@ -0,0 +1,93 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import org.apache.cxf.configuration.security.AuthorizationPolicy;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transport.http.auth.HttpAuthHeader;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.talend.components.playground.cxf.authent.digest.DigestCache;
+import org.talend.components.playground.cxf.client.builder.ClientSettings;
+import org.talend.components.playground.cxf.client.builder.WebClientFactory;
+
+import javax.ws.rs.core.Response;
+import java.util.function.Supplier;
+
+/**
+ * Compare the CXF digest authentication, challenged on each new client, with the cached one
+ * sending preemptive Authorization headers, against the Jetty DigestAuthenticator.
+ */
+class DigestAuthCacheTest {
+
+    private final static int NB_CALLS = 1500;
+
+    private static Server server;
+
+    private static int port;
+
+    @BeforeAll
+    public static void beforeAll() throws Exception {
+        server = JettyWithDigestAuth.createServer(0);
+        server.start();
+        port = ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+    }
+
+    @AfterAll
+    public static void afterAll() throws Exception {
+        server.stop();
+    }
+
+    @Test
+    public void preemptiveDigest() {
+        DigestCache cache = new DigestCache();
+        WebClientFactory factory = WebClientFactory.builder().digestCache(cache).build();
+        ClientSettings settings = ClientSettings.builder()
+                .baseUrl("http://127.0.0.1:" + port)
+                .authorizationType(HttpAuthHeader.AUTH_TYPE_DIGEST)
+                .userName("plain")
+                .password("plain")
+                .build();
+
+        long withoutCache = run(() -> {
+            WebClient client = WebClient.create("http://127.0.0.1:" + port);
+            HTTPConduit httpConduit = WebClient.getConfig(client).getHttpConduit();
+            AuthorizationPolicy digestAuthPolicy = new AuthorizationPolicy();
+            digestAuthPolicy.setUserName("plain");
+            digestAuthPolicy.setPassword("plain");
+            digestAuthPolicy.setAuthorizationType(HttpAuthHeader.AUTH_TYPE_DIGEST);
+            httpConduit.setAuthorization(digestAuthPolicy);
+            return client;
+        });
+
+        long withCache = run(() -> factory.create(settings));
+
+        System.out.println(String.format("Digest, %s calls: without cache %s req/s, with cache %s req/s, challenges %s (stale %s), preemptive %s",
+                NB_CALLS, withoutCache, withCache, cache.getChallenges(), cache.getStaleChallenges(), cache.getPreemptive()));
+
+        // Only the first call is not preemptive, Jetty accepts a nonce for 1024 calls then sends a stale challenge
+        Assertions.assertEquals(NB_CALLS - 1, cache.getPreemptive());
+        Assertions.assertEquals(1, cache.getChallenges() - cache.getStaleChallenges());
+        Assertions.assertTrue(cache.getStaleChallenges() <= NB_CALLS / 1024, "Too many challenges: " + cache.getChallenges());
+    }
+
+    /**
+     * @return requests per second.
+     */
+    private static long run(Supplier<WebClient> supplier) {
+        long start = System.nanoTime();
+        for (int i = 0; i < NB_CALLS; i++) {
+            Response response = supplier.get().path("ok")
+                    .accept("application/json")
+                    .invoke("GET", null);
+            Assertions.assertEquals(200, response.getStatus());
+            Assertions.assertTrue(response.readEntity(String.class).contains("ok"));
+        }
+        long duration = System.nanoTime() - start;
+        return NB_CALLS * 1_000_000_000L / duration;
+    }
+
+}
@@ -0,0 +1,156 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Digest authentication as httpbin.org: /digest-auth/{qop}/{user}/{passwd}/{algorithm}.
+ * <p>
+ * The request body is hashed while it is read for auth-int, so big bodies can be sent.
+ * A nonce is accepted maxNonceCount times, then a stale challenge is sent.
+ */
+public class DigestAuthHandler implements HttpHandler {
+
+    private final static Pattern PARAM = Pattern.compile("(\\w+)=(?:\"([^\"]*)\"|([^,\\s]*))");
+
+    private final static String REALM = "me@kennethreitz.com";
+
+    private final int maxNonceCount;
+
+    private final Map<String, AtomicInteger> nonces = new ConcurrentHashMap<>();
+
+    private final AtomicInteger challenges = new AtomicInteger();
+
+    private final AtomicInteger authenticated = new AtomicInteger();
+
+    private final AtomicLong bodyBytes = new AtomicLong();
+
+    public DigestAuthHandler(int maxNonceCount) {
+        this.maxNonceCount = maxNonceCount;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        // /digest-auth/{qop}/{user}/{passwd}/{algorithm}
+        String[] path = exchange.getRequestURI().getPath().split("/");
+        String qop = path[2];
+        String user = path[3];
+        String passwd = path[4];
+        String algorithm = path.length > 5 ? path[5] : "MD5";
+
+        MessageDigest bodyDigest = digest(algorithm);
+        long size = 0;
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = exchange.getRequestBody()) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                bodyDigest.update(buffer, 0, n);
+                size += n;
+            }
+        }
+
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.startsWith("Digest ")) {
+            challenge(exchange, qop, algorithm, false);
+            return;
+        }
+
+        Map<String, String> params = new HashMap<>();
+        Matcher matcher = PARAM.matcher(authorization.substring("Digest ".length()));
+        while (matcher.find()) {
+            params.put(matcher.group(1), matcher.group(2) != null ? matcher.group(2) : matcher.group(3));
+        }
+
+        AtomicInteger count = nonces.get(params.get("nonce"));
+        if (count == null || count.incrementAndGet() > maxNonceCount) {
+            nonces.remove(params.get("nonce"));
+            challenge(exchange, qop, algorithm, count != null);
+            return;
+        }
+
+        String ha1 = hex(digest(algorithm), user + ":" + REALM + ":" + passwd);
+        String a2 = exchange.getRequestMethod() + ":" + params.get("uri");
+        if ("auth-int".equals(qop)) {
+            a2 += ":" + hex(bodyDigest.digest());
+        }
+        String ha2 = hex(digest(algorithm), a2);
+        String expected = hex(digest(algorithm), ha1 + ":" + params.get("nonce") + ":" + params.get("nc") + ":"
+                + params.get("cnonce") + ":" + params.get("qop") + ":" + ha2);
+
+        if (!user.equals(params.get("username")) || !qop.equals(params.get("qop")) || !expected.equals(params.get("response"))) {
+            challenge(exchange, qop, algorithm, false);
+            return;
+        }
+
+        authenticated.incrementAndGet();
+        bodyBytes.addAndGet(size);
+        byte[] response = String.format("{\"authenticated\": true, \"user\": \"%s\"}", user).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(response);
+        }
+    }
+
+    private void challenge(HttpExchange exchange, String qop, String algorithm, boolean stale) throws IOException {
+        challenges.incrementAndGet();
+        String nonce = UUID.randomUUID().toString().replace("-", "");
+        nonces.put(nonce, new AtomicInteger());
+        exchange.getResponseHeaders().add("WWW-Authenticate", String.format(
+                "Digest realm=\"%s\", nonce=\"%s\", qop=\"%s\", opaque=\"%s\", algorithm=%s, stale=%s",
+                REALM, nonce, qop, UUID.randomUUID().toString().replace("-", ""), algorithm, stale ? "TRUE" : "FALSE"));
+        exchange.sendResponseHeaders(401, -1);
+        exchange.close();
+    }
+
+    private static MessageDigest digest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static String hex(MessageDigest digest, String value) {
+        return hex(digest.digest(value.getBytes(StandardCharsets.ISO_8859_1)));
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    public int getChallenges() {
+        return challenges.get();
+    }
+
+    public int getAuthenticated() {
+        return authenticated.get();
+    }
+
+    /**
+     * @return size of the bodies of the authenticated requests.
+     */
+    public long getBodyBytes() {
+        return bodyBytes.get();
+    }
+
+}
@@ -0,0 +1,132 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Sends back the request as text: its URI, its headers ({@code name = value1,value2} lines) and its body.
+ * <p>
+ * Written for load tests: the response is built in a pooled buffer, without intermediate strings, and sent with its
+ * Content-Length, so the server keeps up with many clients.
+ */
+public class EchoHandler implements HttpHandler {
+
+    private final static byte[] QUERY = "QUERY:".getBytes(StandardCharsets.US_ASCII);
+
+    private final static byte[] HEADERS = "\n========== HEADERS =================================\n"
+            .getBytes(StandardCharsets.US_ASCII);
+
+    private final static byte[] BODY = "=========== BODY ================================\n"
+            .getBytes(StandardCharsets.US_ASCII);
+
+    private final static byte[] EQUALS = " = ".getBytes(StandardCharsets.US_ASCII);
+
+    private final static int BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * Buffers of the finished exchanges, one per thread in flight whatever the executor of the server.
+     */
+    private final ConcurrentLinkedQueue<Buffer> buffers = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        Buffer buffer = buffers.poll();
+        if (buffer == null) {
+            buffer = new Buffer();
+        }
+        try {
+            buffer.size = 0;
+            buffer.write(QUERY);
+            buffer.write(exchange.getRequestURI().toString());
+            buffer.write(HEADERS);
+            for (Map.Entry<String, List<String>> header : exchange.getRequestHeaders().entrySet()) {
+                buffer.write(header.getKey());
+                buffer.write(EQUALS);
+                List<String> values = header.getValue();
+                for (int i = 0; i < values.size(); i++) {
+                    if (i > 0) {
+                        buffer.write(',');
+                    }
+                    buffer.write(values.get(i));
+                }
+                buffer.write('\n');
+            }
+            buffer.write(BODY);
+            try (InputStream in = exchange.getRequestBody()) {
+                buffer.read(in);
+            }
+
+            exchange.sendResponseHeaders(200, buffer.size);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(buffer.bytes, 0, buffer.size);
+            }
+        } finally {
+            buffers.offer(buffer);
+        }
+    }
+
+    /**
+     * Growing byte array, kept at its largest size.
+     */
+    private final static class Buffer {
+
+        private byte[] bytes = new byte[BUFFER_SIZE];
+
+        private int size;
+
+        private void ensure(int length) {
+            if (size + length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+            }
+        }
+
+        private void write(int b) {
+            ensure(1);
+            bytes[size++] = (byte) b;
+        }
+
+        private void write(byte[] b) {
+            ensure(b.length);
+            System.arraycopy(b, 0, bytes, size, b.length);
+            size += b.length;
+        }
+
+        /**
+         * ASCII strings are copied char by char, the other ones encoded in UTF-8.
+         */
+        private void write(String s) {
+            final int length = s.length();
+            ensure(length);
+            for (int i = 0; i < length; i++) {
+                final char c = s.charAt(i);
+                if (c >= 0x80) {
+                    write(s.getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+                bytes[size + i] = (byte) c;
+            }
+            size += length;
+        }
+
+        private void read(InputStream in) throws IOException {
+            while (true) {
+                ensure(1);
+                final int n = in.read(bytes, size, bytes.length - size);
+                if (n == -1) {
+                    return;
+                }
+                size += n;
+            }
+        }
+    }
+
+}
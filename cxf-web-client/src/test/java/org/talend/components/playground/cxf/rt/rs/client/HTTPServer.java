@@ -1,34 +1,114 @@
 package org.talend.components.playground.cxf.rt.rs.client;
 
-import com.sun.net.httpserver.HttpExchange;
-import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
+import lombok.Value;
 
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.InputStream;
 import java.net.InetSocketAddress;
-import java.nio.charset.StandardCharsets;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * In-process server for the tests, with the httpbin.org endpoints of {@link HttpBinHandler}, so they run offline.
+ */
 public class HTTPServer {
 
     public final static String HTTP_ECHO = "/echo";
 
+    public final static String HTTP_DIGEST_AUTH = "/digest-auth";
+
+    public final static String HTTP_NTLM_AUTH = "/ntlm-auth";
+
+    public final static String HTTP_OAUTH2 = "/oauth2";
+
+    public final static String HTTP_RECORDS = "/records";
+
+    public final static String HTTP_PAGES = "/pages";
+
+    public final static String HTTP_UPLOAD = "/upload";
+
+    public final static String HTTP_STATIC = "/static";
+
+    /**
+     * By default, the digest nonces are stale after that count.
+     */
+    public final static int MAX_NONCE_COUNT = 1024;
+
+    /**
+     * By default, pending connections: the default of 50 resets connections under load tests.
+     */
+    public final static int BACKLOG = 1024;
+
+    /**
+     * By default, size of the payload of {@link #HTTP_STATIC}.
+     */
+    public final static int STATIC_SIZE = 1024;
+
+    /**
+     * Self-signed certificate for localhost and 127.0.0.1, used by the TLS servers.
+     */
+    public final static String KEYSTORE = "/localhost.p12";
+
+    public final static String KEYSTORE_PASSWORD = "changeit";
+
+    static {
+        // Responses are written as headers then body, with Nagle the body waits for the delayed ack of the client
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
     private HTTPServer() {
         /** Don't instantiate **/
     }
 
     public static TestHTTPServer createServer() {
+        return createServer(Config.builder().build());
+    }
+
+    public static TestHTTPServer createServer(int maxNonceCount) {
+        return createServer(Config.builder().maxNonceCount(maxNonceCount).build());
+    }
+
+    public static TestHTTPServer createServer(Config config) {
         try {
-            HttpServer server = HttpServer.create(new InetSocketAddress(0), 0);
+            HttpServer server;
+            if (config.isTls()) {
+                HttpsServer httpsServer = HttpsServer.create(new InetSocketAddress(0), config.getBacklog());
+                httpsServer.setHttpsConfigurator(new HttpsConfigurator(sslContext()));
+                server = httpsServer;
+            } else {
+                server = HttpServer.create(new InetSocketAddress(0), config.getBacklog());
+            }
+            if (config.isVirtualThreads()) {
+                server.setExecutor(newVirtualThreadPerTaskExecutor());
+            } else if (config.getThreads() > 0) {
+                server.setExecutor(Executors.newFixedThreadPool(config.getThreads(), r -> {
+                    Thread thread = new Thread(r, "test-http-server");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+            }
             int port = server.getAddress().getPort();
 
-            configureServer(server);
+            DigestAuthHandler digestAuth = new DigestAuthHandler(config.getMaxNonceCount());
+            NtlmAuthHandler ntlmAuth = new NtlmAuthHandler();
+            OAuth2Handler oauth2 = new OAuth2Handler();
+            PagesHandler pages = new PagesHandler(config);
+            HttpBinHandler httpBin = new HttpBinHandler(config);
+            configureServer(server, config, digestAuth, ntlmAuth, oauth2, pages, httpBin);
 
-            return new TestHTTPServer(server, port);
+            return new TestHTTPServer(server, port, digestAuth, ntlmAuth, oauth2, pages, httpBin, config);
         } catch (IOException e) {
             System.err.println(String.format("Can't start the test HTTP server from %s : %s",
                     HTTPServer.class.getName(), e.getMessage()));
@@ -36,34 +116,149 @@ public class HTTPServer {
         }
     }
 
-    private static void configureServer(HttpServer server) {
-        simpleContext(server);
+    /**
+     * @return an SSLContext with the self-signed certificate as key and as trusted certificate.
+     */
+    public static SSLContext sslContext() {
+        try {
+            KeyStore keyStore = keyStore();
+            KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            kmf.init(keyStore, KEYSTORE_PASSWORD.toCharArray());
+
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(kmf.getKeyManagers(), trustManagers(), null);
+            return sslContext;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Can't load the test server certificate", e);
+        }
+    }
+
+    /**
+     * @return trust managers trusting the self-signed certificate, for the clients validating it.
+     */
+    public static TrustManager[] trustManagers() {
+        try {
+            TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            tmf.init(keyStore());
+            return tmf.getTrustManagers();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Can't load the test server certificate", e);
+        }
+    }
+
+    private static KeyStore keyStore() throws GeneralSecurityException {
+        try (InputStream in = HTTPServer.class.getResourceAsStream(KEYSTORE)) {
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            keyStore.load(in, KEYSTORE_PASSWORD.toCharArray());
+            return keyStore;
+        } catch (IOException e) {
+            throw new IllegalStateException("Can't read " + KEYSTORE, e);
+        }
     }
 
-    private static void simpleContext(HttpServer server) {
-        server.createContext(HTTP_ECHO, new HttpHandler() {
+    /**
+     * Compiled for Java 9, so Executors.newVirtualThreadPerTaskExecutor() is called by reflection.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual threads need Java 21+, current version: " + Runtime.version());
+        }
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Can't create the virtual thread executor", e);
+        }
+    }
 
-            @Override
-            public void handle(HttpExchange exchange) throws IOException {
-                String content = ResourcesUtils.getString(exchange.getRequestBody());
+    private static void configureServer(HttpServer server, Config config, DigestAuthHandler digestAuth,
+                                        NtlmAuthHandler ntlmAuth, OAuth2Handler oauth2, PagesHandler pages,
+                                        HttpBinHandler httpBin) {
+        server.createContext(HTTP_ECHO, new EchoHandler());
+        server.createContext(HTTP_STATIC, new StaticHandler(config));
+        server.createContext(HTTP_DIGEST_AUTH, digestAuth);
+        server.createContext(HTTP_NTLM_AUTH, ntlmAuth);
+        server.createContext(HTTP_OAUTH2, oauth2);
+        server.createContext(HTTP_RECORDS, new RecordsHandler());
+        server.createContext(HTTP_PAGES, pages);
+        server.createContext(HTTP_UPLOAD, new UploadHandler());
+        server.createContext("/", httpBin);
+    }
 
-                Map<String, String> headers = exchange.getRequestHeaders().entrySet().stream().collect(Collectors.toMap(e -> e.getKey(), e -> {
-                    return e.getValue().stream().collect(Collectors.joining(","));
-                }));
+    /**
+     * Options of the test server.
+     */
+    @Value
+    @Builder
+    public static class Config {
 
-                StringBuilder sb = new StringBuilder();
-                sb.append("QUERY:").append(exchange.getRequestURI()).append("\n");
-                sb.append("========== HEADERS =================================\n");
-                headers.entrySet().forEach(e -> sb.append(e.getKey()+ " = " + e.getValue()+"\n"));
-                sb.append("=========== BODY ================================\n");
-                sb.append(content);
-
-                exchange.sendResponseHeaders(200, 0);
-                OutputStream os = exchange.getResponseBody();
-                os.write(sb.toString().getBytes(StandardCharsets.UTF_8));
-                os.close();
-            }
-        });
+        @Builder.Default
+        int maxNonceCount = MAX_NONCE_COUNT;
+
+        /**
+         * HTTPS with the self-signed certificate of {@link #KEYSTORE}.
+         */
+        boolean tls;
+
+        /**
+         * Latency in ms added to the httpbin endpoints and pages responses.
+         */
+        long latency;
+
+        /**
+         * Size of a padding field added to the httpbin endpoints JSON responses.
+         */
+        int payloadSize;
+
+        /**
+         * Threads handling the exchanges and their TLS handshakes, 0 for the dispatcher thread only.
+         */
+        int threads;
+
+        /**
+         * Handles each exchange in its own virtual thread instead, needs Java 21+.
+         */
+        boolean virtualThreads;
+
+        /**
+         * Pending connections not accepted yet.
+         */
+        @Builder.Default
+        int backlog = BACKLOG;
+
+        /**
+         * Size of the payload of {@link #HTTP_STATIC}.
+         */
+        @Builder.Default
+        int staticSize = STATIC_SIZE;
+
+        /**
+         * Fault injection: part of the httpbin requests answered with a 503, from 0 to 1.
+         */
+        double errorRate;
+
+        /**
+         * Fault injection: part of the httpbin requests stalled for {@link #stall} ms, from 0 to 1.
+         */
+        double stallRate;
+
+        long stall;
+
+        /**
+         * Throttling: httpbin requests per second above which the requests are answered with a 429 and a Retry-After,
+         * 0 for no limit.
+         */
+        double throttleRate;
+
+        /**
+         * Throttling: httpbin requests in progress above which the requests are answered with a 503, 0 for no limit.
+         */
+        int throttleConcurrency;
+
+        /**
+         * Seed of the fault injection, 0 for a random one. With a seed, sequential requests get the same faults
+         * from one run to the next.
+         */
+        long seed;
     }
 
     @Data
@@ -73,6 +268,25 @@ public class HTTPServer {
         private HttpServer httpServer;
 
         private int port;
+
+        private DigestAuthHandler digestAuth;
+
+        private NtlmAuthHandler ntlmAuth;
+
+        private OAuth2Handler oauth2;
+
+        private PagesHandler pages;
+
+        private HttpBinHandler httpBin;
+
+        private Config config;
+
+        /**
+         * @return http(s)://localhost:port
+         */
+        public String getBaseUrl() {
+            return (config.isTls() ? "https" : "http") + "://localhost:" + port;
+        }
     }
 
 }
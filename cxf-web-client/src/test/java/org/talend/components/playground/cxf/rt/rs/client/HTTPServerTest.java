@@ -0,0 +1,132 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The echo and static handlers, and the executor options of the test server under load.
+ */
+class HTTPServerTest {
+
+    private final static HTTPServer.TestHTTPServer server = HTTPServer.createServer(HTTPServer.Config.builder()
+            .threads(8)
+            .staticSize(100)
+            .build());
+
+    @BeforeAll
+    public static void beforeAll() {
+        server.getHttpServer().start();
+    }
+
+    @AfterAll
+    public static void afterAll() {
+        server.getHttpServer().stop(0);
+    }
+
+    @Test
+    public void echo() {
+        Response response = WebClient.create(server.getBaseUrl() + HTTPServer.HTTP_ECHO)
+                .path("post").query("q", "a b")
+                .header("X-Multi", "v1", "v2")
+                .type(MediaType.TEXT_PLAIN_TYPE)
+                .post("p\u00e9ter\nline 2");
+        Assertions.assertEquals(200, response.getStatus());
+        Assertions.assertNull(response.getHeaderString("Transfer-Encoding"));
+        String body = response.readEntity(String.class);
+        Assertions.assertEquals(body.getBytes(StandardCharsets.UTF_8).length, response.getLength());
+        Assertions.assertTrue(body.startsWith("QUERY:/echo/post?q=a+b\n====="), body);
+        Assertions.assertTrue(body.contains("\nX-multi = v1,v2\n"), body);
+        Assertions.assertTrue(body.endsWith("=\np\u00e9ter\nline 2"), body);
+    }
+
+    @Test
+    public void staticPayload() {
+        for (int i = 0; i < 3; i++) {
+            Response response = WebClient.create(server.getBaseUrl() + HTTPServer.HTTP_STATIC).post("ignored");
+            Assertions.assertEquals(200, response.getStatus());
+            Assertions.assertEquals(100, response.getLength());
+            Assertions.assertEquals("text/plain", response.getMediaType().toString());
+            Assertions.assertTrue(response.readEntity(String.class).startsWith("abcdefghijklmnopqrstuvwxyzabc"));
+        }
+    }
+
+    @Test
+    public void virtualThreads() {
+        if (Runtime.version().feature() < 21) {
+            Assertions.assertThrows(IllegalStateException.class,
+                    () -> HTTPServer.createServer(HTTPServer.Config.builder().virtualThreads(true).build()));
+        }
+        Assumptions.assumeTrue(Runtime.version().feature() >= 21, "Virtual threads need Java 21+");
+
+        HTTPServer.TestHTTPServer virtual = HTTPServer.createServer(HTTPServer.Config.builder()
+                .virtualThreads(true)
+                .build());
+        virtual.getHttpServer().start();
+        try {
+            Assertions.assertEquals(1024, WebClient.create(virtual.getBaseUrl() + HTTPServer.HTTP_STATIC).get()
+                    .readEntity(String.class).length());
+        } finally {
+            virtual.getHttpServer().stop(0);
+        }
+    }
+
+    /**
+     * Plain HttpURLConnection clients, the cheapest ones, to see how many requests the server sustains.
+     */
+    @Test
+    public void throughput() throws Exception {
+        int clients = 16;
+        long duration = TimeUnit.SECONDS.toNanos(2);
+        URL url = new URL(server.getBaseUrl() + HTTPServer.HTTP_STATIC);
+        AtomicLong requests = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            long end = System.nanoTime() + duration;
+            for (int i = 0; i < clients; i++) {
+                futures.add(executor.submit(() -> {
+                    byte[] buffer = new byte[1024];
+                    while (System.nanoTime() < end) {
+                        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+                        Assertions.assertEquals(200, connection.getResponseCode());
+                        // Read to the end, so the connection is kept alive
+                        try (InputStream in = connection.getInputStream()) {
+                            while (in.read(buffer) != -1) {
+                                // Skip
+                            }
+                        }
+                        requests.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assertions.assertTrue(requests.get() > 0);
+        System.out.println(String.format("%s clients: %s req/s on %s", clients,
+                requests.get() * TimeUnit.SECONDS.toNanos(1) / duration, HTTPServer.HTTP_STATIC));
+    }
+
+}
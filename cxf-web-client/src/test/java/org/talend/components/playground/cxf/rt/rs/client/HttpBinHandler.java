@@ -0,0 +1,470 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpsExchange;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The httpbin.org endpoints used by the tests, so they run offline:
+ * <ul>
+ *     <li>/get, /post, /put, /patch, /delete, /anything: the request as JSON (args, headers, data, form, json, url)</li>
+ *     <li>/redirect/{n}, /relative-redirect/{n}: n relative redirections to /get</li>
+ *     <li>/absolute-redirect/{n}: n absolute redirections to /get</li>
+ *     <li>/redirect-to?url=...&amp;status_code=...: a redirection to url, 302 by default</li>
+ *     <li>/basic-auth/{user}/{passwd}: basic authentication</li>
+ *     <li>/bytes/{n}: n generated bytes</li>
+ *     <li>/response-headers: the query parameters as response headers, Connection=close closes the connection</li>
+ *     <li>/cache: a 304 for the requests with If-Modified-Since or If-None-Match, else /get with Last-Modified and ETag</li>
+ *     <li>/cache/{n}: /get with Cache-Control: public, max-age=n</li>
+ *     <li>/etag/{etag}: a 304 when If-None-Match has etag, else /get with this ETag</li>
+ *     <li>/status/{code}: an empty response with this status</li>
+ *     <li>/gzip, /deflate: /get compressed with this Content-Encoding</li>
+ * </ul>
+ * Latency and payload size can be injected for all these requests with {@link HTTPServer.Config},
+ * or for one request with the latency (ms) and payload (bytes) query parameters.
+ * The latency doesn't hold the server thread: a scheduler hands the exchange back to the executor of the server once
+ * the latency is over, or to a thread of its own when the server has no executor.
+ * Faults are injected with {@link HTTPServer.Config}: random 503 responses (errorRate) and stalls (stallRate, stall).
+ * The requests over throttleRate per second are answered with a 429 and a Retry-After, the ones over
+ * throttleConcurrency in progress with a 503, see {@link #getThrottled()}.
+ * The gzip and deflate request bodies are decoded before being sent back.
+ * The requests received and the redirections sent are counted, see {@link #getRequests()} and {@link #getRedirects()}.
+ */
+public class HttpBinHandler implements HttpHandler {
+
+    public final static String LATENCY_PARAM = "latency";
+
+    public final static String PAYLOAD_PARAM = "payload";
+
+    private final static ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "httpbin-latency");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final HTTPServer.Config config;
+
+    private final static String LAST_MODIFIED = "Wed, 21 Oct 2015 07:28:00 GMT";
+
+    private final Random random;
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private final AtomicInteger redirects = new AtomicInteger();
+
+    private final AtomicInteger throttled = new AtomicInteger();
+
+    private final AtomicInteger inProgress = new AtomicInteger();
+
+    private double tokens;
+
+    private long refilledAt = System.nanoTime();
+
+    public HttpBinHandler(HTTPServer.Config config) {
+        this.config = config;
+        this.random = config.getSeed() == 0 ? new Random() : new Random(config.getSeed());
+        this.tokens = Math.max(1, config.getThrottleRate() / 10);
+    }
+
+    public int getRequests() {
+        return requests.get();
+    }
+
+    public int getRedirects() {
+        return redirects.get();
+    }
+
+    public int getThrottled() {
+        return throttled.get();
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        if (config.getThrottleRate() > 0) {
+            final long retryAfter = takeToken();
+            if (retryAfter > 0) {
+                throttled.incrementAndGet();
+                exchange.getResponseHeaders().add("Retry-After", String.valueOf(retryAfter));
+                send(exchange, 429, null);
+                return;
+            }
+        }
+        if (config.getThrottleConcurrency() > 0 && inProgress.incrementAndGet() > config.getThrottleConcurrency()) {
+            inProgress.decrementAndGet();
+            throttled.incrementAndGet();
+            send(exchange, 503, null);
+            return;
+        }
+
+        final JSONObject args = args(exchange.getRequestURI());
+        long latency = args.has(LATENCY_PARAM) ? Long.parseLong(args.getString(LATENCY_PARAM)) : config.getLatency();
+        if (config.getStallRate() > 0 && random.nextDouble() < config.getStallRate()) {
+            latency += config.getStall();
+        }
+        final boolean error = config.getErrorRate() > 0 && random.nextDouble() < config.getErrorRate();
+        if (latency <= 0) {
+            try {
+                route(exchange, args, error);
+            } finally {
+                done();
+            }
+            return;
+        }
+
+        final Executor executor = executor(exchange);
+        scheduler.schedule(() -> {
+            try {
+                executor.execute(() -> {
+                    try {
+                        route(exchange, args, error);
+                    } catch (IOException | RuntimeException e) {
+                        exchange.close();
+                    } finally {
+                        done();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Server stopped
+                exchange.close();
+                done();
+            }
+        }, latency, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the executor of the server, else a thread per response: the dispatcher thread can't be handed back to.
+     */
+    private static Executor executor(HttpExchange exchange) {
+        final Executor executor = exchange.getHttpContext().getServer().getExecutor();
+        if (executor != null) {
+            return executor;
+        }
+        return command -> {
+            Thread thread = new Thread(command, "httpbin-latency-response");
+            thread.setDaemon(true);
+            thread.start();
+        };
+    }
+
+    private void done() {
+        if (config.getThrottleConcurrency() > 0) {
+            inProgress.decrementAndGet();
+        }
+    }
+
+    /**
+     * Token bucket of throttleRate, with a burst of a tenth of a second.
+     *
+     * @return 0 when a token was taken, else the seconds before the next one.
+     */
+    private synchronized long takeToken() {
+        final double rate = config.getThrottleRate();
+        final double burst = Math.max(1, rate / 10);
+        final long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - refilledAt) * rate / TimeUnit.SECONDS.toNanos(1));
+        refilledAt = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1 - tokens) / rate));
+    }
+
+    private void route(HttpExchange exchange, JSONObject args, boolean error) throws IOException {
+        if (error) {
+            send(exchange, 503, null);
+            return;
+        }
+        // /{endpoint}/{params...}
+        final String[] path = exchange.getRequestURI().getPath().split("/");
+        final String endpoint = path.length > 1 ? path[1] : "";
+        final String method = exchange.getRequestMethod();
+
+        switch (endpoint) {
+            case "get":
+            case "post":
+            case "put":
+            case "patch":
+            case "delete":
+                if (!endpoint.equalsIgnoreCase(method) && !("get".equals(endpoint) && "HEAD".equals(method))) {
+                    send(exchange, 405, null);
+                    return;
+                }
+                sendJson(exchange, request(exchange, args), args);
+                return;
+            case "anything":
+                sendJson(exchange, request(exchange, args).put("method", method), args);
+                return;
+            case "redirect":
+            case "relative-redirect":
+                redirect(exchange, path, "/relative-redirect/", false);
+                return;
+            case "absolute-redirect":
+                redirect(exchange, path, "/absolute-redirect/", true);
+                return;
+            case "redirect-to":
+                redirectTo(exchange, args);
+                return;
+            case "basic-auth":
+                basicAuth(exchange, path, args);
+                return;
+            case "bytes":
+                bytes(exchange, Integer.parseInt(path[2]));
+                return;
+            case "response-headers":
+                responseHeaders(exchange, args);
+                sendJson(exchange, args, args);
+                return;
+            case "cache":
+                cache(exchange, path, args);
+                return;
+            case "etag":
+                etag(exchange, path[2], args);
+                return;
+            case "status":
+                send(exchange, Integer.parseInt(path[2]), null);
+                return;
+            case "gzip":
+            case "deflate":
+                compressed(exchange, endpoint, request(exchange, args).put(endpoint + "ped", true), args);
+                return;
+            default:
+                send(exchange, 404, null);
+        }
+    }
+
+    private JSONObject request(HttpExchange exchange, JSONObject args) throws IOException {
+        // Closed once the response is sent
+        final String body = new String(decode(exchange).readAllBytes(), StandardCharsets.UTF_8);
+
+        JSONObject headers = new JSONObject();
+        exchange.getRequestHeaders().forEach((k, v) -> headers.put(k, String.join(",", v)));
+
+        JSONObject json = new JSONObject()
+                .put("args", args)
+                .put("headers", headers)
+                .put("origin", exchange.getRemoteAddress().getAddress().getHostAddress())
+                .put("url", baseUrl(exchange) + exchange.getRequestURI());
+
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            String type = exchange.getRequestHeaders().getFirst("Content-Type");
+            JSONObject form = new JSONObject();
+            Object jsonBody = JSONObject.NULL;
+            String data = body;
+            if (type != null && type.startsWith("application/x-www-form-urlencoded")) {
+                form = params(body);
+                data = "";
+            } else if (type != null && type.startsWith("application/json") && !body.isEmpty()) {
+                jsonBody = body.trim().startsWith("[") ? new JSONArray(body) : new JSONObject(body);
+            }
+            json.put("data", data).put("form", form).put("json", jsonBody);
+        }
+        return json;
+    }
+
+    private static InputStream decode(HttpExchange exchange) throws IOException {
+        final String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        if ("gzip".equalsIgnoreCase(encoding)) {
+            return new GZIPInputStream(exchange.getRequestBody());
+        }
+        if ("deflate".equalsIgnoreCase(encoding)) {
+            return new InflaterInputStream(exchange.getRequestBody());
+        }
+        return exchange.getRequestBody();
+    }
+
+    private void compressed(HttpExchange exchange, String encoding, JSONObject json, JSONObject args) throws IOException {
+        payload(json, args);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = "gzip".equals(encoding) ? new GZIPOutputStream(bytes) : new DeflaterOutputStream(bytes)) {
+            out.write(json.toString(2).getBytes(StandardCharsets.UTF_8));
+        }
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.getResponseHeaders().add("Content-Encoding", encoding);
+        send(exchange, 200, bytes.toByteArray());
+    }
+
+    private void redirect(HttpExchange exchange, String[] path, String next, boolean absolute) throws IOException {
+        int n = Integer.parseInt(path[2]);
+        String location = n <= 1 ? "/get" : next + (n - 1);
+        if (absolute) {
+            location = baseUrl(exchange) + location;
+        }
+        exchange.getResponseHeaders().add("Location", location);
+        redirects.incrementAndGet();
+        send(exchange, 302, null);
+    }
+
+    private void redirectTo(HttpExchange exchange, JSONObject args) throws IOException {
+        int status = args.has("status_code") ? Integer.parseInt(args.getString("status_code")) : 302;
+        exchange.getResponseHeaders().add("Location", args.getString("url"));
+        redirects.incrementAndGet();
+        send(exchange, status, null);
+    }
+
+    private void cache(HttpExchange exchange, String[] path, JSONObject args) throws IOException {
+        if (path.length > 2) {
+            exchange.getResponseHeaders().add("Cache-Control", "public, max-age=" + path[2]);
+        } else if (exchange.getRequestHeaders().containsKey("If-Modified-Since")
+                || exchange.getRequestHeaders().containsKey("If-None-Match")) {
+            send(exchange, 304, null);
+            return;
+        } else {
+            exchange.getResponseHeaders().add("Last-Modified", LAST_MODIFIED);
+            exchange.getResponseHeaders().add("ETag", "\"cache\"");
+        }
+        sendJson(exchange, request(exchange, args), args);
+    }
+
+    private void etag(HttpExchange exchange, String etag, JSONObject args) throws IOException {
+        final String quoted = '"' + etag + '"';
+        exchange.getResponseHeaders().add("ETag", quoted);
+        final String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null && (ifNoneMatch.contains(quoted) || ifNoneMatch.trim().equals("*"))) {
+            send(exchange, 304, null);
+            return;
+        }
+        sendJson(exchange, request(exchange, args), args);
+    }
+
+    private void basicAuth(HttpExchange exchange, String[] path, JSONObject args) throws IOException {
+        String user = path[2];
+        String passwd = path[3];
+        String expected = "Basic " + Base64.getEncoder().encodeToString((user + ":" + passwd).getBytes(StandardCharsets.UTF_8));
+        if (!expected.equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+            exchange.getResponseHeaders().add("WWW-Authenticate", "Basic realm=\"Fake Realm\"");
+            send(exchange, 401, null);
+            return;
+        }
+        sendJson(exchange, new JSONObject().put("authenticated", true).put("user", user), args);
+    }
+
+    private static void responseHeaders(HttpExchange exchange, JSONObject args) {
+        for (String name : args.keySet()) {
+            Object value = args.get(name);
+            if (value instanceof JSONArray) {
+                ((JSONArray) value).forEach(v -> exchange.getResponseHeaders().add(name, v.toString()));
+            } else {
+                exchange.getResponseHeaders().add(name, value.toString());
+            }
+        }
+    }
+
+    private void bytes(HttpExchange exchange, int size) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+        exchange.sendResponseHeaders(200, size == 0 ? -1 : size);
+        try (OutputStream os = exchange.getResponseBody()) {
+            byte[] buffer = new byte[Math.min(size, 64 * 1024)];
+            for (int i = 0; i < buffer.length; i++) {
+                buffer[i] = (byte) (i % 251);
+            }
+            for (int remaining = size; remaining > 0; remaining -= buffer.length) {
+                os.write(buffer, 0, Math.min(remaining, buffer.length));
+            }
+        }
+    }
+
+    private void sendJson(HttpExchange exchange, JSONObject json, JSONObject args) throws IOException {
+        payload(json, args);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        send(exchange, 200, json.toString(2).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void payload(JSONObject json, JSONObject args) {
+        int payload = args.has(PAYLOAD_PARAM) ? Integer.parseInt(args.getString(PAYLOAD_PARAM)) : config.getPayloadSize();
+        if (payload > 0) {
+            StringBuilder sb = new StringBuilder(payload);
+            while (sb.length() < payload) {
+                sb.append((char) ('a' + sb.length() % 26));
+            }
+            json.put("payload", sb.toString());
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        // Consume the request body, or the connection can't be reused
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[8192];
+            while (in.read(buffer) != -1) {
+                // Skip
+            }
+        }
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    /**
+     * @return query parameters as httpbin: a String for one value, an array for many.
+     */
+    private static JSONObject args(URI uri) {
+        return params(uri.getRawQuery());
+    }
+
+    private static JSONObject params(String encoded) {
+        JSONObject params = new JSONObject();
+        if (encoded == null || encoded.isEmpty()) {
+            return params;
+        }
+        for (String param : encoded.split("&")) {
+            int eq = param.indexOf('=');
+            String name = decode(eq < 0 ? param : param.substring(0, eq));
+            String value = eq < 0 ? "" : decode(param.substring(eq + 1));
+            if (!params.has(name)) {
+                params.put(name, value);
+            } else if (params.get(name) instanceof JSONArray) {
+                params.getJSONArray(name).put(value);
+            } else {
+                params.put(name, new JSONArray().put(params.get(name)).put(value));
+            }
+        }
+        return params;
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String baseUrl(HttpExchange exchange) {
+        List<String> host = exchange.getRequestHeaders().get("Host");
+        String scheme = exchange instanceof HttpsExchange ? "https" : "http";
+        return scheme + "://" + (host == null || host.isEmpty()
+                ? "localhost:" + exchange.getLocalAddress().getPort() : host.get(0));
+    }
+
+}
@@ -0,0 +1,81 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import org.apache.cxf.configuration.jsse.TLSClientParameters;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.ws.rs.core.Response;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The httpbin stand-in: injected latency and payload, TLS with the self-signed certificate.
+ */
+class HttpBinHandlerTest {
+
+    private final static HTTPServer.TestHTTPServer server = HTTPServer.createServer(HTTPServer.Config.builder()
+            .latency(100)
+            .payloadSize(10000)
+            .build());
+
+    private final static HTTPServer.TestHTTPServer tlsServer = HTTPServer.createServer(HTTPServer.Config.builder()
+            .tls(true)
+            .build());
+
+    @BeforeAll
+    public static void beforeAll() {
+        server.getHttpServer().start();
+        tlsServer.getHttpServer().start();
+    }
+
+    @AfterAll
+    public static void afterAll() {
+        server.getHttpServer().stop(0);
+        tlsServer.getHttpServer().stop(0);
+    }
+
+    @Test
+    public void injectedLatencyAndPayload() {
+        long start = System.nanoTime();
+        JSONObject json = get(WebClient.create(server.getBaseUrl()).path("get").query("name", "Peter"));
+        Assertions.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+        Assertions.assertEquals(10000, json.getString("payload").length());
+        Assertions.assertEquals("Peter", json.getJSONObject("args").getString("name"));
+
+        // Overridden by the query
+        start = System.nanoTime();
+        json = get(WebClient.create(server.getBaseUrl()).path("get")
+                .query(HttpBinHandler.LATENCY_PARAM, 0)
+                .query(HttpBinHandler.PAYLOAD_PARAM, 0));
+        Assertions.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100));
+        Assertions.assertFalse(json.has("payload"));
+    }
+
+    @Test
+    public void bytes() {
+        Response response = WebClient.create(server.getBaseUrl()).path("bytes/{n}", 100000).get();
+        Assertions.assertEquals(200, response.getStatus());
+        Assertions.assertEquals(100000, response.readEntity(byte[].class).length);
+    }
+
+    @Test
+    public void tlsWithTrustedCertificate() {
+        WebClient client = WebClient.create(tlsServer.getBaseUrl());
+        TLSClientParameters params = new TLSClientParameters();
+        params.setTrustManagers(HTTPServer.trustManagers());
+        WebClient.getConfig(client).getHttpConduit().setTlsClientParameters(params);
+
+        JSONObject json = get(client.path("get"));
+        Assertions.assertEquals(tlsServer.getBaseUrl() + "/get", json.getString("url"));
+    }
+
+    private static JSONObject get(WebClient client) {
+        Response response = client.accept("application/json").get();
+        Assertions.assertEquals(200, response.getStatus());
+        return new JSONObject(response.readEntity(String.class));
+    }
+
+}
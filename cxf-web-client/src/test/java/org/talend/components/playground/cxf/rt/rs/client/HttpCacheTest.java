@@ -0,0 +1,213 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.talend.components.playground.cxf.client.builder.AsyncWebClients;
+import org.talend.components.playground.cxf.client.builder.ClientSettings;
+import org.talend.components.playground.cxf.client.builder.HttpCache;
+import org.talend.components.playground.cxf.client.builder.WebClientFactory;
+
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * GET calls to the cache endpoints of the server with the {@link HttpCache}, counting the requests it receives.
+ */
+class HttpCacheTest {
+
+    private final static HTTPServer.TestHTTPServer server = HTTPServer.createServer();
+
+    private final static ClientSettings SETTINGS = ClientSettings.builder()
+            .baseUrl(server.getBaseUrl())
+            .build();
+
+    @BeforeAll
+    public static void beforeAll() {
+        server.getHttpServer().start();
+    }
+
+    @AfterAll
+    public static void afterAll() {
+        server.getHttpServer().stop(0);
+    }
+
+    @Test
+    public void freshResponsesAreReplayed() {
+        HttpCache cache = HttpCache.create();
+        WebClientFactory factory = factory(cache);
+
+        int requests = server.getHttpBin().getRequests();
+        JSONObject first = get(factory.create(SETTINGS).path("/cache/60").query("q", "simpleGet"));
+        Assertions.assertEquals(requests + 1, server.getHttpBin().getRequests());
+        Assertions.assertEquals(1, cache.size());
+
+        for (int i = 0; i < 5; i++) {
+            Response response = factory.create(SETTINGS).path("/cache/60").query("q", "simpleGet").get();
+            Assertions.assertEquals(200, response.getStatus());
+            Assertions.assertEquals("application/json", response.getMediaType().toString());
+            Assertions.assertEquals(first.toString(), new JSONObject(response.readEntity(String.class)).toString());
+        }
+        // Same for the async calls
+        Response async = AsyncWebClients.invoke(factory.create(SETTINGS).path("/cache/60").query("q", "simpleGet"),
+                "GET", null).toCompletableFuture().join();
+        Assertions.assertEquals(first.toString(), new JSONObject(async.readEntity(String.class)).toString());
+
+        Assertions.assertEquals(requests + 1, server.getHttpBin().getRequests());
+        Assertions.assertEquals(6, cache.getHits());
+        Assertions.assertEquals(1, cache.getMisses());
+        Assertions.assertEquals(6.0 / 7, cache.getHitRatio(), 0.001);
+        Assertions.assertEquals(6 * cache.getMemoryBytes(), cache.getBytesSaved());
+    }
+
+    @Test
+    public void staleResponsesAreRevalidated() {
+        HttpCache cache = HttpCache.create();
+        WebClientFactory factory = factory(cache);
+
+        int requests = server.getHttpBin().getRequests();
+        JSONObject first = get(factory.create(SETTINGS).path("/etag/v1"));
+        for (int i = 0; i < 3; i++) {
+            Response response = factory.create(SETTINGS).path("/etag/v1").get();
+            Assertions.assertEquals(200, response.getStatus());
+            Assertions.assertEquals("\"v1\"", response.getHeaderString("ETag"));
+            Assertions.assertEquals(first.toString(), new JSONObject(response.readEntity(String.class)).toString());
+        }
+        // Last-Modified only
+        get(factory.create(SETTINGS).path("/cache"));
+        Assertions.assertEquals(200, factory.create(SETTINGS).path("/cache").get().getStatus());
+
+        Assertions.assertEquals(requests + 6, server.getHttpBin().getRequests());
+        Assertions.assertEquals(0, cache.getHits());
+        Assertions.assertEquals(4, cache.getRevalidations());
+        Assertions.assertEquals(2, cache.getMisses());
+
+        // The caller's own conditional request isn't answered by the cache
+        Assertions.assertEquals(304, factory.create(SETTINGS).path("/etag/v1").header("If-None-Match", "\"v1\"")
+                .get().getStatus());
+    }
+
+    @Test
+    public void cacheControlIsHonored() {
+        HttpCache cache = HttpCache.create();
+        WebClientFactory factory = factory(cache);
+
+        get(factory.create(SETTINGS).path("/response-headers").query("Cache-Control", "no-store, max-age=60"));
+        Assertions.assertEquals(0, cache.size());
+        get(factory.create(SETTINGS).path("/response-headers").query("Cache-Control", "max-age=0"));
+        Assertions.assertEquals(0, cache.size());
+
+        int requests = server.getHttpBin().getRequests();
+        get(factory.create(SETTINGS).path("/cache/60"));
+        get(factory.create(SETTINGS).path("/cache/60"));
+        Assertions.assertEquals(requests + 1, server.getHttpBin().getRequests());
+        // Forced by the request
+        get(factory.create(SETTINGS).path("/cache/60").header("Cache-Control", "no-cache"));
+        Assertions.assertEquals(requests + 2, server.getHttpBin().getRequests());
+        // Invalidated by another method
+        Assertions.assertEquals(200, factory.create(SETTINGS).path("/cache/60").post("").getStatus());
+        get(factory.create(SETTINGS).path("/cache/60"));
+        Assertions.assertEquals(requests + 4, server.getHttpBin().getRequests());
+
+        // Varies on a request header
+        WebClient tenant = factory.create(SETTINGS).path("/response-headers")
+                .query("Cache-Control", "max-age=60").query("Vary", "X-Tenant");
+        requests = server.getHttpBin().getRequests();
+        get(WebClient.fromClient(tenant).header("X-Tenant", "a"));
+        get(WebClient.fromClient(tenant).header("X-Tenant", "a"));
+        Assertions.assertEquals(requests + 1, server.getHttpBin().getRequests());
+        get(WebClient.fromClient(tenant).header("X-Tenant", "b"));
+        get(WebClient.fromClient(tenant).header("X-Tenant", "a").header("Authorization", "Basic dXNlcjpwYXNzd2Q="));
+        Assertions.assertEquals(requests + 3, server.getHttpBin().getRequests());
+    }
+
+    @Test
+    public void requestMaxAgeIsHonored() {
+        HttpCache cache = HttpCache.create();
+        WebClientFactory factory = factory(cache);
+
+        // Fresh for 60s, already 30s old
+        WebClient aged = factory.create(SETTINGS).path("/response-headers")
+                .query("Cache-Control", "max-age=60").query("Age", "30");
+        int requests = server.getHttpBin().getRequests();
+        get(WebClient.fromClient(aged));
+        get(WebClient.fromClient(aged).header("Cache-Control", "max-age=45"));
+        Assertions.assertEquals(requests + 1, server.getHttpBin().getRequests());
+        Assertions.assertEquals(1, cache.getHits());
+
+        // Too old for the request
+        get(WebClient.fromClient(aged).header("Cache-Control", "max-age=10"));
+        Assertions.assertEquals(requests + 2, server.getHttpBin().getRequests());
+        get(WebClient.fromClient(aged));
+        Assertions.assertEquals(requests + 2, server.getHttpBin().getRequests());
+        Assertions.assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    public void evictedEntriesAreMovedToDisk(@TempDir Path directory) throws IOException {
+        HttpCache cache = HttpCache.builder().maxBytes(5_000L).directory(directory).build();
+        WebClientFactory factory = factory(cache);
+
+        JSONObject first = get(factory.create(SETTINGS).path("/cache/60").query("i", 0).query("payload", 1000));
+        for (int i = 1; i < 10; i++) {
+            get(factory.create(SETTINGS).path("/cache/60").query("i", i).query("payload", 1000));
+        }
+        Assertions.assertEquals(10, cache.size());
+        Assertions.assertTrue(cache.getMemoryBytes() <= 5_000, "Memory: " + cache.getMemoryBytes());
+        Assertions.assertTrue(cache.getDiskBytes() > 0);
+        try (Stream<Path> files = Files.list(directory)) {
+            Assertions.assertTrue(files.count() > 0);
+        }
+
+        // Mapped back from the file
+        int requests = server.getHttpBin().getRequests();
+        Assertions.assertEquals(first.toString(),
+                get(factory.create(SETTINGS).path("/cache/60").query("i", 0).query("payload", 1000)).toString());
+        Assertions.assertEquals(requests, server.getHttpBin().getRequests());
+
+        cache.clear();
+        Assertions.assertEquals(0, cache.size());
+        try (Stream<Path> files = Files.list(directory)) {
+            Assertions.assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void filesOfAPreviousRunAreDeleted(@TempDir Path directory) throws IOException {
+        HttpCache previous = HttpCache.builder().maxBytes(1_000L).directory(directory).build();
+        WebClientFactory factory = factory(previous);
+        for (int i = 0; i < 5; i++) {
+            get(factory.create(SETTINGS).path("/cache/60").query("i", i).query("payload", 500));
+        }
+        Path other = Files.write(directory.resolve("other.txt"), new byte[]{1});
+        try (Stream<Path> files = Files.list(directory)) {
+            Assertions.assertTrue(files.count() > 1);
+        }
+
+        HttpCache cache = HttpCache.builder().directory(directory).build();
+        try (Stream<Path> files = Files.list(directory)) {
+            Assertions.assertEquals(Collections.singletonList(other), files.collect(Collectors.toList()));
+        }
+        Assertions.assertEquals(0, cache.getDiskBytes());
+    }
+
+    private static WebClientFactory factory(HttpCache cache) {
+        return WebClientFactory.builder().customizer(cache).build();
+    }
+
+    private static JSONObject get(WebClient client) {
+        Response response = client.get();
+        Assertions.assertEquals(200, response.getStatus());
+        return new JSONObject(response.readEntity(String.class));
+    }
+
+}
@@ -0,0 +1,90 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.talend.components.playground.cxf.client.builder.JsonArrayReader;
+import org.talend.components.playground.cxf.client.builder.StreamingResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bodies larger than what readEntity(String.class) could hold with a small heap, processed as they are read.
+ */
+class LargeDownloadTest {
+
+    private final static int SIZE = 256 * 1024 * 1024;
+
+    private final static HTTPServer.TestHTTPServer server = HTTPServer.createServer();
+
+    @BeforeAll
+    public static void beforeAll() {
+        server.getHttpServer().start();
+    }
+
+    @AfterAll
+    public static void afterAll() {
+        server.getHttpServer().stop(0);
+    }
+
+    @Test
+    public void transferToFile(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("export.bin");
+        long start = System.nanoTime();
+        try (StreamingResponse response = StreamingResponse.of(WebClient.create(server.getBaseUrl())
+                .path("bytes/{n}", SIZE)
+                .get())) {
+            Assertions.assertEquals(200, response.getStatus());
+            Assertions.assertEquals(SIZE, response.transferTo(file));
+        }
+        long duration = System.nanoTime() - start;
+        Assertions.assertEquals(SIZE, Files.size(file));
+
+        System.out.println(String.format("Downloaded %s MB in %s ms", SIZE / (1024 * 1024),
+                TimeUnit.NANOSECONDS.toMillis(duration)));
+    }
+
+    @Test
+    public void forEachBuffer() throws IOException {
+        long[] checksum = new long[1];
+        try (StreamingResponse response = StreamingResponse.of(WebClient.create(server.getBaseUrl())
+                .path("bytes/{n}", SIZE / 16)
+                .get())) {
+            Assertions.assertEquals(SIZE / 16, response.forEachBuffer(buffer -> {
+                while (buffer.hasRemaining()) {
+                    checksum[0] += buffer.get() & 0xFF;
+                }
+            }));
+        }
+        Assertions.assertTrue(checksum[0] > 0);
+    }
+
+    @Test
+    public void jsonRecords() {
+        int count = 1_000_000;
+        long ids = 0;
+        int records = 0;
+        try (StreamingResponse response = StreamingResponse.of(WebClient.create(server.getBaseUrl())
+                .path(HTTPServer.HTTP_RECORDS)
+                .query(RecordsHandler.COUNT_PARAM, count)
+                .get());
+             JsonArrayReader reader = response.jsonArray("/data")) {
+            while (reader.hasNext()) {
+                Map<?, ?> record = (Map<?, ?>) reader.next();
+                Assertions.assertEquals("Peter " + records, record.get("name"));
+                ids += (Long) record.get("id");
+                records++;
+            }
+        }
+        Assertions.assertEquals(count, records);
+        Assertions.assertEquals((long) count * (count - 1) / 2, ids);
+    }
+
+}
@@ -2,56 +2,55 @@ package org.talend.components.playground.cxf.rt.rs.client;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.InetAddress;
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.net.UnknownHostException;
-import java.security.cert.X509Certificate;
-
-import javax.net.ssl.HostnameVerifier;
-import javax.net.ssl.SSLEngine;
+
 import javax.net.ssl.SSLSession;
-import javax.net.ssl.TrustManager;
-import javax.net.ssl.X509TrustManager;
 import javax.ws.rs.core.Form;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
-import org.apache.cxf.configuration.jsse.TLSClientParameters;
 import org.apache.cxf.configuration.security.AuthorizationPolicy;
 import org.apache.cxf.jaxrs.client.WebClient;
 import org.apache.cxf.transport.http.HTTPConduit;
 import org.apache.cxf.transport.http.auth.HttpAuthHeader;
-import org.apache.cxf.transport.https.SSLUtils;
 import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
 import org.json.JSONObject;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.talend.components.playground.cxf.client.builder.ClientSettings;
+import org.talend.components.playground.cxf.client.builder.ConnectionCheck;
+import org.talend.components.playground.cxf.client.builder.ConnectionChecker;
+import org.talend.components.playground.cxf.client.builder.StreamingResponse;
+import org.talend.components.playground.cxf.client.builder.TlsContextCache;
 
 class MainTest {
 
     private final static HTTPServer.TestHTTPServer server = HTTPServer.createServer();
 
+    private final static HTTPServer.TestHTTPServer tlsServer = HTTPServer.createServer(HTTPServer.Config.builder().tls(true).build());
+
     @BeforeAll
     public static void beforeAll(){
         server.getHttpServer().start();
+        tlsServer.getHttpServer().start();
     }
 
     @AfterAll
     public static void afterAll(){
         server.getHttpServer().stop(0);
+        tlsServer.getHttpServer().stop(0);
     }
 
     @Test
     public void simpleGet() {
-        WebClient client = WebClient.create("https://httpbin.org");
+        WebClient client = WebClient.create(server.getBaseUrl());
         Response response = client.path("get")
                 .accept("application/json")
                 .invoke("GET", "");
@@ -73,6 +72,24 @@ class MainTest {
 
     }
 
+    @Test
+    public void streamedGet() throws IOException {
+        WebClient client = WebClient.create(server.getBaseUrl());
+        Response response = client.path("get")
+                .accept("application/json")
+                .invoke("GET", "");
+
+        // Copied as it is read, without a byte[] of the whole payload
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (StreamingResponse streaming = StreamingResponse.of(response)) {
+            Assertions.assertEquals(200, streaming.getStatus());
+            streaming.transferTo(out);
+        }
+
+        JSONObject json = new JSONObject(out.toString("UTF-8"));
+        Assertions.assertEquals("localhost:" + server.getPort(), json.getJSONObject("headers").getString("Host"));
+    }
+
     /**
      * First
      */
@@ -80,7 +97,7 @@ class MainTest {
     public void postCallWithParamsHeaderBody() {
 
         // The base URL
-        WebClient client = WebClient.create("https://httpbin.org");
+        WebClient client = WebClient.create(server.getBaseUrl());
 
         // Timeout configuration
         final HTTPConduit conduit = WebClient.getConfig(client).getHttpConduit();
@@ -114,7 +131,7 @@ class MainTest {
         Assertions.assertEquals(200, status);
         Assertions.assertEquals("{", strResponse.substring(0, 1)); // I retrieve the body
         Assertions.assertEquals("Body content", jsonResponse.getString("data"));
-        Assertions.assertEquals("httpbin.org", jsonResponse.getJSONObject("headers").getString("Host"));
+        Assertions.assertEquals("localhost:" + server.getPort(), jsonResponse.getJSONObject("headers").getString("Host"));
         Assertions.assertEquals("org.json.JSONArray", jsonResponse.getJSONObject("args").get("roles").getClass().getName());
         Assertions.assertEquals("user", jsonResponse.getJSONObject("args").getJSONArray("roles").get(1));
         Assertions.assertEquals("Peter", jsonResponse.getJSONObject("args").getString("name"));
@@ -128,24 +145,18 @@ class MainTest {
      */
     @Test
     public void disabledCertificateAndBasicAuthent() {
-        WebClient client = WebClient.create("https://restimprove:44300/", "peter", "aze123#", null);
+        WebClient client = WebClient.create(tlsServer.getBaseUrl(), "peter", "aze123#", null);
 
         boolean acceptAllCertificates = true;
         if (acceptAllCertificates) {
             final HTTPConduit conduit = WebClient.getConfig(client).getHttpConduit();
 
-            // Disabled certificates verification
-            TLSClientParameters params = conduit.getTlsClientParameters();
-            if (params == null) {
-                params = new TLSClientParameters();
-                conduit.setTlsClientParameters(params);
-            }
-            params.setTrustManagers(new TrustManager[]{new BlindTrustManager()});
-            params.setDisableCNCheck(true);
+            // Disabled certificates verification, the SSLContext is shared by the clients so TLS sessions are resumed
+            conduit.setTlsClientParameters(TlsContextCache.getDefault().parameters(TlsContextCache.ACCEPT_ALL, null, true));
         }
 
 
-        final Response resp = client.path("basic_authent.json").accept("application/json").invoke("GET", (Object) null);
+        final Response resp = client.path("basic-auth/{user}/{passwd}", "peter", "aze123#").accept("application/json").invoke("GET", (Object) null);
         final int status = resp.getStatus();
         final String strResponse = resp.readEntity(String.class);
         Assertions.assertEquals(200, status);
@@ -157,7 +168,7 @@ class MainTest {
      */
     @Test
     public void disabledCertificateAndDigestAuthent() {
-        WebClient client = WebClient.create("https://restimprove:45300/");
+        WebClient client = WebClient.create(tlsServer.getBaseUrl());
 
         // Get the conduit
         final HTTPConduit conduit = WebClient.getConfig(client).getHttpConduit();
@@ -166,13 +177,7 @@ class MainTest {
         if (acceptAllCertificates) {
 
             // Disable certificate verification
-            TLSClientParameters params = conduit.getTlsClientParameters();
-            if (params == null) {
-                params = new TLSClientParameters();
-                conduit.setTlsClientParameters(params);
-            }
-            params.setTrustManagers(new TrustManager[]{new BlindTrustManager()});
-            params.setDisableCNCheck(true);
+            conduit.setTlsClientParameters(TlsContextCache.getDefault().parameters(TlsContextCache.ACCEPT_ALL, null, true));
         }
 
         // Disgest authent support
@@ -183,16 +188,17 @@ class MainTest {
         conduit.setAuthorization(authPolicy);
 
 
-        final Response resp = client.path("digest_authent.json").accept("application/json").invoke("GET", (Object) null);
+        final Response resp = client.path("digest-auth/auth/john/abcde/MD5").accept("application/json").invoke("GET", (Object) null);
         final int status = resp.getStatus();
         final String strResponse = resp.readEntity(String.class);
         Assertions.assertEquals(200, status);
     }
 
     /**
-     * NTLM authent.
+     * NTLM authent, still on a remote host: excluded from the default build.
      */
     @Test
+    @Tag("external")
     public void certificateCheckingAndNTLMAuthent() {
         WebClient client = WebClient.create("https://mytestclient.demo1.freeipa.org");
 
@@ -202,13 +208,7 @@ class MainTest {
         boolean acceptAllCertificates = true;
         if (acceptAllCertificates) {
             // Disable certificate verification
-            TLSClientParameters params = conduit.getTlsClientParameters();
-            if (params == null) {
-                params = new TLSClientParameters();
-                conduit.setTlsClientParameters(params);
-            }
-            params.setTrustManagers(new TrustManager[]{new BlindTrustManager()});
-            params.setDisableCNCheck(true);
+            conduit.setTlsClientParameters(TlsContextCache.getDefault().parameters(TlsContextCache.ACCEPT_ALL, null, true));
         }
 
         // Disgest authent support
@@ -234,7 +234,7 @@ class MainTest {
     @Test
     public void maxRelativeRedirect() {
         // The base URL
-        WebClient client = WebClient.create("https://httpbin.org");
+        WebClient client = WebClient.create(server.getBaseUrl());
 
         // Get the conduit
         final HTTPConduit conduit = WebClient.getConfig(client).getHttpConduit();
@@ -266,7 +266,7 @@ class MainTest {
     })
     public void maxAbsoluteRedirect(String endpoint, boolean acceptRelativeRedirect, int maxRedirect, boolean isSuccess) {
         // The base URL
-        WebClient client = WebClient.create("https://httpbin.org");
+        WebClient client = WebClient.create(server.getBaseUrl());
 
         // Get the conduit
         final HTTPConduit conduit = WebClient.getConfig(client).getHttpConduit();
@@ -297,53 +297,28 @@ class MainTest {
      * - Resolve domain's name to IP
      * - Validate certificate
      * - Validate authentication
+     * {TLS} is the local HTTPS server.
      */
     @ParameterizedTest
-    @CsvSource({"https://httpbin.org/get?param=aaa, SUCCESS", // All is ok
-            "https://htt % pbin.org/get?param=aaa, MALFORMED_URI", // Malformed URI
-            "https://restimprove:45300/,SUCCESS"
+    @CsvSource({"{TLS}/get?param=aaa, true, SUCCESS", // All is ok
+            "https://htt % pbin.org/get?param=aaa, true, URI", // Malformed URI
+            "{TLS}/get?param=aaa, false, TLS", // Self-signed certificate not trusted
+            "{TLS}/basic-auth/peter/wrong, true, AUTH" // Wrong password
     })
-    public void checkConnection(String suri, String result) {
-        URI uri;
-        try {
-            uri = new URI(suri);
-        } catch (URISyntaxException e) {
-            Assertions.assertEquals("MALFORMED_URI", result);
-            return;
-        }
-
-        // Resolve hostname
-        try {
-            InetAddress address = InetAddress.getByName("httpbin.org");
-            System.out.println(suri + " address: " + address.getHostAddress());
-        } catch (UnknownHostException e) {
-            Assertions.fail("Unresolved host: " + e.getMessage());
-            return;
-        }
-
-        WebClient client = WebClient.create("https://httpbin.org");
-        final HTTPConduit conduit = WebClient.getConfig(client).getHttpConduit();
-        TLSClientParameters tlsClient = conduit.getTlsClientParameters();
-        if (tlsClient == null) {
-            tlsClient = new TLSClientParameters();
-            conduit.setTlsClientParameters(tlsClient);
-        }
-
-        /*try {
-            final SSLEngine clientSSLEngine = SSLUtils.createClientSSLEngine(tlsClient);
-            final HostnameVerifier hostnameVerifier = SSLUtils.getHostnameVerifier(tlsClient);
-            final boolean verify = hostnameVerifier.verify(suri, clientSSLEngine.getSession());
-            Assertions.assertTrue(verify);
-        } catch (Exception e) {
-            System.err.println("TLS verification error message: " + e.getMessage());
-            Assertions.assertEquals("TLS_VERIFICATION", result);
-            return;
-        }*/
-
-        HttpURLConnection connection; // = new HttpsU
-        //HttpURLConnection.
-
-        Assertions.assertEquals("SUCCESS", result);
+    public void checkConnection(String suri, boolean acceptAllCertificates, String result) {
+        ClientSettings settings = ClientSettings.builder()
+                .baseUrl(suri.replace("{TLS}", tlsServer.getBaseUrl()))
+                .acceptAllCertificates(acceptAllCertificates)
+                .authorizationType(HttpAuthHeader.AUTH_TYPE_BASIC)
+                .userName("peter")
+                .password("aze123#")
+                .build();
+
+        ConnectionCheck check = ConnectionChecker.create().check(settings).join();
+        check.getStages().forEach(stage -> System.out.println(String.format("%s %s: %s in %.3f ms",
+                suri, stage.getStage(), stage.getMessage(), stage.getMillis())));
+
+        Assertions.assertEquals(result, check.isSuccess() ? "SUCCESS" : check.getFailedStage().name());
     }
 
     @Test
@@ -351,7 +326,7 @@ class MainTest {
         Form form = new Form();
         form.param("name", "<péter>");
 
-        WebClient client = WebClient.create("https://httpbin.org");
+        WebClient client = WebClient.create(server.getBaseUrl());
         Response invoke = client.path("post")
                 .type(MediaType.APPLICATION_FORM_URLENCODED) //.invoke("POST", "{\"name\": \"peter\"}");
                 .invoke("POST", form);
@@ -359,6 +334,7 @@ class MainTest {
 
         //        .invoke("POST", "Hello world!");
         final String strResponse = invoke.readEntity(String.class);
+        Assertions.assertEquals(form.asMap().getFirst("name"), new JSONObject(strResponse).getJSONObject("form").getString("name"));
         System.out.printf("end.");
     }
 
@@ -404,7 +380,7 @@ class MainTest {
         String myUser = "myUser";
         String myPassword = "myPassword";
 
-        WebClient client = WebClient.create("https://httpbin.org/digest-auth/")
+        WebClient client = WebClient.create(server.getBaseUrl() + HTTPServer.HTTP_DIGEST_AUTH)
                 .path("{qop}/{user}/{passwd}/{algorithm}", qop, myUser, myPassword, algo);
 
         HTTPConduit httpConduit = WebClient.getConfig(client).getHttpConduit();
@@ -420,23 +396,4 @@ class MainTest {
         System.out.println(String.format("qop=%s, algo=%s => status: %s", qop, algo, response.getStatus())); // is 200 OK
     }
 
-
-    /**
-     * This dumb X509TrustManager trusts all certificate. TThis SHOULD NOT be used in Production.
-     */
-    public static class BlindTrustManager implements X509TrustManager {
-
-        public void checkClientTrusted(X509Certificate[] chain,
-                                       String authType) throws java.security.cert.CertificateException {
-        }
-
-        public void checkServerTrusted(X509Certificate[] chain,
-                                       String authType) throws java.security.cert.CertificateException {
-        }
-
-        public X509Certificate[] getAcceptedIssuers() {
-            return null;
-        }
-    }
-
 }
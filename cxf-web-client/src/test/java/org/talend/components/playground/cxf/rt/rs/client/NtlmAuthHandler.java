@@ -0,0 +1,297 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.json.JSONObject;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * NTLM authentication as a Windows server does it, at /ntlm-auth/{user}/{passwd}: a connection is authenticated by
+ * the three legs handshake, then its next requests are accepted without Authorization.
+ * <ol>
+ *     <li>No Authorization on a connection not authenticated: 401 with {@code WWW-Authenticate: NTLM}</li>
+ *     <li>{@code NTLM <negotiate>}: 401 with {@code WWW-Authenticate: NTLM <challenge>}</li>
+ *     <li>{@code NTLM <authenticate>}: the NTLMv2 response is checked with the password, 200 and the connection is
+ *     authenticated for the user, else 401</li>
+ * </ol>
+ * The connections are told apart by their client address and port. The handshakes and the requests accepted without
+ * handshake are counted.
+ */
+public class NtlmAuthHandler implements HttpHandler {
+
+    private final static byte[] SIGNATURE = "NTLMSSP\0".getBytes(StandardCharsets.US_ASCII);
+
+    private final static String DOMAIN = "TEST";
+
+    private final static int NEGOTIATE_UNICODE = 0x00000001;
+
+    private final static int REQUEST_TARGET = 0x00000004;
+
+    private final static int NEGOTIATE_NTLM = 0x00000200;
+
+    private final static int NEGOTIATE_ALWAYS_SIGN = 0x00008000;
+
+    private final static int TARGET_TYPE_DOMAIN = 0x00010000;
+
+    private final static int NEGOTIATE_EXTENDED_SESSION_SECURITY = 0x00080000;
+
+    private final static int NEGOTIATE_TARGET_INFO = 0x00800000;
+
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Server challenge of the connections in a handshake.
+     */
+    private final Map<InetSocketAddress, byte[]> challenges = new ConcurrentHashMap<>();
+
+    /**
+     * User of the authenticated connections.
+     */
+    private final Map<InetSocketAddress, String> authenticated = new ConcurrentHashMap<>();
+
+    private final AtomicInteger handshakes = new AtomicInteger();
+
+    private final AtomicInteger pinnedRequests = new AtomicInteger();
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    /**
+     * @return the handshakes succeeded.
+     */
+    public int getHandshakes() {
+        return handshakes.get();
+    }
+
+    /**
+     * @return the requests accepted on an authenticated connection, without handshake.
+     */
+    public int getPinnedRequests() {
+        return pinnedRequests.get();
+    }
+
+    /**
+     * @return the authenticate messages refused.
+     */
+    public int getFailures() {
+        return failures.get();
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        // Consumed, the connection must be kept alive between the legs
+        long length = 0;
+        try (InputStream in = exchange.getRequestBody()) {
+            final byte[] skip = new byte[8 * 1024];
+            int read;
+            while ((read = in.read(skip)) != -1) {
+                length += read;
+            }
+        }
+
+        final String[] path = exchange.getRequestURI().getPath().split("/");
+        if (path.length < 4) {
+            send(exchange, 404, null);
+            return;
+        }
+        final String user = path[2];
+        final String password = path[3];
+        final InetSocketAddress connection = exchange.getRemoteAddress();
+        final String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+
+        if (authorization == null || !authorization.startsWith("NTLM ")) {
+            if (user.equalsIgnoreCase(authenticated.get(connection))) {
+                pinnedRequests.incrementAndGet();
+                send(exchange, 200, new JSONObject().put("authenticated", true).put("user", user)
+                        .put("handshake", false).put("length", length));
+            } else {
+                send(exchange, 401, "NTLM");
+            }
+            return;
+        }
+
+        final byte[] message = Base64.getDecoder().decode(authorization.substring(5).trim());
+        final ByteBuffer buffer = ByteBuffer.wrap(message).order(ByteOrder.LITTLE_ENDIAN);
+        if (message.length < 12 || !Arrays.equals(Arrays.copyOf(message, SIGNATURE.length), SIGNATURE)) {
+            send(exchange, 400, null);
+            return;
+        }
+        final int type = buffer.getInt(8);
+        if (type == 1) {
+            authenticated.remove(connection);
+            final byte[] challenge = new byte[8];
+            random.nextBytes(challenge);
+            challenges.put(connection, challenge);
+            send(exchange, 401, "NTLM " + Base64.getEncoder().encodeToString(challengeMessage(challenge)));
+        } else if (type == 3) {
+            final byte[] challenge = challenges.remove(connection);
+            final String sentUser = string(message, buffer, 36);
+            if (challenge != null && sentUser.equalsIgnoreCase(user)
+                    && verify(challenge, bytes(message, buffer, 20), sentUser, string(message, buffer, 28), password)) {
+                authenticated.put(connection, user);
+                handshakes.incrementAndGet();
+                send(exchange, 200, new JSONObject().put("authenticated", true).put("user", user)
+                        .put("handshake", true).put("length", length));
+            } else {
+                failures.incrementAndGet();
+                send(exchange, 401, "NTLM");
+            }
+        } else {
+            send(exchange, 400, null);
+        }
+    }
+
+    /**
+     * Type 2 message: the flags, the server challenge, the target name and the target info with the domain.
+     */
+    private static byte[] challengeMessage(byte[] challenge) {
+        final byte[] target = DOMAIN.getBytes(StandardCharsets.UTF_16LE);
+        // MsvAvNbDomainName then MsvAvEOL
+        final ByteBuffer info = ByteBuffer.allocate(4 + target.length + 4).order(ByteOrder.LITTLE_ENDIAN);
+        info.putShort((short) 2).putShort((short) target.length).put(target).putInt(0);
+
+        final int offset = 48;
+        final ByteBuffer message = ByteBuffer.allocate(offset + target.length + info.capacity())
+                .order(ByteOrder.LITTLE_ENDIAN);
+        message.put(SIGNATURE).putInt(2);
+        message.putShort((short) target.length).putShort((short) target.length).putInt(offset);
+        message.putInt(NEGOTIATE_UNICODE | REQUEST_TARGET | NEGOTIATE_NTLM | NEGOTIATE_ALWAYS_SIGN
+                | TARGET_TYPE_DOMAIN | NEGOTIATE_EXTENDED_SESSION_SECURITY | NEGOTIATE_TARGET_INFO);
+        message.put(challenge).putLong(0);
+        message.putShort((short) info.capacity()).putShort((short) info.capacity())
+                .putInt(offset + target.length);
+        message.put(target).put(info.array());
+        return message.array();
+    }
+
+    /**
+     * NTLMv2: the response is HMAC-MD5(NTOWFv2, server challenge + blob) followed by the blob, with
+     * NTOWFv2 = HMAC-MD5(MD4(UTF-16LE(password)), UTF-16LE(upper(user) + domain)).
+     */
+    private static boolean verify(byte[] challenge, byte[] response, String user, String domain, String password) {
+        if (response.length <= 24) {
+            return false;
+        }
+        final byte[] blob = Arrays.copyOfRange(response, 16, response.length);
+        final byte[] ntowf = hmacMd5(Md4.digest(password.getBytes(StandardCharsets.UTF_16LE)),
+                (user.toUpperCase(Locale.ROOT) + domain).getBytes(StandardCharsets.UTF_16LE));
+        final byte[] proof = hmacMd5(ntowf, concat(challenge, blob));
+        return MessageDigest.isEqual(proof, Arrays.copyOf(response, 16));
+    }
+
+    private static byte[] hmacMd5(byte[] key, byte[] data) {
+        try {
+            final Mac mac = Mac.getInstance("HmacMD5");
+            mac.init(new SecretKeySpec(key, "HmacMD5"));
+            return mac.doFinal(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        final byte[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    /**
+     * @return the bytes of the security buffer (length, max length, offset) at position.
+     */
+    private static byte[] bytes(byte[] message, ByteBuffer buffer, int position) {
+        final int length = buffer.getShort(position) & 0xFFFF;
+        final int offset = buffer.getInt(position + 4);
+        return Arrays.copyOfRange(message, offset, offset + length);
+    }
+
+    private static String string(byte[] message, ByteBuffer buffer, int position) {
+        return new String(bytes(message, buffer, position), StandardCharsets.UTF_16LE);
+    }
+
+    private static void send(HttpExchange exchange, int status, Object content) throws IOException {
+        if (status == 401) {
+            exchange.getResponseHeaders().add("WWW-Authenticate", (String) content);
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+        final byte[] body = content == null ? new byte[0] : content.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    /**
+     * MD4 (RFC 1320), needed by NTLM and not provided by the JDK.
+     */
+    private final static class Md4 {
+
+        private static byte[] digest(byte[] input) {
+            final int blocks = (input.length + 8) / 64 + 1;
+            final byte[] padded = Arrays.copyOf(input, blocks * 64);
+            padded[input.length] = (byte) 0x80;
+            final ByteBuffer buffer = ByteBuffer.wrap(padded).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putLong(padded.length - 8, (long) input.length * 8);
+
+            int a = 0x67452301;
+            int b = 0xefcdab89;
+            int c = 0x98badcfe;
+            int d = 0x10325476;
+            final int[] x = new int[16];
+            for (int block = 0; block < blocks; block++) {
+                for (int i = 0; i < 16; i++) {
+                    x[i] = buffer.getInt(block * 64 + i * 4);
+                }
+                final int aa = a;
+                final int bb = b;
+                final int cc = c;
+                final int dd = d;
+                for (int i = 0; i < 16; i += 4) {
+                    a = Integer.rotateLeft(a + ((b & c) | (~b & d)) + x[i], 3);
+                    d = Integer.rotateLeft(d + ((a & b) | (~a & c)) + x[i + 1], 7);
+                    c = Integer.rotateLeft(c + ((d & a) | (~d & b)) + x[i + 2], 11);
+                    b = Integer.rotateLeft(b + ((c & d) | (~c & a)) + x[i + 3], 19);
+                }
+                for (int i = 0; i < 4; i++) {
+                    a = Integer.rotateLeft(a + ((b & c) | (b & d) | (c & d)) + x[i] + 0x5a827999, 3);
+                    d = Integer.rotateLeft(d + ((a & b) | (a & c) | (b & c)) + x[i + 4] + 0x5a827999, 5);
+                    c = Integer.rotateLeft(c + ((d & a) | (d & b) | (a & b)) + x[i + 8] + 0x5a827999, 9);
+                    b = Integer.rotateLeft(b + ((c & d) | (c & a) | (d & a)) + x[i + 12] + 0x5a827999, 13);
+                }
+                final int[] order = {0, 2, 1, 3};
+                for (int i : order) {
+                    a = Integer.rotateLeft(a + (b ^ c ^ d) + x[i] + 0x6ed9eba1, 3);
+                    d = Integer.rotateLeft(d + (a ^ b ^ c) + x[i + 8] + 0x6ed9eba1, 9);
+                    c = Integer.rotateLeft(c + (d ^ a ^ b) + x[i + 4] + 0x6ed9eba1, 11);
+                    b = Integer.rotateLeft(b + (c ^ d ^ a) + x[i + 12] + 0x6ed9eba1, 15);
+                }
+                a += aa;
+                b += bb;
+                c += cc;
+                d += dd;
+            }
+            return ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN).putInt(a).putInt(b).putInt(c).putInt(d)
+                    .array();
+        }
+    }
+
+}
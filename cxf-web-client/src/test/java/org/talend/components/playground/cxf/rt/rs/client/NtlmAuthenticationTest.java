@@ -0,0 +1,166 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.talend.components.playground.cxf.client.builder.ClientSettings;
+import org.talend.components.playground.cxf.client.builder.NtlmAuthentication;
+import org.talend.components.playground.cxf.client.builder.WebClientFactory;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NTLM handshakes against the stand-in of {@link NtlmAuthHandler}: one per connection, not per call. The async
+ * transport may open a connection while the previous one is being released, the handshakes are bounded, not exact.
+ */
+class NtlmAuthenticationTest {
+
+    private final static HTTPServer.TestHTTPServer server = HTTPServer.createServer(HTTPServer.Config.builder()
+            .threads(4)
+            .build());
+
+    @BeforeAll
+    public static void beforeAll() {
+        server.getHttpServer().start();
+    }
+
+    @AfterAll
+    public static void afterAll() {
+        server.getHttpServer().stop(0);
+    }
+
+    @Test
+    public void connectionStaysAuthenticated() {
+        WebClientFactory factory = WebClientFactory.create();
+        NtlmAuthentication ntlm = factory.getNtlm();
+        ClientSettings settings = settings("TEST\\pinned", "pinned", "secret");
+        int handshakes = server.getNtlmAuth().getHandshakes();
+        int pinned = server.getNtlmAuth().getPinnedRequests();
+
+        int handshakesSeen = 0;
+        for (int i = 0; i < 20; i++) {
+            Response response = factory.create(settings).accept(MediaType.APPLICATION_JSON)
+                    .type(MediaType.APPLICATION_JSON).post("{\"call\": " + i + "}");
+            Assertions.assertEquals(200, response.getStatus());
+            JSONObject json = new JSONObject(response.readEntity(String.class));
+            Assertions.assertEquals("pinned", json.getString("user"));
+            if (json.getBoolean("handshake")) {
+                handshakesSeen++;
+            } else {
+                Assertions.assertTrue(i > 0, "The first call needs a handshake");
+            }
+        }
+
+        Assertions.assertEquals(handshakesSeen, ntlm.getHandshakes());
+        Assertions.assertEquals(handshakes + handshakesSeen, server.getNtlmAuth().getHandshakes());
+        Assertions.assertTrue(handshakesSeen <= 5, "Handshakes: " + handshakesSeen);
+        Assertions.assertEquals(20, ntlm.getCalls());
+        Assertions.assertEquals(20 - handshakesSeen, ntlm.getHandshakesAvoided());
+        Assertions.assertEquals(pinned + 20 - handshakesSeen, server.getNtlmAuth().getPinnedRequests());
+    }
+
+    @Test
+    public void bigBodyIsReplayed() {
+        WebClientFactory factory = WebClientFactory.create();
+        ClientSettings settings = settings("big", "big", "secret");
+        // Over the memory threshold of the recording, replayed from its temporary file
+        byte[] body = new byte[1024 * 1024];
+        Arrays.fill(body, (byte) 'a');
+
+        Response response = factory.create(settings).type(MediaType.APPLICATION_OCTET_STREAM).post(body);
+        Assertions.assertEquals(200, response.getStatus());
+        JSONObject json = new JSONObject(response.readEntity(String.class));
+        Assertions.assertTrue(json.getBoolean("handshake"));
+        Assertions.assertEquals(body.length, json.getLong("length"));
+    }
+
+    @Test
+    public void connectionsArePinnedPerCredentials() {
+        WebClientFactory factory = WebClientFactory.create();
+        ClientSettings alice = settings("alice", "alice", "alice-secret");
+        ClientSettings bob = settings("bob", "bob", "bob-secret");
+        int handshakes = server.getNtlmAuth().getHandshakes();
+
+        // Interleaved: each call gets a connection authenticated for its own credentials
+        for (int i = 0; i < 10; i++) {
+            for (ClientSettings settings : new ClientSettings[]{alice, bob}) {
+                Response response = factory.create(settings).post("{}");
+                Assertions.assertEquals(200, response.getStatus());
+                Assertions.assertEquals(settings.getUserName(),
+                        new JSONObject(response.readEntity(String.class)).getString("user"));
+            }
+        }
+
+        // Never a call refused for the credentials of another user
+        NtlmAuthentication ntlm = factory.getNtlm();
+        Assertions.assertEquals(0, ntlm.getRejected());
+        Assertions.assertEquals(handshakes + ntlm.getHandshakes(), server.getNtlmAuth().getHandshakes());
+        Assertions.assertTrue(ntlm.getHandshakes() >= 2 && ntlm.getHandshakes() <= 6,
+                "Handshakes: " + ntlm.getHandshakes());
+        Assertions.assertEquals(20 - ntlm.getHandshakes(), ntlm.getHandshakesAvoided());
+    }
+
+    @Test
+    public void concurrentCalls() throws Exception {
+        WebClientFactory factory = WebClientFactory.create();
+        ClientSettings settings = settings("concurrent", "concurrent", "secret");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> statuses = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                statuses.add(executor.submit(() -> {
+                    Response response = factory.create(settings).get();
+                    response.readEntity(String.class);
+                    return response.getStatus();
+                }));
+            }
+            for (Future<Integer> status : statuses) {
+                Assertions.assertEquals(200, status.get(1, TimeUnit.MINUTES));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // One handshake per connection opened, about one per thread
+        NtlmAuthentication ntlm = factory.getNtlm();
+        Assertions.assertTrue(ntlm.getHandshakes() <= 12, "Handshakes: " + ntlm.getHandshakes());
+        Assertions.assertEquals(100 - ntlm.getHandshakes(), ntlm.getHandshakesAvoided());
+    }
+
+    @Test
+    public void wrongPassword() {
+        WebClientFactory factory = WebClientFactory.create();
+        int failures = server.getNtlmAuth().getFailures();
+        Response response = factory.create(settings("wrong", "wrong", "not-the-secret").toBuilder()
+                .baseUrl(server.getBaseUrl() + HTTPServer.HTTP_NTLM_AUTH + "/wrong/secret").build()).get();
+        Assertions.assertEquals(401, response.getStatus());
+        Assertions.assertEquals(failures + 1, server.getNtlmAuth().getFailures());
+        Assertions.assertEquals(1, factory.getNtlm().getRejected());
+        Assertions.assertEquals(0, factory.getNtlm().getHandshakesAvoided());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> factory.create(ClientSettings.builder()
+                .baseUrl(server.getBaseUrl())
+                .authorizationType(NtlmAuthentication.AUTH_TYPE_NTLM)
+                .build()));
+    }
+
+    private static ClientSettings settings(String userName, String user, String password) {
+        return ClientSettings.builder()
+                .baseUrl(server.getBaseUrl() + HTTPServer.HTTP_NTLM_AUTH + "/" + user + "/" + password)
+                .authorizationType(NtlmAuthentication.AUTH_TYPE_NTLM)
+                .userName(userName)
+                .password(password)
+                .build();
+    }
+
+}
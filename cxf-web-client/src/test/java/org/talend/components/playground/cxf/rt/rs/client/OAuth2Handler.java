@@ -0,0 +1,191 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * OAuth2 authorization server and protected resource, under /oauth2.
+ * <ul>
+ *     <li>POST /oauth2/token: client credentials grant, the client authenticated with Basic and the
+ *     {@link #CLIENT_SECRET}. Answers after {@link #TOKEN_LATENCY} ms a token valid expiresIn seconds.</li>
+ *     <li>/oauth2/resource: 200 with the client and scope of a valid Bearer token, else 401.</li>
+ * </ul>
+ * The tokens issued and the requests refused are counted.
+ */
+public class OAuth2Handler implements HttpHandler {
+
+    public final static String CLIENT_SECRET = "client-secret";
+
+    public final static long TOKEN_LATENCY = 100;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final Map<String, Token> tokens = new ConcurrentHashMap<>();
+
+    private final AtomicInteger tokensIssued = new AtomicInteger();
+
+    private final AtomicInteger refused = new AtomicInteger();
+
+    private volatile long expiresIn = 3600;
+
+    /**
+     * @return the token requests answered with a token.
+     */
+    public int getTokensIssued() {
+        return tokensIssued.get();
+    }
+
+    /**
+     * @return the token and resource requests answered with a 401.
+     */
+    public int getRefused() {
+        return refused.get();
+    }
+
+    public void setExpiresIn(long expiresIn) {
+        this.expiresIn = expiresIn;
+    }
+
+    /**
+     * Revokes all the tokens issued, the resource refuses them before their expiry.
+     */
+    public void revokeTokens() {
+        tokens.clear();
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        final String path = exchange.getRequestURI().getPath();
+        if (path.endsWith("/token")) {
+            token(exchange);
+        } else if (path.endsWith("/resource")) {
+            resource(exchange);
+        } else {
+            send(exchange, 404, null);
+        }
+    }
+
+    private void token(HttpExchange exchange) throws IOException {
+        final Map<String, String> form;
+        try (InputStream in = exchange.getRequestBody()) {
+            form = parseForm(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        if (!"POST".equals(exchange.getRequestMethod())
+                || !"client_credentials".equals(form.get("grant_type"))) {
+            send(exchange, 400, new JSONObject().put("error", "unsupported_grant_type"));
+            return;
+        }
+        final String clientId = clientId(exchange.getRequestHeaders().getFirst("Authorization"));
+        if (clientId == null) {
+            refused.incrementAndGet();
+            exchange.getResponseHeaders().add("WWW-Authenticate", "Basic realm=\"oauth2\"");
+            send(exchange, 401, new JSONObject().put("error", "invalid_client"));
+            return;
+        }
+
+        try {
+            Thread.sleep(TOKEN_LATENCY);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        final byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        final String value = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        final long lifetime = expiresIn;
+        tokens.put(value, new Token(clientId, form.get("scope"), System.currentTimeMillis() + lifetime * 1000));
+        tokensIssued.incrementAndGet();
+        send(exchange, 200, new JSONObject()
+                .put("access_token", value)
+                .put("token_type", "Bearer")
+                .put("expires_in", lifetime));
+    }
+
+    private void resource(HttpExchange exchange) throws IOException {
+        final String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        final Token token = authorization == null || !authorization.startsWith("Bearer ") ? null
+                : tokens.get(authorization.substring(7));
+        if (token == null || token.expiresAt <= System.currentTimeMillis()) {
+            refused.incrementAndGet();
+            exchange.getResponseHeaders().add("WWW-Authenticate", "Bearer error=\"invalid_token\"");
+            send(exchange, 401, null);
+            return;
+        }
+        send(exchange, 200, new JSONObject()
+                .put("client", token.clientId)
+                .put("scope", token.scope == null ? JSONObject.NULL : token.scope));
+    }
+
+    /**
+     * @return the client id of Basic credentials with the right secret, else null.
+     */
+    private static String clientId(String authorization) {
+        if (authorization == null || !authorization.startsWith("Basic ")) {
+            return null;
+        }
+        final String credentials = new String(Base64.getDecoder().decode(authorization.substring(6).trim()),
+                StandardCharsets.UTF_8);
+        final int separator = credentials.indexOf(':');
+        if (separator < 0 || !CLIENT_SECRET.equals(decode(credentials.substring(separator + 1)))) {
+            return null;
+        }
+        return decode(credentials.substring(0, separator));
+    }
+
+    private static Map<String, String> parseForm(String body) {
+        final Map<String, String> form = new HashMap<>();
+        for (String param : body.split("&")) {
+            final int separator = param.indexOf('=');
+            if (separator > 0) {
+                form.put(decode(param.substring(0, separator)), decode(param.substring(separator + 1)));
+            }
+        }
+        return form;
+    }
+
+    private static String decode(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    private static void send(HttpExchange exchange, int status, JSONObject content) throws IOException {
+        if (content == null) {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+        final byte[] body = content.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static final class Token {
+
+        private final String clientId;
+
+        private final String scope;
+
+        private final long expiresAt;
+
+        private Token(String clientId, String scope, long expiresAt) {
+            this.clientId = clientId;
+            this.scope = scope;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+}
@@ -0,0 +1,160 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Paginated records {"id": i} with the common pagination styles, total records in the path:
+ * <ul>
+ *     <li>/pages/offset/{total}?offset=o&amp;limit=l: {"total": n, "data": [...]}</li>
+ *     <li>/pages/cursor/{total}?cursor=c: {"data": [...], "next_cursor": "..."}, null on the last page</li>
+ *     <li>/pages/link/{total}?page=p: [...] and a Link header with rel="next" but on the last page</li>
+ *     <li>/pages/next-url/{total}?page=p: {"data": [...], "next": "relative URL"}, null on the last page</li>
+ * </ul>
+ * Pages other than offset ones have {@link #PAGE_SIZE} records. The latency of {@link HTTPServer.Config} delays
+ * each page without holding the server thread.
+ */
+public class PagesHandler implements HttpHandler {
+
+    public final static int PAGE_SIZE = 10;
+
+    private final static ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4, r -> {
+        Thread thread = new Thread(r, "pages-latency");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final HTTPServer.Config config;
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    public PagesHandler(HTTPServer.Config config) {
+        this.config = config;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        if (config.getLatency() <= 0) {
+            respond(exchange);
+            return;
+        }
+        scheduler.schedule(() -> {
+            try {
+                respond(exchange);
+            } catch (IOException | RuntimeException e) {
+                exchange.close();
+            }
+        }, config.getLatency(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the number of pages requested.
+     */
+    public int getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return the max number of pages requested at the same time.
+     */
+    public int getMaxInFlight() {
+        return maxInFlight.get();
+    }
+
+    public void reset() {
+        requests.set(0);
+        maxInFlight.set(0);
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        try {
+            // /pages/{style}/{total}
+            final String[] path = exchange.getRequestURI().getPath().split("/");
+            final JSONObject args = new JSONObject();
+            String query = exchange.getRequestURI().getQuery();
+            if (query != null) {
+                for (String param : query.split("&")) {
+                    int eq = param.indexOf('=');
+                    args.put(param.substring(0, eq), param.substring(eq + 1));
+                }
+            }
+            if (path.length != 4) {
+                send(exchange, 404, null, null);
+                return;
+            }
+            final String style = path[2];
+            final int total = Integer.parseInt(path[3]);
+            final int page = args.has("page") ? Integer.parseInt(args.getString("page")) : 0;
+
+            switch (style) {
+                case "offset":
+                    int offset = Integer.parseInt(args.getString("offset"));
+                    int limit = Integer.parseInt(args.getString("limit"));
+                    send(exchange, 200, new JSONObject().put("total", total).put("data", records(offset, limit, total)), null);
+                    return;
+                case "cursor":
+                    // The cursor is the offset, reversed to not be guessed
+                    int start = args.has("cursor") ? Integer.parseInt(new StringBuilder(args.getString("cursor")).reverse().toString()) : 0;
+                    Object next = start + PAGE_SIZE < total ? new StringBuilder(String.valueOf(start + PAGE_SIZE)).reverse().toString() : JSONObject.NULL;
+                    send(exchange, 200, new JSONObject().put("data", records(start, PAGE_SIZE, total)).put("next_cursor", next), null);
+                    return;
+                case "link":
+                    String link = (page + 1) * PAGE_SIZE < total
+                            ? "<" + path[3] + "?page=" + (page + 1) + ">; rel=\"next\"" : null;
+                    send(exchange, 200, records(page * PAGE_SIZE, PAGE_SIZE, total), link);
+                    return;
+                case "next-url":
+                    Object url = (page + 1) * PAGE_SIZE < total ? path[3] + "?page=" + (page + 1) : JSONObject.NULL;
+                    send(exchange, 200, new JSONObject().put("data", records(page * PAGE_SIZE, PAGE_SIZE, total)).put("next", url), null);
+                    return;
+                default:
+                    send(exchange, 404, null, null);
+            }
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private static JSONArray records(int offset, int limit, int total) {
+        JSONArray records = new JSONArray();
+        for (int i = offset; i < Math.min(offset + limit, total); i++) {
+            records.put(new JSONObject().put("id", i));
+        }
+        return records;
+    }
+
+    private static void send(HttpExchange exchange, int status, Object json, String link) throws IOException {
+        exchange.getRequestBody().close();
+        if (json == null) {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+        if (link != null) {
+            exchange.getResponseHeaders().add("Link", link);
+        }
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+}
@@ -0,0 +1,144 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.talend.components.playground.cxf.client.builder.ClientSettings;
+import org.talend.components.playground.cxf.client.builder.Page;
+import org.talend.components.playground.cxf.client.builder.PaginationException;
+import org.talend.components.playground.cxf.client.builder.PaginationStrategy;
+import org.talend.components.playground.cxf.client.builder.Paginator;
+import org.talend.components.playground.cxf.client.builder.WebClientFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Paginator against the pages of the local server, delayed by LATENCY ms each.
+ */
+class PaginatorTest {
+
+    private final static long LATENCY = 100;
+
+    private final static int TOTAL = 95;
+
+    private final static HTTPServer.TestHTTPServer server = HTTPServer.createServer(HTTPServer.Config.builder()
+            .latency(LATENCY)
+            .build());
+
+    private final static WebClientFactory factory = WebClientFactory.create();
+
+    @BeforeAll
+    public static void beforeAll() {
+        server.getHttpServer().start();
+    }
+
+    @AfterAll
+    public static void afterAll() {
+        server.getHttpServer().stop(0);
+    }
+
+    @BeforeEach
+    public void reset() {
+        server.getPages().reset();
+    }
+
+    static Stream<Arguments> strategies() {
+        return Stream.of(
+                Arguments.of("offset", PaginationStrategy.offset("offset", "limit", PagesHandler.PAGE_SIZE), "/data"),
+                Arguments.of("cursor", PaginationStrategy.cursor("cursor", "/next_cursor"), "/data"),
+                Arguments.of("link", PaginationStrategy.linkHeader(), ""),
+                Arguments.of("next-url", PaginationStrategy.nextUrl("/next"), "/data"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("strategies")
+    public void allRecords(String style, PaginationStrategy strategy, String recordsPointer) {
+        List<Long> ids;
+        try (Paginator paginator = paginator(style, strategy, recordsPointer, 2)) {
+            ids = paginator.records().map(r -> (Long) ((Map<?, ?>) r).get("id")).collect(Collectors.toList());
+        }
+        Assertions.assertEquals(IntStream.range(0, TOTAL).mapToObj(i -> (long) i).collect(Collectors.toList()), ids);
+    }
+
+    @Test
+    public void offsetPagesAreFetchedConcurrently() {
+        try (Paginator paginator = paginator("offset", PaginationStrategy.offset("offset", "limit", PagesHandler.PAGE_SIZE), "/data", 4)) {
+            Assertions.assertEquals(TOTAL, paginator.records().count());
+        }
+        Assertions.assertTrue(server.getPages().getMaxInFlight() > 1);
+        // The 10 pages, and at most lookahead pages past the last one
+        Assertions.assertTrue(server.getPages().getRequests() <= 10 + 4);
+    }
+
+    @Test
+    public void prefetchWhileProcessing() {
+        PaginationStrategy strategy = PaginationStrategy.cursor("cursor", "/next_cursor");
+        consume(paginator("cursor", strategy, "/data", 2));
+
+        long sequential = consume(paginator("cursor", strategy, "/data", 0));
+        long prefetched = consume(paginator("cursor", strategy, "/data", 2));
+
+        System.out.println(String.format("10 pages, %s ms latency and processing each: sequential %s ms, prefetched %s ms",
+                LATENCY, sequential, prefetched));
+        // About 10 * (latency + processing) against 10 * max(latency, processing)
+        Assertions.assertTrue(prefetched < sequential * 0.8);
+    }
+
+    @Test
+    public void backpressure() throws InterruptedException {
+        try (Paginator paginator = paginator("cursor", PaginationStrategy.cursor("cursor", "/next_cursor"), "/data", 2)) {
+            Assertions.assertEquals(0, paginator.next().getIndex());
+            // The caller is stuck on the first page
+            Thread.sleep(LATENCY * 6);
+            Assertions.assertEquals(3, server.getPages().getRequests());
+        }
+    }
+
+    @Test
+    public void failedPage() {
+        try (Paginator paginator = paginator("unknown", PaginationStrategy.nextUrl("/next"), "/data", 2)) {
+            PaginationException e = Assertions.assertThrows(PaginationException.class, paginator::hasNext);
+            Assertions.assertEquals(404, e.getStatus());
+            Assertions.assertFalse(paginator.hasNext());
+        }
+    }
+
+    private long consume(Paginator paginator) {
+        long start = System.nanoTime();
+        try (Paginator pages = paginator) {
+            while (pages.hasNext()) {
+                Page page = pages.next();
+                Assertions.assertFalse(page.getRecords().isEmpty());
+                try {
+                    Thread.sleep(LATENCY);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private static Paginator paginator(String style, PaginationStrategy strategy, String recordsPointer, int lookahead) {
+        return Paginator.builder()
+                .factory(factory)
+                .settings(ClientSettings.builder()
+                        .baseUrl(server.getBaseUrl() + HTTPServer.HTTP_PAGES + "/" + style + "/" + TOTAL)
+                        .build())
+                .strategy(strategy)
+                .recordsPointer(recordsPointer)
+                .lookahead(lookahead)
+                .build();
+    }
+
+}
@@ -0,0 +1,87 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Large JSON payload generated while sent: {@code {"count": n, "data": [{"id": 0, ...}, ...]}},
+ * with n from the count query parameter. The body is chunked, the server never holds it in memory.
+ * It is compressed with gzip or deflate when the Accept-Encoding of the request allows it.
+ */
+public class RecordsHandler implements HttpHandler {
+
+    public final static String COUNT_PARAM = "count";
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        final String query = exchange.getRequestURI().getQuery();
+        int count = 10;
+        if (query != null && query.startsWith(COUNT_PARAM + "=")) {
+            count = Integer.parseInt(query.substring(COUNT_PARAM.length() + 1));
+        }
+
+        final String encoding = encoding(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        if (encoding != null) {
+            exchange.getResponseHeaders().add("Content-Encoding", encoding);
+        }
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream body = exchange.getResponseBody();
+        if ("gzip".equals(encoding)) {
+            body = new GZIPOutputStream(body, 8192);
+        } else if ("deflate".equals(encoding)) {
+            body = new DeflaterOutputStream(body);
+        }
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8), 64 * 1024)) {
+            out.write("{\"count\": ");
+            out.write(Integer.toString(count));
+            out.write(", \"data\": [");
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write("{\"id\": ");
+                out.write(Integer.toString(i));
+                out.write(", \"name\": \"Peter ");
+                out.write(Integer.toString(i));
+                out.write("\", \"roles\": [\"admin\", \"user\"], \"active\": ");
+                out.write(i % 2 == 0 ? "true" : "false");
+                out.write(", \"score\": ");
+                out.write(Double.toString(i * 1.5));
+                out.write('}');
+            }
+            out.write("]}");
+        }
+    }
+
+    /**
+     * @return gzip or deflate when accepted, gzip first, else null.
+     */
+    private static String encoding(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        boolean deflate = false;
+        for (String coding : acceptEncoding.split(",")) {
+            final String[] parts = coding.trim().split(";");
+            if (parts.length > 1 && parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?")) {
+                continue;
+            }
+            if ("gzip".equalsIgnoreCase(parts[0].trim())) {
+                return "gzip";
+            }
+            deflate |= "deflate".equalsIgnoreCase(parts[0].trim());
+        }
+        return deflate ? "deflate" : null;
+    }
+
+}
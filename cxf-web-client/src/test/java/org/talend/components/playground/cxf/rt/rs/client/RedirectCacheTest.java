@@ -0,0 +1,155 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.talend.components.playground.cxf.client.builder.ClientSettings;
+import org.talend.components.playground.cxf.client.builder.RedirectCache;
+import org.talend.components.playground.cxf.client.builder.WebClientFactory;
+
+import javax.ws.rs.core.Response;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+
+/**
+ * Redirections sent by the server with and without the {@link RedirectCache}.
+ */
+class RedirectCacheTest {
+
+    private final static HTTPServer.TestHTTPServer server = HTTPServer.createServer();
+
+    private final static ClientSettings SETTINGS = ClientSettings.builder()
+            .baseUrl(server.getBaseUrl())
+            .autoRedirect(true)
+            .maxRetransmits(10)
+            .relativeRedirect(true)
+            .build();
+
+    @BeforeAll
+    public static void beforeAll() {
+        server.getHttpServer().start();
+    }
+
+    @AfterAll
+    public static void afterAll() {
+        server.getHttpServer().stop(0);
+    }
+
+    @Test
+    public void permanentRedirectionsAreSkipped() {
+        RedirectCache cache = RedirectCache.create();
+        WebClientFactory factory = WebClientFactory.builder().customizer(cache).build();
+        // 301 then 308 to /get
+        String path = redirectTo(redirectTo("/get", 308), 301);
+
+        int redirects = server.getHttpBin().getRedirects();
+        Assertions.assertEquals(200, get(factory, SETTINGS, path));
+        Assertions.assertEquals(redirects + 2, server.getHttpBin().getRedirects());
+        Assertions.assertEquals(2, cache.size());
+
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertEquals(200, get(factory, SETTINGS, path));
+        }
+        Assertions.assertEquals(redirects + 2, server.getHttpBin().getRedirects());
+        Assertions.assertEquals(10, cache.getHits());
+        Assertions.assertEquals(20, cache.getHopsSaved());
+    }
+
+    @Test
+    public void temporaryRedirectionsAreCachedWhenEnabled() {
+        RedirectCache permanentOnly = RedirectCache.create();
+        int redirects = server.getHttpBin().getRedirects();
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(200, get(factory(permanentOnly), SETTINGS, "/redirect/5"));
+        }
+        Assertions.assertEquals(redirects + 15, server.getHttpBin().getRedirects());
+        Assertions.assertEquals(0, permanentOnly.size());
+
+        RedirectCache temporary = RedirectCache.builder().temporaryTtl(60_000L).build();
+        WebClientFactory factory = factory(temporary);
+        redirects = server.getHttpBin().getRedirects();
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(200, get(factory, SETTINGS, "/redirect/5"));
+        }
+        Assertions.assertEquals(redirects + 5, server.getHttpBin().getRedirects());
+        Assertions.assertEquals(10, temporary.getHopsSaved());
+    }
+
+    @Test
+    public void redirectionsExpire() throws InterruptedException {
+        RedirectCache cache = RedirectCache.builder().ttl(200L).build();
+        WebClientFactory factory = factory(cache);
+        String path = redirectTo("/get", 301);
+
+        int redirects = server.getHttpBin().getRedirects();
+        get(factory, SETTINGS, path);
+        get(factory, SETTINGS, path);
+        Assertions.assertEquals(redirects + 1, server.getHttpBin().getRedirects());
+
+        Thread.sleep(300);
+        get(factory, SETTINGS, path);
+        Assertions.assertEquals(redirects + 2, server.getHttpBin().getRedirects());
+    }
+
+    @Test
+    public void conduitRulesAreHonored() {
+        RedirectCache cache = RedirectCache.builder().temporaryTtl(60_000L).build();
+        WebClientFactory factory = factory(cache);
+        Assertions.assertEquals(200, get(factory, SETTINGS, "/redirect/5"));
+
+        // Learned from relative locations, refused as by the conduit
+        ClientSettings noRelative = SETTINGS.toBuilder().relativeRedirect(false).build();
+        Assertions.assertThrows(RuntimeException.class, () -> get(factory, noRelative, "/redirect/5"));
+
+        // Too many redirections for the client
+        ClientSettings maxTwo = SETTINGS.toBuilder().maxRetransmits(2).build();
+        Assertions.assertNotEquals(200, get(factory, maxTwo, "/redirect/5"));
+
+        // To another host
+        String otherHost = "http://127.0.0.1:" + server.getPort() + "/get";
+        Assertions.assertEquals(200, get(factory, SETTINGS, redirectTo(otherHost, 301)));
+        int redirects = server.getHttpBin().getRedirects();
+        ClientSettings sameHostOnly = SETTINGS.toBuilder().sameHostOnly(true).build();
+        Assertions.assertThrows(RuntimeException.class, () -> get(factory, sameHostOnly, redirectTo(otherHost, 301)));
+        Assertions.assertEquals(redirects + 1, server.getHttpBin().getRedirects());
+    }
+
+    @Test
+    public void failedShortcutIsForgotten() {
+        RedirectCache cache = RedirectCache.create();
+        WebClientFactory factory = factory(cache);
+        String path = redirectTo("/not-found", 301);
+
+        Assertions.assertEquals(404, get(factory, SETTINGS, path));
+        Assertions.assertEquals(1, cache.size());
+        Assertions.assertEquals(404, get(factory, SETTINGS, path));
+        Assertions.assertEquals(0, cache.size());
+    }
+
+    private static WebClientFactory factory(RedirectCache cache) {
+        return WebClientFactory.builder().customizer(cache).build();
+    }
+
+    private static int get(WebClientFactory factory, ClientSettings settings, String path) {
+        WebClient client = factory.create(settings);
+        int query = path.indexOf('?');
+        client.path(query < 0 ? path : path.substring(0, query));
+        if (query >= 0) {
+            client.replaceQuery(path.substring(query + 1));
+        }
+        Response response = client.get();
+        response.close();
+        return response.getStatus();
+    }
+
+    private static String redirectTo(String url, int status) {
+        try {
+            return "/redirect-to?url=" + URLEncoder.encode(url, "UTF-8") + "&status_code=" + status;
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
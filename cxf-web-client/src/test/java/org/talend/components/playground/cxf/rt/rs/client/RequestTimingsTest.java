@@ -0,0 +1,191 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import org.apache.cxf.transport.http.auth.HttpAuthHeader;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.talend.components.playground.cxf.client.builder.ClientSettings;
+import org.talend.components.playground.cxf.client.builder.ConnectionPoolManager;
+import org.talend.components.playground.cxf.client.builder.LatencyHistogram;
+import org.talend.components.playground.cxf.client.builder.RequestTimings;
+import org.talend.components.playground.cxf.client.builder.TimingPhase;
+import org.talend.components.playground.cxf.client.builder.WebClientFactory;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.ws.rs.core.Response;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Phases measured by {@link RequestTimings} on the calls to the in-process server.
+ */
+class RequestTimingsTest {
+
+    private final static HTTPServer.TestHTTPServer server = HTTPServer.createServer();
+
+    private final static HTTPServer.TestHTTPServer tlsServer = HTTPServer.createServer(HTTPServer.Config.builder()
+            .tls(true)
+            .build());
+
+    private final static String HOST = host(server.getBaseUrl());
+
+    @BeforeAll
+    public static void beforeAll() {
+        server.getHttpServer().start();
+        tlsServer.getHttpServer().start();
+    }
+
+    @AfterAll
+    public static void afterAll() {
+        server.getHttpServer().stop(0);
+        tlsServer.getHttpServer().stop(0);
+    }
+
+    @Test
+    public void latencyIsTimeToFirstByte() {
+        RequestTimings timings = RequestTimings.create();
+        WebClientFactory factory = WebClientFactory.builder().customizer(timings).build();
+        ClientSettings settings = ClientSettings.builder().baseUrl(server.getBaseUrl()).build();
+        for (int i = 0; i < 5; i++) {
+            Response response = factory.create(settings).path("get").query(HttpBinHandler.LATENCY_PARAM, 100).get();
+            Assertions.assertEquals(200, response.getStatus());
+            response.readEntity(String.class);
+        }
+
+        LatencyHistogram ttfb = timings.getHistogram(HOST, "GET", 200, TimingPhase.TTFB);
+        Assertions.assertEquals(5, ttfb.getCount());
+        Assertions.assertTrue(ttfb.getPercentileMillis(50) >= 90, "TTFB: " + ttfb.getPercentileMillis(50));
+        LatencyHistogram total = timings.getHistogram(HOST, "GET", 200, TimingPhase.TOTAL);
+        Assertions.assertEquals(5, total.getCount());
+        Assertions.assertTrue(total.getMean() >= ttfb.getMean());
+        Assertions.assertEquals(5, timings.getHistogram(HOST, "GET", 200, TimingPhase.BODY).getCount());
+        Assertions.assertEquals(5, timings.getHistogram(HOST, "GET", 200, TimingPhase.WRITE).getCount());
+        Assertions.assertEquals(0, timings.getHistogram(HOST, "GET", 200, TimingPhase.REDIRECT).getCount());
+        Assertions.assertNull(timings.getHistogram(HOST, "GET", 404, TimingPhase.TTFB));
+    }
+
+    @Test
+    public void bodyIsRecordedOnceRead() throws Exception {
+        RequestTimings timings = RequestTimings.create();
+        WebClientFactory factory = WebClientFactory.builder().customizer(timings).build();
+        ClientSettings settings = ClientSettings.builder().baseUrl(server.getBaseUrl()).build();
+
+        Response response = factory.create(settings).path("post").post("{}");
+        Assertions.assertEquals(200, response.getStatus());
+        Assertions.assertEquals(1, timings.getHistogram(HOST, "POST", 200, TimingPhase.TTFB).getCount());
+        Assertions.assertEquals(0, timings.getHistogram(HOST, "POST", 200, TimingPhase.BODY).getCount());
+        response.readEntity(String.class);
+        response.close();
+        Assertions.assertEquals(1, timings.getHistogram(HOST, "POST", 200, TimingPhase.BODY).getCount());
+        Assertions.assertEquals(1, timings.getHistogram(HOST, "POST", 200, TimingPhase.TOTAL).getCount());
+
+        // Statuses in their own series
+        factory.create(settings).path("status/404").get().close();
+        Assertions.assertEquals(1, timings.getHistogram(HOST, "GET", 404, TimingPhase.TOTAL).getCount());
+
+        timings.reset();
+        Assertions.assertTrue(timings.getTimings().isEmpty());
+    }
+
+    @Test
+    public void redirectionsAndChallenges() {
+        RequestTimings timings = RequestTimings.create();
+        WebClientFactory factory = WebClientFactory.builder().customizer(timings).build();
+
+        ClientSettings redirected = ClientSettings.builder()
+                .baseUrl(server.getBaseUrl())
+                .autoRedirect(true)
+                .relativeRedirect(true)
+                .build();
+        Response response = factory.create(redirected).path("redirect/3").get();
+        Assertions.assertEquals(200, response.getStatus());
+        response.readEntity(String.class);
+        LatencyHistogram redirect = timings.getHistogram(HOST, "GET", 200, TimingPhase.REDIRECT);
+        Assertions.assertEquals(1, redirect.getCount());
+        Assertions.assertTrue(redirect.getMax() > 0);
+
+        ClientSettings digest = ClientSettings.builder()
+                .baseUrl(server.getBaseUrl() + HTTPServer.HTTP_DIGEST_AUTH + "/auth/timingsUser/passwd/MD5")
+                .authorizationType(HttpAuthHeader.AUTH_TYPE_DIGEST)
+                .userName("timingsUser")
+                .password("passwd")
+                .build();
+        response = factory.create(digest).get();
+        Assertions.assertEquals(200, response.getStatus());
+        response.readEntity(String.class);
+        Assertions.assertEquals(1, timings.getHistogram(HOST, "GET", 200, TimingPhase.AUTH_CHALLENGE).getCount());
+    }
+
+    @Test
+    public void connectionPhasesOfThePools() {
+        RequestTimings timings = RequestTimings.create();
+        String tlsHost = host(tlsServer.getBaseUrl());
+        try (ConnectionPoolManager manager = ConnectionPoolManager.builder().metrics(timings).allCalls(true).build()) {
+            WebClientFactory factory = WebClientFactory.builder().customizer(timings).build();
+            ClientSettings settings = ClientSettings.builder()
+                    .baseUrl(tlsServer.getBaseUrl())
+                    .acceptAllCertificates(true)
+                    .disableCNCheck(true)
+                    .build();
+            for (int i = 0; i < 3; i++) {
+                Response response = factory.create(settings).path("get").get();
+                Assertions.assertEquals(200, response.getStatus());
+                response.readEntity(String.class);
+            }
+        }
+
+        Assertions.assertTrue(timings.getHistogram(tlsHost, null, 0, TimingPhase.CONNECT).getCount() >= 1);
+        Assertions.assertTrue(timings.getHistogram(tlsHost, null, 0, TimingPhase.TLS).getCount() >= 1);
+        Assertions.assertTrue(timings.getHistogram(tlsHost, null, 0, TimingPhase.POOL_WAIT).getCount() >= 3);
+        Assertions.assertTrue(timings.getHistogram("localhost", null, 0, TimingPhase.DNS).getCount() >= 1);
+        Assertions.assertEquals(3, timings.getHistogram(tlsHost, "GET", 200, TimingPhase.TOTAL).getCount());
+    }
+
+    @Test
+    public void exportedThroughJmxAndListener() throws Exception {
+        Set<TimingPhase> phases = ConcurrentHashMap.newKeySet();
+        RequestTimings timings = RequestTimings.builder()
+                .listener((host, method, status, phase, nanos) -> phases.add(phase))
+                .build();
+        ObjectName name = timings.registerMBean(RequestTimings.DEFAULT_OBJECT_NAME);
+        try {
+            Assertions.assertThrows(IllegalStateException.class,
+                    () -> RequestTimings.create().registerMBean(RequestTimings.DEFAULT_OBJECT_NAME));
+
+            WebClientFactory factory = WebClientFactory.builder().customizer(timings).build();
+            ClientSettings settings = ClientSettings.builder().baseUrl(server.getBaseUrl()).build();
+            factory.create(settings).path("get").get().readEntity(String.class);
+            Assertions.assertTrue(phases.contains(TimingPhase.TTFB));
+            Assertions.assertTrue(phases.contains(TimingPhase.TOTAL));
+
+            CompositeData[] exported = (CompositeData[]) ManagementFactory.getPlatformMBeanServer()
+                    .getAttribute(name, "Timings");
+            Assertions.assertEquals(timings.getTimings().size(), exported.length);
+            CompositeData total = null;
+            for (CompositeData stats : exported) {
+                if ("TOTAL".equals(stats.get("phase"))) {
+                    total = stats;
+                }
+            }
+            Assertions.assertNotNull(total);
+            Assertions.assertEquals(HOST, total.get("host"));
+            Assertions.assertEquals(200, total.get("status"));
+            Assertions.assertEquals(1L, total.get("count"));
+            Assertions.assertTrue((Double) total.get("max") < TimeUnit.SECONDS.toMillis(10));
+        } finally {
+            timings.unregisterMBean();
+        }
+        Assertions.assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+
+    private static String host(String url) {
+        URI uri = URI.create(url);
+        return uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+    }
+
+}
@@ -0,0 +1,176 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.talend.components.playground.cxf.client.builder.CircuitBreaker;
+import org.talend.components.playground.cxf.client.builder.CircuitBreakerOpenException;
+import org.talend.components.playground.cxf.client.builder.ClientSettings;
+import org.talend.components.playground.cxf.client.builder.ConcurrencyLimiter;
+import org.talend.components.playground.cxf.client.builder.ResilientInvoker;
+import org.talend.components.playground.cxf.client.builder.RetryPolicy;
+import org.talend.components.playground.cxf.client.builder.WebClientFactory;
+
+import javax.ws.rs.core.Response;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calls to a server injecting faults (random 503, stalls) with the {@link ResilientInvoker}.
+ * The faults are seeded, so the sequential calls get the same ones on each run.
+ */
+class ResilientInvokerTest {
+
+    private final static WebClientFactory factory = WebClientFactory.create();
+
+    @Test
+    public void transientErrorsAreRetried() {
+        HTTPServer.TestHTTPServer server = start(HTTPServer.Config.builder().errorRate(0.3).seed(42).build());
+        try {
+            ResilientInvoker invoker = ResilientInvoker.builder()
+                    .retry(RetryPolicy.builder().maxAttempts(6).initialBackoff(1L).maxBackoff(5L).build())
+                    .build();
+
+            for (int i = 0; i < 50; i++) {
+                Response response = invoker.invoke(factory.create(settings(server)).path("get"), "GET", null);
+                Assertions.assertEquals(200, response.getStatus());
+                response.close();
+            }
+            Assertions.assertTrue(invoker.getRetries() > 0);
+            Assertions.assertEquals(50 + invoker.getRetries(), server.getHttpBin().getRequests());
+
+            // Not idempotent, sent once
+            int failed = 0;
+            for (int i = 0; i < 50; i++) {
+                Response response = invoker.invoke(factory.create(settings(server)).path("post"), "POST", "{}");
+                failed += response.getStatus() == 503 ? 1 : 0;
+                response.close();
+            }
+            Assertions.assertTrue(failed > 0);
+            Assertions.assertEquals(100 + invoker.getRetries(), server.getHttpBin().getRequests());
+        } finally {
+            server.getHttpServer().stop(0);
+        }
+    }
+
+    @Test
+    public void circuitOpensOnFailures() throws Exception {
+        HTTPServer.TestHTTPServer server = start(HTTPServer.Config.builder().build());
+        try {
+            CircuitBreaker breaker = CircuitBreaker.builder().slidingWindow(10).minimumCalls(5).openDuration(300L).build();
+            ResilientInvoker invoker = ResilientInvoker.builder().circuitBreaker(breaker).build();
+            String host = server.getBaseUrl();
+
+            for (int i = 0; i < 5; i++) {
+                Assertions.assertEquals(500,
+                        invoker.invoke(factory.create(settings(server)).path("status/500"), "GET", null).getStatus());
+            }
+            Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.getState(host));
+
+            int requests = server.getHttpBin().getRequests();
+            Assertions.assertThrows(CircuitBreakerOpenException.class,
+                    () -> invoker.invoke(factory.create(settings(server)).path("get"), "GET", null));
+            Assertions.assertEquals(requests, server.getHttpBin().getRequests());
+
+            Thread.sleep(400);
+            Assertions.assertEquals(200, invoker.invoke(factory.create(settings(server)).path("get"), "GET", null)
+                    .getStatus());
+            Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(host));
+        } finally {
+            server.getHttpServer().stop(0);
+        }
+    }
+
+    @Test
+    public void unexpectedFailuresReleaseTheHost() throws Exception {
+        CircuitBreaker breaker = CircuitBreaker.builder().slidingWindow(2).minimumCalls(2).openDuration(100L).build();
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.create();
+        ResilientInvoker invoker = ResilientInvoker.builder().circuitBreaker(breaker).concurrencyLimiter(limiter).build();
+        String host = "http://localhost:1";
+
+        for (int i = 0; i < 2; i++) {
+            Assertions.assertThrows(IllegalStateException.class, () -> invoker.invoke(failing(host), "GET", null));
+        }
+        Assertions.assertEquals(0, limiter.getInFlight(host));
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.getState(host));
+
+        // The half-open trial fails, the circuit opens again instead of waiting for it forever
+        Thread.sleep(150);
+        Assertions.assertThrows(IllegalStateException.class, () -> invoker.invoke(failing(host), "GET", null));
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.getState(host));
+        Thread.sleep(150);
+        Assertions.assertThrows(IllegalStateException.class, () -> invoker.invoke(failing(host), "GET", null));
+        Assertions.assertEquals(0, limiter.getInFlight(host));
+    }
+
+    @Test
+    public void hedgingCutsTheTailLatency() {
+        HTTPServer.TestHTTPServer server = start(HTTPServer.Config.builder()
+                .threads(4)
+                .stallRate(0.1)
+                .stall(300)
+                .seed(7)
+                .build());
+        try {
+            ResilientInvoker plain = ResilientInvoker.builder().build();
+            ResilientInvoker hedged = ResilientInvoker.builder().hedgePercentile(90.0).minHedgeDelay(50L).build();
+            // Latencies needed by the percentile
+            latencies(hedged, server, 20);
+
+            long[] plainLatencies = latencies(plain, server, 60);
+            long[] hedgedLatencies = latencies(hedged, server, 60);
+
+            long plainP99 = percentile(plainLatencies, 99);
+            long hedgedP99 = percentile(hedgedLatencies, 99);
+            Assertions.assertTrue(plainP99 >= 300, "p99 without hedging: " + plainP99);
+            Assertions.assertTrue(hedgedP99 < 300, "p99 with hedging: " + hedgedP99);
+            Assertions.assertTrue(hedged.getHedgeWins() > 0);
+            Assertions.assertTrue(hedged.getHedges() < 20, "Hedges: " + hedged.getHedges());
+        } finally {
+            server.getHttpServer().stop(0);
+        }
+    }
+
+    private static long[] latencies(ResilientInvoker invoker, HTTPServer.TestHTTPServer server, int calls) {
+        long[] latencies = new long[calls];
+        for (int i = 0; i < calls; i++) {
+            long start = System.nanoTime();
+            Response response = invoker.invoke(factory.create(settings(server)).path("get"), "GET", null);
+            Assertions.assertEquals(200, response.getStatus());
+            response.readEntity(String.class);
+            latencies[i] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+        return latencies;
+    }
+
+    private static long percentile(long[] latencies, double percentile) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(percentile / 100 * sorted.length) - 1];
+    }
+
+    private static HTTPServer.TestHTTPServer start(HTTPServer.Config config) {
+        HTTPServer.TestHTTPServer server = HTTPServer.createServer(config);
+        server.getHttpServer().start();
+        return server;
+    }
+
+    /**
+     * A client failing with another exception than the ProcessingException of the transport.
+     */
+    private static WebClient failing(String url) {
+        return new WebClient(URI.create(url)) {
+
+            @Override
+            public Response invoke(String method, Object body) {
+                throw new IllegalStateException("Unexpected");
+            }
+        };
+    }
+
+    private static ClientSettings settings(HTTPServer.TestHTTPServer server) {
+        return ClientSettings.builder().baseUrl(server.getBaseUrl()).build();
+    }
+
+}
@@ -0,0 +1,46 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Answers any request with the same text/plain payload of {@link HTTPServer.Config#getStaticSize()} bytes, encoded
+ * once, and its Content-Length: the cheapest response of the server, to measure the client alone.
+ */
+public class StaticHandler implements HttpHandler {
+
+    private final static List<String> CONTENT_TYPE = Collections.singletonList("text/plain");
+
+    private final byte[] payload;
+
+    private final byte[] skip = new byte[8 * 1024];
+
+    public StaticHandler(HTTPServer.Config config) {
+        payload = new byte[config.getStaticSize()];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) ('a' + i % 26);
+        }
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        // Consumed, or the connection can't be reused
+        try (InputStream in = exchange.getRequestBody()) {
+            while (in.read(skip) != -1) {
+                // Skip, the content of the shared array is never read
+            }
+        }
+        exchange.getResponseHeaders().put("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(200, payload.length == 0 ? -1 : payload.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(payload);
+        }
+    }
+
+}
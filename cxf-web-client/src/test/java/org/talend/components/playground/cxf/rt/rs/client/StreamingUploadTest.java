@@ -0,0 +1,222 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.talend.components.playground.cxf.client.builder.ClientSettings;
+import org.talend.components.playground.cxf.client.builder.StreamingForm;
+import org.talend.components.playground.cxf.client.builder.StreamingMultipart;
+import org.talend.components.playground.cxf.client.builder.WebClientFactory;
+
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uploads larger than the heap, streamed from disk and from generated streams to the upload context of the server.
+ * About 30 s, so skipped by default.
+ */
+@Tag("slow")
+class StreamingUploadTest {
+
+    private final static long FILE_SIZE = 2L * 1024 * 1024 * 1024;
+
+    private final static long STREAM_SIZE = 1024L * 1024 * 1024;
+
+    private final static HTTPServer.TestHTTPServer server = HTTPServer.createServer();
+
+    private final static ClientSettings SETTINGS = ClientSettings.builder()
+            .baseUrl(server.getBaseUrl() + HTTPServer.HTTP_UPLOAD)
+            .build();
+
+    private final WebClientFactory factory = WebClientFactory.create();
+
+    @BeforeAll
+    public static void beforeAll() {
+        server.getHttpServer().start();
+    }
+
+    @AfterAll
+    public static void afterAll() {
+        server.getHttpServer().stop(0);
+    }
+
+    @Test
+    public void largeMultipart(@TempDir Path dir) throws IOException {
+        // Sparse, read as zeros but the last bytes
+        Path file = dir.resolve("export.bin");
+        try (RandomAccessFile out = new RandomAccessFile(file.toFile(), "rw")) {
+            out.setLength(FILE_SIZE);
+            out.seek(FILE_SIZE - 3);
+            out.write(new byte[]{1, 2, 3});
+        }
+
+        StreamingMultipart body = StreamingMultipart.builder()
+                .part(StreamingMultipart.Part.field("name", "p\u00e9ter"))
+                .part(StreamingMultipart.Part.file("export", file))
+                .part(StreamingMultipart.Part.stream("generated", "generated \"1\".bin", "application/x-test",
+                        new GeneratedInputStream(STREAM_SIZE)))
+                .build();
+
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        Response response = body.post(factory.create(SETTINGS));
+        long duration = System.nanoTime() - start;
+        allocated = allocatedBytes() - allocated;
+
+        Assertions.assertEquals(200, response.getStatus());
+        JSONObject json = new JSONObject(response.readEntity(String.class));
+        Assertions.assertEquals("chunked", json.getString("transferEncoding"));
+        JSONArray parts = json.getJSONArray("parts");
+        Assertions.assertEquals(3, parts.length());
+        assertPart(parts.getJSONObject(0), "name", null, "p\u00e9ter".getBytes(StandardCharsets.UTF_8).length,
+                checksum("p\u00e9ter".getBytes(StandardCharsets.UTF_8)));
+        assertPart(parts.getJSONObject(1), "export", "export.bin", FILE_SIZE, 6);
+        Assertions.assertEquals("application/octet-stream", parts.getJSONObject(1).getString("contentType"));
+        assertPart(parts.getJSONObject(2), "generated", "generated %221%22.bin", STREAM_SIZE,
+                GeneratedInputStream.checksum(STREAM_SIZE));
+
+        // The buffers of the client, not the body
+        Assertions.assertTrue(allocated < 64 * 1024 * 1024, "Allocated " + allocated + " bytes");
+        System.out.println(String.format("Uploaded %s MB in %s ms, %s KB allocated",
+                (FILE_SIZE + STREAM_SIZE) / (1024 * 1024), TimeUnit.NANOSECONDS.toMillis(duration), allocated / 1024));
+    }
+
+    @Test
+    public void delimiterLikeContent() {
+        StreamingMultipart body = StreamingMultipart.builder()
+                .boundary("abc")
+                .part(StreamingMultipart.Part.builder().name("a").content("\r\n--ab\r\n--abd\r\r\n-").build())
+                .part(StreamingMultipart.Part.builder().name("b").content(new byte[]{'\r', '\n', '-', '-', 'a'}).build())
+                .part(StreamingMultipart.Part.field("empty", ""))
+                .build();
+        Assertions.assertEquals("multipart/form-data;boundary=abc", body.getMediaType().toString());
+
+        JSONArray parts = new JSONObject(body.post(factory.create(SETTINGS)).readEntity(String.class))
+                .getJSONArray("parts");
+        Assertions.assertEquals(3, parts.length());
+        assertPart(parts.getJSONObject(0), "a", null, 17,
+                checksum("\r\n--ab\r\n--abd\r\r\n-".getBytes(StandardCharsets.US_ASCII)));
+        assertPart(parts.getJSONObject(1), "b", null, 5, checksum(new byte[]{'\r', '\n', '-', '-', 'a'}));
+        assertPart(parts.getJSONObject(2), "empty", null, 0, 0);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> StreamingMultipart.builder().boundary("a b").build());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> StreamingMultipart.builder().part(StreamingMultipart.Part.builder().content("").build()).build());
+    }
+
+    @Test
+    public void largeForm() {
+        int count = 1_000_000;
+        // Generated while sent
+        Iterable<Map.Entry<String, Object>> fields = () -> new Iterator<Map.Entry<String, Object>>() {
+
+            private int i;
+
+            @Override
+            public boolean hasNext() {
+                return i < count;
+            }
+
+            @Override
+            public Map.Entry<String, Object> next() {
+                int n = i++;
+                return new AbstractMap.SimpleImmutableEntry<>("field " + n, n % 2 == 0 ? "a&b=" + n : "\u00e9");
+            }
+        };
+        long expected = 0;
+        for (Map.Entry<String, Object> field : fields) {
+            expected += checksum(field.getValue().toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        StreamingForm form = StreamingForm.of(fields);
+        JSONObject json = new JSONObject(form.post(factory.create(SETTINGS)).readEntity(String.class));
+        Assertions.assertEquals(count, json.getLong("fields"));
+        Assertions.assertEquals("a&b=0", json.getJSONObject("first").getString("field 0"));
+        Assertions.assertEquals("\u00e9", json.getJSONObject("last").getString("field " + (count - 1)));
+        Assertions.assertEquals(expected, json.getLong("checksum"));
+        Assertions.assertEquals("chunked", json.getString("transferEncoding"));
+
+        // Collection values as many fields
+        Map<String, Object> multiValued = Map.of("id", Arrays.asList(1, 2, 3));
+        json = new JSONObject(StreamingForm.of(multiValued.entrySet()).post(factory.create(SETTINGS))
+                .readEntity(String.class));
+        Assertions.assertEquals(3, json.getLong("fields"));
+        Assertions.assertEquals("3", json.getJSONObject("last").getString("id"));
+    }
+
+    private static void assertPart(JSONObject part, String name, String filename, long size, long checksum) {
+        Assertions.assertEquals(name, part.getString("name"));
+        Assertions.assertEquals(filename, part.isNull("filename") ? null : part.getString("filename"));
+        Assertions.assertEquals(size, part.getLong("size"));
+        Assertions.assertEquals(checksum, part.getLong("checksum"));
+    }
+
+    private static long checksum(byte[] bytes) {
+        long checksum = 0;
+        for (byte b : bytes) {
+            checksum += b & 0xFF;
+        }
+        return checksum;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * size bytes of i % 251, without holding them.
+     */
+    private final static class GeneratedInputStream extends InputStream {
+
+        private final long size;
+
+        private long position;
+
+        private GeneratedInputStream(long size) {
+            this.size = size;
+        }
+
+        private static long checksum(long size) {
+            long full = size / 251;
+            long checksum = full * (250L * 251 / 2);
+            for (long i = 0; i < size % 251; i++) {
+                checksum += i;
+            }
+            return checksum;
+        }
+
+        @Override
+        public int read() {
+            return position < size ? (int) (position++ % 251) : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (position >= size) {
+                return -1;
+            }
+            int n = (int) Math.min(len, size - position);
+            for (int i = 0; i < n; i++) {
+                b[off + i] = (byte) (position++ % 251);
+            }
+            return n;
+        }
+    }
+
+}
@@ -0,0 +1,133 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.talend.components.playground.cxf.client.builder.BatchClient;
+import org.talend.components.playground.cxf.client.builder.BatchRequest;
+import org.talend.components.playground.cxf.client.builder.BatchResults;
+import org.talend.components.playground.cxf.client.builder.ClientSettings;
+import org.talend.components.playground.cxf.client.builder.ConcurrencyLimiter;
+import org.talend.components.playground.cxf.client.builder.RateLimiter;
+import org.talend.components.playground.cxf.client.builder.ResilientInvoker;
+import org.talend.components.playground.cxf.client.builder.RetryPolicy;
+import org.talend.components.playground.cxf.client.builder.WebClientFactory;
+
+import javax.ws.rs.core.Response;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Batches sent to a throttling server, with and without the limiters of the {@link ResilientInvoker}.
+ */
+class ThrottlingTest {
+
+    private final static WebClientFactory factory = WebClientFactory.create();
+
+    @Test
+    public void rateLimiterStaysUnderTheServerRate() {
+        HTTPServer.Config config = HTTPServer.Config.builder().throttleRate(50).build();
+        HTTPServer.TestHTTPServer server = start(config);
+        try {
+            BatchResults<Integer> unlimited = batch(server, null, 8).execute(requests(100), Response::getStatus);
+            Assertions.assertTrue(unlimited.getFailures().size() > 50, "Throttled: " + unlimited.getFailures().size());
+        } finally {
+            server.getHttpServer().stop(0);
+        }
+
+        // A server not throttling yet
+        server = start(config);
+        try {
+            RateLimiter rateLimiter = RateLimiter.create(45);
+            ResilientInvoker invoker = ResilientInvoker.builder().rateLimiter(rateLimiter).build();
+            BatchResults<Integer> limited = batch(server, invoker, 8).execute(requests(100), Response::getStatus);
+
+            Assertions.assertTrue(limited.isSuccess(), () -> limited.getFailures().toString());
+            Assertions.assertTrue(server.getHttpBin().getThrottled() <= 2);
+            Assertions.assertTrue(limited.getThroughput() > 35 && limited.getThroughput() < 50,
+                    "Throughput: " + limited.getThroughput());
+        } finally {
+            server.getHttpServer().stop(0);
+        }
+    }
+
+    @Test
+    public void retryAfterPausesTheHost() {
+        HTTPServer.TestHTTPServer server = start(HTTPServer.Config.builder().throttleRate(2).build());
+        try {
+            RateLimiter rateLimiter = RateLimiter.create(100);
+            ResilientInvoker invoker = ResilientInvoker.builder()
+                    .rateLimiter(rateLimiter)
+                    .retry(RetryPolicy.builder().maxAttempts(2).build())
+                    .build();
+            String host = server.getBaseUrl();
+
+            Assertions.assertEquals(200, invoker.invoke(factory.create(settings(server)).path("get"), "GET", null)
+                    .getStatus());
+            ResilientInvoker noRetry = ResilientInvoker.builder().rateLimiter(rateLimiter).build();
+            Response throttled = noRetry.invoke(factory.create(settings(server)).path("get"), "GET", null);
+            Assertions.assertEquals(429, throttled.getStatus());
+            Assertions.assertEquals("1", throttled.getHeaderString("Retry-After"));
+            Assertions.assertFalse(rateLimiter.tryAcquire(host));
+
+            // Retried after the Retry-After
+            long start = System.nanoTime();
+            Assertions.assertEquals(200, invoker.invoke(factory.create(settings(server)).path("get"), "GET", null)
+                    .getStatus());
+            Assertions.assertTrue(System.nanoTime() - start >= 900_000_000L);
+        } finally {
+            server.getHttpServer().stop(0);
+        }
+    }
+
+    @Test
+    public void concurrencyConvergesToTheServerCapacity() {
+        HTTPServer.TestHTTPServer server = start(HTTPServer.Config.builder()
+                .throttleConcurrency(8)
+                .latency(20)
+                .build());
+        try {
+            BatchResults<Integer> unlimited = batch(server, null, 32).execute(requests(400), Response::getStatus);
+            Assertions.assertTrue(unlimited.getFailures().size() > 100, "Rejected: " + unlimited.getFailures().size());
+
+            int throttled = server.getHttpBin().getThrottled();
+            ConcurrencyLimiter limiter = ConcurrencyLimiter.builder().initialLimit(4).maxLimit(32).build();
+            ResilientInvoker invoker = ResilientInvoker.builder()
+                    .concurrencyLimiter(limiter)
+                    .retry(RetryPolicy.builder().maxAttempts(10).initialBackoff(5L).maxBackoff(50L).build())
+                    .build();
+            BatchResults<Integer> limited = batch(server, invoker, 32).execute(requests(400), Response::getStatus);
+
+            Assertions.assertTrue(limited.isSuccess(), () -> limited.getFailures().toString());
+            int rejected = server.getHttpBin().getThrottled() - throttled;
+            Assertions.assertTrue(rejected < 60, "Rejected: " + rejected);
+            int limit = limiter.getLimit(server.getBaseUrl());
+            Assertions.assertTrue(limit >= 5 && limit <= 10, "Limit: " + limit);
+        } finally {
+            server.getHttpServer().stop(0);
+        }
+    }
+
+    private static BatchClient batch(HTTPServer.TestHTTPServer server, ResilientInvoker invoker, int maxInFlight) {
+        return BatchClient.builder()
+                .factory(factory)
+                .settings(settings(server))
+                .maxInFlight(maxInFlight)
+                .invoker(invoker)
+                .build();
+    }
+
+    private static Stream<BatchRequest> requests(int count) {
+        return IntStream.range(0, count).mapToObj(i -> BatchRequest.builder().path("get").query("i", i).build());
+    }
+
+    private static HTTPServer.TestHTTPServer start(HTTPServer.Config config) {
+        HTTPServer.TestHTTPServer server = HTTPServer.createServer(config);
+        server.getHttpServer().start();
+        return server;
+    }
+
+    private static ClientSettings settings(HTTPServer.TestHTTPServer server) {
+        return ClientSettings.builder().baseUrl(server.getBaseUrl()).build();
+    }
+
+}
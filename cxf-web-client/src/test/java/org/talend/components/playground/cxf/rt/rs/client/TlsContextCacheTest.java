@@ -0,0 +1,98 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import org.apache.cxf.configuration.jsse.TLSClientParameters;
+import org.apache.cxf.jaxrs.client.WebClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.talend.components.playground.cxf.client.builder.TlsContextCache;
+
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+import javax.ws.rs.core.Response;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Full TLS handshakes of new clients, each call on a new connection: the server certificate is only checked on
+ * a full handshake, not when the session is resumed.
+ */
+class TlsContextCacheTest {
+
+    private final static int CALLS = 5;
+
+    private final static HTTPServer.TestHTTPServer tlsServer = HTTPServer.createServer(HTTPServer.Config.builder()
+            .tls(true)
+            .build());
+
+    @BeforeAll
+    public static void beforeAll() {
+        tlsServer.getHttpServer().start();
+    }
+
+    @AfterAll
+    public static void afterAll() {
+        tlsServer.getHttpServer().stop(0);
+    }
+
+    @Test
+    public void newContextPerClient() {
+        CountingTrustManager trustManager = new CountingTrustManager();
+        calls(() -> {
+            TLSClientParameters params = new TLSClientParameters();
+            params.setTrustManagers(new TrustManager[]{trustManager});
+            return params;
+        });
+        Assertions.assertEquals(CALLS, trustManager.checks.get());
+    }
+
+    @Test
+    public void sharedContextResumesSessions() {
+        CountingTrustManager trustManager = new CountingTrustManager();
+        TlsContextCache cache = TlsContextCache.builder().build();
+        TrustManager[] trustManagers = {trustManager};
+        calls(() -> cache.parameters(trustManagers, null, false));
+        Assertions.assertEquals(1, trustManager.checks.get());
+        Assertions.assertEquals(1, cache.size());
+        Assertions.assertEquals(1, cache.getMisses());
+        Assertions.assertEquals(CALLS - 1, cache.getHits());
+    }
+
+    private static void calls(Supplier<TLSClientParameters> params) {
+        for (int i = 0; i < CALLS; i++) {
+            WebClient client = WebClient.create(tlsServer.getBaseUrl());
+            WebClient.getConfig(client).getHttpConduit().setTlsClientParameters(params.get());
+            // Closed by the server, the next call can't reuse it
+            Response response = client.path("response-headers").query("Connection", "close").get();
+            Assertions.assertEquals(200, response.getStatus());
+            response.readEntity(String.class);
+        }
+    }
+
+    private final static class CountingTrustManager implements X509TrustManager {
+
+        private final X509TrustManager delegate = (X509TrustManager) HTTPServer.trustManagers()[0];
+
+        private final AtomicInteger checks = new AtomicInteger();
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+            delegate.checkClientTrusted(chain, authType);
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+            checks.incrementAndGet();
+            delegate.checkServerTrusted(chain, authType);
+        }
+
+        @Override
+        public X509Certificate[] getAcceptedIssuers() {
+            return delegate.getAcceptedIssuers();
+        }
+    }
+
+}
@@ -0,0 +1,261 @@
+package org.talend.components.playground.cxf.rt.rs.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the uploads while received and answers with their summary as JSON, the server never holds them in memory:
+ * <ul>
+ *     <li>multipart/form-data: {@code {"parts": [{"name", "filename", "contentType", "size", "checksum"}, ...]}}</li>
+ *     <li>application/x-www-form-urlencoded: {@code {"fields", "first", "last", "checksum"}}, first and last being
+ *     the first and last decoded fields as {"name": value}</li>
+ *     <li>anything else: {@code {"size", "checksum"}}</li>
+ * </ul>
+ * The checksum is the sum of the bytes, of the part or of the decoded values. The Transfer-Encoding of the request
+ * is added as transferEncoding.
+ */
+public class UploadHandler implements HttpHandler {
+
+    private final static Pattern NAME = Pattern.compile("[; ]name=\"([^\"]*)\"");
+
+    private final static Pattern FILENAME = Pattern.compile("filename=\"([^\"]*)\"");
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        final String type = exchange.getRequestHeaders().getFirst("Content-Type");
+        final JSONObject json;
+        try (InputStream in = exchange.getRequestBody()) {
+            final Reader reader = new Reader(in);
+            if (type != null && type.startsWith("multipart/form-data")) {
+                final Matcher boundary = Pattern.compile("boundary=\"?([^\";]+)").matcher(type);
+                if (!boundary.find()) {
+                    send(exchange, 400, new JSONObject().put("error", "No boundary"));
+                    return;
+                }
+                json = new JSONObject().put("parts", multipart(reader, boundary.group(1)));
+            } else if (type != null && type.startsWith("application/x-www-form-urlencoded")) {
+                json = form(reader);
+            } else {
+                long size = 0;
+                long checksum = 0;
+                for (int b; (b = reader.next()) != -1; size++) {
+                    checksum += b;
+                }
+                json = new JSONObject().put("size", size).put("checksum", checksum);
+            }
+            reader.skipAll();
+        } catch (EOFException e) {
+            send(exchange, 400, new JSONObject().put("error", e.getMessage()));
+            return;
+        }
+        json.put("transferEncoding", exchange.getRequestHeaders().getFirst("Transfer-Encoding"));
+        send(exchange, 200, json);
+    }
+
+    private static JSONArray multipart(Reader reader, String boundary) throws IOException {
+        final byte[] delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.US_ASCII);
+        final int[] failure = failure(delimiter);
+        final JSONArray parts = new JSONArray();
+
+        // Preamble, then the first delimiter without its CRLF
+        String line;
+        do {
+            line = reader.line();
+        } while (!line.equals("--" + boundary));
+
+        while (true) {
+            final JSONObject part = new JSONObject();
+            while (!(line = reader.line()).isEmpty()) {
+                final int colon = line.indexOf(':');
+                final String name = line.substring(0, colon).trim();
+                final String value = line.substring(colon + 1).trim();
+                if ("Content-Disposition".equalsIgnoreCase(name)) {
+                    final Matcher partName = NAME.matcher(value);
+                    final Matcher filename = FILENAME.matcher(value);
+                    part.put("name", partName.find() ? partName.group(1) : JSONObject.NULL);
+                    part.put("filename", filename.find() ? filename.group(1) : JSONObject.NULL);
+                } else if ("Content-Type".equalsIgnoreCase(name)) {
+                    part.put("contentType", value);
+                }
+            }
+
+            // Content until the delimiter, matched with KMP: the bytes in a partial match are counted once known
+            long size = 0;
+            long checksum = 0;
+            int matched = 0;
+            while (matched < delimiter.length) {
+                final int b = reader.next();
+                if (b == -1) {
+                    throw new EOFException("No closing delimiter");
+                }
+                if (matched == 0 && b != delimiter[0]) {
+                    size++;
+                    checksum += b;
+                    continue;
+                }
+                int next = matched;
+                while (next > 0 && delimiter[next] != (byte) b) {
+                    next = failure[next - 1];
+                }
+                if (delimiter[next] == (byte) b) {
+                    next++;
+                }
+                // matched bytes + b pending, next of them still pending
+                final int released = matched + 1 - next;
+                for (int i = 0; i < released; i++) {
+                    size++;
+                    checksum += i < matched ? delimiter[i] & 0xFF : b;
+                }
+                matched = next;
+            }
+            parts.put(part.put("size", size).put("checksum", checksum));
+
+            final int first = reader.next();
+            final int second = reader.next();
+            if (first == '-' && second == '-') {
+                return parts;
+            }
+            if (first != '\r' || second != '\n') {
+                throw new EOFException("Invalid delimiter");
+            }
+        }
+    }
+
+    private static JSONObject form(Reader reader) throws IOException {
+        final ByteArrayOutputStream field = new ByteArrayOutputStream();
+        long fields = 0;
+        long checksum = 0;
+        JSONObject first = null;
+        JSONObject last = null;
+        for (int b = reader.next(); ; b = reader.next()) {
+            if (b == '&' || b == -1) {
+                if (field.size() > 0) {
+                    final String encoded = new String(field.toByteArray(), StandardCharsets.US_ASCII);
+                    final int eq = encoded.indexOf('=');
+                    final String name = decode(eq < 0 ? encoded : encoded.substring(0, eq));
+                    final String value = eq < 0 ? "" : decode(encoded.substring(eq + 1));
+                    for (byte v : value.getBytes(StandardCharsets.UTF_8)) {
+                        checksum += v & 0xFF;
+                    }
+                    last = new JSONObject().put(name, value);
+                    if (first == null) {
+                        first = last;
+                    }
+                    fields++;
+                    field.reset();
+                }
+                if (b == -1) {
+                    break;
+                }
+            } else {
+                field.write(b);
+            }
+        }
+        return new JSONObject().put("fields", fields).put("checksum", checksum)
+                .put("first", first == null ? JSONObject.NULL : first)
+                .put("last", last == null ? JSONObject.NULL : last);
+    }
+
+    /**
+     * KMP failure function: the length of the longest proper prefix of pattern[0..i] which is also its suffix.
+     */
+    private static int[] failure(byte[] pattern) {
+        final int[] failure = new int[pattern.length];
+        for (int i = 1, k = 0; i < pattern.length; i++) {
+            while (k > 0 && pattern[i] != pattern[k]) {
+                k = failure[k - 1];
+            }
+            if (pattern[i] == pattern[k]) {
+                k++;
+            }
+            failure[i] = k;
+        }
+        return failure;
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, JSONObject json) throws IOException {
+        final byte[] body = json.toString(2).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    /**
+     * Unsynchronized buffered reads of the request body.
+     */
+    private final static class Reader {
+
+        private final InputStream in;
+
+        private final byte[] buffer = new byte[64 * 1024];
+
+        private int position;
+
+        private int limit;
+
+        private Reader(InputStream in) {
+            this.in = in;
+        }
+
+        private int next() throws IOException {
+            if (position == limit) {
+                limit = in.read(buffer);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        /**
+         * @return a line without its CRLF, in UTF-8.
+         */
+        private String line() throws IOException {
+            final ByteArrayOutputStream line = new ByteArrayOutputStream();
+            for (int b = next(); b != '\n'; b = next()) {
+                if (b == -1) {
+                    throw new EOFException("Unexpected end of the body");
+                }
+                line.write(b);
+            }
+            final byte[] bytes = line.toByteArray();
+            final int length = bytes.length > 0 && bytes[bytes.length - 1] == '\r' ? bytes.length - 1 : bytes.length;
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Consumes the epilogue, or the connection can't be reused.
+         */
+        private void skipAll() throws IOException {
+            while (in.read(buffer) != -1) {
+                // Skip
+            }
+        }
+    }
+
+}